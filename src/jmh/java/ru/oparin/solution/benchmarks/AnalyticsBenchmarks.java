@@ -0,0 +1,62 @@
+package ru.oparin.solution.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.oparin.solution.dto.analytics.AggregatedMetricsDto;
+import ru.oparin.solution.service.analytics.FunnelMetricsCalculator;
+import ru.oparin.solution.service.analytics.WbCampaignStatisticsAggregator;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Расчёты сводной аналитики кабинета: воронка по всем карточкам и агрегаты рекламной статистики.
+ * Репозитории — заглушки над {@link LargeCabinetFixtures}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class AnalyticsBenchmarks {
+
+    private LargeCabinetFixtures fixtures;
+    private FunnelMetricsCalculator funnelMetricsCalculator;
+    private WbCampaignStatisticsAggregator statisticsAggregator;
+    private List<Long> advertIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixtures = LargeCabinetFixtures.generate();
+        advertIds = fixtures.advertIds();
+        statisticsAggregator = new WbCampaignStatisticsAggregator(fixtures.statisticsRepository());
+        funnelMetricsCalculator = new FunnelMetricsCalculator(fixtures.analyticsRepository());
+    }
+
+    /**
+     * Воронка за 90 дней по 10 000 карточкам кабинета.
+     */
+    @Benchmark
+    public AggregatedMetricsDto funnelMetricsForCabinet() {
+        AggregatedMetricsDto metrics = new AggregatedMetricsDto();
+        funnelMetricsCalculator.calculateFunnelMetrics(metrics, fixtures.cards, fixtures.period);
+        return metrics;
+    }
+
+    /**
+     * Сумма рекламной статистики 500 кампаний за 90 дней (180 000 строк).
+     */
+    @Benchmark
+    public WbCampaignStatisticsAggregator.AdvertisingStats aggregateCampaignStats() {
+        return statisticsAggregator.aggregateStats(advertIds, fixtures.period);
+    }
+
+    /**
+     * Рекламная статистика по артикулам для тех же 180 000 строк.
+     */
+    @Benchmark
+    public Map<Long, WbCampaignStatisticsAggregator.AdvertisingStats> aggregateCampaignStatsByArticle() {
+        return statisticsAggregator.aggregateStatsByArticle(advertIds, fixtures.period);
+    }
+}
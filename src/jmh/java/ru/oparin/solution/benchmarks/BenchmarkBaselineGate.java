@@ -0,0 +1,204 @@
+package ru.oparin.solution.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Регрессионный порог бенчмарков: сравнивает результат JMH ({@code -rf json}) с закоммиченной базовой линией.
+ * <p>
+ * Базовая линия — объект {@code {"environment": {...}, "benchmarks": [...]}}: в {@code environment} JVM и железо,
+ * на которых записаны замеры, в {@code benchmarks} — результат JMH как есть. {@code updateBaseline=true}
+ * записывает текущий прогон вместе с окружением этой машины.
+ * <p>
+ * Для каждого бенчмарка (имя + параметры) проверяются среднее время ({@code primaryMetric}) и аллокации
+ * на операцию ({@code gc.alloc.rate.norm} из {@code -prof gc}): рост больше допуска — регрессия, код выхода 1.
+ * Бенчмарки без записи в базовой линии только выводятся. Пока замеры не записаны ({@code benchmarks} пуст
+ * или файла нет), порог работает в режиме отчёта: печатает результат и окружение и не роняет сборку.
+ * Если базовая линия записана на другой JVM или другом железе, об этом печатается предупреждение.
+ * <p>
+ * Аргументы: {@code <baseline.json> <jmh-result.json> <tolerance> [updateBaseline]}.
+ */
+public final class BenchmarkBaselineGate {
+
+    private static final String ALLOC_RATE_NORM = "gc.alloc.rate.norm";
+
+    /** Абсолютный запас по аллокациям: шум в пределах десятков байт на операцию — не регрессия. */
+    private static final double ALLOC_SLACK_BYTES = 64.0;
+
+    private BenchmarkBaselineGate() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Использование: BenchmarkBaselineGate <baseline.json> <jmh-result.json> <tolerance> [updateBaseline]");
+            System.exit(2);
+        }
+        Path baselinePath = Path.of(args[0]);
+        Path resultPath = Path.of(args[1]);
+        double tolerance = Double.parseDouble(args[2]);
+        boolean updateBaseline = args.length > 3 && Boolean.parseBoolean(args[3]);
+
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        JsonNode resultRuns = objectMapper.readTree(resultPath.toFile());
+        ObjectNode environment = currentEnvironment(objectMapper);
+
+        if (updateBaseline) {
+            ObjectNode baseline = objectMapper.createObjectNode();
+            baseline.set("environment", environment);
+            baseline.set("benchmarks", resultRuns);
+            Files.createDirectories(baselinePath.toAbsolutePath().getParent());
+            objectMapper.writeValue(baselinePath.toFile(), baseline);
+            System.out.println("Базовая линия обновлена: " + baselinePath + " " + environment);
+            return;
+        }
+
+        JsonNode baselineFile = Files.exists(baselinePath) ? objectMapper.readTree(baselinePath.toFile()) : null;
+        Map<String, JsonNode> baseline = baselineFile != null
+                ? index(baselineFile.path("benchmarks"))
+                : Map.of();
+        Map<String, JsonNode> results = index(resultRuns);
+        if (baseline.isEmpty()) {
+            System.out.println("Замеры в базовой линии (" + baselinePath + ") не записаны, сравнение пропущено. "
+                    + "Запишите их на эталонной машине: -Dbenchmarks.updateBaseline=true");
+            System.out.println("Окружение прогона: " + environment);
+            results.forEach((key, run) -> System.out.println("[report] " + key + ": "
+                    + primaryScore(run).orElse(Double.NaN) + " " + run.path("primaryMetric").path("scoreUnit").asText()
+                    + ", " + allocNorm(run).orElse(Double.NaN) + " B/op"));
+            return;
+        }
+        warnOnDifferentEnvironment(baselineFile.path("environment"), environment);
+
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, JsonNode> entry : results.entrySet()) {
+            JsonNode expected = baseline.get(entry.getKey());
+            if (expected == null) {
+                System.out.println("[new] " + entry.getKey() + ": нет в базовой линии");
+                continue;
+            }
+            JsonNode actual = entry.getValue();
+            compare(entry.getKey(), "score", primaryScore(expected), primaryScore(actual), tolerance, 0.0,
+                    actual.path("primaryMetric").path("scoreUnit").asText(), regressions);
+            compare(entry.getKey(), ALLOC_RATE_NORM, allocNorm(expected), allocNorm(actual), tolerance,
+                    ALLOC_SLACK_BYTES, "B/op", regressions);
+        }
+
+        if (!regressions.isEmpty()) {
+            System.err.println("Регрессии относительно базовой линии (допуск " + Math.round(tolerance * 100) + "%):");
+            regressions.forEach(line -> System.err.println("  " + line));
+            System.exit(1);
+        }
+        System.out.println("Бенчмарки в пределах базовой линии: " + results.size());
+    }
+
+    /**
+     * JVM и железо текущей машины — то, что пишется в {@code environment} базовой линии.
+     */
+    private static ObjectNode currentEnvironment(ObjectMapper objectMapper) {
+        ObjectNode environment = objectMapper.createObjectNode();
+        environment.put("jvm", System.getProperty("java.vm.name") + " " + System.getProperty("java.vm.version"));
+        environment.put("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        environment.put("cpu", cpuModel());
+        environment.put("cpus", Runtime.getRuntime().availableProcessors());
+        environment.put("maxHeapMb", Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        environment.put("recordedAt", LocalDate.now().toString());
+        return environment;
+    }
+
+    /**
+     * Модель процессора из {@code /proc/cpuinfo}; на других ОС — архитектура.
+     */
+    private static String cpuModel() {
+        Path cpuinfo = Path.of("/proc/cpuinfo");
+        if (Files.isReadable(cpuinfo)) {
+            try (Stream<String> lines = Files.lines(cpuinfo)) {
+                Optional<String> model = lines
+                        .filter(line -> line.startsWith("model name"))
+                        .map(line -> line.substring(line.indexOf(':') + 1).trim())
+                        .findFirst();
+                if (model.isPresent()) {
+                    return model.get();
+                }
+            } catch (IOException ignored) {
+                // модель процессора только для справки
+            }
+        }
+        return System.getProperty("os.arch");
+    }
+
+    /**
+     * Сравнение с замерами с другой машины мало что говорит — предупреждаем, но не роняем сборку.
+     */
+    private static void warnOnDifferentEnvironment(JsonNode recorded, ObjectNode current) {
+        for (String field : List.of("jvm", "cpu", "cpus")) {
+            String expected = recorded.path(field).asText();
+            String actual = current.path(field).asText();
+            if (!expected.equals(actual)) {
+                System.out.println("[warn] базовая линия записана в другом окружении: "
+                        + field + " " + expected + " -> " + actual);
+            }
+        }
+    }
+
+    private static void compare(
+            String benchmark,
+            String metric,
+            OptionalDouble expected,
+            OptionalDouble actual,
+            double tolerance,
+            double slack,
+            String unit,
+            List<String> regressions
+    ) {
+        if (expected.isEmpty() || actual.isEmpty()) {
+            return;
+        }
+        double limit = expected.getAsDouble() * (1.0 + tolerance) + slack;
+        String line = String.format(Locale.ROOT, "%s %s: %.3f -> %.3f %s", benchmark, metric,
+                expected.getAsDouble(), actual.getAsDouble(), unit);
+        if (actual.getAsDouble() > limit) {
+            regressions.add(line);
+        } else {
+            System.out.println("[ok] " + line);
+        }
+    }
+
+    /**
+     * Ключ бенчмарка: полное имя метода и параметры в порядке имён, например {@code ...calculateValueForPage{metricName=ctr}}.
+     */
+    private static Map<String, JsonNode> index(JsonNode runs) {
+        Map<String, JsonNode> byKey = new LinkedHashMap<>();
+        if (runs == null || !runs.isArray()) {
+            return byKey;
+        }
+        for (JsonNode run : runs) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+            JsonNode params = run.path("params");
+            if (params.isObject() && params.size() > 0) {
+                Map<String, String> sorted = new TreeMap<>();
+                params.fields().forEachRemaining(field -> sorted.put(field.getKey(), field.getValue().asText()));
+                key.append(sorted);
+            }
+            byKey.put(key.toString(), run);
+        }
+        return byKey;
+    }
+
+    private static OptionalDouble primaryScore(JsonNode run) {
+        JsonNode score = run.path("primaryMetric").path("score");
+        return score.isNumber() ? OptionalDouble.of(score.asDouble()) : OptionalDouble.empty();
+    }
+
+    private static OptionalDouble allocNorm(JsonNode run) {
+        JsonNode score = run.path("secondaryMetrics").path(ALLOC_RATE_NORM).path("score");
+        return score.isNumber() ? OptionalDouble.of(score.asDouble()) : OptionalDouble.empty();
+    }
+}
@@ -0,0 +1,49 @@
+package ru.oparin.solution.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.oparin.solution.model.BidderStatus;
+import ru.oparin.solution.model.Cabinet;
+import ru.oparin.solution.service.campaign.BidderStatusResolver;
+import ru.oparin.solution.service.campaign.WbCampaignManageAccessService;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пакетный статус биддера для 500 кампаний кабинета (по 14 слотов расписания на кампанию).
+ * Проверка подписки заменена на «доступ есть», чтобы замер не зависел от репозиториев подписок.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class BidderStatusResolverBenchmark {
+
+    private LargeCabinetFixtures fixtures;
+    private BidderStatusResolver bidderStatusResolver;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixtures = LargeCabinetFixtures.generate();
+        WbCampaignManageAccessService accessService = new WbCampaignManageAccessService(null, null, null) {
+            @Override
+            public boolean hasCampaignEntitlement(Cabinet cabinet) {
+                return true;
+            }
+        };
+        bidderStatusResolver = new BidderStatusResolver(accessService, fixtures.cabinetRepository());
+    }
+
+    @Benchmark
+    public Map<Long, BidderStatus> resolveForCabinet() {
+        return bidderStatusResolver.resolveForCabinet(
+                LargeCabinetFixtures.CABINET_ID,
+                fixtures.cabinet.getUser(),
+                fixtures.campaigns,
+                fixtures.statesByCampaignId,
+                fixtures.slotsByCampaignId
+        );
+    }
+}
@@ -0,0 +1,226 @@
+package ru.oparin.solution.benchmarks;
+
+import ru.oparin.solution.dto.analytics.PeriodDto;
+import ru.oparin.solution.model.*;
+import ru.oparin.solution.repository.CabinetRepository;
+import ru.oparin.solution.repository.WbProductCardAnalyticsRepository;
+import ru.oparin.solution.repository.WbPromotionCampaignRepository;
+import ru.oparin.solution.repository.WbPromotionCampaignStatisticsRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Детерминированные фикстуры «большого кабинета»: 10 000 карточек, 500 кампаний, 90 дней.
+ * <p>
+ * Аналитика воронки — {@value #DISTINCT_ANALYTICS_SERIES} различных 90-дневных рядов, разделяемых карточками
+ * (900 000 уникальных строк не нужны для замера, а куча форка остаётся умеренной). Статистика рекламы —
+ * по {@value #NM_IDS_PER_CAMPAIGN} артикула на кампанию за каждый день: 180 000 строк, как отдаёт
+ * {@code findByCampaignAdvertIdInAndDateBetween} для всего кабинета.
+ */
+final class LargeCabinetFixtures {
+
+    static final int CARDS = 10_000;
+    static final int CAMPAIGNS = 500;
+    static final int DAYS = 90;
+
+    static final long CABINET_ID = 1L;
+    static final long SELLER_ID = 1L;
+
+    private static final long FIRST_NM_ID = 100_000_000L;
+    private static final long FIRST_ADVERT_ID = 20_000_000L;
+    private static final int DISTINCT_ANALYTICS_SERIES = 64;
+    private static final int NM_IDS_PER_CAMPAIGN = 4;
+    private static final LocalDate PERIOD_END = LocalDate.of(2026, 3, 31);
+
+    final Cabinet cabinet;
+    final PeriodDto period;
+    final List<WbProductCard> cards;
+    final Map<Long, List<WbProductCardAnalytics>> analyticsByNmId;
+    final List<WbPromotionCampaign> campaigns;
+    final List<WbPromotionCampaignStatistics> statistics;
+    final Map<Long, List<WbPromotionCampaignStatistics>> statisticsByAdvertId;
+    final Map<Long, WbCampaignManagementState> statesByCampaignId;
+    final Map<Long, List<WbCampaignScheduleSlot>> slotsByCampaignId;
+
+    private LargeCabinetFixtures(long seed) {
+        Random random = new Random(seed);
+        cabinet = Cabinet.builder()
+                .id(CABINET_ID)
+                .user(User.builder().id(SELLER_ID).build())
+                .name("Большой кабинет")
+                .apiKey("benchmark-api-key")
+                .build();
+        period = PeriodDto.builder()
+                .id(1)
+                .name("90 дней")
+                .dateFrom(PERIOD_END.minusDays(DAYS - 1))
+                .dateTo(PERIOD_END)
+                .build();
+
+        cards = new ArrayList<>(CARDS);
+        for (int i = 0; i < CARDS; i++) {
+            cards.add(WbProductCard.builder()
+                    .nmId(FIRST_NM_ID + i)
+                    .cabinet(cabinet)
+                    .title("Товар " + i)
+                    .vendorCode("SKU-" + i)
+                    .build());
+        }
+
+        List<List<WbProductCardAnalytics>> series = new ArrayList<>(DISTINCT_ANALYTICS_SERIES);
+        for (int s = 0; s < DISTINCT_ANALYTICS_SERIES; s++) {
+            series.add(analyticsSeries(random, cards.get(s)));
+        }
+        analyticsByNmId = new HashMap<>(CARDS * 2);
+        for (int i = 0; i < CARDS; i++) {
+            analyticsByNmId.put(cards.get(i).getNmId(), series.get(i % DISTINCT_ANALYTICS_SERIES));
+        }
+
+        campaigns = new ArrayList<>(CAMPAIGNS);
+        statistics = new ArrayList<>(CAMPAIGNS * NM_IDS_PER_CAMPAIGN * DAYS);
+        statisticsByAdvertId = new HashMap<>(CAMPAIGNS * 2);
+        statesByCampaignId = new HashMap<>(CAMPAIGNS * 2);
+        slotsByCampaignId = new HashMap<>(CAMPAIGNS * 2);
+        long slotId = 1;
+        for (int c = 0; c < CAMPAIGNS; c++) {
+            long advertId = FIRST_ADVERT_ID + c;
+            WbPromotionCampaign campaign = WbPromotionCampaign.builder()
+                    .advertId(advertId)
+                    .cabinet(cabinet)
+                    .name("Кампания " + c)
+                    .status(c % 5 == 0 ? WbCampaignStatus.PAUSED : WbCampaignStatus.ACTIVE)
+                    .build();
+            campaigns.add(campaign);
+
+            List<WbPromotionCampaignStatistics> campaignStats = new ArrayList<>(NM_IDS_PER_CAMPAIGN * DAYS);
+            for (int k = 0; k < NM_IDS_PER_CAMPAIGN; k++) {
+                long nmId = FIRST_NM_ID + (long) (c * NM_IDS_PER_CAMPAIGN + k) % CARDS;
+                for (int d = 0; d < DAYS; d++) {
+                    campaignStats.add(campaignStatistics(random, campaign, nmId, period.getDateFrom().plusDays(d)));
+                }
+            }
+            statistics.addAll(campaignStats);
+            statisticsByAdvertId.put(advertId, campaignStats);
+
+            statesByCampaignId.put(advertId, WbCampaignManagementState.builder()
+                    .campaignId(advertId)
+                    .cabinetId(CABINET_ID)
+                    .manualStopped(c % 10 == 0)
+                    .scheduleEnabled(true)
+                    .topUpsTodayCount(0)
+                    .build());
+
+            List<WbCampaignScheduleSlot> slots = new ArrayList<>(14);
+            for (short dayOfWeek = 1; dayOfWeek <= 7; dayOfWeek++) {
+                slots.add(slot(slotId++, advertId, dayOfWeek, LocalTime.of(8, 0), LocalTime.of(14, 0)));
+                slots.add(slot(slotId++, advertId, dayOfWeek, LocalTime.of(14, 0), LocalTime.of(23, 30)));
+            }
+            slotsByCampaignId.put(advertId, slots);
+        }
+    }
+
+    static LargeCabinetFixtures generate() {
+        return new LargeCabinetFixtures(42L);
+    }
+
+    List<Long> advertIds() {
+        return campaigns.stream().map(WbPromotionCampaign::getAdvertId).toList();
+    }
+
+    WbProductCardAnalyticsRepository analyticsRepository() {
+        return RepositoryStubs.of(WbProductCardAnalyticsRepository.class)
+                .on("findByCabinet_IdAndProductCardNmIdAndDateBetween",
+                        args -> analyticsByNmId.getOrDefault((Long) args[1], List.of()))
+                .on("findByProductCardNmIdAndDateBetween",
+                        args -> analyticsByNmId.getOrDefault((Long) args[0], List.of()))
+                .build();
+    }
+
+    WbPromotionCampaignRepository campaignRepository() {
+        return RepositoryStubs.of(WbPromotionCampaignRepository.class)
+                .on("findByCabinet_Id", args -> campaigns)
+                .on("findByCabinet_User_Id", args -> campaigns)
+                .build();
+    }
+
+    WbPromotionCampaignStatisticsRepository statisticsRepository() {
+        return RepositoryStubs.of(WbPromotionCampaignStatisticsRepository.class)
+                .on("findByCampaignAdvertIdInAndDateBetween", args -> statisticsFor((Collection<?>) args[0]))
+                .build();
+    }
+
+    CabinetRepository cabinetRepository() {
+        Optional<Cabinet> found = Optional.of(cabinet);
+        return RepositoryStubs.of(CabinetRepository.class)
+                .on("findByIdWithUser", args -> cabinet.getId().equals(args[0]) ? found : Optional.empty())
+                .build();
+    }
+
+    /**
+     * Как ответ БД: для всего кабинета — готовый список, для части кампаний — новая выборка.
+     */
+    private List<WbPromotionCampaignStatistics> statisticsFor(Collection<?> advertIds) {
+        if (advertIds.size() == CAMPAIGNS) {
+            return statistics;
+        }
+        List<WbPromotionCampaignStatistics> result = new ArrayList<>();
+        for (Object advertId : advertIds) {
+            result.addAll(statisticsByAdvertId.getOrDefault((Long) advertId, List.of()));
+        }
+        return result;
+    }
+
+    private List<WbProductCardAnalytics> analyticsSeries(Random random, WbProductCard card) {
+        List<WbProductCardAnalytics> rows = new ArrayList<>(DAYS);
+        for (int d = 0; d < DAYS; d++) {
+            int openCard = 50 + random.nextInt(2_000);
+            int addToCart = openCard / (5 + random.nextInt(10));
+            int orders = addToCart / (2 + random.nextInt(4));
+            rows.add(WbProductCardAnalytics.builder()
+                    .productCard(card)
+                    .cabinet(cabinet)
+                    .date(period.getDateFrom().plusDays(d))
+                    .openCard(openCard)
+                    .addToCart(addToCart)
+                    .orders(orders)
+                    .ordersSum(BigDecimal.valueOf(orders * (500L + random.nextInt(5_000))))
+                    .build());
+        }
+        return rows;
+    }
+
+    private static WbPromotionCampaignStatistics campaignStatistics(
+            Random random,
+            WbPromotionCampaign campaign,
+            long nmId,
+            LocalDate date
+    ) {
+        int views = 100 + random.nextInt(20_000);
+        int clicks = views / (20 + random.nextInt(40));
+        int orders = clicks / (10 + random.nextInt(20));
+        return WbPromotionCampaignStatistics.builder()
+                .campaign(campaign)
+                .nmId(nmId)
+                .date(date)
+                .views(views)
+                .clicks(clicks)
+                .sum(BigDecimal.valueOf(clicks * (3L + random.nextInt(30)), 0))
+                .orders(orders)
+                .ordersSum(BigDecimal.valueOf(orders * (500L + random.nextInt(5_000))))
+                .build();
+    }
+
+    private static WbCampaignScheduleSlot slot(long id, long advertId, short dayOfWeek, LocalTime start, LocalTime end) {
+        return WbCampaignScheduleSlot.builder()
+                .id(id)
+                .campaignId(advertId)
+                .cabinetId(CABINET_ID)
+                .dayOfWeek(dayOfWeek)
+                .startTime(start)
+                .endTime(end)
+                .build();
+    }
+}
@@ -0,0 +1,65 @@
+package ru.oparin.solution.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.oparin.solution.model.WbProductCard;
+import ru.oparin.solution.service.analytics.MetricNames;
+import ru.oparin.solution.service.analytics.MetricValueCalculator;
+import ru.oparin.solution.service.analytics.WbCampaignStatisticsAggregator;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Значение метрики по артикулу без кэша рекламной статистики: метрики воронки читают 90-дневный ряд карточки,
+ * рекламные — агрегируют статистику всех кампаний кабинета на каждый вызов.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class MetricValueCalculatorBenchmark {
+
+    /** Карточек на вызов бенчмарка — как строк сводной таблицы на одной странице артикулов. */
+    private static final int CARDS_PER_PAGE = 50;
+
+    @Param({
+            MetricNames.TRANSITIONS,
+            MetricNames.ORDERS_AMOUNT,
+            MetricNames.CART_CONVERSION,
+            MetricNames.CTR,
+            MetricNames.DRR
+    })
+    public String metricName;
+
+    private LargeCabinetFixtures fixtures;
+    private List<WbProductCard> pageCards;
+    private MetricValueCalculator metricValueCalculator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixtures = LargeCabinetFixtures.generate();
+        pageCards = fixtures.cards.subList(0, CARDS_PER_PAGE);
+        metricValueCalculator = new MetricValueCalculator(
+                fixtures.analyticsRepository(),
+                fixtures.campaignRepository(),
+                new WbCampaignStatisticsAggregator(fixtures.statisticsRepository())
+        );
+    }
+
+    @Benchmark
+    public void calculateValueForPage(Blackhole blackhole) {
+        for (WbProductCard card : pageCards) {
+            blackhole.consume(metricValueCalculator.calculateValue(
+                    card,
+                    metricName,
+                    fixtures.period,
+                    LargeCabinetFixtures.SELLER_ID,
+                    LargeCabinetFixtures.CABINET_ID,
+                    null
+            ));
+        }
+    }
+}
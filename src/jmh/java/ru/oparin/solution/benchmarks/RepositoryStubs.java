@@ -0,0 +1,56 @@
+package ru.oparin.solution.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Заглушки Spring Data репозиториев для бенчмарков: вызов метода по имени отдаётся обработчику,
+ * остальные методы бросают {@link UnsupportedOperationException}. Так в замер попадает только код сервиса,
+ * а не БД.
+ */
+final class RepositoryStubs {
+
+    private RepositoryStubs() {
+    }
+
+    static <T> Builder<T> of(Class<T> repositoryType) {
+        return new Builder<>(repositoryType);
+    }
+
+    static final class Builder<T> {
+        private final Class<T> repositoryType;
+        private final Map<String, Function<Object[], Object>> handlers = new HashMap<>();
+
+        private Builder(Class<T> repositoryType) {
+            this.repositoryType = repositoryType;
+        }
+
+        Builder<T> on(String methodName, Function<Object[], Object> handler) {
+            handlers.put(methodName, handler);
+            return this;
+        }
+
+        T build() {
+            Object stub = Proxy.newProxyInstance(
+                    repositoryType.getClassLoader(),
+                    new Class<?>[]{repositoryType},
+                    (proxy, method, args) -> {
+                        Function<Object[], Object> handler = handlers.get(method.getName());
+                        if (handler != null) {
+                            return handler.apply(args);
+                        }
+                        return switch (method.getName()) {
+                            case "toString" -> repositoryType.getSimpleName() + "Stub";
+                            case "hashCode" -> System.identityHashCode(proxy);
+                            case "equals" -> proxy == args[0];
+                            default -> throw new UnsupportedOperationException(
+                                    repositoryType.getSimpleName() + "." + method.getName() + " не задан в заглушке");
+                        };
+                    }
+            );
+            return repositoryType.cast(stub);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ru.oparin.solution.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.oparin.solution.service.wb.WbApiCategory;
+import ru.oparin.solution.service.wb.WbApiTokenTypeResolver;
+import ru.oparin.solution.service.wb.WbEndpointRateLimitCoordinator;
+import ru.oparin.solution.service.wb.WbHttpSuccessSpacingMsResolver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы {@code beforeRequest} на открытом слоте: ключ слота, поиск в карте и захват слота
+ * из 8 потоков пула событий. Слоты без заголовков лимита и без spacing, поэтому ожиданий нет.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class WbEndpointRateLimitCoordinatorBenchmark {
+
+    private static final int API_KEYS = 200;
+
+    private static final String[] ENDPOINTS = {
+            "content-api.wildberries.ru/content/v2/get/cards/list",
+            "seller-analytics-api.wildberries.ru/api/analytics/v3/sales-funnel/products/history",
+            "seller-analytics-api.wildberries.ru/api/v2/stocks-report/products/sizes",
+            "advert-api.wildberries.ru/adv/v3/fullstats",
+            "advert-api.wildberries.ru/api/advert/v2/adverts",
+            "discounts-prices-api.wildberries.ru/api/v2/list/goods/filter",
+            "statistics-api.wildberries.ru/api/v1/supplier/orders",
+            "marketplace-api.wildberries.ru/api/v3/warehouses"
+    };
+
+    private WbEndpointRateLimitCoordinator coordinator;
+    private String[] apiKeys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        coordinator = new WbEndpointRateLimitCoordinator(
+                new WbHttpSuccessSpacingMsResolver(),
+                new WbApiTokenTypeResolver(null)
+        );
+        apiKeys = new String[API_KEYS];
+        for (int i = 0; i < API_KEYS; i++) {
+            apiKeys[i] = "benchmark-api-key-" + i;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public void beforeRequestOpenSlot(Cursor cursor) {
+        int index = cursor.next++;
+        String apiKey = apiKeys[Math.floorMod(index, API_KEYS)];
+        String endpointKey = ENDPOINTS[Math.floorMod(index / API_KEYS, ENDPOINTS.length)];
+        coordinator.beforeRequest(apiKey, endpointKey, WbApiCategory.ANALYTICS);
+    }
+}
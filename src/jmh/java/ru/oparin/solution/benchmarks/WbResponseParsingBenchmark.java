@@ -0,0 +1,196 @@
+package ru.oparin.solution.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.oparin.solution.dto.wb.WbPromotionFullStatsResponse;
+import ru.oparin.solution.dto.wb.WbStocksSizesResponse;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор ответов WB тем же способом, что в клиентах: {@code stocks-report/products/sizes} для одной карточки
+ * и пачка {@code adv/v3/fullstats} (50 кампаний × 90 дней × 2 приложения × 4 артикула).
+ * JSON генерируется из DTO в setup тем же маппером, что и при разборе.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WbResponseParsingBenchmark {
+
+    private static final TypeReference<List<WbPromotionFullStatsResponse.CampaignStats>> FULL_STATS_TYPE =
+            new TypeReference<>() {
+            };
+
+    private static final int STOCK_SIZES = 12;
+    private static final int STOCK_OFFICES = 40;
+    private static final int FULL_STATS_CAMPAIGNS = 50;
+    private static final int FULL_STATS_APP_TYPES = 2;
+    private static final int FULL_STATS_NM_IDS = 4;
+
+    private ObjectMapper objectMapper;
+    private byte[] stocksSizesJson;
+    private byte[] fullStatsJson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        Random random = new Random(42L);
+        stocksSizesJson = objectMapper.writeValueAsString(stocksSizes(random)).getBytes(StandardCharsets.UTF_8);
+        fullStatsJson = objectMapper.writeValueAsString(fullStats(random)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public WbStocksSizesResponse parseStocksSizes() throws Exception {
+        return objectMapper.readValue(stocksSizesJson, WbStocksSizesResponse.class);
+    }
+
+    @Benchmark
+    public List<WbPromotionFullStatsResponse.CampaignStats> parseFullStatsBatch() throws Exception {
+        return objectMapper.readValue(fullStatsJson, FULL_STATS_TYPE);
+    }
+
+    private static WbStocksSizesResponse stocksSizes(Random random) {
+        List<WbStocksSizesResponse.SizeItem> sizes = new ArrayList<>(STOCK_SIZES);
+        for (int s = 0; s < STOCK_SIZES; s++) {
+            List<WbStocksSizesResponse.OfficeStock> offices = new ArrayList<>(STOCK_OFFICES);
+            for (int o = 0; o < STOCK_OFFICES; o++) {
+                offices.add(WbStocksSizesResponse.OfficeStock.builder()
+                        .regionName("Регион " + (o % 8))
+                        .officeID(500_000L + o)
+                        .officeName("Склад " + o)
+                        .metrics(officeMetrics(random))
+                        .build());
+            }
+            sizes.add(WbStocksSizesResponse.SizeItem.builder()
+                    .name(String.valueOf(40 + s))
+                    .chrtID(300_000_000L + s)
+                    .offices(offices)
+                    .metrics(WbStocksSizesResponse.SizeMetrics.builder()
+                            .ordersCount((long) random.nextInt(1_000))
+                            .ordersSum((long) random.nextInt(1_000_000))
+                            .avgOrders(random.nextDouble() * 30)
+                            .buyoutCount((long) random.nextInt(800))
+                            .buyoutSum((long) random.nextInt(800_000))
+                            .buyoutPercent(random.nextInt(100))
+                            .stockCount((long) random.nextInt(5_000))
+                            .stockSum((long) random.nextInt(5_000_000))
+                            .saleRate(timePeriod(random))
+                            .avgStockTurnover(timePeriod(random))
+                            .currentPrice(WbStocksSizesResponse.CurrentPrice.builder()
+                                    .minPrice(900L + random.nextInt(100))
+                                    .maxPrice(1_000L + random.nextInt(500))
+                                    .build())
+                            .build())
+                    .build());
+        }
+        return WbStocksSizesResponse.builder()
+                .data(WbStocksSizesResponse.Data.builder()
+                        .sizes(sizes)
+                        .offices(List.of())
+                        .currency("RUB")
+                        .build())
+                .build();
+    }
+
+    private static WbStocksSizesResponse.OfficeMetrics officeMetrics(Random random) {
+        return WbStocksSizesResponse.OfficeMetrics.builder()
+                .ordersCount((long) random.nextInt(100))
+                .ordersSum((long) random.nextInt(100_000))
+                .avgOrders(random.nextDouble() * 3)
+                .buyoutCount((long) random.nextInt(80))
+                .buyoutSum((long) random.nextInt(80_000))
+                .buyoutPercent(random.nextInt(100))
+                .stockCount((long) random.nextInt(500))
+                .stockSum((long) random.nextInt(500_000))
+                .saleRate(timePeriod(random))
+                .avgStockTurnover(timePeriod(random))
+                .toClientCount((long) random.nextInt(50))
+                .fromClientCount((long) random.nextInt(10))
+                .officeMissingTime(timePeriod(random))
+                .lostOrdersCount(random.nextDouble() * 5)
+                .lostOrdersSum(random.nextDouble() * 5_000)
+                .lostBuyoutsCount(random.nextDouble() * 4)
+                .lostBuyoutsSum(random.nextDouble() * 4_000)
+                .build();
+    }
+
+    private static WbStocksSizesResponse.TimePeriod timePeriod(Random random) {
+        return WbStocksSizesResponse.TimePeriod.builder()
+                .days(random.nextInt(60))
+                .hours(random.nextInt(24))
+                .build();
+    }
+
+    private static List<WbPromotionFullStatsResponse.CampaignStats> fullStats(Random random) {
+        LocalDate dateFrom = LocalDate.of(2026, 1, 1);
+        List<WbPromotionFullStatsResponse.CampaignStats> campaigns = new ArrayList<>(FULL_STATS_CAMPAIGNS);
+        for (int c = 0; c < FULL_STATS_CAMPAIGNS; c++) {
+            List<WbPromotionFullStatsResponse.CampaignStats.DayStats> days = new ArrayList<>(LargeCabinetFixtures.DAYS);
+            for (int d = 0; d < LargeCabinetFixtures.DAYS; d++) {
+                List<WbPromotionFullStatsResponse.CampaignStats.DayStats.AppStats> apps = new ArrayList<>();
+                for (int a = 0; a < FULL_STATS_APP_TYPES; a++) {
+                    List<WbPromotionFullStatsResponse.CampaignStats.DayStats.ArticleStats> nms = new ArrayList<>();
+                    for (int n = 0; n < FULL_STATS_NM_IDS; n++) {
+                        nms.add(WbPromotionFullStatsResponse.CampaignStats.DayStats.ArticleStats.builder()
+                                .nmId(100_000_000L + c * FULL_STATS_NM_IDS + n)
+                                .name("Товар " + n)
+                                .views(random.nextInt(10_000))
+                                .clicks(random.nextInt(500))
+                                .ctr(decimal(random, 10))
+                                .sum(decimal(random, 5_000))
+                                .orders(random.nextInt(30))
+                                .cr(decimal(random, 10))
+                                .cpc(decimal(random, 30))
+                                .atbs(random.nextInt(60))
+                                .canceled(random.nextInt(3))
+                                .shks(random.nextInt(30))
+                                .sumPrice(decimal(random, 50_000))
+                                .build());
+                    }
+                    apps.add(WbPromotionFullStatsResponse.CampaignStats.DayStats.AppStats.builder()
+                            .appType(a == 0 ? 32 : 64)
+                            .nms(nms)
+                            .views(random.nextInt(40_000))
+                            .clicks(random.nextInt(2_000))
+                            .ctr(decimal(random, 10))
+                            .sum(decimal(random, 20_000))
+                            .orders(random.nextInt(120))
+                            .build());
+                }
+                days.add(WbPromotionFullStatsResponse.CampaignStats.DayStats.builder()
+                        .date(dateFrom.plusDays(d) + "T00:00:00Z")
+                        .apps(apps)
+                        .views(random.nextInt(80_000))
+                        .clicks(random.nextInt(4_000))
+                        .ctr(decimal(random, 10))
+                        .sum(decimal(random, 40_000))
+                        .orders(random.nextInt(240))
+                        .build());
+            }
+            campaigns.add(WbPromotionFullStatsResponse.CampaignStats.builder()
+                    .advertId(20_000_000L + c)
+                    .days(days)
+                    .views(random.nextInt(5_000_000))
+                    .clicks(random.nextInt(200_000))
+                    .sum(decimal(random, 3_000_000))
+                    .orders(random.nextInt(20_000))
+                    .build());
+        }
+        return campaigns;
+    }
+
+    private static BigDecimal decimal(Random random, int bound) {
+        return BigDecimal.valueOf(random.nextInt(bound * 100), 2);
+    }
+}
@@ -0,0 +1,306 @@
+package ru.oparin.solution.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import ru.oparin.solution.SolutionBackApplication;
+import ru.oparin.solution.loadtest.simulator.ApiSimulator;
+import ru.oparin.solution.loadtest.simulator.MarketplaceApiRoutes;
+import ru.oparin.solution.loadtest.simulator.SellerCatalog;
+import ru.oparin.solution.model.Cabinet;
+import ru.oparin.solution.model.CabinetTokenType;
+import ru.oparin.solution.model.MarketplaceType;
+import ru.oparin.solution.model.Role;
+import ru.oparin.solution.model.User;
+import ru.oparin.solution.repository.CabinetRepository;
+import ru.oparin.solution.repository.UserRepository;
+import ru.oparin.solution.service.MarketplaceSyncOrchestrator;
+import ru.oparin.solution.support.SqlMigrations;
+import ru.oparin.solution.support.SqlStatementCounter;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Нагрузочный прогон полной синхронизации: N кабинетов WB и Ozon против {@link ApiSimulator} и настоящего PostgreSQL.
+ * <p>
+ * Шаги: симулятор на случайном порту → PostgreSQL (Testcontainers или {@code loadtest.jdbcUrl}) с миграциями
+ * {@code classpath:sql/*.sql} → приложение с {@code wb.http.base-url-override}/{@code ozon.http.base-url-override}
+ * на симулятор → сид пользователей и кабинетов → постановка полной синхронизации каждого кабинета → ожидание,
+ * пока в очередях не останется незавершённых событий. Итог: событий в секунду, доля 429, обращений к БД
+ * на событие, разбивка по статусам и по endpoint'ам.
+ * <p>
+ * Паузы между запросами приложения ({@code WbApiEventType}) не масштабируются, поэтому кабинеты создаются
+ * с персональными токенами, а каталог по умолчанию небольшой.
+ * <p>
+ * Параметры (system properties, по умолчанию): {@code loadtest.wbCabinets} (20), {@code loadtest.ozonCabinets} (5),
+ * {@code loadtest.cardsPerCabinet} (200), {@code loadtest.campaignsPerCabinet} (20), {@code loadtest.days} (7),
+ * {@code loadtest.timeScale} (1), {@code loadtest.latency} (true), {@code loadtest.seed} (42),
+ * {@code loadtest.timeoutMinutes} (30), {@code loadtest.jdbcUrl}/{@code loadtest.username}/{@code loadtest.password}.
+ * Код выхода 1 — очереди не опустели за таймаут.
+ */
+@Slf4j
+public final class LoadTestHarness {
+
+    private static final String TRIGGER_SOURCE = "LOAD_TEST";
+    private static final String POSTGRES_IMAGE = "postgres:16-alpine";
+    private static final long QUEUE_POLL_INTERVAL_MS = 2_000L;
+    private static final String PENDING_STATUSES = "('CREATED', 'RUNNING', 'FAILED_RETRYABLE', 'DEFERRED_RATE_LIMIT')";
+
+    private final Settings settings;
+    private final Map<String, SellerCatalog> catalogByToken = new ConcurrentHashMap<>();
+    private final SqlStatementCounter statementCounter = SqlStatementCounter.countOnly();
+
+    private LoadTestHarness(Settings settings) {
+        this.settings = settings;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int exitCode = new LoadTestHarness(Settings.fromSystemProperties()).run();
+        System.exit(exitCode);
+    }
+
+    private int run() throws Exception {
+        PostgreSQLContainer<?> container = null;
+        ApiSimulator simulator = null;
+        ConfigurableApplicationContext context = null;
+        try {
+            simulator = MarketplaceApiRoutes.register(
+                    ApiSimulator.builder(new ObjectMapper()),
+                    catalogByToken::get,
+                    settings.timeScale(),
+                    settings.latency()
+            ).build().start();
+
+            Database database;
+            if (settings.jdbcUrl() != null) {
+                database = new Database(settings.jdbcUrl(), settings.username(), settings.password());
+            } else {
+                container = new PostgreSQLContainer<>(POSTGRES_IMAGE);
+                container.start();
+                database = new Database(container.getJdbcUrl(), container.getUsername(), container.getPassword());
+            }
+            applyMigrations(database);
+
+            context = startApplication(database, simulator.baseUrl());
+            List<Cabinet> cabinets = seedCabinets(context);
+
+            Map<String, ApiSimulator.EndpointStats> statsBefore = simulator.stats();
+            statementCounter.reset();
+            long startedAt = System.nanoTime();
+            enqueueSync(context, cabinets);
+            boolean drained = awaitQueuesDrained(database);
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - startedAt);
+
+            report(database, simulator, statsBefore, elapsed, drained);
+            return drained ? 0 : 1;
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+            if (simulator != null) {
+                simulator.close();
+            }
+            if (container != null) {
+                container.stop();
+            }
+        }
+    }
+
+    private void applyMigrations(Database database) throws Exception {
+        try (Connection connection = database.connect()) {
+            log.info("Применено миграций: {}", SqlMigrations.apply(connection));
+        }
+    }
+
+    private ConfigurableApplicationContext startApplication(Database database, String simulatorUrl) {
+        return new SpringApplicationBuilder(SolutionBackApplication.class)
+                .initializers(context -> context.getBeanFactory().addBeanPostProcessor(statementCounter))
+                .properties(
+                        "spring.datasource.url=" + database.jdbcUrl() + (database.jdbcUrl().contains("?") ? "&" : "?")
+                                + "currentSchema=solution&reWriteBatchedInserts=true",
+                        "spring.datasource.username=" + database.username(),
+                        "spring.datasource.password=" + database.password(),
+                        "server.port=0",
+                        "wb.http.base-url-override=" + simulatorUrl,
+                        "ozon.http.base-url-override=" + simulatorUrl,
+                        "app.wb-events.poll-delay-ms=500",
+                        "app.ozon-events.poll-delay-ms=500"
+                )
+                .run();
+    }
+
+    private List<Cabinet> seedCabinets(ConfigurableApplicationContext context) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        CabinetRepository cabinetRepository = context.getBean(CabinetRepository.class);
+        List<Cabinet> cabinets = new ArrayList<>();
+        int sellers = settings.wbCabinets() + settings.ozonCabinets();
+        for (int i = 0; i < sellers; i++) {
+            boolean ozon = i >= settings.wbCabinets();
+            User user = userRepository.save(User.builder()
+                    .email("loadtest-" + i + "@loadtest.local")
+                    .password("loadtest")
+                    .name("Load test " + i)
+                    .role(Role.USER)
+                    .build());
+            String apiKey = (ozon ? "loadtest-ozon-" : "loadtest-wb-") + i;
+            String ozonClientId = ozon ? "lt-client-" + i : null;
+            cabinets.add(cabinetRepository.save(Cabinet.builder()
+                    .user(user)
+                    .name("Load test " + i)
+                    .apiKey(apiKey)
+                    .marketplaceType(ozon ? MarketplaceType.OZON : MarketplaceType.WB)
+                    .ozonClientId(ozonClientId)
+                    .tokenType(CabinetTokenType.PERSONAL)
+                    .isValid(true)
+                    .build()));
+            SellerCatalog catalog = new SellerCatalog(
+                    i, settings.cardsPerCabinet(), ozon ? 0 : settings.campaignsPerCabinet(), settings.seed());
+            catalogByToken.put(ozon ? ozonClientId + ":" + apiKey : apiKey, catalog);
+        }
+        log.info("Создано кабинетов: WB {}, Ozon {}", settings.wbCabinets(), settings.ozonCabinets());
+        return cabinets;
+    }
+
+    private void enqueueSync(ConfigurableApplicationContext context, List<Cabinet> cabinets) {
+        MarketplaceSyncOrchestrator orchestrator = context.getBean(MarketplaceSyncOrchestrator.class);
+        LocalDate dateTo = LocalDate.now().minusDays(1);
+        LocalDate dateFrom = dateTo.minusDays(settings.days() - 1L);
+        for (Cabinet cabinet : cabinets) {
+            orchestrator.enqueueCabinetUpdate(cabinet, dateFrom, dateTo, true, TRIGGER_SOURCE);
+        }
+    }
+
+    /**
+     * Ждёт, пока в {@code wb_api_events} и {@code ozon_api_events} не останется незавершённых событий.
+     * Опрос идёт отдельным соединением мимо счётчика обращений приложения.
+     */
+    private boolean awaitQueuesDrained(Database database) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofMinutes(settings.timeoutMinutes()).toNanos();
+        try (Connection connection = database.connect(); Statement statement = connection.createStatement()) {
+            while (System.nanoTime() < deadline) {
+                long pending = 0;
+                for (String table : List.of("wb_api_events", "ozon_api_events")) {
+                    try (ResultSet rs = statement.executeQuery(
+                            "SELECT count(*) FROM solution." + table + " WHERE status IN " + PENDING_STATUSES)) {
+                        rs.next();
+                        pending += rs.getLong(1);
+                    }
+                }
+                if (pending == 0) {
+                    return true;
+                }
+                log.info("Нагрузочный прогон: незавершённых событий {}", pending);
+                Thread.sleep(QUEUE_POLL_INTERVAL_MS);
+            }
+        }
+        log.warn("Нагрузочный прогон: очереди не опустели за {} мин", settings.timeoutMinutes());
+        return false;
+    }
+
+    private void report(
+            Database database,
+            ApiSimulator simulator,
+            Map<String, ApiSimulator.EndpointStats> statsBefore,
+            Duration elapsed,
+            boolean drained
+    ) throws Exception {
+        Map<String, Long> eventsByStatus = new TreeMap<>();
+        try (Connection connection = database.connect(); Statement statement = connection.createStatement()) {
+            for (String table : List.of("wb_api_events", "ozon_api_events")) {
+                try (ResultSet rs = statement.executeQuery(
+                        "SELECT status, count(*) FROM solution." + table + " GROUP BY status")) {
+                    while (rs.next()) {
+                        eventsByStatus.put(table + "." + rs.getString(1), rs.getLong(2));
+                    }
+                }
+            }
+        }
+        long events = eventsByStatus.values().stream().mapToLong(Long::longValue).sum();
+        double seconds = Math.max(elapsed.toMillis(), 1) / 1000.0;
+
+        long requests = 0;
+        long tooManyRequests = 0;
+        StringBuilder endpoints = new StringBuilder();
+        for (Map.Entry<String, ApiSimulator.EndpointStats> entry : simulator.stats().entrySet()) {
+            ApiSimulator.EndpointStats before = statsBefore.get(entry.getKey());
+            long endpointRequests = entry.getValue().requests() - (before != null ? before.requests() : 0);
+            long endpoint429 = entry.getValue().tooManyRequests() - (before != null ? before.tooManyRequests() : 0);
+            long endpointErrors = entry.getValue().errors() - (before != null ? before.errors() : 0);
+            requests += endpointRequests;
+            tooManyRequests += endpoint429;
+            if (endpointRequests > 0) {
+                endpoints.append(String.format(Locale.ROOT, "%n  %-75s requests=%-7d 429=%-6d errors=%d",
+                        entry.getKey(), endpointRequests, endpoint429, endpointErrors));
+            }
+        }
+
+        log.info(String.format(Locale.ROOT,
+                "%nИтог нагрузочного прогона (%s)%n"
+                        + "  время: %.1f с, событий: %d, событий/с: %.2f%n"
+                        + "  HTTP-запросов: %d, 429: %d (%.2f%%), без маршрута: %d%n"
+                        + "  обращений к БД: %d (batch: %d), на событие: %.1f%n"
+                        + "  события по статусам: %s%n"
+                        + "  endpoint'ы:%s",
+                drained ? "очереди пусты" : "таймаут",
+                seconds, events, events / seconds,
+                requests, tooManyRequests, requests == 0 ? 0.0 : tooManyRequests * 100.0 / requests,
+                simulator.unmatchedRequests(),
+                statementCounter.total(), statementCounter.batches(),
+                events == 0 ? 0.0 : (double) statementCounter.total() / events,
+                eventsByStatus,
+                endpoints));
+    }
+
+    private record Database(String jdbcUrl, String username, String password) {
+
+        Connection connect() throws Exception {
+            return DriverManager.getConnection(jdbcUrl, username, password);
+        }
+    }
+
+    private record Settings(
+            int wbCabinets,
+            int ozonCabinets,
+            int cardsPerCabinet,
+            int campaignsPerCabinet,
+            int days,
+            double timeScale,
+            boolean latency,
+            long seed,
+            int timeoutMinutes,
+            String jdbcUrl,
+            String username,
+            String password
+    ) {
+
+        static Settings fromSystemProperties() {
+            return new Settings(
+                    Integer.getInteger("loadtest.wbCabinets", 20),
+                    Integer.getInteger("loadtest.ozonCabinets", 5),
+                    Integer.getInteger("loadtest.cardsPerCabinet", 200),
+                    Integer.getInteger("loadtest.campaignsPerCabinet", 20),
+                    Integer.getInteger("loadtest.days", 7),
+                    Double.parseDouble(System.getProperty("loadtest.timeScale", "1")),
+                    Boolean.parseBoolean(System.getProperty("loadtest.latency", "true")),
+                    Long.getLong("loadtest.seed", 42L),
+                    Integer.getInteger("loadtest.timeoutMinutes", 30),
+                    blankToNull(System.getProperty("loadtest.jdbcUrl")),
+                    System.getProperty("loadtest.username", "postgres"),
+                    System.getProperty("loadtest.password", "postgres")
+            );
+        }
+
+        private static String blankToNull(String value) {
+            return value == null || value.isBlank() ? null : value;
+        }
+    }
+}
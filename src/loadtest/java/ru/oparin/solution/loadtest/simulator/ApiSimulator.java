@@ -0,0 +1,311 @@
+package ru.oparin.solution.loadtest.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import ru.oparin.solution.util.BaseUrlOverrideInterceptor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Встраиваемый HTTP-симулятор внешних API (WB, Ozon) на случайном порту loopback.
+ * <p>
+ * Маршрут — исходный хост (заголовок {@link BaseUrlOverrideInterceptor#ORIGINAL_HOST_HEADER}) и путь.
+ * На каждый маршрут: лимит на токен с заголовками {@code X-Ratelimit-*} и 429, задержка ответа из распределения
+ * и обработчик, строящий тело из сидированных генераторов. Счётчики запросов и 429 — по маршрутам.
+ */
+@Slf4j
+public final class ApiSimulator implements AutoCloseable {
+
+    private static final String BEARER_PREFIX = "bearer ";
+    private static final byte[] TOO_MANY_REQUESTS_BODY = """
+            {"title":"too many requests","detail":"Limited by simulator","status":429}"""
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, Route> routesByHostAndPath;
+    private final Map<String, Route> routesByPath;
+    private final int threads;
+    private final AtomicLong unmatchedRequests = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    private ApiSimulator(Builder builder) {
+        this.objectMapper = builder.objectMapper;
+        this.threads = builder.threads;
+        this.routesByHostAndPath = Map.copyOf(builder.routesByHostAndPath);
+        Map<String, Route> byPath = new HashMap<>();
+        builder.routesByHostAndPath.values().forEach(route -> byPath.putIfAbsent(route.path(), route));
+        this.routesByPath = Map.copyOf(byPath);
+    }
+
+    public static Builder builder(ObjectMapper objectMapper) {
+        return new Builder(objectMapper);
+    }
+
+    public ApiSimulator start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "api-simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        log.info("Симулятор API запущен: {}, маршрутов {}", baseUrl(), routesByHostAndPath.size());
+        return this;
+    }
+
+    /**
+     * @return базовый URL для {@code wb.http.base-url-override} / {@code ozon.http.base-url-override}
+     */
+    public String baseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * @return счётчики по маршрутам ({@code host + path}) на текущий момент
+     */
+    public Map<String, EndpointStats> stats() {
+        Map<String, EndpointStats> snapshot = new TreeMap<>();
+        routesByHostAndPath.forEach((key, route) -> snapshot.put(key, route.counters().snapshot()));
+        return snapshot;
+    }
+
+    public long unmatchedRequests() {
+        return unmatchedRequests.get();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String host = exchange.getRequestHeaders().getFirst(BaseUrlOverrideInterceptor.ORIGINAL_HOST_HEADER);
+            String path = exchange.getRequestURI().getPath();
+            Route route = host != null ? routesByHostAndPath.get(host + path) : null;
+            if (route == null) {
+                route = routesByPath.get(path);
+            }
+            if (route == null) {
+                unmatchedRequests.incrementAndGet();
+                log.warn("Симулятор API: нет маршрута для {} {}{}", exchange.getRequestMethod(), host, path);
+                respond(exchange, 404, new byte[0]);
+                return;
+            }
+            handleRoute(exchange, route, host, path);
+        }
+    }
+
+    private void handleRoute(HttpExchange exchange, Route route, String host, String path) throws IOException {
+        String token = token(exchange);
+        route.counters().requests.incrementAndGet();
+        EndpointRateLimit.Decision decision = route.buckets().acquire(token, System.currentTimeMillis());
+        if (!decision.allowed()) {
+            route.counters().tooManyRequests.incrementAndGet();
+            setRateLimitHeaders(exchange, decision);
+            exchange.getResponseHeaders().set("X-Ratelimit-Retry", String.valueOf(decision.retrySeconds()));
+            respond(exchange, 429, TOO_MANY_REQUESTS_BODY);
+            return;
+        }
+        sleep(route.latency().sampleMs());
+        byte[] body;
+        try {
+            SimulatedRequest request = new SimulatedRequest(
+                    exchange.getRequestMethod(),
+                    host,
+                    path,
+                    token,
+                    parseQuery(exchange.getRequestURI().getRawQuery()),
+                    readBody(exchange.getRequestBody())
+            );
+            Object response = route.handler().handle(request);
+            body = response instanceof String text
+                    ? text.getBytes(StandardCharsets.UTF_8)
+                    : objectMapper.writeValueAsBytes(response);
+        } catch (Exception e) {
+            route.counters().errors.incrementAndGet();
+            log.warn("Симулятор API: ошибка обработчика {}{}: {}", host, path, e.getMessage());
+            respond(exchange, 500, new byte[0]);
+            return;
+        }
+        if (decision.limit() != Integer.MAX_VALUE) {
+            setRateLimitHeaders(exchange, decision);
+        }
+        respond(exchange, 200, body);
+    }
+
+    private static void setRateLimitHeaders(HttpExchange exchange, EndpointRateLimit.Decision decision) {
+        exchange.getResponseHeaders().set("X-Ratelimit-Limit", String.valueOf(decision.limit()));
+        exchange.getResponseHeaders().set("X-Ratelimit-Remaining", String.valueOf(decision.remaining()));
+        exchange.getResponseHeaders().set("X-Ratelimit-Reset", String.valueOf(decision.resetSeconds()));
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Токен для лимита: WB — {@code Authorization}, Ozon — {@code Client-Id} + {@code Api-Key}.
+     */
+    private static String token(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization != null && !authorization.isBlank()) {
+            String trimmed = authorization.trim();
+            return trimmed.toLowerCase(Locale.ROOT).startsWith(BEARER_PREFIX)
+                    ? trimmed.substring(BEARER_PREFIX.length()).trim()
+                    : trimmed;
+        }
+        String clientId = exchange.getRequestHeaders().getFirst("Client-Id");
+        String apiKey = exchange.getRequestHeaders().getFirst("Api-Key");
+        return (clientId != null ? clientId : "") + ":" + (apiKey != null ? apiKey : "");
+    }
+
+    private JsonNode readBody(InputStream in) throws IOException {
+        byte[] bytes = in.readAllBytes();
+        return bytes.length == 0 ? NullNode.getInstance() : objectMapper.readTree(bytes);
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isBlank()) {
+            return Map.of();
+        }
+        Map<String, String> query = new HashMap<>();
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq >= 0 ? pair.substring(0, eq) : pair;
+            String value = eq >= 0 ? pair.substring(eq + 1) : "";
+            query.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static void sleep(long ms) {
+        if (ms <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Обработчик маршрута: тело ответа (объект для Jackson или готовая JSON-строка).
+     */
+    @FunctionalInterface
+    public interface Handler {
+        Object handle(SimulatedRequest request) throws Exception;
+    }
+
+    /**
+     * Запрос к симулятору.
+     *
+     * @param host  исходный хост API (до перенаправления)
+     * @param token токен продавца, по которому считается лимит
+     * @param query параметры query-строки
+     * @param body  JSON тела или {@link NullNode}
+     */
+    public record SimulatedRequest(
+            String method,
+            String host,
+            String path,
+            String token,
+            Map<String, String> query,
+            JsonNode body
+    ) {
+    }
+
+    /**
+     * @param requests        всего запросов к маршруту
+     * @param tooManyRequests ответов 429
+     * @param errors          ошибок обработчика (500)
+     */
+    public record EndpointStats(long requests, long tooManyRequests, long errors) {
+    }
+
+    private record Route(
+            String host,
+            String path,
+            EndpointRateLimit.Buckets buckets,
+            LatencyDistribution latency,
+            Handler handler,
+            Counters counters
+    ) {
+    }
+
+    private static final class Counters {
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong tooManyRequests = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+
+        EndpointStats snapshot() {
+            return new EndpointStats(requests.get(), tooManyRequests.get(), errors.get());
+        }
+    }
+
+    public static final class Builder {
+        private final ObjectMapper objectMapper;
+        private final Map<String, Route> routesByHostAndPath = new LinkedHashMap<>();
+        private int threads = 64;
+
+        private Builder(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+        }
+
+        /**
+         * @param baseUrl базовый URL API (например {@code https://content-api.wildberries.ru})
+         * @param path    путь endpoint
+         */
+        public Builder route(
+                String baseUrl,
+                String path,
+                EndpointRateLimit limit,
+                LatencyDistribution latency,
+                Handler handler
+        ) {
+            String host = java.net.URI.create(baseUrl).getHost();
+            routesByHostAndPath.put(host + path, new Route(
+                    host, path, new EndpointRateLimit.Buckets(limit), latency, handler, new Counters()));
+            return this;
+        }
+
+        public Builder threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        public ApiSimulator build() {
+            return new ApiSimulator(this);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package ru.oparin.solution.loadtest.simulator;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Лимит endpoint на токен продавца, как у WB: bucket на {@code burst} запросов, один запрос восстанавливается
+ * за {@code refillIntervalMs}.
+ * <p>
+ * Заголовки ответа повторяют WB: на 2xx — {@code X-Ratelimit-Limit}, {@code X-Ratelimit-Remaining},
+ * {@code X-Ratelimit-Reset} (секунд до восстановления одного запроса); на 429 — ещё {@code X-Ratelimit-Retry}
+ * (секунд до следующего разрешённого запроса).
+ *
+ * @param burst            ёмкость bucket
+ * @param refillIntervalMs время восстановления одного запроса (мс)
+ */
+public record EndpointRateLimit(int burst, long refillIntervalMs) {
+
+    public static final EndpointRateLimit UNLIMITED = new EndpointRateLimit(Integer.MAX_VALUE, 0);
+
+    /**
+     * Лимит WB «N запросов в период», ускоренный в {@code timeScale} раз (1 — реальное время).
+     */
+    public static EndpointRateLimit perPeriod(int requests, long periodMs, int burst, double timeScale) {
+        long refillMs = Math.max(1L, Math.round(periodMs / (double) requests / timeScale));
+        return new EndpointRateLimit(burst, refillMs);
+    }
+
+    boolean isUnlimited() {
+        return refillIntervalMs <= 0;
+    }
+
+    /**
+     * Bucket'ы лимита по токенам.
+     */
+    static final class Buckets {
+        private final EndpointRateLimit limit;
+        private final ConcurrentMap<String, Bucket> byToken = new ConcurrentHashMap<>();
+
+        Buckets(EndpointRateLimit limit) {
+            this.limit = limit;
+        }
+
+        Decision acquire(String token, long nowMs) {
+            if (limit.isUnlimited()) {
+                return new Decision(true, Integer.MAX_VALUE, Integer.MAX_VALUE, 0, 0);
+            }
+            return byToken.computeIfAbsent(token, ignored -> new Bucket(limit, nowMs)).acquire(nowMs);
+        }
+    }
+
+    /**
+     * Результат попытки: пропущен ли запрос и значения заголовков лимита.
+     */
+    record Decision(boolean allowed, int limit, int remaining, long resetSeconds, long retrySeconds) {
+    }
+
+    private static final class Bucket {
+        private final EndpointRateLimit limit;
+        private double tokens;
+        private long lastRefillMs;
+
+        Bucket(EndpointRateLimit limit, long nowMs) {
+            this.limit = limit;
+            this.tokens = limit.burst();
+            this.lastRefillMs = nowMs;
+        }
+
+        synchronized Decision acquire(long nowMs) {
+            long elapsed = nowMs - lastRefillMs;
+            if (elapsed > 0) {
+                tokens = Math.min(limit.burst(), tokens + (double) elapsed / limit.refillIntervalMs());
+                lastRefillMs = nowMs;
+            }
+            long resetSeconds = toSecondsCeil(limit.refillIntervalMs());
+            if (tokens >= 1.0) {
+                tokens -= 1.0;
+                return new Decision(true, limit.burst(), (int) tokens, resetSeconds, 0);
+            }
+            long waitMs = (long) Math.ceil((1.0 - tokens) * limit.refillIntervalMs());
+            return new Decision(false, limit.burst(), 0, resetSeconds, toSecondsCeil(waitMs));
+        }
+
+        private static long toSecondsCeil(long ms) {
+            return Math.max(1L, (ms + 999) / 1000);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package ru.oparin.solution.loadtest.simulator;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Логнормальная задержка ответа, заданная медианой и 99-м перцентилем — так обычно выглядят латентности WB API:
+ * большинство ответов быстрые, хвост тяжёлый.
+ *
+ * @param medianMs медиана задержки (мс)
+ * @param p99Ms    99-й перцентиль (мс), не меньше медианы
+ */
+public record LatencyDistribution(long medianMs, long p99Ms) {
+
+    /** z-оценка 99-го перцентиля стандартного нормального распределения. */
+    private static final double Z_99 = 2.326;
+
+    public static final LatencyDistribution NONE = new LatencyDistribution(0, 0);
+
+    public LatencyDistribution {
+        if (medianMs < 0 || p99Ms < medianMs) {
+            throw new IllegalArgumentException("Некорректная задержка: median=" + medianMs + ", p99=" + p99Ms);
+        }
+    }
+
+    /**
+     * @return случайная задержка (мс)
+     */
+    public long sampleMs() {
+        if (medianMs == 0) {
+            return 0;
+        }
+        double sigma = Math.log((double) p99Ms / medianMs) / Z_99;
+        double gaussian = ThreadLocalRandom.current().nextGaussian();
+        return Math.round(medianMs * Math.exp(sigma * gaussian));
+    }
+}
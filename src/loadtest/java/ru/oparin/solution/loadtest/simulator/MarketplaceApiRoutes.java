@@ -0,0 +1,561 @@
+package ru.oparin.solution.loadtest.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import ru.oparin.solution.model.OzonApiEventType;
+import ru.oparin.solution.model.WbApiBaseUrl;
+import ru.oparin.solution.model.WbApiEventType;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Маршруты симулятора для endpoint'ов, которые вызывает полная синхронизация кабинета WB и Ozon.
+ * <p>
+ * Лимиты — опубликованные лимиты WB/Ozon на токен, ускоренные в {@code timeScale} раз; задержки — типичные
+ * медиана/p99 ответов. Тела строятся из {@link SellerCatalog} продавца, найденного по токену запроса;
+ * для неизвестного токена ответы пустые.
+ */
+public final class MarketplaceApiRoutes {
+
+    private static final DateTimeFormatter ISO_DATE = DateTimeFormatter.ISO_LOCAL_DATE;
+    private static final String CARDS_UPDATED_AT = "2025-01-01T00:00:00Z";
+    private static final int[] FULLSTATS_APP_TYPES = {1, 32, 64};
+
+    private static final LatencyDistribution FAST = new LatencyDistribution(40, 250);
+    private static final LatencyDistribution MEDIUM = new LatencyDistribution(120, 900);
+    private static final LatencyDistribution SLOW = new LatencyDistribution(400, 3_000);
+
+    private final Function<String, SellerCatalog> catalogByToken;
+
+    private MarketplaceApiRoutes(Function<String, SellerCatalog> catalogByToken) {
+        this.catalogByToken = catalogByToken;
+    }
+
+    /**
+     * Регистрирует маршруты WB и Ozon.
+     *
+     * @param builder        билдер симулятора
+     * @param catalogByToken каталог по токену ({@code Authorization} для WB, {@code Client-Id:Api-Key} для Ozon)
+     * @param timeScale      ускорение лимитов (1 — реальные лимиты)
+     * @param withLatency    false — ответы без задержки
+     */
+    public static ApiSimulator.Builder register(
+            ApiSimulator.Builder builder,
+            Function<String, SellerCatalog> catalogByToken,
+            double timeScale,
+            boolean withLatency
+    ) {
+        MarketplaceApiRoutes routes = new MarketplaceApiRoutes(catalogByToken);
+        LatencyDistribution fast = withLatency ? FAST : LatencyDistribution.NONE;
+        LatencyDistribution medium = withLatency ? MEDIUM : LatencyDistribution.NONE;
+        LatencyDistribution slow = withLatency ? SLOW : LatencyDistribution.NONE;
+
+        wb(builder, WbApiEventType.CONTENT_CARDS_LIST_PAGE,
+                EndpointRateLimit.perPeriod(100, 60_000, 5, timeScale), medium, routes::cardsList);
+        wb(builder, WbApiEventType.PROMOTION_COUNT,
+                EndpointRateLimit.perPeriod(5, 1_000, 5, timeScale), fast, routes::promotionCount);
+        wb(builder, WbApiEventType.PROMOTION_ADVERTS_BATCH,
+                EndpointRateLimit.perPeriod(5, 1_000, 5, timeScale), fast, routes::adverts);
+        wb(builder, WbApiEventType.PROMOTION_STATS_BATCH,
+                EndpointRateLimit.perPeriod(3, 60_000, 1, timeScale), slow, routes::fullStats);
+        wb(builder, WbApiEventType.PROMOTION_NORMQUERY_STATS_BATCH,
+                EndpointRateLimit.perPeriod(10, 60_000, 5, timeScale), medium, request -> Map.of("items", List.of()));
+        wb(builder, WbApiEventType.ANALYTICS_SALES_FUNNEL_NMID,
+                EndpointRateLimit.perPeriod(3, 60_000, 3, timeScale), slow, routes::salesFunnelHistory);
+        wb(builder, WbApiEventType.STOCKS_BY_NMID,
+                EndpointRateLimit.perPeriod(3, 60_000, 3, timeScale), medium, routes::stocksSizes);
+        wb(builder, WbApiEventType.PRICES_CABINET_WITH_SPP,
+                EndpointRateLimit.perPeriod(10, 6_000, 5, timeScale), fast, routes::prices);
+        wb(builder, WbApiEventType.ANALYTICS_ITEM_RATING_CABINET,
+                EndpointRateLimit.perPeriod(3, 60_000, 3, timeScale), medium,
+                request -> Map.of("data", Map.of("items", List.of())));
+        wb(builder, WbApiEventType.PROMOTION_CALENDAR_SYNC_CABINET,
+                EndpointRateLimit.perPeriod(10, 6_000, 5, timeScale), fast,
+                request -> Map.of("data", Map.of("promotions", List.of())));
+        wb(builder, WbApiEventType.WAREHOUSES_SYNC_CABINET,
+                EndpointRateLimit.perPeriod(6, 60_000, 6, timeScale), fast, request -> List.of());
+        wb(builder, WbApiEventType.FBS_WAREHOUSES_SYNC_CABINET,
+                EndpointRateLimit.perPeriod(300, 60_000, 20, timeScale), fast, request -> List.of());
+        wb(builder, WbApiEventType.STATISTICS_SUPPLIER_ORDERS,
+                EndpointRateLimit.perPeriod(1, 60_000, 1, timeScale), slow, routes::supplierOrders);
+        wb(builder, WbApiEventType.COMMON_SELLER_INFO,
+                EndpointRateLimit.perPeriod(1, 60_000, 10, timeScale), fast,
+                request -> Map.of("name", "Load test", "sid", "loadtest", "tradeMark", "Load test"));
+        // Проверка ключа (WbApiKeyService) — /ping на каждом домене WB: 3 запроса за 30 с.
+        for (WbApiBaseUrl baseUrl : WbApiBaseUrl.values()) {
+            builder.route(baseUrl.getDefaultBaseUrl(), "/ping",
+                    EndpointRateLimit.perPeriod(3, 30_000, 3, timeScale), fast,
+                    request -> Map.of("TS", LocalDateTime.now().toString(), "Status", "OK"));
+        }
+
+        EndpointRateLimit ozonLimit = EndpointRateLimit.perPeriod(50, 1_000, 50, timeScale);
+        ozon(builder, OzonApiEventType.PRODUCT_LIST_PAGE, ozonLimit, fast, routes::ozonProductList);
+        ozon(builder, OzonApiEventType.PRODUCT_INFO_LIST, ozonLimit, medium, routes::ozonProductInfoList);
+        ozon(builder, OzonApiEventType.PRICES_CABINET, ozonLimit, fast, routes::ozonPrices);
+        ozon(builder, OzonApiEventType.STOCKS_CABINET, ozonLimit, fast, routes::ozonStocks);
+        return builder;
+    }
+
+    private static void wb(
+            ApiSimulator.Builder builder,
+            WbApiEventType type,
+            EndpointRateLimit limit,
+            LatencyDistribution latency,
+            ApiSimulator.Handler handler
+    ) {
+        builder.route(type.getBaseUrl().getDefaultBaseUrl(), type.getUri(), limit, latency, handler);
+    }
+
+    private static void ozon(
+            ApiSimulator.Builder builder,
+            OzonApiEventType type,
+            EndpointRateLimit limit,
+            LatencyDistribution latency,
+            ApiSimulator.Handler handler
+    ) {
+        builder.route(type.getBaseUrl().getDefaultBaseUrl(), type.getUri(), limit, latency, handler);
+    }
+
+    private SellerCatalog catalog(ApiSimulator.SimulatedRequest request) {
+        SellerCatalog catalog = catalogByToken.apply(request.token());
+        return catalog != null ? catalog : SellerCatalog.EMPTY;
+    }
+
+    /**
+     * POST /content/v2/get/cards/list: страница после {@code settings.cursor.nmID}, {@code cursor.total} — размер страницы.
+     */
+    private Object cardsList(ApiSimulator.SimulatedRequest request) {
+        SellerCatalog catalog = catalog(request);
+        JsonNode cursor = request.body().path("settings").path("cursor");
+        int limit = cursor.path("limit").asInt(100);
+        int from = cursor.hasNonNull("nmID") ? catalog.cardIndexOf(cursor.path("nmID").asLong()) + 1 : 0;
+        int to = Math.min(catalog.cards(), Math.max(from, 0) + limit);
+
+        List<Map<String, Object>> cards = new ArrayList<>();
+        for (int i = Math.max(from, 0); i < to; i++) {
+            long nmId = catalog.nmId(i);
+            Map<String, Object> card = new LinkedHashMap<>();
+            card.put("nmID", nmId);
+            card.put("imtID", nmId + 1_000_000_000L);
+            card.put("vendorCode", "LT-" + catalog.index() + "-" + i);
+            card.put("title", "Товар " + i);
+            card.put("brand", "Load test");
+            card.put("subjectName", "Футболки");
+            card.put("photos", List.of());
+            card.put("sizes", List.of(Map.of(
+                    "chrtID", catalog.chrtId(i),
+                    "techSize", "0",
+                    "skus", List.of(String.valueOf(2_000_000_000_000L + nmId))
+            )));
+            card.put("createdAt", CARDS_UPDATED_AT);
+            card.put("updatedAt", CARDS_UPDATED_AT);
+            cards.add(card);
+        }
+
+        Map<String, Object> responseCursor = new LinkedHashMap<>();
+        responseCursor.put("total", cards.size());
+        responseCursor.put("nmID", cards.isEmpty() ? null : cards.get(cards.size() - 1).get("nmID"));
+        responseCursor.put("updatedAt", cards.isEmpty() ? null : CARDS_UPDATED_AT);
+        return Map.of("cards", cards, "cursor", responseCursor);
+    }
+
+    /**
+     * GET /adv/v1/promotion/count: все кампании продавца одной группой «активные, тип 9».
+     */
+    private Object promotionCount(ApiSimulator.SimulatedRequest request) {
+        SellerCatalog catalog = catalog(request);
+        List<Map<String, Object>> adverts = new ArrayList<>(catalog.campaigns());
+        for (int i = 0; i < catalog.campaigns(); i++) {
+            adverts.add(Map.of("advertId", catalog.campaignId(i), "changeTime", "2025-01-01T00:00:00+03:00"));
+        }
+        Map<String, Object> group = Map.of("type", 9, "status", 9, "count", adverts.size(), "advert_list", adverts);
+        return Map.of("adverts", catalog.campaigns() == 0 ? List.of() : List.of(group), "all", adverts.size());
+    }
+
+    /**
+     * GET /api/advert/v2/adverts?ids=...: детали кампаний с артикулами и ставками.
+     */
+    private Object adverts(ApiSimulator.SimulatedRequest request) {
+        SellerCatalog catalog = catalog(request);
+        List<Map<String, Object>> adverts = new ArrayList<>();
+        for (long advertId : parseIds(request.query().get("ids"))) {
+            int campaignIndex = catalog.campaignIndexOf(advertId);
+            if (campaignIndex < 0) {
+                continue;
+            }
+            List<Map<String, Object>> nmSettings = new ArrayList<>();
+            for (long nmId : catalog.campaignNmIds(campaignIndex)) {
+                SplittableRandom random = catalog.random(nmId, advertId);
+                nmSettings.add(Map.of(
+                        "nm_id", nmId,
+                        "bids_kopecks", Map.of(
+                                "search", 10_000 + random.nextInt(40_000),
+                                "recommendations", 10_000 + random.nextInt(40_000)),
+                        "subject", Map.of("id", 192, "name", "Футболки")
+                ));
+            }
+            Map<String, Object> advert = new LinkedHashMap<>();
+            advert.put("id", advertId);
+            advert.put("bid_type", "manual");
+            advert.put("status", 9);
+            advert.put("settings", Map.of(
+                    "name", "Кампания " + campaignIndex,
+                    "payment_type", "cpm",
+                    "placements", Map.of("search", true, "recommendations", true)));
+            advert.put("nm_settings", nmSettings);
+            Map<String, Object> timestamps = new LinkedHashMap<>();
+            timestamps.put("created", "2025-01-01T00:00:00+03:00");
+            timestamps.put("updated", "2025-01-01T00:00:00+03:00");
+            timestamps.put("started", "2025-01-01T00:00:00+03:00");
+            timestamps.put("deleted", null);
+            advert.put("timestamps", timestamps);
+            adverts.add(advert);
+        }
+        return Map.of("adverts", adverts);
+    }
+
+    /**
+     * GET /adv/v3/fullstats?ids=&beginDate=&endDate=: массив кампаний с днями, приложениями и артикулами.
+     */
+    private Object fullStats(ApiSimulator.SimulatedRequest request) {
+        SellerCatalog catalog = catalog(request);
+        List<LocalDate> dates = dateRange(request.query().get("beginDate"), request.query().get("endDate"));
+        List<Map<String, Object>> campaigns = new ArrayList<>();
+        for (long advertId : parseIds(request.query().get("ids"))) {
+            int campaignIndex = catalog.campaignIndexOf(advertId);
+            if (campaignIndex < 0) {
+                continue;
+            }
+            List<Long> nmIds = catalog.campaignNmIds(campaignIndex);
+            List<Map<String, Object>> days = new ArrayList<>(dates.size());
+            for (LocalDate date : dates) {
+                List<Map<String, Object>> apps = new ArrayList<>(FULLSTATS_APP_TYPES.length);
+                for (int appType : FULLSTATS_APP_TYPES) {
+                    List<Map<String, Object>> nms = new ArrayList<>(nmIds.size());
+                    for (long nmId : nmIds) {
+                        Map<String, Object> nm = adStats(catalog.random(nmId, date.toEpochDay() * 100 + appType));
+                        nm.put("nmId", nmId);
+                        nm.put("name", "Товар " + catalog.cardIndexOf(nmId));
+                        nms.add(nm);
+                    }
+                    Map<String, Object> app = adStats(catalog.random(advertId, date.toEpochDay() * 100 + appType));
+                    app.put("appType", appType);
+                    app.put("nms", nms);
+                    apps.add(app);
+                }
+                Map<String, Object> day = adStats(catalog.random(advertId, date.toEpochDay()));
+                day.put("date", date + "T00:00:00Z");
+                day.put("apps", apps);
+                days.add(day);
+            }
+            Map<String, Object> campaign = adStats(catalog.random(advertId, 0));
+            campaign.put("advertId", advertId);
+            campaign.put("days", days);
+            campaigns.add(campaign);
+        }
+        return campaigns;
+    }
+
+    private static Map<String, Object> adStats(SplittableRandom random) {
+        int views = random.nextInt(5_000);
+        int clicks = views == 0 ? 0 : random.nextInt(Math.max(1, views / 20));
+        int orders = clicks == 0 ? 0 : random.nextInt(Math.max(1, clicks / 10));
+        double sum = Math.round(views * 0.35 * 100) / 100.0;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("views", views);
+        stats.put("clicks", clicks);
+        stats.put("ctr", views == 0 ? 0.0 : Math.round(clicks * 10_000.0 / views) / 100.0);
+        stats.put("sum", sum);
+        stats.put("orders", orders);
+        stats.put("cr", clicks == 0 ? 0.0 : Math.round(orders * 10_000.0 / clicks) / 100.0);
+        stats.put("cpc", clicks == 0 ? 0.0 : Math.round(sum * 100 / clicks) / 100.0);
+        stats.put("atbs", orders * 2);
+        stats.put("canceled", 0);
+        stats.put("shks", orders);
+        stats.put("sum_price", orders * 1_500L);
+        return stats;
+    }
+
+    /**
+     * POST /api/analytics/v3/sales-funnel/products/history: история по дням для каждого артикула из запроса.
+     */
+    private Object salesFunnelHistory(ApiSimulator.SimulatedRequest request) {
+        SellerCatalog catalog = catalog(request);
+        JsonNode period = request.body().path("selectedPeriod");
+        List<LocalDate> dates = dateRange(period.path("start").asText(null), period.path("end").asText(null));
+        List<Map<String, Object>> products = new ArrayList<>();
+        for (JsonNode nmIdNode : request.body().path("nmIds")) {
+            long nmId = nmIdNode.asLong();
+            int cardIndex = catalog.cardIndexOf(nmId);
+            if (cardIndex < 0) {
+                continue;
+            }
+            List<Map<String, Object>> history = new ArrayList<>(dates.size());
+            for (LocalDate date : dates) {
+                SplittableRandom random = catalog.random(nmId, date.toEpochDay());
+                int openCount = random.nextInt(2_000);
+                int cartCount = openCount == 0 ? 0 : random.nextInt(Math.max(1, openCount / 5));
+                int orderCount = cartCount == 0 ? 0 : random.nextInt(Math.max(1, cartCount / 2));
+                int buyoutCount = orderCount == 0 ? 0 : random.nextInt(orderCount + 1);
+                Map<String, Object> day = new LinkedHashMap<>();
+                day.put("date", date.format(ISO_DATE));
+                day.put("openCount", openCount);
+                day.put("cartCount", cartCount);
+                day.put("orderCount", orderCount);
+                day.put("orderSum", orderCount * 1_500L);
+                day.put("buyoutCount", buyoutCount);
+                day.put("buyoutSum", buyoutCount * 1_500L);
+                day.put("buyoutPercent", orderCount == 0 ? 0 : buyoutCount * 100 / orderCount);
+                day.put("addToCartConversion", openCount == 0 ? 0 : cartCount * 100 / openCount);
+                day.put("cartToOrderConversion", cartCount == 0 ? 0 : orderCount * 100 / cartCount);
+                day.put("addToWishlistCount", random.nextInt(50));
+                history.add(day);
+            }
+            products.add(Map.of(
+                    "product", Map.of(
+                            "nmId", nmId,
+                            "title", "Товар " + cardIndex,
+                            "vendorCode", "LT-" + catalog.index() + "-" + cardIndex,
+                            "brandName", "Load test",
+                            "subjectId", 192,
+                            "subjectName", "Футболки"),
+                    "history", history
+            ));
+        }
+        return products;
+    }
+
+    /**
+     * POST /api/v2/stocks-report/products/sizes: один размер на трёх складах.
+     */
+    private Object stocksSizes(ApiSimulator.SimulatedRequest request) {
+        SellerCatalog catalog = catalog(request);
+        long nmId = request.body().path("nmID").asLong();
+        int cardIndex = catalog.cardIndexOf(nmId);
+        if (cardIndex < 0) {
+            return Map.of("data", Map.of("sizes", List.of(), "offices", List.of(), "currency", "RUB"));
+        }
+        List<Map<String, Object>> offices = new ArrayList<>();
+        for (int office = 0; office < 3; office++) {
+            SplittableRandom random = catalog.random(nmId, 1_000 + office);
+            offices.add(Map.of(
+                    "regionName", "Центральный",
+                    "officeID", 100 + office,
+                    "officeName", "Склад " + office,
+                    "metrics", Map.of("stockCount", random.nextInt(500), "ordersCount", random.nextInt(50))
+            ));
+        }
+        Map<String, Object> size = Map.of(
+                "name", "0",
+                "chrtID", catalog.chrtId(cardIndex),
+                "offices", offices,
+                "metrics", Map.of("stockCount", 0, "ordersCount", 0)
+        );
+        return Map.of("data", Map.of("sizes", List.of(size), "offices", List.of(), "currency", "RUB"));
+    }
+
+    /**
+     * POST /api/v2/list/goods/filter: цены по {@code nmList}.
+     */
+    private Object prices(ApiSimulator.SimulatedRequest request) {
+        SellerCatalog catalog = catalog(request);
+        List<Map<String, Object>> goods = new ArrayList<>();
+        for (JsonNode nmIdNode : request.body().path("nmList")) {
+            long nmId = nmIdNode.asLong();
+            int cardIndex = catalog.cardIndexOf(nmId);
+            if (cardIndex < 0) {
+                continue;
+            }
+            SplittableRandom random = catalog.random(nmId, 2_000);
+            int price = 1_000 + random.nextInt(4_000);
+            int discount = random.nextInt(50);
+            int discounted = price * (100 - discount) / 100;
+            goods.add(Map.of(
+                    "nmID", nmId,
+                    "vendorCode", "LT-" + catalog.index() + "-" + cardIndex,
+                    "sizes", List.of(Map.of(
+                            "sizeID", catalog.chrtId(cardIndex),
+                            "price", price,
+                            "discountedPrice", discounted,
+                            "clubDiscountedPrice", discounted,
+                            "techSizeName", "0")),
+                    "currencyIsoCode4217", "RUB",
+                    "discount", discount,
+                    "clubDiscount", 0,
+                    "editableSizePrice", false
+            ));
+        }
+        return Map.of("data", Map.of("listGoods", goods), "error", false);
+    }
+
+    /**
+     * GET /api/v1/supplier/orders?dateFrom=: по заказу на каждый десятый артикул за дату {@code dateFrom}.
+     */
+    private Object supplierOrders(ApiSimulator.SimulatedRequest request) {
+        SellerCatalog catalog = catalog(request);
+        String dateFrom = request.query().get("dateFrom");
+        LocalDateTime from = dateFrom != null ? LocalDateTime.parse(dateFrom) : LocalDate.now().atStartOfDay();
+        String timestamp = from.withNano(0).toString();
+        List<Map<String, Object>> orders = new ArrayList<>();
+        for (int i = 0; i < catalog.cards(); i += 10) {
+            long nmId = catalog.nmId(i);
+            SplittableRandom random = catalog.random(nmId, from.toLocalDate().toEpochDay());
+            double totalPrice = 1_000 + random.nextInt(4_000);
+            Map<String, Object> order = new LinkedHashMap<>();
+            order.put("srid", "lt-" + catalog.index() + "-" + nmId + "-" + from.toLocalDate());
+            order.put("gNumber", String.valueOf(nmId));
+            order.put("nmId", nmId);
+            order.put("barcode", String.valueOf(2_000_000_000_000L + nmId));
+            order.put("supplierArticle", "LT-" + catalog.index() + "-" + i);
+            order.put("warehouseName", "Склад 0");
+            order.put("totalPrice", totalPrice);
+            order.put("discountPercent", 20);
+            order.put("finishedPrice", totalPrice * 0.7);
+            order.put("priceWithDisc", totalPrice * 0.8);
+            order.put("isCancel", false);
+            order.put("cancelDate", "0001-01-01T00:00:00");
+            order.put("spp", 10);
+            order.put("date", timestamp);
+            order.put("lastChangeDate", timestamp);
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    /**
+     * POST /v3/product/list: страницы по {@code limit}, {@code last_id} — смещение; на последней странице пустой.
+     */
+    private Object ozonProductList(ApiSimulator.SimulatedRequest request) {
+        SellerCatalog catalog = catalog(request);
+        int offset = parseOffset(request.body().path("last_id").asText(""));
+        int limit = request.body().path("limit").asInt(1_000);
+        int to = Math.min(catalog.cards(), offset + limit);
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = offset; i < to; i++) {
+            items.add(Map.of("product_id", catalog.nmId(i), "offer_id", "OZ-" + catalog.index() + "-" + i));
+        }
+        String lastId = to < catalog.cards() ? String.valueOf(to) : "";
+        return Map.of("result", Map.of("items", items, "total", catalog.cards(), "last_id", lastId));
+    }
+
+    /**
+     * POST /v3/product/info/list: детали по {@code product_id}.
+     */
+    private Object ozonProductInfoList(ApiSimulator.SimulatedRequest request) {
+        SellerCatalog catalog = catalog(request);
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (JsonNode idNode : request.body().path("product_id")) {
+            long productId = idNode.asLong();
+            int cardIndex = catalog.cardIndexOf(productId);
+            if (cardIndex < 0) {
+                continue;
+            }
+            items.add(Map.of(
+                    "id", productId,
+                    "name", "Товар " + cardIndex,
+                    "offer_id", "OZ-" + catalog.index() + "-" + cardIndex,
+                    "sku", productId + 500_000_000L,
+                    "primary_image", List.of(),
+                    "images", List.of()
+            ));
+        }
+        return Map.of("items", items);
+    }
+
+    /**
+     * POST /v5/product/info/prices: страницы по {@code limit}, {@code cursor} — смещение.
+     */
+    private Object ozonPrices(ApiSimulator.SimulatedRequest request) {
+        SellerCatalog catalog = catalog(request);
+        return ozonCursorPage(catalog, request, i -> {
+            SplittableRandom random = catalog.random(catalog.nmId(i), 3_000);
+            int price = 1_000 + random.nextInt(4_000);
+            return Map.of(
+                    "product_id", catalog.nmId(i),
+                    "offer_id", "OZ-" + catalog.index() + "-" + i,
+                    "price", Map.of(
+                            "price", String.valueOf(price),
+                            "old_price", String.valueOf(price * 2),
+                            "marketing_price", String.valueOf(price * 9 / 10),
+                            "min_price", String.valueOf(price / 2),
+                            "currency_code", "RUB")
+            );
+        });
+    }
+
+    /**
+     * POST /v4/product/info/stocks: остатки FBO/FBS по товару.
+     */
+    private Object ozonStocks(ApiSimulator.SimulatedRequest request) {
+        SellerCatalog catalog = catalog(request);
+        return ozonCursorPage(catalog, request, i -> {
+            long productId = catalog.nmId(i);
+            SplittableRandom random = catalog.random(productId, 4_000);
+            return Map.of(
+                    "product_id", productId,
+                    "offer_id", "OZ-" + catalog.index() + "-" + i,
+                    "stocks", List.of(
+                            Map.of("present", random.nextInt(300), "reserved", random.nextInt(10),
+                                    "sku", productId + 500_000_000L, "type", "fbo"),
+                            Map.of("present", random.nextInt(100), "reserved", 0,
+                                    "sku", productId + 500_000_000L, "type", "fbs"))
+            );
+        });
+    }
+
+    private static Map<String, Object> ozonCursorPage(
+            SellerCatalog catalog,
+            ApiSimulator.SimulatedRequest request,
+            Function<Integer, Map<String, Object>> item
+    ) {
+        int offset = parseOffset(request.body().path("cursor").asText(""));
+        int limit = request.body().path("limit").asInt(1_000);
+        int to = Math.min(catalog.cards(), offset + limit);
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = offset; i < to; i++) {
+            items.add(item.apply(i));
+        }
+        String cursor = to < catalog.cards() ? String.valueOf(to) : "";
+        return Map.of("cursor", cursor, "items", items, "total", catalog.cards());
+    }
+
+    private static int parseOffset(String value) {
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static List<Long> parseIds(String ids) {
+        if (ids == null || ids.isBlank()) {
+            return List.of();
+        }
+        List<Long> result = new ArrayList<>();
+        for (String id : ids.split(",")) {
+            if (!id.isBlank()) {
+                result.add(Long.parseLong(id.trim()));
+            }
+        }
+        return result;
+    }
+
+    private static List<LocalDate> dateRange(String from, String to) {
+        if (from == null || to == null) {
+            return List.of();
+        }
+        LocalDate start = LocalDate.parse(from.substring(0, 10));
+        LocalDate end = LocalDate.parse(to.substring(0, 10));
+        List<LocalDate> dates = new ArrayList<>();
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            dates.add(date);
+        }
+        return dates;
+    }
+}
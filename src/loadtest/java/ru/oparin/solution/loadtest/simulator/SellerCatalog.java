@@ -0,0 +1,83 @@
+package ru.oparin.solution.loadtest.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Детерминированный каталог одного продавца симулятора: карточки, кампании и их артикулы.
+ * <p>
+ * Идентификаторы зависят только от номера продавца, метрики — от {@code seed}, номера продавца и ключа
+ * (артикул, кампания, дата), поэтому повторный прогон с тем же seed отдаёт те же ответы.
+ *
+ * @param index     номер продавца (0..N), задаёт непересекающиеся диапазоны id
+ * @param cards     число карточек
+ * @param campaigns число рекламных кампаний
+ * @param seed      seed генерации метрик
+ */
+public record SellerCatalog(int index, int cards, int campaigns, long seed) {
+
+    /** Артикулов в одной кампании. */
+    public static final int NM_IDS_PER_CAMPAIGN = 4;
+
+    private static final long NM_ID_BASE = 10_000_000L;
+    private static final long NM_IDS_PER_SELLER = 100_000L;
+    private static final long CAMPAIGN_ID_BASE = 50_000_000L;
+    private static final long CAMPAIGNS_PER_SELLER = 10_000L;
+
+    public static final SellerCatalog EMPTY = new SellerCatalog(-1, 0, 0, 0L);
+
+    public long nmId(int cardIndex) {
+        return NM_ID_BASE + index * NM_IDS_PER_SELLER + cardIndex;
+    }
+
+    /**
+     * @return позиция карточки в каталоге или -1, если артикул не принадлежит продавцу
+     */
+    public int cardIndexOf(long nmId) {
+        long offset = nmId - NM_ID_BASE - index * NM_IDS_PER_SELLER;
+        return offset >= 0 && offset < cards ? (int) offset : -1;
+    }
+
+    public long chrtId(int cardIndex) {
+        return nmId(cardIndex) * 10;
+    }
+
+    public long campaignId(int campaignIndex) {
+        return CAMPAIGN_ID_BASE + index * CAMPAIGNS_PER_SELLER + campaignIndex;
+    }
+
+    /**
+     * @return позиция кампании или -1, если кампания не принадлежит продавцу
+     */
+    public int campaignIndexOf(long campaignId) {
+        long offset = campaignId - CAMPAIGN_ID_BASE - index * CAMPAIGNS_PER_SELLER;
+        return offset >= 0 && offset < campaigns ? (int) offset : -1;
+    }
+
+    /**
+     * Артикулы кампании: {@link #NM_IDS_PER_CAMPAIGN} подряд идущих карточек, по кругу.
+     */
+    public List<Long> campaignNmIds(int campaignIndex) {
+        if (cards == 0) {
+            return List.of();
+        }
+        int count = Math.min(NM_IDS_PER_CAMPAIGN, cards);
+        List<Long> nmIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            nmIds.add(nmId((campaignIndex * NM_IDS_PER_CAMPAIGN + i) % cards));
+        }
+        return nmIds;
+    }
+
+    /**
+     * Генератор метрик для ключа: одинаковый ключ — одинаковые значения.
+     */
+    public SplittableRandom random(long key, long salt) {
+        long mixed = seed;
+        mixed = mixed * 31 + index;
+        mixed = mixed * 31 + key;
+        mixed = mixed * 31 + salt;
+        return new SplittableRandom(mixed);
+    }
+}
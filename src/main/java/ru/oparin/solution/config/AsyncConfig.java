@@ -84,6 +84,78 @@ public class AsyncConfig {
         return executor;
     }
 
+    /**
+     * Пул упреждающей загрузки страниц Ozon: следующая страница запрашивается, пока текущая сохраняется.
+     * При переполнении загрузка выполняется в вызывающем потоке (последовательно, как без упреждения).
+     */
+    @Bean(name = "ozonPageFetchExecutor")
+    public Executor ozonPageFetchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(cabinetQueueCapacity);
+        executor.setThreadNamePrefix("ozon-page-fetch-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Пул упреждающей загрузки батчей WB (кампании, статистика): следующий батч запрашивается, пока текущий сохраняется.
+     * При переполнении загрузка выполняется в вызывающем потоке.
+     */
+    @Bean(name = "wbBatchFetchExecutor")
+    public Executor wbBatchFetchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(cabinetQueueCapacity);
+        executor.setThreadNamePrefix("wb-batch-fetch-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Пул параллельной загрузки остатков FBS по складам продавца одного кабинета.
+     * При переполнении склад обрабатывается в вызывающем потоке.
+     */
+    @Bean(name = "fbsStocksFetchExecutor")
+    public Executor fbsStocksFetchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(cabinetQueueCapacity);
+        executor.setThreadNamePrefix("fbs-stocks-fetch-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Пул фонового обновления баланса продвижения WB (один запрос на кабинет в полёте).
+     * При переполнении задача отклоняется: чтение отдаёт кэш и обновит его при следующем обращении.
+     */
+    @Bean(name = "balanceRefreshExecutor")
+    public Executor balanceRefreshExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(Math.max(2, corePoolSize));
+        executor.setQueueCapacity(cabinetQueueCapacity);
+        executor.setThreadNamePrefix("balance-refresh-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
     /**
      * Планировщик для {@code @Scheduled}. Не путать с внутренним планировщиком таймаутов WB-событий.
      */
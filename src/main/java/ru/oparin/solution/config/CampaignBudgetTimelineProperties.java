@@ -0,0 +1,41 @@
+package ru.oparin.solution.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки отложенной записи временной шкалы бюджета РК ({@code WbCampaignBudgetTimelineWriteBuffer}).
+ */
+@Component
+@ConfigurationProperties(prefix = "app.campaign-budget-timeline")
+@Data
+public class CampaignBudgetTimelineProperties {
+
+    /**
+     * Интервал сброса буфера в БД (мс).
+     */
+    private long flushDelayMs = 5000;
+
+    /**
+     * Размер буфера, при котором сброс выполняется сразу, не дожидаясь интервала; он же размер JDBC-батча.
+     */
+    private int flushBatchSize = 500;
+
+    /**
+     * Если между SNAPSHOT одной РК прошло больше этого интервала (секунды), серия одинаковых остатков
+     * считается прерванной: последний снимок серии записывается, новый начинает серию заново.
+     */
+    private long snapshotRunGapSeconds = 300;
+
+    /**
+     * Как часто (секунды) записывать последний снимок длинной серии одинаковых остатков, не дожидаясь её конца:
+     * график и БД отстают от опроса WB не больше чем на этот интервал.
+     */
+    private long snapshotTailFlushSeconds = 300;
+
+    /**
+     * Предел точек в буфере при недоступной БД; сверх него самые старые точки отбрасываются.
+     */
+    private int maxPendingPoints = 20000;
+}
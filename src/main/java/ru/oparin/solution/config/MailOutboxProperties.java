@@ -0,0 +1,51 @@
+package ru.oparin.solution.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки исходящей очереди писем ({@code EmailOutboxSender}).
+ */
+@Component
+@ConfigurationProperties(prefix = "app.mail.outbox")
+@Data
+public class MailOutboxProperties {
+
+    /**
+     * Интервал вычитки очереди (мс).
+     */
+    private long pollDelayMs = 5000;
+
+    /**
+     * Максимум писем за один проход; отправляются через одно SMTP-соединение.
+     */
+    private int batchSize = 20;
+
+    /**
+     * Лимит писем в минуту (ограничение почтового провайдера).
+     */
+    private int maxPerMinute = 60;
+
+    /**
+     * Попыток отправки до перевода в FAILED.
+     */
+    private int maxAttempts = 8;
+
+    /**
+     * Задержка перед первым повтором (секунды); далее удваивается до {@link #maxBackoffSeconds}.
+     */
+    private long initialBackoffSeconds = 30;
+
+    private long maxBackoffSeconds = 3600;
+
+    /**
+     * Через сколько минут SENDING считается зависшим и возвращается в очередь.
+     */
+    private int sendingTimeoutMinutes = 10;
+
+    /**
+     * Сколько дней хранить отправленные письма.
+     */
+    private int retentionDays = 30;
+}
@@ -17,4 +17,15 @@ public class OzonEventsProperties {
     private int runningTimeoutMinutes = 15;
     private int eventAwaitTimeoutSeconds = 60;
     private int pollBatchSize = 50;
+
+    /**
+     * Минимальный интервал между запросами страниц одной синхронизации (мс) — бюджет Ozon API при упреждающей загрузке.
+     */
+    private long pageFetchMinIntervalMs = 250;
+
+    /**
+     * Сколько секунд одно событие каталога грузит страницы подряд; остаток передаётся следующему событию.
+     * Должно быть меньше {@code eventAwaitTimeoutSeconds}.
+     */
+    private int productListBudgetSeconds = 45;
 }
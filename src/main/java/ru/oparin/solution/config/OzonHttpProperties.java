@@ -0,0 +1,20 @@
+package ru.oparin.solution.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * HTTP-настройки клиентов Ozon Seller API.
+ */
+@Component
+@ConfigurationProperties(prefix = "ozon.http")
+@Data
+public class OzonHttpProperties {
+
+    /**
+     * Базовый URL, на который уходят все запросы клиентов Ozon (локальный симулятор при нагрузочном тесте).
+     * Пусто — боевой хост из {@link ru.oparin.solution.model.OzonApiBaseUrl}.
+     */
+    private String baseUrlOverride;
+}
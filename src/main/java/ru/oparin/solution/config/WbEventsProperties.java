@@ -3,6 +3,10 @@ package ru.oparin.solution.config;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+import ru.oparin.solution.model.WbApiEventSchedulingClass;
+
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
  * Настройки диспетчера WB API событий (планировщика {@code WbApiEventDispatcher}).
@@ -39,4 +43,61 @@ public class WbEventsProperties {
      * пул БД и планировщик, HTTP-запросы начинают висеть в ожидании соединений.
      */
     private int pollBatchSize;
+
+    /**
+     * Шаг старения (секунды): за каждый такой интервал ожидания самого старого события класса
+     * квант класса в раунде poll растёт на 1, чтобы ни один класс не голодал.
+     */
+    private int agingStepSeconds = 60;
+
+    /**
+     * Вес и лимит одновременных выполнений по классам планирования; не заданные классы берут значения по умолчанию.
+     */
+    private Map<WbApiEventSchedulingClass, SchedulingClassSettings> schedulingClasses = new EnumMap<>(WbApiEventSchedulingClass.class);
+
+    /**
+     * Настройки класса планирования с учётом значений по умолчанию.
+     */
+    public SchedulingClassSettings settingsFor(WbApiEventSchedulingClass schedulingClass) {
+        SchedulingClassSettings configured = schedulingClasses.get(schedulingClass);
+        return configured != null ? configured : SchedulingClassSettings.defaultsFor(schedulingClass);
+    }
+
+    @Data
+    public static class SchedulingClassSettings {
+
+        /**
+         * Квант класса в раунде poll (событий за раунд).
+         */
+        private int weight = 1;
+
+        /**
+         * Максимум событий класса за один poll. Poll ждёт завершения своей выборки, поэтому это же
+         * лимит одновременных выполнений класса в {@code cabinetUpdateExecutor}.
+         */
+        private int maxConcurrent = 10;
+
+        static SchedulingClassSettings defaultsFor(WbApiEventSchedulingClass schedulingClass) {
+            SchedulingClassSettings settings = new SchedulingClassSettings();
+            switch (schedulingClass) {
+                case INTERACTIVE -> {
+                    settings.setWeight(8);
+                    settings.setMaxConcurrent(10);
+                }
+                case CAMPAIGN_CONTROL -> {
+                    settings.setWeight(4);
+                    settings.setMaxConcurrent(10);
+                }
+                case INCREMENTAL_SYNC -> {
+                    settings.setWeight(2);
+                    settings.setMaxConcurrent(30);
+                }
+                case BULK_BACKFILL -> {
+                    settings.setWeight(1);
+                    settings.setMaxConcurrent(20);
+                }
+            }
+            return settings;
+        }
+    }
 }
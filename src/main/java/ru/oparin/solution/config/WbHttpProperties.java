@@ -5,7 +5,7 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
 /**
- * HTTP-таймауты клиентов WB API ({@link ru.oparin.solution.service.wb.AbstractWbApiClient}).
+ * HTTP-настройки клиентов WB API ({@link ru.oparin.solution.service.wb.AbstractWbApiClient}).
  */
 @Component
 @ConfigurationProperties(prefix = "wb.http")
@@ -21,4 +21,10 @@ public class WbHttpProperties {
      * Таймаут ожидания тела ответа (мс). Зависшие запросы WB обрываются на этом уровне.
      */
     private int readTimeoutMs = 45_000;
+
+    /**
+     * Базовый URL, на который уходят все запросы клиентов WB (локальный симулятор при нагрузочном тесте).
+     * Пусто — боевые хосты из {@link ru.oparin.solution.model.WbApiBaseUrl}.
+     */
+    private String baseUrlOverride;
 }
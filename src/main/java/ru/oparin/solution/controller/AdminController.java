@@ -149,10 +149,12 @@ public class AdminController {
             @RequestParam(required = false) WbApiEventStatus status,
             @RequestParam(required = false) WbApiEventType eventType,
             @RequestParam(required = false) Long cabinetId,
+            @RequestParam(required = false) Long nmId,
+            @RequestParam(required = false) Long campaignId,
             @RequestParam(defaultValue = WbApiEventSortField.DEFAULT_REQUEST_VALUE) WbApiEventSortField sortBy,
             @RequestParam(defaultValue = "DESC") org.springframework.data.domain.Sort.Direction sortDir
     ) {
-        return ResponseEntity.ok(wbApiEventService.getEventsPage(page, size, status, eventType, cabinetId, sortBy, sortDir));
+        return ResponseEntity.ok(wbApiEventService.getEventsPage(page, size, status, eventType, cabinetId, nmId, campaignId, sortBy, sortDir));
     }
 
     @GetMapping("/wb-events/{eventId}")
@@ -1,10 +1,14 @@
 package ru.oparin.solution.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.oparin.solution.dto.analytics.*;
 import ru.oparin.solution.exception.UserException;
 import ru.oparin.solution.model.Cabinet;
@@ -14,7 +18,10 @@ import ru.oparin.solution.service.*;
 import ru.oparin.solution.service.campaign.WbCampaignManageAccessService;
 import ru.oparin.solution.service.events.WbApiEventService;
 import ru.oparin.solution.service.events.payload.WbMainStepPayload;
+import ru.oparin.solution.service.export.AnalyticsExportService;
+import ru.oparin.solution.service.export.ExportFormat;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +43,7 @@ public class AdvertisingController {
     private final WbPromotionCampaignControlWriteService promotionCampaignControlWriteService;
     private final WbCampaignManageAccessService campaignManageAccessService;
     private final UserService userService;
+    private final AnalyticsExportService analyticsExportService;
 
     /**
      * Список рекламных кампаний текущего кабинета (с агрегацией статистики за период).
@@ -263,6 +271,7 @@ public class AdvertisingController {
             @RequestParam(required = false, defaultValue = "desc") String sortDir,
             @RequestParam(required = false, defaultValue = "0") int page,
             @RequestParam(required = false, defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
             Authentication authentication
     ) {
         SellerContextService.SellerContext context = sellerContextService.createContext(
@@ -274,10 +283,92 @@ public class AdvertisingController {
         Long resolvedCabinetId = context.cabinet() != null ? context.cabinet().getId() : null;
         Long resolvedSellerId = context.user() != null ? context.user().getId() : null;
         NormQueryClustersResponseDto response = analyticsService.getCampaignNormQueryClusters(
-                id, resolvedCabinetId, resolvedSellerId, from, to, nmId, search, sortBy, sortDir, page, size);
+                id, resolvedCabinetId, resolvedSellerId, from, to, nmId, search, sortBy, sortDir, page, size, cursor);
         if (response == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Выгрузка поисковых кластеров кампании в CSV/XLSX (фильтры и сортировка — как у списка кластеров, без пагинации).
+     */
+    @GetMapping("/campaigns/{id}/normquery-clusters/export")
+    public ResponseEntity<StreamingResponseBody> exportCampaignNormQueryClusters(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long sellerId,
+            @RequestParam(required = false) Long cabinetId,
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(required = false) LocalDate to,
+            @RequestParam(required = false) Long nmId,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false, defaultValue = "clicks") String sortBy,
+            @RequestParam(required = false, defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String format,
+            Authentication authentication
+    ) {
+        SellerContextService.SellerContext context = sellerContextService.createContext(
+                authentication,
+                sellerId,
+                cabinetId,
+                CabinetAccessSection.AD_CAMPAIGNS
+        );
+        Long resolvedCabinetId = context.cabinet() != null ? context.cabinet().getId() : null;
+        Long resolvedSellerId = context.user() != null ? context.user().getId() : null;
+        ExportFormat exportFormat = ExportFormat.fromParam(format);
+        StreamingResponseBody body = analyticsExportService.exportNormQueryClusters(
+                id, resolvedCabinetId, resolvedSellerId, from, to, nmId, search, sortBy, sortDir, exportFormat);
+        if (body == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return exportResponse(body, AnalyticsExportService.fileName("campaign-" + id + "-normquery", exportFormat), exportFormat);
+    }
+
+    /**
+     * Выгрузка суточной статистики кампании по артикулам в CSV/XLSX.
+     */
+    @GetMapping("/campaigns/{id}/statistics/export")
+    public ResponseEntity<StreamingResponseBody> exportCampaignStatistics(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long sellerId,
+            @RequestParam(required = false) Long cabinetId,
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(required = false) LocalDate to,
+            @RequestParam(required = false) Long nmId,
+            @RequestParam(required = false) String format,
+            Authentication authentication
+    ) {
+        SellerContextService.SellerContext context = sellerContextService.createContext(
+                authentication,
+                sellerId,
+                cabinetId,
+                CabinetAccessSection.AD_CAMPAIGNS
+        );
+        Long resolvedCabinetId = context.cabinet() != null ? context.cabinet().getId() : null;
+        Long resolvedSellerId = context.user() != null ? context.user().getId() : null;
+        ExportFormat exportFormat = ExportFormat.fromParam(format);
+        StreamingResponseBody body = analyticsExportService.exportCampaignStatistics(
+                id, resolvedCabinetId, resolvedSellerId, from, to, nmId, exportFormat);
+        if (body == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return exportResponse(body, AnalyticsExportService.fileName("campaign-" + id + "-statistics", exportFormat), exportFormat);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> exportResponse(
+            StreamingResponseBody body,
+            String fileName,
+            ExportFormat format
+    ) {
+        return ResponseEntity.ok()
+                .header(
+                        HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment()
+                                .filename(fileName, StandardCharsets.UTF_8)
+                                .build()
+                                .toString()
+                )
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .body(body);
+    }
 }
@@ -2,16 +2,22 @@ package ru.oparin.solution.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.oparin.solution.dto.analytics.*;
 import ru.oparin.solution.model.CabinetAccessSection;
 import ru.oparin.solution.model.WbProductCard;
 import ru.oparin.solution.service.AnalyticsService;
 import ru.oparin.solution.service.SellerContextService;
 import ru.oparin.solution.service.WbArticleGoalService;
+import ru.oparin.solution.service.export.AnalyticsExportService;
+import ru.oparin.solution.service.export.ExportFormat;
 
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
@@ -28,6 +34,7 @@ public class AnalyticsController {
     private final AnalyticsService analyticsService;
     private final SellerContextService sellerContextService;
     private final WbArticleGoalService articleGoalService;
+    private final AnalyticsExportService analyticsExportService;
 
     /**
      * Получает список артикулов кабинета/продавца (только справочная информация для фильтра).
@@ -89,6 +96,7 @@ public class AnalyticsController {
                 request.getExcludedNmIds(),
                 request.getPage(),
                 request.getSize(),
+                request.getCursor(),
                 request.getSearch(),
                 request.getIncludedNmIds(),
                 request.getFilterToNone(),
@@ -102,6 +110,32 @@ public class AnalyticsController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Выгрузка артикулов сводной в CSV/XLSX с фильтрами сводной (без пагинации, файл пишется потоком).
+     *
+     * @param format {@code csv} (по умолчанию) или {@code xlsx}
+     * @param request запрос сводной: фильтры, поиск и направление сортировки
+     * @param authentication данные аутентификации
+     * @return файл выгрузки
+     */
+    @PostMapping("/summary/export")
+    public ResponseEntity<StreamingResponseBody> exportSummary(
+            @RequestParam(required = false) String format,
+            @RequestBody SummaryRequestDto request,
+            Authentication authentication
+    ) {
+        SellerContextService.SellerContext context = sellerContextService.createContext(
+                authentication,
+                request.getSellerId(),
+                request.getCabinetId(),
+                CabinetAccessSection.SUMMARY
+        );
+        ExportFormat exportFormat = ExportFormat.fromParam(format);
+        StreamingResponseBody body = analyticsExportService.exportSummaryArticles(
+                context.user(), context.cabinetId(), request, exportFormat);
+        return exportResponse(body, AnalyticsExportService.fileName("summary", exportFormat), exportFormat);
+    }
+
     /**
      * Получает детальные метрики по группе для всех артикулов.
      *
@@ -258,4 +292,20 @@ public class AnalyticsController {
         return ResponseEntity.ok(response);
     }
 
+    private static ResponseEntity<StreamingResponseBody> exportResponse(
+            StreamingResponseBody body,
+            String fileName,
+            ExportFormat format
+    ) {
+        return ResponseEntity.ok()
+                .header(
+                        HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment()
+                                .filename(fileName, StandardCharsets.UTF_8)
+                                .build()
+                                .toString()
+                )
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .body(body);
+    }
 }
@@ -1,10 +1,10 @@
 package ru.oparin.solution.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -16,9 +16,10 @@ import ru.oparin.solution.model.User;
 import ru.oparin.solution.service.SellerContextService;
 import ru.oparin.solution.service.UserService;
 import ru.oparin.solution.service.WbArticleNoteService;
+import ru.oparin.solution.service.files.StoredFileDownload;
+import ru.oparin.solution.service.files.StoredFileResponder;
 
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Path;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -33,6 +34,7 @@ public class WbArticleNotesController {
     private final WbArticleNoteService noteService;
     private final SellerContextService sellerContextService;
     private final UserService userService;
+    private final StoredFileResponder fileResponder;
 
     /**
      * Создает новую заметку для артикула.
@@ -124,38 +126,20 @@ public class WbArticleNotesController {
      * Скачивает файл заметки.
      */
     @GetMapping("/{noteId}/files/{fileId}")
-    public ResponseEntity<Resource> downloadFile(
+    public void downloadFile(
             @PathVariable Long nmId,
             @PathVariable Long noteId,
             @PathVariable Long fileId,
             @RequestParam(required = false) Long sellerId,
             @RequestParam(required = false) Long cabinetId,
-            Authentication authentication) {
+            Authentication authentication,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
 
         SellerContextService.SellerContext context = sellerContextService.createContext(authentication, sellerId, cabinetId, ru.oparin.solution.model.CabinetAccessSection.PRODUCTS);
-        Path filePath = noteService.getFile(noteId, fileId, nmId, context);
-        
-        Resource resource = new FileSystemResource(filePath);
-        if (!resource.exists()) {
-            return ResponseEntity.notFound().build();
-        }
-
-        // Получаем оригинальное имя файла из БД
-        ru.oparin.solution.dto.notes.WbArticleNoteFileDto fileInfo = noteService.getFileInfo(noteId, fileId, nmId, context);
-        String fileName = fileInfo.getFileName();
-
-        return ResponseEntity.ok()
-                // Tomcat валидирует заголовки и не принимает кириллицу в plain `filename=...`.
-                // ContentDisposition формирует корректные параметры (в т.ч. filename* с UTF-8).
-                .header(
-                        HttpHeaders.CONTENT_DISPOSITION,
-                        ContentDisposition.attachment()
-                                .filename(fileName, StandardCharsets.UTF_8)
-                                .build()
-                                .toString()
-                )
-                .contentType(MediaType.parseMediaType(fileInfo.getMimeType() != null ? fileInfo.getMimeType() : MediaType.APPLICATION_OCTET_STREAM_VALUE))
-                .body(resource);
+        StoredFileDownload download = noteService.getFileDownload(noteId, fileId, nmId, context);
+        // ETag, 304, Range и Content-Disposition (filename* с UTF-8) — в StoredFileResponder.
+        fileResponder.respond(download, request, response);
     }
 
     /**
@@ -1,9 +1,9 @@
 package ru.oparin.solution.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -16,9 +16,10 @@ import ru.oparin.solution.model.User;
 import ru.oparin.solution.service.SellerContextService;
 import ru.oparin.solution.service.UserService;
 import ru.oparin.solution.service.WbCampaignNoteService;
+import ru.oparin.solution.service.files.StoredFileDownload;
+import ru.oparin.solution.service.files.StoredFileResponder;
 
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Path;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -32,6 +33,7 @@ public class WbCampaignNotesController {
     private final WbCampaignNoteService noteService;
     private final SellerContextService sellerContextService;
     private final UserService userService;
+    private final StoredFileResponder fileResponder;
 
     @GetMapping
     public ResponseEntity<List<WbCampaignNoteDto>> getNotes(
@@ -99,32 +101,18 @@ public class WbCampaignNotesController {
     }
 
     @GetMapping("/{noteId}/files/{fileId}")
-    public ResponseEntity<Resource> downloadFile(
+    public void downloadFile(
             @PathVariable Long campaignId,
             @PathVariable Long noteId,
             @PathVariable Long fileId,
             @RequestParam(required = false) Long sellerId,
             @RequestParam(required = false) Long cabinetId,
-            Authentication authentication) {
+            Authentication authentication,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
         SellerContextService.SellerContext context = sellerContextService.createContext(authentication, sellerId, cabinetId, ru.oparin.solution.model.CabinetAccessSection.AD_CAMPAIGNS);
-        Path filePath = noteService.getFile(noteId, fileId, campaignId, context);
-        Resource resource = new FileSystemResource(filePath);
-        if (!resource.exists()) {
-            return ResponseEntity.notFound().build();
-        }
-        WbCampaignNoteFileDto fileInfo = noteService.getFileInfo(noteId, fileId, campaignId, context);
-        String fileName = fileInfo.getFileName();
-        return ResponseEntity.ok()
-                .header(
-                        HttpHeaders.CONTENT_DISPOSITION,
-                        ContentDisposition.attachment()
-                                .filename(fileName, StandardCharsets.UTF_8)
-                                .build()
-                                .toString()
-                )
-                .contentType(MediaType.parseMediaType(
-                        fileInfo.getMimeType() != null ? fileInfo.getMimeType() : MediaType.APPLICATION_OCTET_STREAM_VALUE))
-                .body(resource);
+        StoredFileDownload download = noteService.getFileDownload(noteId, fileId, campaignId, context);
+        fileResponder.respond(download, request, response);
     }
 
     @DeleteMapping("/{noteId}/files/{fileId}")
@@ -13,6 +13,8 @@ public record WbApiEventDto(
         Long cabinetId,
         String cabinetName,
         String dedupKey,
+        Long nmId,
+        Long campaignId,
         Integer attemptCount,
         Integer maxAttempts,
         LocalDateTime nextAttemptAt,
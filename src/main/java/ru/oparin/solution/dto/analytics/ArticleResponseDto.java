@@ -35,6 +35,11 @@ public class ArticleResponseDto {
      */
     private List<DailyDataDto> dailyData;
     
+    /**
+     * Заказы за сегодня из журнала заказов WB (в {@link #dailyData} последний день — вчера); null без кабинета.
+     */
+    private TodayOrdersDto todayOrders;
+
     /**
      * Список рекламных кампаний, в которых участвует артикул.
      */
@@ -81,5 +81,9 @@ public class ArticleSummaryDto {
      * Дата и время появления карточки на Wildberries.
      */
     private LocalDateTime wbCreatedAt;
-}
 
+    /**
+     * Заказы за сегодня из журнала заказов WB; null вне выбранного кабинета WB.
+     */
+    private TodayOrdersDto todayOrders;
+}
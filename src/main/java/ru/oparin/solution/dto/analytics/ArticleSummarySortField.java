@@ -10,12 +10,17 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public enum ArticleSummarySortField {
 
-    WB_CREATED_AT("wbCreatedAt");
+    WB_CREATED_AT("wbCreatedAt", "wbCreatedAt");
 
     public static final String DEFAULT_REQUEST_VALUE = "WB_CREATED_AT";
 
     private final String paramValue;
 
+    /**
+     * Атрибут {@code WbProductCard}, по которому сортирует БД (под него есть индекс с добивкой по nmId).
+     */
+    private final String entityAttribute;
+
     public static ArticleSummarySortField fromParam(String value) {
         if (value == null || value.isBlank()) {
             return WB_CREATED_AT;
@@ -0,0 +1,105 @@
+package ru.oparin.solution.dto.analytics;
+
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset-курсор страницы поисковых кластеров: значение агрегата, по которому идёт сортировка,
+ * и {@code normQuery} последней строки страницы (уникален внутри агрегата и добивает порядок).
+ * Передаётся клиенту непрозрачной строкой (base64url).
+ *
+ * @param sortBy    поле сортировки, для которого построен курсор
+ * @param sortDir   направление сортировки, для которого построен курсор
+ * @param sortValue значение поля сортировки у последней строки ({@code null} — строка из хвоста NULLS LAST)
+ * @param normQuery поисковый кластер последней строки
+ */
+public record NormQueryClusterCursor(
+        NormQueryClusterSortField sortBy,
+        Sort.Direction sortDir,
+        String sortValue,
+        String normQuery
+) {
+
+    private static final String SEPARATOR = "\n";
+    private static final String NULL_MARKER = "\u0000";
+
+    /**
+     * Курсор по последней строке страницы.
+     */
+    public static NormQueryClusterCursor after(
+            NormQueryClusterSortField sortBy,
+            Sort.Direction sortDir,
+            NormQueryClusterRowDto row
+    ) {
+        Object value = switch (sortBy) {
+            case NORM_QUERY -> row.getNormQuery();
+            case AVG_POS -> row.getAvgPos();
+            case CLICKS -> row.getClicks();
+            case ATBS -> row.getAtbs();
+            case ORDERS -> row.getOrders();
+            case SPEND -> row.getSpend();
+            case CPO -> row.getCpo();
+            case CPC -> row.getCpc();
+        };
+        String sortValue = value instanceof BigDecimal bd ? bd.toPlainString() : value != null ? value.toString() : null;
+        return new NormQueryClusterCursor(sortBy, sortDir, sortValue, row.getNormQuery());
+    }
+
+    /**
+     * Значение сортировки для привязки к SQL: строка для {@code NORM_QUERY}, число для агрегатов.
+     */
+    public Object sortValueForSql() {
+        if (sortValue == null || sortBy == NormQueryClusterSortField.NORM_QUERY) {
+            return sortValue;
+        }
+        return new BigDecimal(sortValue);
+    }
+
+    public String encode() {
+        String raw = sortBy.name() + SEPARATOR
+                + sortDir.name() + SEPARATOR
+                + (sortValue != null ? sortValue : NULL_MARKER) + SEPARATOR
+                + normQuery;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбирает курсор из запроса.
+     *
+     * @param expectedSortBy  текущее поле сортировки: курсор от другой сортировки игнорируется
+     * @param expectedSortDir текущее направление сортировки
+     * @return курсор или {@code null}, если строка пустая или построена для другой сортировки
+     * @throws IllegalArgumentException если курсор повреждён
+     */
+    public static NormQueryClusterCursor decode(
+            String value,
+            NormQueryClusterSortField expectedSortBy,
+            Sort.Direction expectedSortDir
+    ) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value.trim()), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, 4);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Некорректный курсор страницы кластеров");
+            }
+            NormQueryClusterSortField sortBy = NormQueryClusterSortField.valueOf(parts[0]);
+            Sort.Direction sortDir = Sort.Direction.valueOf(parts[1]);
+            if (sortBy != expectedSortBy || sortDir != expectedSortDir) {
+                return null;
+            }
+            String sortValue = NULL_MARKER.equals(parts[2]) ? null : parts[2];
+            if (sortValue != null && sortBy != NormQueryClusterSortField.NORM_QUERY) {
+                new BigDecimal(sortValue);
+            }
+            return new NormQueryClusterCursor(sortBy, sortDir, sortValue, parts[3]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Некорректный курсор страницы кластеров", e);
+        }
+    }
+}
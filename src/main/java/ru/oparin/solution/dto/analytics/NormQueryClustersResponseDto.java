@@ -10,7 +10,7 @@ import java.util.List;
  * Ответ REST API: статистика по поисковым кластерам рекламной кампании за период.
  * <p>
  * Эндпоинт: {@code GET /advertising/campaigns/{id}/normquery-clusters}.
- * Данные читаются из {@code promotion_norm_query_statistics} после синхронизации с WB.
+ * Данные читаются из {@code wb_promotion_norm_query_statistics} после синхронизации с WB.
  */
 @Getter
 @Setter
@@ -41,6 +41,9 @@ public class NormQueryClustersResponseDto {
     /** Есть ли ещё данные для подгрузки. */
     private boolean hasMore;
 
+    /** Курсор следующей страницы (параметр {@code cursor}); {@code null}, если страница последняя. */
+    private String nextCursor;
+
     /**
      * Время последнего обновления данных в БД по выбранному фильтру;
      * {@code null}, если записей за период нет.
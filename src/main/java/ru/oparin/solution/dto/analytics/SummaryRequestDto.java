@@ -55,6 +55,11 @@ public class SummaryRequestDto {
      */
     private Integer size;
 
+    /**
+     * Keyset-курсор следующей страницы из {@code nextCursor} предыдущего ответа. Если задан — {@code page} игнорируется.
+     */
+    private String cursor;
+
     /**
      * Поиск по названию, артикулу WB (nmId) или артикулу продавца. При пагинации фильтрация на бэкенде.
      */
@@ -35,5 +35,10 @@ public class SummaryResponseDto {
      * Общее количество артикулов (при пагинации — после применения поиска). Без пагинации — null.
      */
     private Long totalArticles;
+
+    /**
+     * Курсор следующей страницы (передать в {@code cursor} запроса). {@code null} — страница последняя или пагинации нет.
+     */
+    private String nextCursor;
 }
 
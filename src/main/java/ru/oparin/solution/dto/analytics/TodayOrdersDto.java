@@ -0,0 +1,43 @@
+package ru.oparin.solution.dto.analytics;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Заказы артикула за текущий день из журнала заказов WB ({@code wb_orders}).
+ * Воронка WB за сегодня ещё не загружена, поэтому цифры берутся из журнала без обращения к WB.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodayOrdersDto {
+    /**
+     * Дата, за которую посчитаны заказы.
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate date;
+
+    /**
+     * Количество заказов, включая отменённые.
+     */
+    private Long orders;
+
+    /**
+     * Из них отменено.
+     */
+    private Long cancelled;
+
+    /**
+     * Сумма заказов по цене со скидкой продавца.
+     */
+    private BigDecimal ordersAmount;
+}
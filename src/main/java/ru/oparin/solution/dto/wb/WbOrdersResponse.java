@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.*;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 /**
@@ -32,12 +33,69 @@ public class WbOrdersResponse {
     @AllArgsConstructor
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class Order {
+        /**
+         * Уникальный ID заказа.
+         */
+        @JsonProperty("srid")
+        private String srid;
+
+        /**
+         * ID корзины покупателя.
+         */
+        @JsonProperty("gNumber")
+        private String gNumber;
+
         /**
          * Артикул WB (nmID).
          */
         @JsonProperty("nmId")
         private Long nmId;
 
+        @JsonProperty("barcode")
+        private String barcode;
+
+        /**
+         * Артикул продавца.
+         */
+        @JsonProperty("supplierArticle")
+        private String supplierArticle;
+
+        @JsonProperty("warehouseName")
+        private String warehouseName;
+
+        /**
+         * Цена без скидок.
+         */
+        @JsonProperty("totalPrice")
+        private BigDecimal totalPrice;
+
+        /**
+         * Скидка продавца, %.
+         */
+        @JsonProperty("discountPercent")
+        private Integer discountPercent;
+
+        /**
+         * Фактическая цена с учётом всех скидок.
+         */
+        @JsonProperty("finishedPrice")
+        private BigDecimal finishedPrice;
+
+        /**
+         * Цена со скидкой продавца.
+         */
+        @JsonProperty("priceWithDisc")
+        private BigDecimal priceWithDisc;
+
+        @JsonProperty("isCancel")
+        private Boolean isCancel;
+
+        /**
+         * Дата отмены заказа.
+         */
+        @JsonProperty("cancelDate")
+        private String cancelDate;
+
         /**
          * СПП (Скидка постоянного покупателя) в процентах.
          */
@@ -56,6 +114,6 @@ public class WbOrdersResponse {
         @JsonProperty("lastChangeDate")
         private String lastChangeDate;
 
-        // Остальные поля не используются, но могут быть в ответе
+        // Остальные поля в журнал заказов не сохраняются
     }
 }
@@ -0,0 +1,23 @@
+package ru.oparin.solution.model;
+
+/**
+ * Статус письма в исходящей очереди.
+ */
+public enum EmailOutboxStatus {
+    /**
+     * Ожидает отправки (в т.ч. повтора после ошибки).
+     */
+    PENDING,
+    /**
+     * Взято воркером в отправку.
+     */
+    SENDING,
+    /**
+     * Принято SMTP-сервером.
+     */
+    SENT,
+    /**
+     * Исчерпаны попытки отправки.
+     */
+    FAILED
+}
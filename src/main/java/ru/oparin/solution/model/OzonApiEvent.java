@@ -18,7 +18,9 @@ import java.time.LocalDateTime;
 public class OzonApiEvent {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ozon_api_events_id_seq")
+    @SequenceGenerator(name = "ozon_api_events_id_seq", sequenceName = "ozon_api_events_id_seq",
+            schema = "solution", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -24,7 +24,9 @@ import java.time.LocalDateTime;
 public class OzonProductPriceHistory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ozon_product_price_history_id_seq")
+    @SequenceGenerator(name = "ozon_product_price_history_id_seq", sequenceName = "ozon_product_price_history_id_seq",
+            schema = "solution", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
@@ -0,0 +1,49 @@
+package ru.oparin.solution.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Файл контентно-адресуемого хранилища загрузок: один файл на SHA-256 содержимого.
+ * <p>
+ * {@code refCount} увеличивается при привязке к владельцу и уменьшается триггером БД при удалении владельца.
+ */
+@Entity
+@Table(name = "stored_blobs", schema = "solution")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredBlob {
+
+    /**
+     * SHA-256 содержимого (hex).
+     */
+    @Id
+    @Column(name = "content_sha256", length = 64)
+    private String contentSha256;
+
+    /**
+     * Путь относительно каталога загрузок ({@code blobs/ab/cd/<sha256><ext>}).
+     */
+    @Column(name = "stored_name", nullable = false, length = 512)
+    private String storedName;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Последний резерв при загрузке или момент обнуления {@code refCount}.
+     */
+    @Column(name = "touched_at", nullable = false)
+    private LocalDateTime touchedAt;
+}
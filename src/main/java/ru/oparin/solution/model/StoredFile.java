@@ -0,0 +1,61 @@
+package ru.oparin.solution.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка манифеста файла в каталоге загрузок: ссылка владельца на файл.
+ * <p>
+ * Новые загрузки ссылаются на blob ({@link StoredBlob}) и пишутся в транзакции владельца; строки без владельца
+ * ({@code ownerId == null}) — резервы загрузок по отдельным файлам, сделанных до blob-хранилища.
+ * Удаление владельца выставляет {@code releasedAt} и уменьшает счётчик ссылок blob триггером БД.
+ */
+@Entity
+@Table(name = "stored_files", schema = "solution")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredFile {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Имя файла относительно каталога загрузок.
+     */
+    @Column(name = "stored_name", nullable = false, length = 512)
+    private String storedName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "owner_type", nullable = false, length = 32)
+    private StoredFileOwnerType ownerType;
+
+    /**
+     * ID строки владельца; {@code null}, пока владелец не сохранён.
+     */
+    @Column(name = "owner_id")
+    private Long ownerId;
+
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
+
+    /**
+     * SHA-256 содержимого (hex).
+     */
+    @Column(name = "content_sha256", length = 64)
+    private String contentSha256;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Момент удаления владельца; после выдержки файл удаляется очисткой.
+     */
+    @Column(name = "released_at")
+    private LocalDateTime releasedAt;
+}
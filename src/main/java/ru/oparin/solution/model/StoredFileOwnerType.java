@@ -0,0 +1,11 @@
+package ru.oparin.solution.model;
+
+/**
+ * Тип владельца файла в каталоге загрузок ({@code stored_files.owner_type}).
+ * Значения совпадают с аргументами триггеров освобождения манифеста.
+ */
+public enum StoredFileOwnerType {
+    ARTICLE_NOTE_FILE,
+    CAMPAIGN_NOTE_FILE,
+    AB_TEST_VARIANT
+}
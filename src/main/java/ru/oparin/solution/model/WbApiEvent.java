@@ -2,7 +2,10 @@ package ru.oparin.solution.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
@@ -15,7 +18,9 @@ import java.time.LocalDateTime;
 public class WbApiEvent {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wb_api_events_id_seq")
+    @SequenceGenerator(name = "wb_api_events_id_seq", sequenceName = "wb_api_events_id_seq",
+            schema = "solution", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -33,9 +38,26 @@ public class WbApiEvent {
     @JoinColumn(name = "cabinet_id", nullable = false)
     private Cabinet cabinet;
 
-    @Column(name = "payload_json", columnDefinition = "TEXT")
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "payload_json", columnDefinition = "jsonb")
     private String payloadJson;
 
+    /** Артикул WB из payload (события по одной карточке). */
+    @Column(name = "nm_id")
+    private Long nmId;
+
+    /** ID рекламной кампании из payload (запуск/пауза). */
+    @Column(name = "campaign_id")
+    private Long campaignId;
+
+    /** Начало периода синхронизации из payload. */
+    @Column(name = "date_from")
+    private LocalDate dateFrom;
+
+    /** Конец периода синхронизации из payload. */
+    @Column(name = "date_to")
+    private LocalDate dateTo;
+
     @Column(name = "dedup_key", nullable = false, length = 255)
     private String dedupKey;
 
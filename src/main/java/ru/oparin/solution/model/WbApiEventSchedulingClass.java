@@ -0,0 +1,29 @@
+package ru.oparin.solution.model;
+
+/**
+ * Класс планирования события WB API: определяет вес в очереди poll и лимит одновременных выполнений.
+ * Порядок констант — порядок обхода классов в раунде (сначала более срочные).
+ */
+public enum WbApiEventSchedulingClass {
+    /** Действия пользователя с ожиданием результата в UI (А/Б-тест: старт, смена фото). */
+    INTERACTIVE,
+    /** Запуск и пауза рекламных кампаний. */
+    CAMPAIGN_CONTROL,
+    /** Регулярная синхронизация кабинета (страницы карточек, цены, реклама, склады и т.п.). */
+    INCREMENTAL_SYNC,
+    /** Массовая загрузка по каждой карточке (остатки, воронка); объём растёт с размером каталога. */
+    BULK_BACKFILL;
+
+    /**
+     * @param eventType тип события
+     * @return класс планирования для типа
+     */
+    public static WbApiEventSchedulingClass of(WbApiEventType eventType) {
+        return switch (eventType) {
+            case AB_TEST_START, AB_TEST_APPLY_PHOTO -> INTERACTIVE;
+            case PROMOTION_CAMPAIGN_START, PROMOTION_CAMPAIGN_PAUSE -> CAMPAIGN_CONTROL;
+            case STOCKS_BY_NMID, ANALYTICS_SALES_FUNNEL_NMID -> BULK_BACKFILL;
+            default -> INCREMENTAL_SYNC;
+        };
+    }
+}
@@ -58,6 +58,12 @@ public class WbArticleNoteFile {
     @Column(name = "mime_type", length = 100)
     private String mimeType;
 
+    /**
+     * SHA-256 содержимого (hex); {@code null} у файлов, загруженных до появления колонки.
+     */
+    @Column(name = "content_sha256", length = 64)
+    private String contentSha256;
+
     /**
      * Дата загрузки файла.
      */
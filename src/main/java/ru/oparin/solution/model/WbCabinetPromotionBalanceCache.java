@@ -50,6 +50,10 @@ public class WbCabinetPromotionBalanceCache {
     @Column(name = "fetch_error", columnDefinition = "TEXT")
     private String fetchError;
 
+    /** Начало обновления баланса узлом-арендатором; {@code null}, если обновление не идёт. */
+    @Column(name = "refresh_started_at")
+    private LocalDateTime refreshStartedAt;
+
     @LastModifiedDate
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
@@ -18,7 +18,9 @@ import java.time.LocalDateTime;
 public class WbCampaignBudgetTimeline {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wb_campaign_budget_timeline_id_seq")
+    @SequenceGenerator(name = "wb_campaign_budget_timeline_id_seq", sequenceName = "wb_campaign_budget_timeline_id_seq",
+            schema = "solution", allocationSize = 50)
     private Long id;
 
     @Column(name = "campaign_id", nullable = false)
@@ -40,6 +40,9 @@ public class WbCampaignNoteFile {
     @Column(name = "mime_type", length = 100)
     private String mimeType;
 
+    @Column(name = "content_sha256", length = 64)
+    private String contentSha256;
+
     @CreatedDate
     @Column(name = "uploaded_at", nullable = false, updatable = false)
     private LocalDateTime uploadedAt;
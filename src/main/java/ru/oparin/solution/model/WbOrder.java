@@ -0,0 +1,118 @@
+package ru.oparin.solution.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Заказ WB из Statistics API (журнал заказов кабинета).
+ * Ключ: кабинет + {@code srid}; строка пишется загрузкой журнала через COPY, не через JPA.
+ */
+@Entity
+@Table(name = "wb_orders", schema = "solution",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"cabinet_id", "srid"}))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WbOrder {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    /**
+     * Кабинет, которому принадлежит заказ.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "cabinet_id", nullable = false)
+    private Cabinet cabinet;
+
+    /**
+     * Уникальный ID заказа WB.
+     */
+    @Column(name = "srid", nullable = false, length = 128)
+    private String srid;
+
+    /**
+     * ID корзины покупателя.
+     */
+    @Column(name = "g_number", length = 64)
+    private String gNumber;
+
+    /**
+     * Артикул WB (nmID).
+     */
+    @Column(name = "nm_id")
+    private Long nmId;
+
+    @Column(name = "barcode", length = 64)
+    private String barcode;
+
+    /**
+     * Артикул продавца.
+     */
+    @Column(name = "supplier_article", length = 255)
+    private String supplierArticle;
+
+    @Column(name = "warehouse_name", length = 255)
+    private String warehouseName;
+
+    /**
+     * Дата и время заказа (МСК, как в ответе WB).
+     */
+    @Column(name = "order_date", nullable = false)
+    private LocalDateTime orderDate;
+
+    /**
+     * Дата последнего изменения заказа в WB.
+     */
+    @Column(name = "last_change_date", nullable = false)
+    private LocalDateTime lastChangeDate;
+
+    /**
+     * Цена без скидок.
+     */
+    @Column(name = "total_price", precision = 14, scale = 2)
+    private BigDecimal totalPrice;
+
+    /**
+     * Скидка продавца, %.
+     */
+    @Column(name = "discount_percent")
+    private Integer discountPercent;
+
+    /**
+     * Скидка постоянного покупателя, %.
+     */
+    @Column(name = "spp")
+    private Integer spp;
+
+    /**
+     * Фактическая цена с учётом всех скидок.
+     */
+    @Column(name = "finished_price", precision = 14, scale = 2)
+    private BigDecimal finishedPrice;
+
+    /**
+     * Цена со скидкой продавца.
+     */
+    @Column(name = "price_with_disc", precision = 14, scale = 2)
+    private BigDecimal priceWithDisc;
+
+    @Column(name = "is_cancel", nullable = false)
+    private Boolean isCancel;
+
+    @Column(name = "cancel_date")
+    private LocalDateTime cancelDate;
+
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime updatedAt;
+}
@@ -28,7 +28,9 @@ public class WbProductCardAnalytics {
      * Уникальный идентификатор записи.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wb_product_card_analytics_id_seq")
+    @SequenceGenerator(name = "wb_product_card_analytics_id_seq", sequenceName = "wb_product_card_analytics_id_seq",
+            schema = "solution", allocationSize = 50)
     private Long id;
 
     /**
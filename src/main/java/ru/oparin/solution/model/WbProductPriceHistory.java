@@ -24,7 +24,9 @@ import java.time.LocalDateTime;
 public class WbProductPriceHistory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wb_product_price_history_id_seq")
+    @SequenceGenerator(name = "wb_product_price_history_id_seq", sequenceName = "wb_product_price_history_id_seq",
+            schema = "solution", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
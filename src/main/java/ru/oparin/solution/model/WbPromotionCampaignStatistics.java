@@ -29,7 +29,9 @@ public class WbPromotionCampaignStatistics {
      * ID записи статистики.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wb_promotion_campaign_statistics_id_seq")
+    @SequenceGenerator(name = "wb_promotion_campaign_statistics_id_seq", sequenceName = "wb_promotion_campaign_statistics_id_seq",
+            schema = "solution", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
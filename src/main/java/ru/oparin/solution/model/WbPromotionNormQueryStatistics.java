@@ -31,7 +31,9 @@ public class WbPromotionNormQueryStatistics {
      * ID записи в БД.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wb_promotion_norm_query_statistics_id_seq")
+    @SequenceGenerator(name = "wb_promotion_norm_query_statistics_id_seq", sequenceName = "wb_promotion_norm_query_statistics_id_seq",
+            schema = "solution", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
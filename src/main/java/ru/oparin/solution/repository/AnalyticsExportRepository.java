@@ -0,0 +1,181 @@
+package ru.oparin.solution.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.oparin.solution.dto.analytics.NormQueryClusterSortField;
+import ru.oparin.solution.model.WbCampaignStatus;
+import ru.oparin.solution.repository.spec.WbProductCardSpecifications;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Потоковое чтение строк для выгрузок CSV/XLSX: forward-only курсор JDBC с {@code fetchSize},
+ * строки передаются в обработчик по одной и не собираются в список.
+ * <p>
+ * PostgreSQL отдаёт результат порциями только при выключенном autocommit, поэтому методы транзакционные
+ * (вызываются из потока записи ответа).
+ */
+@Repository
+public class AnalyticsExportRepository {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String SUMMARY_ARTICLES_SELECT = """
+            SELECT c.nm_id, c.vendor_code, c.title, c.brand, c.subject_name, c.rating, c.is_priority, c.wb_created_at
+              FROM solution.wb_product_cards c
+              JOIN solution.cabinets cab ON cab.id = c.cabinet_id
+            """;
+
+    private static final String CAMPAIGN_STATISTICS_SELECT = """
+            SELECT s.date, s.nm_id, s.views, s.clicks, s.ctr, s.cpc, s.sum, s.atbs, s.orders, s.cr, s.cpa,
+                   s.shks, s.canceled, s.orders_sum
+              FROM solution.wb_promotion_campaign_statistics s
+             WHERE s.campaign_id = :campaignId
+               AND s.date BETWEEN :dateFrom AND :dateTo
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public AnalyticsExportRepository(DataSource dataSource) {
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        streaming.setFetchSize(FETCH_SIZE);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(streaming);
+    }
+
+    /**
+     * Артикулы сводной с теми же фильтрами, что и страница сводной, в порядке {@code (wb_created_at, nm_id)}.
+     * Колонки: nm_id, vendor_code, title, brand, subject_name, rating, is_priority, wb_created_at.
+     */
+    @Transactional(readOnly = true)
+    public void streamSummaryArticles(
+            Long sellerId,
+            Long cabinetId,
+            SummaryArticlesFilter filter,
+            Sort.Direction sortDir,
+            RowCallbackHandler handler
+    ) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder(SUMMARY_ARTICLES_SELECT);
+        if (cabinetId != null) {
+            sql.append(" WHERE c.cabinet_id = :cabinetId");
+            params.addValue("cabinetId", cabinetId);
+        } else {
+            sql.append(" WHERE cab.user_id = :sellerId");
+            params.addValue("sellerId", sellerId);
+        }
+        if (filter.excludedNmIds() != null && !filter.excludedNmIds().isEmpty()) {
+            sql.append(" AND c.nm_id NOT IN (:excludedNmIds)");
+            params.addValue("excludedNmIds", filter.excludedNmIds());
+        }
+        if (filter.includedNmIds() != null && !filter.includedNmIds().isEmpty()) {
+            sql.append(" AND c.nm_id IN (:includedNmIds)");
+            params.addValue("includedNmIds", filter.includedNmIds());
+        }
+        String searchPattern = WbProductCardSpecifications.searchPattern(filter.search());
+        if (searchPattern != null) {
+            sql.append("""
+                     AND (LOWER(c.title) LIKE :search ESCAPE '\\'
+                          OR LOWER(c.vendor_code) LIKE :search ESCAPE '\\'
+                          OR CAST(c.nm_id AS TEXT) LIKE :search ESCAPE '\\')
+                    """);
+            params.addValue("search", searchPattern);
+        }
+        if (Boolean.TRUE.equals(filter.onlyWithPhoto())) {
+            sql.append(" AND (NULLIF(TRIM(c.photo_tm), '') IS NOT NULL OR NULLIF(TRIM(c.photo_c246x328), '') IS NOT NULL)");
+        }
+        if (Boolean.TRUE.equals(filter.onlyPriority())) {
+            sql.append(" AND c.is_priority");
+        }
+        if (Boolean.TRUE.equals(filter.onlyInAdvertising())) {
+            sql.append("""
+                     AND EXISTS (
+                        SELECT 1
+                          FROM solution.wb_campaign_articles a
+                          JOIN solution.wb_promotion_campaigns p ON p.advert_id = a.campaign_id
+                          JOIN solution.cabinets pc ON pc.id = p.cabinet_id
+                         WHERE a.nm_id = c.nm_id
+                           AND p.status <> :finishedStatus
+                    """);
+            sql.append(cabinetId != null ? " AND p.cabinet_id = :cabinetId)" : " AND pc.user_id = :sellerId)");
+            params.addValue("finishedStatus", WbCampaignStatus.FINISHED.getCode());
+        }
+        String direction = sortDir.name();
+        sql.append(" ORDER BY c.wb_created_at ").append(direction).append(", c.nm_id ").append(direction);
+        jdbcTemplate.query(sql.toString(), params, handler);
+    }
+
+    /**
+     * Агрегированные поисковые кластеры кампании за период в порядке экрана кластеров.
+     * Колонки: normQuery, avgPos, clicks, atbs, orders, spend, cpc, cpo.
+     *
+     * @param searchPattern шаблон {@code LIKE} в нижнем регистре или {@code null}
+     */
+    @Transactional(readOnly = true)
+    public void streamNormQueryClusters(
+            Long campaignId,
+            LocalDate dateFrom,
+            LocalDate dateTo,
+            Long nmId,
+            String searchPattern,
+            NormQueryClusterSortField sortBy,
+            Sort.Direction sortDir,
+            RowCallbackHandler handler
+    ) {
+        String sql = "SELECT * FROM (" + WbPromotionNormQueryStatisticsRepositoryImpl.buildAggregateInnerSql(nmId, searchPattern)
+                + ") agg ORDER BY agg." + sortBy.getSqlAlias() + " " + sortDir.name() + " NULLS LAST, agg.normQuery ASC";
+        MapSqlParameterSource params = periodParams(campaignId, dateFrom, dateTo, nmId);
+        if (searchPattern != null) {
+            params.addValue("search", searchPattern);
+        }
+        jdbcTemplate.query(sql, params, handler);
+    }
+
+    /**
+     * Суточная статистика кампании по артикулам в порядке (дата, nmId).
+     * Колонки: date, nm_id, views, clicks, ctr, cpc, sum, atbs, orders, cr, cpa, shks, canceled, orders_sum.
+     */
+    @Transactional(readOnly = true)
+    public void streamCampaignStatistics(
+            Long campaignId,
+            LocalDate dateFrom,
+            LocalDate dateTo,
+            Long nmId,
+            RowCallbackHandler handler
+    ) {
+        String sql = CAMPAIGN_STATISTICS_SELECT
+                + (nmId != null ? " AND s.nm_id = :nmId" : "")
+                + " ORDER BY s.date, s.nm_id";
+        jdbcTemplate.query(sql, periodParams(campaignId, dateFrom, dateTo, nmId), handler);
+    }
+
+    private static MapSqlParameterSource periodParams(Long campaignId, LocalDate dateFrom, LocalDate dateTo, Long nmId) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("campaignId", campaignId)
+                .addValue("dateFrom", dateFrom)
+                .addValue("dateTo", dateTo);
+        if (nmId != null) {
+            params.addValue("nmId", nmId);
+        }
+        return params;
+    }
+
+    /**
+     * Фильтры сводной для выгрузки (как у страницы сводной).
+     */
+    public record SummaryArticlesFilter(
+            List<Long> excludedNmIds,
+            List<Long> includedNmIds,
+            String search,
+            Boolean onlyWithPhoto,
+            Boolean onlyPriority,
+            Boolean onlyInAdvertising
+    ) {
+    }
+}
@@ -0,0 +1,28 @@
+package ru.oparin.solution.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Проекция: число артикулов и суммарные метрики кампании за период (список РК кабинета).
+ */
+public interface CampaignListMetricsProjection {
+
+    Long getCampaignId();
+
+    Long getArticlesCount();
+
+    /**
+     * Артикул из фильтра списка входит в кампанию ({@code false}, если фильтр не задан).
+     */
+    Boolean getHasNmId();
+
+    Long getViews();
+
+    Long getClicks();
+
+    Long getAtbs();
+
+    Long getOrders();
+
+    BigDecimal getSpend();
+}
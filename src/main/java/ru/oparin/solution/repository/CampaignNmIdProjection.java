@@ -0,0 +1,11 @@
+package ru.oparin.solution.repository;
+
+/**
+ * Проекция: пара «кампания — артикул».
+ */
+public interface CampaignNmIdProjection {
+
+    Long getCampaignId();
+
+    Long getNmId();
+}
@@ -0,0 +1,72 @@
+package ru.oparin.solution.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.oparin.solution.model.EmailOutboxMessage;
+import ru.oparin.solution.model.EmailOutboxStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Репозиторий исходящей очереди писем.
+ */
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    List<EmailOutboxMessage> findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAscIdAsc(
+            EmailOutboxStatus status,
+            LocalDateTime now,
+            Pageable pageable
+    );
+
+    long countByStatusAndSentAtAfter(EmailOutboxStatus status, LocalDateTime sentAfter);
+
+    /**
+     * Возвращает в очередь письма, зависшие в SENDING (воркер упал между захватом и записью результата),
+     * если у них остались попытки.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+            update EmailOutboxMessage m
+               set m.status = :pendingStatus,
+                   m.nextAttemptAt = :now,
+                   m.updatedAt = :now
+             where m.status = :sendingStatus
+               and m.updatedAt < :staleBefore
+               and m.attemptCount < m.maxAttempts
+            """)
+    int requeueStale(
+            @Param("sendingStatus") EmailOutboxStatus sendingStatus,
+            @Param("pendingStatus") EmailOutboxStatus pendingStatus,
+            @Param("staleBefore") LocalDateTime staleBefore,
+            @Param("now") LocalDateTime now
+    );
+
+    /**
+     * Переводит в FAILED письма, зависшие в SENDING на последней попытке: повтор превысил бы {@code maxAttempts}.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+            update EmailOutboxMessage m
+               set m.status = :failedStatus,
+                   m.lastError = :error,
+                   m.updatedAt = :now
+             where m.status = :sendingStatus
+               and m.updatedAt < :staleBefore
+               and m.attemptCount >= m.maxAttempts
+            """)
+    int failStaleExhausted(
+            @Param("sendingStatus") EmailOutboxStatus sendingStatus,
+            @Param("failedStatus") EmailOutboxStatus failedStatus,
+            @Param("staleBefore") LocalDateTime staleBefore,
+            @Param("error") String error,
+            @Param("now") LocalDateTime now
+    );
+
+    long deleteByStatusAndSentAtBefore(EmailOutboxStatus status, LocalDateTime sentAt);
+}
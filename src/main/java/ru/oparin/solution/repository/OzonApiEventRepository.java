@@ -123,6 +123,24 @@ public interface OzonApiEventRepository extends JpaRepository<OzonApiEvent, Long
             @Param("now") LocalDateTime now
     );
 
+    /**
+     * Чекпойнт выполняющегося события: новый payload (например, {@code last_id} после сохранённой страницы).
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+            update OzonApiEvent e
+               set e.payloadJson = :payloadJson,
+                   e.updatedAt = :now
+             where e.id = :eventId
+               and e.status = :runningStatus
+            """)
+    int updatePayloadIfRunning(
+            @Param("eventId") Long eventId,
+            @Param("payloadJson") String payloadJson,
+            @Param("runningStatus") OzonApiEventStatus runningStatus,
+            @Param("now") LocalDateTime now
+    );
+
     @Query("SELECT e.id FROM OzonApiEvent e WHERE e.cabinet.id = :cabinetId")
     List<Long> findIdByCabinet_Id(@Param("cabinetId") Long cabinetId, Pageable pageable);
 }
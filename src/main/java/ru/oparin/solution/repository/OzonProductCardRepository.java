@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.oparin.solution.model.OzonProductCard;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +16,8 @@ public interface OzonProductCardRepository extends JpaRepository<OzonProductCard
 
     Optional<OzonProductCard> findByCabinet_IdAndProductId(Long cabinetId, Long productId);
 
+    List<OzonProductCard> findByCabinet_IdAndProductIdIn(Long cabinetId, Collection<Long> productIds);
+
     @Query("SELECT c.id FROM OzonProductCard c WHERE c.cabinet.id = :cabinetId")
     List<Long> findIdByCabinet_Id(@Param("cabinetId") Long cabinetId, Pageable pageable);
 }
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.oparin.solution.model.OzonProductStock;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +14,8 @@ public interface OzonProductStockRepository extends JpaRepository<OzonProductSto
 
     List<OzonProductStock> findByCabinet_IdAndProductId(Long cabinetId, Long productId);
 
+    List<OzonProductStock> findByCabinet_IdAndProductIdIn(Long cabinetId, Collection<Long> productIds);
+
     Optional<OzonProductStock> findByCabinet_IdAndProductIdAndSkuAndStockType(
             Long cabinetId,
             Long productId,
@@ -0,0 +1,102 @@
+package ru.oparin.solution.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Пакетный upsert каталога и остатков Ozon по естественным ключам
+ * ({@code uq_ozon_product_cards_cabinet_product}, {@code uq_ozon_product_stocks}).
+ * <p>
+ * Строки уходят JDBC-батчем {@code INSERT ... ON CONFLICT DO UPDATE}; строка без изменений не переписывается
+ * (условие {@code IS DISTINCT FROM}), {@code updated_at} у неё не меняется.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OzonProductUpsertWriter {
+
+    private static final String UPSERT_CARD_SQL = """
+            INSERT INTO solution.ozon_product_cards AS c (
+                cabinet_id, product_id, offer_id, sku, title, photo_url, created_at, updated_at
+            )
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (cabinet_id, product_id) DO UPDATE
+               SET offer_id = EXCLUDED.offer_id,
+                   sku = EXCLUDED.sku,
+                   title = EXCLUDED.title,
+                   photo_url = EXCLUDED.photo_url,
+                   updated_at = EXCLUDED.updated_at
+             WHERE c.offer_id IS DISTINCT FROM EXCLUDED.offer_id
+                OR c.sku IS DISTINCT FROM EXCLUDED.sku
+                OR c.title IS DISTINCT FROM EXCLUDED.title
+                OR c.photo_url IS DISTINCT FROM EXCLUDED.photo_url
+            """;
+
+    private static final String UPSERT_STOCK_SQL = """
+            INSERT INTO solution.ozon_product_stocks AS s (
+                cabinet_id, product_id, sku, stock_type, present, reserved, created_at, updated_at
+            )
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (cabinet_id, product_id, sku, stock_type) DO UPDATE
+               SET present = EXCLUDED.present,
+                   reserved = EXCLUDED.reserved,
+                   updated_at = EXCLUDED.updated_at
+             WHERE s.present IS DISTINCT FROM EXCLUDED.present
+                OR s.reserved IS DISTINCT FROM EXCLUDED.reserved
+            """;
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Вставляет или обновляет карточки кабинета.
+     */
+    public void upsertCards(Long cabinetId, List<CardRow> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(rows.size());
+        for (CardRow row : rows) {
+            args.add(new Object[]{
+                    cabinetId, row.productId(), row.offerId(), row.sku(), row.title(), row.photoUrl(), now, now
+            });
+        }
+        batchUpdate(UPSERT_CARD_SQL, args);
+    }
+
+    /**
+     * Вставляет или обновляет строки остатков кабинета.
+     */
+    public void upsertStocks(Long cabinetId, List<StockRow> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(rows.size());
+        for (StockRow row : rows) {
+            args.add(new Object[]{
+                    cabinetId, row.productId(), row.sku(), row.stockType(), row.present(), row.reserved(), now, now
+            });
+        }
+        batchUpdate(UPSERT_STOCK_SQL, args);
+    }
+
+    private void batchUpdate(String sql, List<Object[]> args) {
+        for (int from = 0; from < args.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, args.subList(from, Math.min(from + BATCH_SIZE, args.size())));
+        }
+    }
+
+    /**
+     * Итоговые значения карточки для записи.
+     */
+    public record CardRow(Long productId, String offerId, Long sku, String title, String photoUrl) {
+    }
+
+    /**
+     * Строка остатка по ключу (товар, SKU, тип склада).
+     */
+    public record StockRow(Long productId, Long sku, String stockType, int present, int reserved) {
+    }
+}
@@ -0,0 +1,71 @@
+package ru.oparin.solution.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.oparin.solution.model.StoredBlob;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Репозиторий контентно-адресуемого хранилища загрузок.
+ */
+@Repository
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String> {
+
+    /**
+     * Создаёт строку blob или обновляет {@code touched_at} существующей, чтобы очистка не удалила файл,
+     * пока загрузка привязывается к владельцу. Ждёт блокировку строки, если её сейчас удаляет очистка.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO solution.stored_blobs (content_sha256, stored_name, size_bytes, ref_count, created_at, touched_at)
+            VALUES (:contentSha256, :storedName, :sizeBytes, 0, CAST(:now AS timestamp), CAST(:now AS timestamp))
+            ON CONFLICT (content_sha256) DO UPDATE
+                SET touched_at = EXCLUDED.touched_at
+            """, nativeQuery = true)
+    int reserve(
+            @Param("contentSha256") String contentSha256,
+            @Param("storedName") String storedName,
+            @Param("sizeBytes") long sizeBytes,
+            @Param("now") LocalDateTime now
+    );
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount + 1 WHERE b.contentSha256 = :contentSha256")
+    int incrementRefCount(@Param("contentSha256") String contentSha256);
+
+    /**
+     * Blob без ссылок, выдержанные дольше {@code touchedBefore} (частичный индекс по {@code touched_at}).
+     */
+    @Query(value = """
+            SELECT content_sha256 FROM solution.stored_blobs
+            WHERE ref_count = 0 AND touched_at < CAST(:touchedBefore AS timestamp)
+            ORDER BY touched_at
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<String> findUnreferenced(@Param("touchedBefore") LocalDateTime touchedBefore, @Param("limit") int limit);
+
+    /**
+     * Блокирует blob для удаления, если он всё ещё без ссылок; занятые другой транзакцией пропускаются.
+     */
+    @Query(value = """
+            SELECT * FROM solution.stored_blobs
+            WHERE content_sha256 = :contentSha256
+              AND ref_count = 0
+              AND touched_at < CAST(:touchedBefore AS timestamp)
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    Optional<StoredBlob> lockUnreferenced(
+            @Param("contentSha256") String contentSha256,
+            @Param("touchedBefore") LocalDateTime touchedBefore
+    );
+
+    @Query("SELECT b.storedName FROM StoredBlob b WHERE b.storedName IN :storedNames")
+    List<String> findExistingStoredNames(@Param("storedNames") Collection<String> storedNames);
+}
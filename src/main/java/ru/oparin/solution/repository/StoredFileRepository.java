@@ -0,0 +1,53 @@
+package ru.oparin.solution.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.oparin.solution.model.StoredFile;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Репозиторий манифеста файлов каталога загрузок.
+ */
+@Repository
+public interface StoredFileRepository extends JpaRepository<StoredFile, Long> {
+
+    /**
+     * Строки к удалению: владелец удалён раньше {@code before} или резерв так и не привязан к владельцу
+     * (транзакция загрузки откатилась). Оба условия покрыты частичными индексами.
+     */
+    @Query("""
+            SELECT f FROM StoredFile f
+            WHERE f.releasedAt < :before
+               OR (f.ownerId IS NULL AND f.releasedAt IS NULL AND f.createdAt < :before)
+            ORDER BY f.id
+            """)
+    List<StoredFile> findDeletable(@Param("before") LocalDateTime before, Pageable pageable);
+
+    /**
+     * Удаляет строку манифеста, если она всё ещё подлежит удалению (не привязана к владельцу за время очистки).
+     *
+     * @return 1, если строка удалена
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Transactional
+    @Query("""
+            DELETE FROM StoredFile f
+            WHERE f.id = :id
+              AND (f.releasedAt IS NOT NULL OR f.ownerId IS NULL)
+            """)
+    int deleteIfDeletable(@Param("id") Long id);
+
+    /**
+     * Какие из имён есть в манифесте (сверка каталога пачками по уникальному индексу).
+     */
+    @Query("SELECT f.storedName FROM StoredFile f WHERE f.storedName IN :storedNames")
+    List<String> findExistingStoredNames(@Param("storedNames") Collection<String> storedNames);
+}
@@ -1,7 +1,6 @@
 package ru.oparin.solution.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
 import ru.oparin.solution.model.WbAbTestVariant;
 
 import java.util.List;
@@ -17,7 +16,4 @@ public interface WbAbTestVariantRepository extends JpaRepository<WbAbTestVariant
     Optional<WbAbTestVariant> findByIdAndAbTestId(Long id, Long abTestId);
 
     void deleteByAbTestId(Long abTestId);
-
-    @Query("SELECT v.storedFileName FROM WbAbTestVariant v WHERE v.storedFileName IS NOT NULL")
-    List<String> findAllStoredFileNames();
 }
@@ -10,6 +10,7 @@ import ru.oparin.solution.model.WbApiEvent;
 import ru.oparin.solution.model.WbApiEventStatus;
 import ru.oparin.solution.model.WbApiEventType;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
@@ -46,11 +47,15 @@ public interface WbApiEventRepository extends JpaRepository<WbApiEvent, Long> {
             where (:status is null or e.status = :status)
               and (:eventType is null or e.eventType = :eventType)
               and (:cabinetId is null or e.cabinet.id = :cabinetId)
+              and (:nmId is null or e.nmId = :nmId)
+              and (:campaignId is null or e.campaignId = :campaignId)
             """)
     Page<WbApiEvent> findAdminEvents(
             @Param("status") WbApiEventStatus status,
             @Param("eventType") WbApiEventType eventType,
             @Param("cabinetId") Long cabinetId,
+            @Param("nmId") Long nmId,
+            @Param("campaignId") Long campaignId,
             Pageable pageable
     );
 
@@ -144,19 +149,24 @@ public interface WbApiEventRepository extends JpaRepository<WbApiEvent, Long> {
             @Param("now") LocalDateTime now
     );
 
+    /**
+     * Есть ли активные события типа по кабинету за период синхронизации (индекс по cabinet_id, event_type, date_from, date_to).
+     */
     @Query("""
             select case when count(e) > 0 then true else false end
               from WbApiEvent e
              where e.cabinet.id = :cabinetId
                and e.eventType = :eventType
+               and e.dateFrom = :dateFrom
+               and e.dateTo = :dateTo
                and e.status in :statuses
-               and e.dedupKey like concat(:prefix, '%')
             """)
-    boolean existsByCabinet_IdAndEventTypeAndStatusInAndDedupKeyPrefix(
+    boolean existsByCabinet_IdAndEventTypeAndStatusInAndPeriod(
             @Param("cabinetId") Long cabinetId,
             @Param("eventType") WbApiEventType eventType,
             @Param("statuses") Collection<WbApiEventStatus> statuses,
-            @Param("prefix") String prefix
+            @Param("dateFrom") LocalDate dateFrom,
+            @Param("dateTo") LocalDate dateTo
     );
 
     @Query("""
@@ -164,15 +174,32 @@ public interface WbApiEventRepository extends JpaRepository<WbApiEvent, Long> {
               from WbApiEvent e
              where e.cabinet.id = :cabinetId
                and e.eventType = :eventType
+               and e.dateFrom = :dateFrom
+               and e.dateTo = :dateTo
                and e.status in :statuses
-               and e.dedupKey like concat(:prefix, '%')
                and e.id <> :excludeEventId
             """)
-    boolean existsOtherByCabinet_IdAndEventTypeAndStatusInAndDedupKeyPrefix(
+    boolean existsOtherByCabinet_IdAndEventTypeAndStatusInAndPeriod(
             @Param("cabinetId") Long cabinetId,
             @Param("eventType") WbApiEventType eventType,
             @Param("statuses") Collection<WbApiEventStatus> statuses,
-            @Param("prefix") String prefix,
+            @Param("dateFrom") LocalDate dateFrom,
+            @Param("dateTo") LocalDate dateTo,
             @Param("excludeEventId") Long excludeEventId
     );
+
+    /**
+     * События из списка, относящиеся к приоритетным карточкам кабинета (по колонке nm_id, без разбора payload).
+     */
+    @Query(value = """
+            SELECT e.id
+              FROM solution.wb_api_events e
+              JOIN solution.wb_product_cards c
+                ON c.cabinet_id = e.cabinet_id
+               AND c.nm_id = e.nm_id
+             WHERE e.id IN (:ids)
+               AND e.nm_id IS NOT NULL
+               AND c.is_priority = true
+            """, nativeQuery = true)
+    List<Long> findIdsForPriorityCards(@Param("ids") Collection<Long> ids);
 }
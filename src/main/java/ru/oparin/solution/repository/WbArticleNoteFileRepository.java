@@ -3,9 +3,11 @@ package ru.oparin.solution.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.oparin.solution.model.WbArticleNoteFile;
 
 import java.util.List;
@@ -46,14 +48,23 @@ public interface WbArticleNoteFileRepository extends JpaRepository<WbArticleNote
     boolean existsByIdAndNoteId(@Param("id") Long id, @Param("noteId") Long noteId);
 
     /**
-     * Возвращает пути ко всем файлам заметок по артикулам.
+     * Находит файлы заметок по артикулам для указанного кабинета.
      */
-    @Query("SELECT f.filePath FROM WbArticleNoteFile f")
-    List<String> findAllFilePaths();
+    Page<WbArticleNoteFile> findByNote_CabinetId(Long cabinetId, Pageable pageable);
 
     /**
-     * Находит файлы заметок по артикулам для указанного кабинета.
+     * Файлы без хэша содержимого (загружены до миграции 108) с id больше {@code afterId}, по возрастанию id.
      */
-    Page<WbArticleNoteFile> findByNote_CabinetId(Long cabinetId, Pageable pageable);
-}
+    @Query("SELECT f FROM WbArticleNoteFile f WHERE f.contentSha256 IS NULL AND f.id > :afterId ORDER BY f.id")
+    List<WbArticleNoteFile> findWithoutContentSha256(@Param("afterId") Long afterId, Pageable pageable);
 
+    /**
+     * Сохраняет хэш содержимого, если он ещё не задан.
+     *
+     * @return 1, если строка обновлена
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Transactional
+    @Query("UPDATE WbArticleNoteFile f SET f.contentSha256 = :hash WHERE f.id = :id AND f.contentSha256 IS NULL")
+    int updateContentSha256IfMissing(@Param("id") Long id, @Param("hash") String hash);
+}
@@ -1,7 +1,56 @@
 package ru.oparin.solution.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import ru.oparin.solution.model.WbCabinetPromotionBalanceCache;
 
+import java.time.LocalDateTime;
+
 public interface WbCabinetPromotionBalanceCacheRepository extends JpaRepository<WbCabinetPromotionBalanceCache, Long> {
+
+    /**
+     * Захват аренды обновления баланса кабинета (строка кэша создаётся при отсутствии).
+     * {@code pg_try_advisory_xact_lock} не даёт конкурентам ждать блокировку строки: проигравший сразу получает 0.
+     * Аренда переживает транзакцию (HTTP к WB идёт без открытого соединения), просроченная перехватывается.
+     *
+     * @return 1 — аренда получена, 0 — обновление уже выполняет другой поток или узел
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Transactional
+    @Query(value = """
+            INSERT INTO solution.wb_cabinet_promotion_balance_cache AS c (cabinet_id, refresh_started_at, updated_at)
+            SELECT CAST(:cabinetId AS bigint), CAST(:now AS timestamp), CAST(:now AS timestamp)
+             WHERE pg_try_advisory_xact_lock(CAST(:lockKey AS bigint))
+            ON CONFLICT (cabinet_id) DO UPDATE
+               SET refresh_started_at = EXCLUDED.refresh_started_at
+             WHERE c.refresh_started_at IS NULL
+                OR c.refresh_started_at < CAST(:leaseExpiredBefore AS timestamp)
+            """, nativeQuery = true)
+    int tryClaimRefresh(
+            @Param("cabinetId") Long cabinetId,
+            @Param("now") LocalDateTime now,
+            @Param("leaseExpiredBefore") LocalDateTime leaseExpiredBefore,
+            @Param("lockKey") long lockKey
+    );
+
+    /**
+     * Снятие аренды с сохранением ошибки запроса ({@code null} — без ошибки, например при отложенном лимите).
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Transactional
+    @Query("""
+            update WbCabinetPromotionBalanceCache c
+               set c.refreshStartedAt = null,
+                   c.fetchError = coalesce(:error, c.fetchError),
+                   c.updatedAt = :now
+             where c.cabinetId = :cabinetId
+            """)
+    int releaseRefresh(
+            @Param("cabinetId") Long cabinetId,
+            @Param("error") String error,
+            @Param("now") LocalDateTime now
+    );
 }
@@ -2,12 +2,15 @@ package ru.oparin.solution.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.oparin.solution.model.WbCampaignArticle;
 import ru.oparin.solution.model.WbCampaignArticleId;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -47,15 +50,35 @@ public interface WbCampaignArticleRepository extends JpaRepository<WbCampaignArt
      */
     void deleteByCampaignIdIn(List<Long> campaignIds);
 
+    /**
+     * Одним INSERT восстанавливает связи из статистики для кампаний набора, у которых связей нет.
+     * Как и при сохранении кампаний, связи создаются только для активных и приостановленных РК
+     * и только для артикулов из кабинета кампании.
+     *
+     * @param campaignIds ID кампаний (advert_id)
+     * @return число добавленных связей
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Transactional
+    @Query(value = """
+            INSERT INTO solution.wb_campaign_articles (campaign_id, nm_id, created_at, updated_at)
+            SELECT DISTINCT s.campaign_id, s.nm_id, NOW(), NOW()
+              FROM solution.wb_promotion_campaign_statistics s
+              JOIN solution.wb_promotion_campaigns c ON c.advert_id = s.campaign_id
+              JOIN solution.wb_product_cards p ON p.nm_id = s.nm_id AND p.cabinet_id = c.cabinet_id
+             WHERE s.campaign_id IN (:campaignIds)
+               AND c.status IN (9, 11)
+               AND NOT EXISTS (SELECT 1 FROM solution.wb_campaign_articles a WHERE a.campaign_id = s.campaign_id)
+            ON CONFLICT (campaign_id, nm_id) DO NOTHING
+            """, nativeQuery = true)
+    int insertMissingFromStatistics(@Param("campaignIds") Collection<Long> campaignIds);
+
     /**
      * Выборка только ключей (campaignId, nmId) по кабинету пачкой (для пакетного удаления по ключам).
      */
     @Query("SELECT new ru.oparin.solution.model.WbCampaignArticleId(c.campaignId, c.nmId) FROM WbCampaignArticle c WHERE c.campaign.cabinet.id = :cabinetId")
     List<WbCampaignArticleId> findIdByCampaign_Cabinet_Id(@Param("cabinetId") Long cabinetId, Pageable pageable);
 
-    @Query("SELECT c.campaignId, COUNT(c) FROM WbCampaignArticle c WHERE c.campaignId IN :ids GROUP BY c.campaignId")
-    List<Object[]> countByCampaignIdIn(@Param("ids") List<Long> ids);
-
     /**
      * Уникальные nmId артикулов в незавершённых РК кабинета.
      */
@@ -0,0 +1,54 @@
+package ru.oparin.solution.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.oparin.solution.model.WbCampaignBudgetTimeline;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Пакетная вставка точек временной шкалы бюджета РК одним JDBC-батчем.
+ * <p>
+ * Выполняется в собственной транзакции: сброс буфера может быть вызван из read-only транзакции графика.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WbCampaignBudgetTimelineBatchWriter {
+
+    /**
+     * Точки удалённого за время буферизации кабинета пропускаются (иначе FK отклонил бы весь батч).
+     */
+    private static final String INSERT_SQL = """
+            INSERT INTO solution.wb_campaign_budget_timeline (
+                campaign_id, cabinet_id, recorded_at, event_type, budget_total, top_up_amount
+            )
+            SELECT CAST(? AS bigint), c.id, CAST(? AS timestamp), CAST(? AS varchar), CAST(? AS integer), CAST(? AS integer)
+              FROM solution.cabinets c
+             WHERE c.id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void insertAll(List<WbCampaignBudgetTimeline> points, int batchSize) {
+        List<Object[]> args = new ArrayList<>(points.size());
+        for (WbCampaignBudgetTimeline point : points) {
+            args.add(new Object[]{
+                    point.getCampaignId(),
+                    Timestamp.valueOf(point.getRecordedAt()),
+                    point.getEventType().name(),
+                    point.getBudgetTotal(),
+                    point.getTopUpAmount(),
+                    point.getCabinetId()
+            });
+        }
+        for (int from = 0; from < args.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, args.subList(from, Math.min(from + batchSize, args.size())));
+        }
+    }
+}
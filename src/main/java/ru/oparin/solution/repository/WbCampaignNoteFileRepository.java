@@ -3,9 +3,11 @@ package ru.oparin.solution.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.oparin.solution.model.WbCampaignNoteFile;
 
 import java.util.List;
@@ -21,9 +23,11 @@ public interface WbCampaignNoteFileRepository extends JpaRepository<WbCampaignNo
     @Query("SELECT f FROM WbCampaignNoteFile f WHERE f.id = :id AND f.note.id = :noteId")
     Optional<WbCampaignNoteFile> findByIdAndNoteId(@Param("id") Long id, @Param("noteId") Long noteId);
 
-    /**
-     * Возвращает пути ко всем файлам заметок РК.
-     */
-    @Query("SELECT f.filePath FROM WbCampaignNoteFile f")
-    List<String> findAllFilePaths();
+    @Query("SELECT f FROM WbCampaignNoteFile f WHERE f.contentSha256 IS NULL AND f.id > :afterId ORDER BY f.id")
+    List<WbCampaignNoteFile> findWithoutContentSha256(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Transactional
+    @Query("UPDATE WbCampaignNoteFile f SET f.contentSha256 = :hash WHERE f.id = :id AND f.contentSha256 IS NULL")
+    int updateContentSha256IfMissing(@Param("id") Long id, @Param("hash") String hash);
 }
@@ -0,0 +1,161 @@
+package ru.oparin.solution.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.oparin.solution.util.PgCopyWriter;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Дозапись пачки заказов в журнал {@code wb_orders}: COPY во временную таблицу, затем
+ * {@code INSERT ... ON CONFLICT (cabinet_id, srid)} в транзакции вызывающего кода.
+ * <p>
+ * Существующий заказ обновляется только более новой версией (больший {@code last_change_date}),
+ * поэтому повторная загрузка того же интервала ничего не меняет.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WbOrderCopyWriter {
+
+    private static final String STAGE_TABLE = "tmp_wb_orders";
+
+    private static final String CREATE_STAGE_SQL = """
+            CREATE TEMP TABLE IF NOT EXISTS tmp_wb_orders (
+                srid TEXT,
+                g_number TEXT,
+                nm_id BIGINT,
+                barcode TEXT,
+                supplier_article TEXT,
+                warehouse_name TEXT,
+                order_date TIMESTAMP,
+                last_change_date TIMESTAMP,
+                total_price NUMERIC,
+                discount_percent INTEGER,
+                spp INTEGER,
+                finished_price NUMERIC,
+                price_with_disc NUMERIC,
+                is_cancel BOOLEAN,
+                cancel_date TIMESTAMP
+            ) ON COMMIT DELETE ROWS
+            """;
+
+    /**
+     * Дубликаты srid внутри пачки — DISTINCT ON с последней версией.
+     */
+    private static final String UPSERT_FROM_STAGE_SQL = """
+            INSERT INTO solution.wb_orders AS o (
+                cabinet_id, srid, g_number, nm_id, barcode, supplier_article, warehouse_name,
+                order_date, last_change_date, total_price, discount_percent, spp, finished_price,
+                price_with_disc, is_cancel, cancel_date, created_at, updated_at
+            )
+            SELECT DISTINCT ON (t.srid)
+                   ?, t.srid, t.g_number, t.nm_id, t.barcode, t.supplier_article, t.warehouse_name,
+                   t.order_date, t.last_change_date, t.total_price, t.discount_percent, t.spp, t.finished_price,
+                   t.price_with_disc, t.is_cancel, t.cancel_date, ?, ?
+              FROM tmp_wb_orders t
+             ORDER BY t.srid, t.last_change_date DESC
+            ON CONFLICT (cabinet_id, srid) DO UPDATE
+               SET g_number = EXCLUDED.g_number,
+                   nm_id = EXCLUDED.nm_id,
+                   barcode = EXCLUDED.barcode,
+                   supplier_article = EXCLUDED.supplier_article,
+                   warehouse_name = EXCLUDED.warehouse_name,
+                   order_date = EXCLUDED.order_date,
+                   last_change_date = EXCLUDED.last_change_date,
+                   total_price = EXCLUDED.total_price,
+                   discount_percent = EXCLUDED.discount_percent,
+                   spp = EXCLUDED.spp,
+                   finished_price = EXCLUDED.finished_price,
+                   price_with_disc = EXCLUDED.price_with_disc,
+                   is_cancel = EXCLUDED.is_cancel,
+                   cancel_date = EXCLUDED.cancel_date,
+                   updated_at = EXCLUDED.updated_at
+             WHERE EXCLUDED.last_change_date > o.last_change_date
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Записывает пачку заказов кабинета. Должен вызываться внутри транзакции.
+     *
+     * @return число вставленных/обновлённых строк
+     */
+    public int append(Long cabinetId, List<Row> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        Integer affected = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_STAGE_SQL);
+                statement.execute("TRUNCATE " + STAGE_TABLE);
+            }
+            copyToStage(connection, rows);
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            try (PreparedStatement statement = connection.prepareStatement(UPSERT_FROM_STAGE_SQL)) {
+                statement.setLong(1, cabinetId);
+                statement.setTimestamp(2, now);
+                statement.setTimestamp(3, now);
+                return statement.executeUpdate();
+            }
+        });
+        return affected != null ? affected : 0;
+    }
+
+    private static void copyToStage(Connection connection, List<Row> rows) throws SQLException {
+        try (PgCopyWriter writer = PgCopyWriter.open(connection, STAGE_TABLE,
+                "srid", "g_number", "nm_id", "barcode", "supplier_article", "warehouse_name",
+                "order_date", "last_change_date", "total_price", "discount_percent", "spp", "finished_price",
+                "price_with_disc", "is_cancel", "cancel_date")) {
+            for (Row row : rows) {
+                writer.value(row.srid())
+                        .value(row.gNumber())
+                        .value(row.nmId())
+                        .value(row.barcode())
+                        .value(row.supplierArticle())
+                        .value(row.warehouseName())
+                        .value(row.orderDate())
+                        .value(row.lastChangeDate())
+                        .value(row.totalPrice())
+                        .value(row.discountPercent())
+                        .value(row.spp())
+                        .value(row.finishedPrice())
+                        .value(row.priceWithDisc())
+                        .value(row.isCancel())
+                        .value(row.cancelDate())
+                        .endRow();
+            }
+            writer.finish();
+        }
+    }
+
+    /**
+     * Заказ для записи в журнал.
+     */
+    public record Row(
+            String srid,
+            String gNumber,
+            Long nmId,
+            String barcode,
+            String supplierArticle,
+            String warehouseName,
+            LocalDateTime orderDate,
+            LocalDateTime lastChangeDate,
+            BigDecimal totalPrice,
+            Integer discountPercent,
+            Integer spp,
+            BigDecimal finishedPrice,
+            BigDecimal priceWithDisc,
+            Boolean isCancel,
+            LocalDateTime cancelDate
+    ) {
+    }
+}
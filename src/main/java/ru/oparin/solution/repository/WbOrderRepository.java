@@ -0,0 +1,132 @@
+package ru.oparin.solution.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.oparin.solution.model.WbOrder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Репозиторий журнала заказов WB.
+ */
+@Repository
+public interface WbOrderRepository extends JpaRepository<WbOrder, Long> {
+
+    /**
+     * Максимальная дата изменения заказа в журнале кабинета — курсор следующей загрузки.
+     */
+    @Query("SELECT MAX(o.lastChangeDate) FROM WbOrder o WHERE o.cabinet.id = :cabinetId")
+    Optional<LocalDateTime> findMaxLastChangeDate(@Param("cabinetId") Long cabinetId);
+
+    /**
+     * СПП по артикулам из заказов за период: значение последнего изменённого заказа и число различных значений.
+     */
+    @Query(value = """
+            SELECT o.nm_id AS nmId,
+                   (ARRAY_AGG(o.spp ORDER BY o.last_change_date DESC, o.order_date DESC))[1] AS spp,
+                   COUNT(DISTINCT o.spp) AS distinctValues
+              FROM solution.wb_orders o
+             WHERE o.cabinet_id = :cabinetId
+               AND o.order_date >= CAST(:from AS timestamp)
+               AND o.order_date < CAST(:to AS timestamp)
+               AND o.nm_id IS NOT NULL
+               AND o.spp IS NOT NULL
+             GROUP BY o.nm_id
+            """, nativeQuery = true)
+    List<SppByNmIdProjection> findSppByNmId(
+            @Param("cabinetId") Long cabinetId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
+    /**
+     * Заказы, отмены и выручка (цена со скидкой продавца) по артикулу за каждый день периода.
+     */
+    @Query(value = """
+            SELECT o.nm_id AS nmId,
+                   CAST(o.order_date AS date) AS date,
+                   COUNT(*) AS orders,
+                   COUNT(*) FILTER (WHERE o.is_cancel) AS cancelled,
+                   COALESCE(SUM(o.price_with_disc), 0) AS revenue
+              FROM solution.wb_orders o
+             WHERE o.cabinet_id = :cabinetId
+               AND o.order_date >= CAST(:from AS timestamp)
+               AND o.order_date < CAST(:to AS timestamp)
+               AND o.nm_id IS NOT NULL
+             GROUP BY o.nm_id, CAST(o.order_date AS date)
+             ORDER BY CAST(o.order_date AS date), o.nm_id
+            """, nativeQuery = true)
+    List<DailyOrdersProjection> findDailyOrders(
+            @Param("cabinetId") Long cabinetId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
+    /**
+     * То же, что {@link #findDailyOrders}, для одного артикула.
+     */
+    @Query(value = """
+            SELECT o.nm_id AS nmId,
+                   CAST(o.order_date AS date) AS date,
+                   COUNT(*) AS orders,
+                   COUNT(*) FILTER (WHERE o.is_cancel) AS cancelled,
+                   COALESCE(SUM(o.price_with_disc), 0) AS revenue
+              FROM solution.wb_orders o
+             WHERE o.cabinet_id = :cabinetId
+               AND o.nm_id = :nmId
+               AND o.order_date >= CAST(:from AS timestamp)
+               AND o.order_date < CAST(:to AS timestamp)
+             GROUP BY o.nm_id, CAST(o.order_date AS date)
+             ORDER BY CAST(o.order_date AS date)
+            """, nativeQuery = true)
+    List<DailyOrdersProjection> findDailyOrdersByNmId(
+            @Param("cabinetId") Long cabinetId,
+            @Param("nmId") Long nmId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
+    /**
+     * Выборка внутренних ID по кабинету пачкой (удаление кабинета).
+     */
+    @Query("SELECT o.id FROM WbOrder o WHERE o.cabinet.id = :cabinetId")
+    List<Long> findIdByCabinet_Id(@Param("cabinetId") Long cabinetId, Pageable pageable);
+
+    /**
+     * Проекция: СПП артикула за период.
+     */
+    interface SppByNmIdProjection {
+
+        Long getNmId();
+
+        Integer getSpp();
+
+        /**
+         * Сколько различных значений СПП встретилось в заказах артикула.
+         */
+        Long getDistinctValues();
+    }
+
+    /**
+     * Проекция: заказы артикула за день.
+     */
+    interface DailyOrdersProjection {
+
+        Long getNmId();
+
+        LocalDate getDate();
+
+        Long getOrders();
+
+        Long getCancelled();
+
+        BigDecimal getRevenue();
+    }
+}
@@ -2,11 +2,13 @@ package ru.oparin.solution.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.oparin.solution.model.WbProductCard;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,7 +16,7 @@ import java.util.Optional;
  * Репозиторий для работы с карточками товаров.
  */
 @Repository
-public interface WbProductCardRepository extends JpaRepository<WbProductCard, Long> {
+public interface WbProductCardRepository extends JpaRepository<WbProductCard, Long>, JpaSpecificationExecutor<WbProductCard> {
 
     /**
      * Находит карточку по nmID.
@@ -37,11 +39,22 @@ public interface WbProductCardRepository extends JpaRepository<WbProductCard, Lo
     @Query("SELECT c.nmId FROM WbProductCard c WHERE c.cabinet.id = :cabinetId")
     List<Long> findNmIdByCabinet_Id(@Param("cabinetId") Long cabinetId, Pageable pageable);
 
+    /**
+     * Все nmId кабинета без загрузки карточек.
+     */
+    @Query("SELECT DISTINCT c.nmId FROM WbProductCard c WHERE c.cabinet.id = :cabinetId AND c.nmId IS NOT NULL")
+    List<Long> findAllNmIdsByCabinet_Id(@Param("cabinetId") Long cabinetId);
+
     /**
      * Находит карточку по nmID и кабинету.
      */
     Optional<WbProductCard> findByNmIdAndCabinet_Id(Long nmId, Long cabinetId);
 
+    /**
+     * Карточки кабинета по списку nmID одним запросом.
+     */
+    List<WbProductCard> findByCabinet_IdAndNmIdIn(Long cabinetId, Collection<Long> nmIds);
+
     /**
      * Карточка с кабинетом и владельцем (для проверок доступа при open-in-view=false).
      */
@@ -67,9 +80,6 @@ public interface WbProductCardRepository extends JpaRepository<WbProductCard, Lo
             @Param("cabinetId") Long cabinetId
     );
 
-    @Query("SELECT c.nmId FROM WbProductCard c WHERE c.cabinet.id = :cabinetId AND c.nmId IN :nmIds AND c.isPriority = true")
-    List<Long> findPriorityNmIdsByCabinetAndNmIdIn(@Param("cabinetId") Long cabinetId, @Param("nmIds") List<Long> nmIds);
-
     /**
      * Находит все карточки с заданным IMT ID в кабинете (товары «в связке»).
      */
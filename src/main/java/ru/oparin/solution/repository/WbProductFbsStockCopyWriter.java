@@ -0,0 +1,129 @@
+package ru.oparin.solution.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.oparin.solution.util.PgCopyWriter;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Замена снимка остатков FBS одного склада продавца: COPY во временную таблицу, затем
+ * {@code INSERT ... ON CONFLICT DO UPDATE} только изменившихся строк и один {@code DELETE} исчезнувших chrtId
+ * в транзакции вызывающего кода.
+ * <p>
+ * Вместо {@code save} по каждому chrtId и {@code deleteAll} построчно — три SQL-команды на склад.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WbProductFbsStockCopyWriter {
+
+    private static final String STAGE_TABLE = "tmp_wb_product_fbs_stocks";
+
+    private static final String CREATE_STAGE_SQL = """
+            CREATE TEMP TABLE IF NOT EXISTS tmp_wb_product_fbs_stocks (
+                chrt_id BIGINT,
+                nm_id BIGINT,
+                sku TEXT,
+                amount INTEGER
+            ) ON COMMIT DELETE ROWS
+            """;
+
+    /**
+     * Неизменившиеся строки не обновляются: {@code updated_at} сдвигается только при реальном изменении,
+     * как при dirty checking сущности.
+     */
+    private static final String UPSERT_FROM_STAGE_SQL = """
+            INSERT INTO solution.wb_product_fbs_stocks AS s (
+                cabinet_id, warehouse_id, chrt_id, nm_id, sku, amount, created_at, updated_at
+            )
+            SELECT ?, ?, t.chrt_id, t.nm_id, t.sku, t.amount, ?, ?
+              FROM tmp_wb_product_fbs_stocks t
+            ON CONFLICT (cabinet_id, warehouse_id, chrt_id) DO UPDATE
+               SET nm_id = EXCLUDED.nm_id,
+                   sku = EXCLUDED.sku,
+                   amount = EXCLUDED.amount,
+                   updated_at = EXCLUDED.updated_at
+             WHERE s.nm_id IS DISTINCT FROM EXCLUDED.nm_id
+                OR s.sku IS DISTINCT FROM EXCLUDED.sku
+                OR s.amount IS DISTINCT FROM EXCLUDED.amount
+            """;
+
+    private static final String DELETE_STALE_SQL = """
+            DELETE FROM solution.wb_product_fbs_stocks s
+             WHERE s.cabinet_id = ?
+               AND s.warehouse_id = ?
+               AND NOT EXISTS (SELECT 1 FROM tmp_wb_product_fbs_stocks t WHERE t.chrt_id = s.chrt_id)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Приводит остатки склада к переданному снимку. Должен вызываться внутри транзакции.
+     *
+     * @param rows строки снимка, по одной на chrtId
+     * @return число вставленных/изменённых и удалённых строк
+     */
+    public Result replaceWarehouse(Long cabinetId, Long warehouseId, Collection<Row> rows) {
+        return jdbcTemplate.execute((ConnectionCallback<Result>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_STAGE_SQL);
+                statement.execute("TRUNCATE " + STAGE_TABLE);
+            }
+            copyToStage(connection, rows);
+
+            int upserted;
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            try (PreparedStatement statement = connection.prepareStatement(UPSERT_FROM_STAGE_SQL)) {
+                statement.setLong(1, cabinetId);
+                statement.setLong(2, warehouseId);
+                statement.setTimestamp(3, now);
+                statement.setTimestamp(4, now);
+                upserted = statement.executeUpdate();
+            }
+            int deleted;
+            try (PreparedStatement statement = connection.prepareStatement(DELETE_STALE_SQL)) {
+                statement.setLong(1, cabinetId);
+                statement.setLong(2, warehouseId);
+                deleted = statement.executeUpdate();
+            }
+            return new Result(upserted, deleted);
+        });
+    }
+
+    private static void copyToStage(Connection connection, Collection<Row> rows) throws SQLException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try (PgCopyWriter writer = PgCopyWriter.open(connection, STAGE_TABLE, "chrt_id", "nm_id", "sku", "amount")) {
+            for (Row row : rows) {
+                writer.value(row.chrtId())
+                        .value(row.nmId())
+                        .value(row.sku())
+                        .value(row.amount())
+                        .endRow();
+            }
+            writer.finish();
+        }
+    }
+
+    /**
+     * Остаток размера на складе для загрузки.
+     */
+    public record Row(Long chrtId, Long nmId, String sku, Integer amount) {
+    }
+
+    /**
+     * @param upserted вставлено или изменено строк
+     * @param deleted  удалено устаревших строк
+     */
+    public record Result(int upserted, int deleted) {
+    }
+}
@@ -2,6 +2,7 @@ package ru.oparin.solution.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -65,6 +66,36 @@ public interface WbProductPriceHistoryRepository extends JpaRepository<WbProduct
 
     List<WbProductPriceHistory> findByNmIdAndDateBetweenAndCabinet_Id(Long nmId, LocalDate dateFrom, LocalDate dateTo, Long cabinetId);
 
+    /**
+     * Проставляет известное СПП строкам цены без СПП по тем же nmId за день (одним UPDATE на весь набор nmId).
+     * Источник — максимальное СПП среди строк nmId за день.
+     *
+     * @return число обновлённых строк
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(value = """
+            UPDATE solution.wb_product_price_history p
+               SET spp_discount = s.spp_discount
+              FROM (
+                    SELECT nm_id, MAX(spp_discount) AS spp_discount
+                      FROM solution.wb_product_price_history
+                     WHERE cabinet_id = :cabinetId
+                       AND date = :date
+                       AND nm_id = ANY (CAST(:nmIds AS bigint[]))
+                       AND spp_discount IS NOT NULL
+                     GROUP BY nm_id
+                   ) s
+             WHERE p.cabinet_id = :cabinetId
+               AND p.date = :date
+               AND p.nm_id = s.nm_id
+               AND p.spp_discount IS NULL
+            """, nativeQuery = true)
+    int alignSppDiscountByNmIds(
+            @Param("cabinetId") Long cabinetId,
+            @Param("date") LocalDate date,
+            @Param("nmIds") Long[] nmIds
+    );
+
     void deleteByCabinet_Id(Long cabinetId);
 
     /**
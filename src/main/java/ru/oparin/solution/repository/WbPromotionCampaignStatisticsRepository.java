@@ -8,6 +8,7 @@ import org.springframework.stereotype.Repository;
 import ru.oparin.solution.model.WbPromotionCampaignStatistics;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -85,6 +86,62 @@ public interface WbPromotionCampaignStatisticsRepository extends JpaRepository<W
             @Param("dateTo") LocalDate dateTo
     );
 
+    /**
+     * Число артикулов и суммы метрик по каждой кампании за период одним запросом (вместо загрузки строк статистики
+     * и связей кампания-артикул). Статистика учитывается только по артикулам кампании; у кампании без артикулов —
+     * по всем строкам. Кампании без артикулов и статистики тоже возвращаются (метрики {@code null}).
+     *
+     * @param nmId артикул фильтра списка для признака {@code hasNmId}, может быть {@code null}
+     */
+    @Query(value = """
+            WITH ids AS (
+                SELECT DISTINCT UNNEST(CAST(:campaignIds AS bigint[])) AS campaign_id
+            ),
+            articles AS (
+                SELECT a.campaign_id,
+                       COUNT(*) AS articles_count,
+                       BOOL_OR(a.nm_id = CAST(:nmId AS bigint)) AS has_nm_id
+                  FROM solution.wb_campaign_articles a
+                  JOIN ids ON ids.campaign_id = a.campaign_id
+                 GROUP BY a.campaign_id
+            ),
+            stats AS (
+                SELECT s.campaign_id,
+                       SUM(s.views) AS views,
+                       SUM(s.clicks) AS clicks,
+                       SUM(s.atbs) AS atbs,
+                       SUM(s.orders) AS orders,
+                       SUM(s.sum) AS spend
+                  FROM solution.wb_promotion_campaign_statistics s
+                  JOIN ids ON ids.campaign_id = s.campaign_id
+                  LEFT JOIN articles a ON a.campaign_id = s.campaign_id
+                 WHERE s.date BETWEEN :dateFrom AND :dateTo
+                   AND (a.campaign_id IS NULL OR EXISTS (
+                        SELECT 1
+                          FROM solution.wb_campaign_articles ca
+                         WHERE ca.campaign_id = s.campaign_id
+                           AND ca.nm_id = s.nm_id))
+                 GROUP BY s.campaign_id
+            )
+            SELECT ids.campaign_id AS campaignId,
+                   COALESCE(a.articles_count, 0) AS articlesCount,
+                   COALESCE(a.has_nm_id, FALSE) AS hasNmId,
+                   st.views AS views,
+                   st.clicks AS clicks,
+                   st.atbs AS atbs,
+                   st.orders AS orders,
+                   st.spend AS spend
+              FROM ids
+              LEFT JOIN articles a ON a.campaign_id = ids.campaign_id
+              LEFT JOIN stats st ON st.campaign_id = ids.campaign_id
+            """, nativeQuery = true)
+    List<CampaignListMetricsProjection> findListMetricsByCampaignIds(
+            @Param("campaignIds") Long[] campaignIds,
+            @Param("dateFrom") LocalDate dateFrom,
+            @Param("dateTo") LocalDate dateTo,
+            @Param("nmId") Long nmId
+    );
+
     /**
      * Поиск статистики по артикулу за период.
      *
@@ -126,6 +183,18 @@ public interface WbPromotionCampaignStatisticsRepository extends JpaRepository<W
     @Query("SELECT DISTINCT s.nmId FROM WbPromotionCampaignStatistics s WHERE s.campaign.advertId = :campaignId")
     List<Long> findDistinctNmIdsByCampaignAdvertId(@Param("campaignId") Long campaignId);
 
+    /**
+     * Уникальные пары (кампания, nm_id) из статистики по набору кампаний одним запросом.
+     *
+     * @param campaignIds ID кампаний (advert_id)
+     */
+    @Query("""
+            SELECT DISTINCT s.campaign.advertId AS campaignId, s.nmId AS nmId
+              FROM WbPromotionCampaignStatistics s
+             WHERE s.campaign.advertId IN :campaignIds
+            """)
+    List<CampaignNmIdProjection> findDistinctCampaignNmIdPairs(@Param("campaignIds") Collection<Long> campaignIds);
+
     void deleteByCampaign_AdvertId(Long advertId);
 
     /**
@@ -0,0 +1,183 @@
+package ru.oparin.solution.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.oparin.solution.util.PgCopyWriter;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Замена статистики normquery за период одним проходом: COPY во временную таблицу,
+ * затем {@code DELETE} диапазона и {@code INSERT ... SELECT} в той же транзакции вызывающего кода.
+ * <p>
+ * Вместо {@code findById} по каждой кампании и {@code saveAll} построчно — три SQL-команды на батч.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WbPromotionNormQueryStatisticsCopyWriter {
+
+    private static final String STAGE_TABLE = "tmp_wb_norm_query_statistics";
+
+    private static final String CREATE_STAGE_SQL = """
+            CREATE TEMP TABLE IF NOT EXISTS tmp_wb_norm_query_statistics (
+                ordinal BIGINT,
+                campaign_id BIGINT,
+                nm_id BIGINT,
+                date DATE,
+                norm_query TEXT,
+                avg_pos NUMERIC,
+                clicks INTEGER,
+                atbs INTEGER,
+                orders INTEGER,
+                shks INTEGER,
+                spend NUMERIC,
+                cpc NUMERIC,
+                views INTEGER,
+                ctr NUMERIC,
+                cpm NUMERIC
+            ) ON COMMIT DELETE ROWS
+            """;
+
+    private static final String DELETE_RANGE_SQL = """
+            DELETE FROM solution.wb_promotion_norm_query_statistics
+             WHERE campaign_id = ANY (?)
+               AND date BETWEEN ? AND ?
+            """;
+
+    /**
+     * Строки кампаний, которых нет в БД, отбрасываются JOIN-ом; из дубликатов ключа внутри ответа DISTINCT ON
+     * оставляет последний по порядку ответа ({@code ordinal DESC}), как при построчной записи.
+     * ON CONFLICT — для строк вне удалённого диапазона (дата из ответа WB за пределами запрошенного периода).
+     */
+    private static final String INSERT_FROM_STAGE_SQL = """
+            INSERT INTO solution.wb_promotion_norm_query_statistics (
+                campaign_id, nm_id, date, norm_query, avg_pos, clicks, atbs, orders, shks,
+                spend, cpc, views, ctr, cpm, created_at, updated_at
+            )
+            SELECT DISTINCT ON (t.campaign_id, t.nm_id, t.date, t.norm_query)
+                   t.campaign_id, t.nm_id, t.date, t.norm_query, t.avg_pos, t.clicks, t.atbs, t.orders, t.shks,
+                   t.spend, t.cpc, t.views, t.ctr, t.cpm, ?, ?
+              FROM tmp_wb_norm_query_statistics t
+              JOIN solution.wb_promotion_campaigns c ON c.advert_id = t.campaign_id
+             ORDER BY t.campaign_id, t.nm_id, t.date, t.norm_query, t.ordinal DESC
+            ON CONFLICT (campaign_id, nm_id, date, norm_query) DO UPDATE
+               SET avg_pos = EXCLUDED.avg_pos,
+                   clicks = EXCLUDED.clicks,
+                   atbs = EXCLUDED.atbs,
+                   orders = EXCLUDED.orders,
+                   shks = EXCLUDED.shks,
+                   spend = EXCLUDED.spend,
+                   cpc = EXCLUDED.cpc,
+                   views = EXCLUDED.views,
+                   ctr = EXCLUDED.ctr,
+                   cpm = EXCLUDED.cpm,
+                   updated_at = EXCLUDED.updated_at
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Удаляет статистику кампаний за период и вставляет новые строки. Должен вызываться внутри транзакции.
+     * <p>
+     * Строки читаются из итератора по одной и сразу уходят в COPY — в памяти не больше одного блока
+     * {@link PgCopyWriter}, а не весь ответ WB.
+     *
+     * @param rows ленивый источник строк; обходится один раз
+     * @return число вставленных/обновлённых строк
+     */
+    public int replaceRange(List<Long> campaignIds, LocalDate dateFrom, LocalDate dateTo, Iterator<Row> rows) {
+        Integer affected = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            deleteRange(connection, campaignIds, dateFrom, dateTo);
+            if (!rows.hasNext()) {
+                return 0;
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_STAGE_SQL);
+                statement.execute("TRUNCATE " + STAGE_TABLE);
+            }
+            copyToStage(connection, rows);
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_FROM_STAGE_SQL)) {
+                statement.setTimestamp(1, now);
+                statement.setTimestamp(2, now);
+                return statement.executeUpdate();
+            }
+        });
+        return affected != null ? affected : 0;
+    }
+
+    private static void deleteRange(Connection connection, List<Long> campaignIds, LocalDate dateFrom, LocalDate dateTo)
+            throws SQLException {
+        Array ids = connection.createArrayOf("bigint", campaignIds.toArray());
+        try (PreparedStatement statement = connection.prepareStatement(DELETE_RANGE_SQL)) {
+            statement.setArray(1, ids);
+            statement.setDate(2, Date.valueOf(dateFrom));
+            statement.setDate(3, Date.valueOf(dateTo));
+            statement.executeUpdate();
+        } finally {
+            ids.free();
+        }
+    }
+
+    private static void copyToStage(Connection connection, Iterator<Row> rows) throws SQLException {
+        try (PgCopyWriter writer = PgCopyWriter.open(connection, STAGE_TABLE,
+                "ordinal", "campaign_id", "nm_id", "date", "norm_query", "avg_pos", "clicks", "atbs", "orders", "shks",
+                "spend", "cpc", "views", "ctr", "cpm")) {
+            long ordinal = 0;
+            while (rows.hasNext()) {
+                Row row = rows.next();
+                writer.value(ordinal++)
+                        .value(row.campaignId())
+                        .value(row.nmId())
+                        .value(row.date())
+                        .value(row.normQuery())
+                        .value(row.avgPos())
+                        .value(row.clicks())
+                        .value(row.atbs())
+                        .value(row.orders())
+                        .value(row.shks())
+                        .value(row.spend())
+                        .value(row.cpc())
+                        .value(row.views())
+                        .value(row.ctr())
+                        .value(row.cpm())
+                        .endRow();
+            }
+            writer.finish();
+        }
+    }
+
+    /**
+     * Строка статистики normquery для загрузки.
+     */
+    public record Row(
+            Long campaignId,
+            Long nmId,
+            LocalDate date,
+            String normQuery,
+            BigDecimal avgPos,
+            Integer clicks,
+            Integer atbs,
+            Integer orders,
+            Integer shks,
+            BigDecimal spend,
+            BigDecimal cpc,
+            Integer views,
+            BigDecimal ctr,
+            BigDecimal cpm
+    ) {
+    }
+}
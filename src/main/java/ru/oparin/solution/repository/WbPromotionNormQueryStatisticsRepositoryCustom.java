@@ -1,6 +1,7 @@
 package ru.oparin.solution.repository;
 
 import org.springframework.data.domain.Sort;
+import ru.oparin.solution.dto.analytics.NormQueryClusterCursor;
 import ru.oparin.solution.dto.analytics.NormQueryClusterSortField;
 
 import java.time.LocalDate;
@@ -19,6 +20,10 @@ public interface WbPromotionNormQueryStatisticsRepositoryCustom {
             String searchPattern
     );
 
+    /**
+     * Страница кластеров: при {@code after != null} — keyset после курсора ({@code offset} игнорируется),
+     * иначе — смещение {@code offset}.
+     */
     List<WbPromotionNormQueryStatisticsRepository.NormQueryClusterAggregateRow> findAggregatedClustersPage(
             Long campaignId,
             LocalDate dateFrom,
@@ -27,6 +32,7 @@ public interface WbPromotionNormQueryStatisticsRepositoryCustom {
             String searchPattern,
             NormQueryClusterSortField sortBy,
             Sort.Direction sortDir,
+            NormQueryClusterCursor after,
             int limit,
             int offset
     );
@@ -5,6 +5,7 @@ import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Repository;
+import ru.oparin.solution.dto.analytics.NormQueryClusterCursor;
 import ru.oparin.solution.dto.analytics.NormQueryClusterSortField;
 
 import java.math.BigDecimal;
@@ -14,6 +15,7 @@ import java.util.List;
 
 /**
  * Динамическая сортировка и пагинация агрегированных кластеров (native SQL).
+ * Поиск {@code LOWER(norm_query) LIKE} идёт по триграммному индексу, страницы — keyset по (агрегат, normQuery).
  */
 @Repository
 public class WbPromotionNormQueryStatisticsRepositoryImpl implements WbPromotionNormQueryStatisticsRepositoryCustom {
@@ -53,7 +55,7 @@ public class WbPromotionNormQueryStatisticsRepositoryImpl implements WbPromotion
                     ELSE 0 END AS cpo
             """;
 
-    private static final String FROM_TABLE = " FROM solution.promotion_norm_query_statistics s ";
+    private static final String FROM_TABLE = " FROM solution.wb_promotion_norm_query_statistics s ";
 
     @PersistenceContext
     private EntityManager entityManager;
@@ -82,17 +84,32 @@ public class WbPromotionNormQueryStatisticsRepositoryImpl implements WbPromotion
             String searchPattern,
             NormQueryClusterSortField sortBy,
             Sort.Direction sortDir,
+            NormQueryClusterCursor after,
             int limit,
             int offset
     ) {
         String inner = buildAggregateInnerSql(nmId, searchPattern);
-        String sql = "SELECT * FROM (" + inner + ") agg "
-                + "ORDER BY agg." + sortBy.getSqlAlias() + " " + sortDir.name() + " NULLS LAST "
-                + "LIMIT :limit OFFSET :offset";
-        Query query = entityManager.createNativeQuery(sql);
+        String column = "agg." + sortBy.getSqlAlias();
+        StringBuilder sql = new StringBuilder("SELECT * FROM (").append(inner).append(") agg ");
+        if (after != null) {
+            sql.append(buildKeysetClause(column, sortDir, after.sortValue() != null));
+        }
+        sql.append("ORDER BY ").append(column).append(' ').append(sortDir.name()).append(" NULLS LAST, agg.normQuery ASC ")
+                .append("LIMIT :limit");
+        if (after == null) {
+            sql.append(" OFFSET :offset");
+        }
+        Query query = entityManager.createNativeQuery(sql.toString());
         bindBaseParams(query, campaignId, dateFrom, dateTo, nmId, searchPattern);
         query.setParameter("limit", limit);
-        query.setParameter("offset", offset);
+        if (after != null) {
+            if (after.sortValue() != null) {
+                query.setParameter("cursorValue", after.sortValueForSql());
+            }
+            query.setParameter("cursorNormQuery", after.normQuery());
+        } else {
+            query.setParameter("offset", offset);
+        }
 
         List<Object[]> raw = query.getResultList();
         List<WbPromotionNormQueryStatisticsRepository.NormQueryClusterAggregateRow> rows = new ArrayList<>(raw.size());
@@ -120,7 +137,24 @@ public class WbPromotionNormQueryStatisticsRepositoryImpl implements WbPromotion
         return new TotalsRowProjection((Object[]) result);
     }
 
-    private String buildAggregateInnerSql(Long nmId, String searchPattern) {
+    /**
+     * Строки строго после курсора в порядке {@code column DIR NULLS LAST, normQuery ASC}.
+     */
+    private static String buildKeysetClause(String column, Sort.Direction sortDir, boolean cursorValuePresent) {
+        if (!cursorValuePresent) {
+            return "WHERE " + column + " IS NULL AND agg.normQuery > :cursorNormQuery ";
+        }
+        String comparison = sortDir == Sort.Direction.ASC ? " > " : " < ";
+        return "WHERE (" + column + comparison + ":cursorValue"
+                + " OR (" + column + " = :cursorValue AND agg.normQuery > :cursorNormQuery)"
+                + " OR " + column + " IS NULL) ";
+    }
+
+    /**
+     * Агрегат по кластерам без сортировки и пагинации; параметры {@code :campaignId}, {@code :dateFrom},
+     * {@code :dateTo} и при наличии фильтров {@code :nmId}, {@code :search}. Используется и потоковой выгрузкой.
+     */
+    static String buildAggregateInnerSql(Long nmId, String searchPattern) {
         return AGGREGATE_SELECT + FROM_TABLE + buildWhereClause(nmId, searchPattern) + " GROUP BY s.norm_query ";
     }
 
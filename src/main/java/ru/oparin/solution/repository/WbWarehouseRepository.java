@@ -1,6 +1,7 @@
 package ru.oparin.solution.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.oparin.solution.model.WbWarehouse;
 
@@ -22,5 +23,15 @@ public interface WbWarehouseRepository extends JpaRepository<WbWarehouse, Intege
      * Находит все склады, отсортированные по ID.
      */
     List<WbWarehouse> findAllByOrderByIdAsc();
+
+    /**
+     * Текущая версия справочника складов (увеличивается триггером на любое изменение {@code wb_warehouses}).
+     */
+    @Query(value = """
+            SELECT v.version
+              FROM solution.reference_data_versions v
+             WHERE v.name = 'wb_warehouses'
+            """, nativeQuery = true)
+    Optional<Long> findDirectoryVersion();
 }
 
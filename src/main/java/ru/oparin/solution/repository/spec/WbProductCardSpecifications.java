@@ -0,0 +1,154 @@
+package ru.oparin.solution.repository.spec;
+
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+import ru.oparin.solution.model.WbCampaignArticle;
+import ru.oparin.solution.model.WbCampaignStatus;
+import ru.oparin.solution.model.WbProductCard;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Критерии выборки карточек WB для сводной аналитики (фильтры и keyset-пагинация на стороне БД).
+ */
+public final class WbProductCardSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private WbProductCardSpecifications() {
+    }
+
+    /**
+     * Карточки кабинета ({@code cabinetId != null}) или всех кабинетов продавца.
+     */
+    public static Specification<WbProductCard> visibleFor(Long sellerId, Long cabinetId) {
+        return (root, query, cb) -> cabinetId != null
+                ? cb.equal(root.get("cabinet").get("id"), cabinetId)
+                : cb.equal(root.get("cabinet").get("user").get("id"), sellerId);
+    }
+
+    public static Specification<WbProductCard> nmIdNotIn(Collection<Long> nmIds) {
+        if (nmIds == null || nmIds.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> cb.not(root.get("nmId").in(nmIds));
+    }
+
+    public static Specification<WbProductCard> nmIdIn(Collection<Long> nmIds) {
+        if (nmIds == null || nmIds.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> root.get("nmId").in(nmIds);
+    }
+
+    /**
+     * Подстрочный поиск без учёта регистра по названию, артикулу продавца и nmId.
+     */
+    public static Specification<WbProductCard> search(String searchRaw) {
+        if (!StringUtils.hasText(searchRaw)) {
+            return null;
+        }
+        String like = searchPattern(searchRaw);
+        return (root, query, cb) -> cb.or(
+                cb.like(cb.lower(root.get("title")), like, LIKE_ESCAPE),
+                cb.like(cb.lower(root.get("vendorCode")), like, LIKE_ESCAPE),
+                cb.like(root.get("nmId").as(String.class), like, LIKE_ESCAPE)
+        );
+    }
+
+    /**
+     * Шаблон {@code LIKE} для {@link #search(String)} (нижний регистр, спецсимволы экранированы обратной косой чертой).
+     */
+    public static String searchPattern(String searchRaw) {
+        if (!StringUtils.hasText(searchRaw)) {
+            return null;
+        }
+        return "%" + escapeLike(searchRaw.trim().toLowerCase()) + "%";
+    }
+
+    /**
+     * Есть хотя бы одно фото (photoTm или c246x328).
+     */
+    public static Specification<WbProductCard> withPhoto() {
+        return (root, query, cb) -> cb.or(
+                cb.and(cb.isNotNull(root.get("photoTm")), cb.notEqual(cb.trim(root.get("photoTm")), "")),
+                cb.and(cb.isNotNull(root.get("photoC246x328")), cb.notEqual(cb.trim(root.get("photoC246x328")), ""))
+        );
+    }
+
+    public static Specification<WbProductCard> priorityOnly() {
+        return (root, query, cb) -> cb.isTrue(root.get("isPriority"));
+    }
+
+    /**
+     * Артикул привязан к незавершённой РК кабинета (или любого кабинета продавца при {@code cabinetId == null}).
+     */
+    public static Specification<WbProductCard> inNonFinishedCampaigns(Long sellerId, Long cabinetId) {
+        return (root, query, cb) -> {
+            Subquery<Long> subquery = query.subquery(Long.class);
+            Root<WbCampaignArticle> article = subquery.from(WbCampaignArticle.class);
+            Predicate scope = cabinetId != null
+                    ? cb.equal(article.get("campaign").get("cabinet").get("id"), cabinetId)
+                    : cb.equal(article.get("campaign").get("cabinet").get("user").get("id"), sellerId);
+            subquery.select(article.get("nmId")).where(
+                    cb.equal(article.get("nmId"), root.get("nmId")),
+                    cb.notEqual(article.get("campaign").get("status"), WbCampaignStatus.FINISHED),
+                    scope
+            );
+            return cb.exists(subquery);
+        };
+    }
+
+    /**
+     * Keyset: артикулы строго после курсора в порядке {@code (wbCreatedAt, nmId)} с направлением {@code direction}.
+     */
+    public static Specification<WbProductCard> afterWbCreatedAt(
+            LocalDateTime wbCreatedAt,
+            Long nmId,
+            Sort.Direction direction
+    ) {
+        return (root, query, cb) -> {
+            Path<LocalDateTime> createdAt = root.get("wbCreatedAt");
+            Path<Long> id = root.get("nmId");
+            if (direction == Sort.Direction.ASC) {
+                return cb.or(
+                        cb.greaterThan(createdAt, wbCreatedAt),
+                        cb.and(cb.equal(createdAt, wbCreatedAt), cb.greaterThan(id, nmId))
+                );
+            }
+            return cb.or(
+                    cb.lessThan(createdAt, wbCreatedAt),
+                    cb.and(cb.equal(createdAt, wbCreatedAt), cb.lessThan(id, nmId))
+            );
+        };
+    }
+
+    /**
+     * Склейка спецификаций через AND (null пропускаются).
+     */
+    @SafeVarargs
+    public static Specification<WbProductCard> allOf(Specification<WbProductCard>... specs) {
+        List<Specification<WbProductCard>> parts = new ArrayList<>();
+        for (Specification<WbProductCard> spec : specs) {
+            if (spec != null) {
+                parts.add(spec);
+            }
+        }
+        return Specification.allOf(parts);
+    }
+
+    private static String escapeLike(String value) {
+        return value
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
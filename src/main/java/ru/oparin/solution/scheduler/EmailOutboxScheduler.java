@@ -0,0 +1,49 @@
+package ru.oparin.solution.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.oparin.solution.config.MailOutboxProperties;
+import ru.oparin.solution.service.mail.EmailOutboxSender;
+import ru.oparin.solution.service.mail.EmailOutboxService;
+
+import java.time.LocalDateTime;
+
+/**
+ * Планировщик исходящей очереди писем: отправка, возврат зависших SENDING и очистка отправленных.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxScheduler {
+
+    private final EmailOutboxSender outboxSender;
+    private final EmailOutboxService outboxService;
+    private final MailOutboxProperties properties;
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-delay-ms:5000}")
+    @SchedulerLock(name = "emailOutboxSend", lockAtLeastFor = "PT1S", lockAtMostFor = "PT5M")
+    public void sendDue() {
+        outboxSender.sendDueBatch();
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    @SchedulerLock(name = "emailOutboxRequeueStale", lockAtLeastFor = "PT5S", lockAtMostFor = "PT5M")
+    public void requeueStale() {
+        int requeued = outboxService.requeueStale();
+        if (requeued > 0) {
+            log.warn("Исходящая почта: возвращено в очередь зависших писем: {}", requeued);
+        }
+    }
+
+    @Scheduled(cron = "0 30 3 * * ?")
+    @SchedulerLock(name = "emailOutboxCleanup", lockAtLeastFor = "PT5S", lockAtMostFor = "PT10M")
+    public void cleanup() {
+        long deleted = outboxService.deleteSentBefore(LocalDateTime.now().minusDays(properties.getRetentionDays()));
+        if (deleted > 0) {
+            log.info("Исходящая почта: удалено отправленных писем: {}", deleted);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package ru.oparin.solution.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.oparin.solution.service.NoteFileHashBackfillService;
+
+/**
+ * Периодический досчёт SHA-256 вложений заметок, загруженных до появления хэша.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NoteFileHashBackfillScheduler {
+
+    private final NoteFileHashBackfillService backfillService;
+
+    @Value("${app.uploads.hash-backfill-enabled:true}")
+    private boolean backfillEnabled;
+
+    @Scheduled(fixedDelayString = "${app.uploads.hash-backfill-delay-ms:3600000}", initialDelayString = "${app.uploads.hash-backfill-initial-delay-ms:60000}")
+    @SchedulerLock(name = "noteFileHashBackfill", lockAtLeastFor = "PT5S", lockAtMostFor = "PT1H")
+    public void backfillContentHashes() {
+        if (!backfillEnabled) {
+            return;
+        }
+
+        int updated = backfillService.backfill();
+        if (updated > 0) {
+            log.info("Досчитаны хэши вложений заметок: {}", updated);
+        }
+    }
+}
@@ -9,7 +9,7 @@ import org.springframework.stereotype.Component;
 import ru.oparin.solution.service.UploadsCleanupService;
 
 /**
- * Периодическая очистка файлов в каталоге загрузок без ссылок в БД.
+ * Периодическая очистка каталога загрузок: частая — по манифесту, редкая — полная сверка каталога.
  */
 @Component
 @RequiredArgsConstructor
@@ -22,18 +22,34 @@ public class UploadsCleanupScheduler {
     private boolean cleanupEnabled;
 
     /**
-     * Каждое воскресенье в 12:00 удаляет осиротевшие файлы из каталога загрузок.
+     * Удаляет файлы освобождённых и непривязанных строк манифеста.
      */
-    @Scheduled(cron = "0 0 12 ? * SUN")
-    @SchedulerLock(name = "uploadsOrphanCleanup", lockAtLeastFor = "PT5S", lockAtMostFor = "PT30M")
-    public void cleanupOrphanedUploads() {
+    @Scheduled(fixedDelayString = "${app.uploads.cleanup-delay-ms:900000}", initialDelayString = "${app.uploads.cleanup-delay-ms:900000}")
+    @SchedulerLock(name = "uploadsManifestCleanup", lockAtLeastFor = "PT5S", lockAtMostFor = "PT10M")
+    public void cleanupReleasedUploads() {
         if (!cleanupEnabled) {
             return;
         }
 
-        int deleted = uploadsCleanupService.cleanupOrphanedFiles();
+        int deleted = uploadsCleanupService.cleanupReleasedFiles();
         if (deleted > 0) {
-            log.info("Очистка каталога загрузок: удалено осиротевших файлов: {}", deleted);
+            log.info("Очистка каталога загрузок: удалено файлов по манифесту: {}", deleted);
+        }
+    }
+
+    /**
+     * Каждое воскресенье в 12:00 сверяет каталог загрузок с манифестом и удаляет файлы без строки манифеста.
+     */
+    @Scheduled(cron = "${app.uploads.reconcile-cron:0 0 12 ? * SUN}")
+    @SchedulerLock(name = "uploadsOrphanCleanup", lockAtLeastFor = "PT5S", lockAtMostFor = "PT2H")
+    public void reconcileUploadsDirectory() {
+        if (!cleanupEnabled) {
+            return;
+        }
+
+        int deleted = uploadsCleanupService.reconcileDirectory();
+        if (deleted > 0) {
+            log.info("Сверка каталога загрузок: удалено файлов без манифеста: {}", deleted);
         }
     }
 }
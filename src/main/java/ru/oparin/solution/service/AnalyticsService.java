@@ -5,7 +5,10 @@ import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -13,9 +16,11 @@ import ru.oparin.solution.dto.analytics.*;
 import ru.oparin.solution.exception.UserException;
 import ru.oparin.solution.model.*;
 import ru.oparin.solution.repository.*;
+import ru.oparin.solution.repository.spec.WbProductCardSpecifications;
 import ru.oparin.solution.service.analytics.*;
 import ru.oparin.solution.service.campaign.BidderStatusResolver;
 import ru.oparin.solution.service.campaign.WbCampaignGoalService;
+import ru.oparin.solution.service.sync.WbOrdersLedgerService;
 import ru.oparin.solution.util.ArticleRatingUtils;
 import ru.oparin.solution.util.PeriodGenerator;
 
@@ -52,7 +57,7 @@ public class AnalyticsService {
     private final WbProductStockRepository stockRepository;
     private final WbProductFbsStockRepository fbsStockRepository;
     private final WbProductBarcodeRepository barcodeRepository;
-    private final WbWarehouseRepository warehouseRepository;
+    private final WbWarehouseDirectory warehouseDirectory;
     private final WbSellerWarehouseRepository sellerWarehouseRepository;
     private final FunnelMetricsCalculator funnelMetricsCalculator;
     private final AdvertisingMetricsCalculator advertisingMetricsCalculator;
@@ -65,6 +70,7 @@ public class AnalyticsService {
     private final WbCampaignManagementStateRepository campaignManagementStateRepository;
     private final WbCampaignScheduleSlotRepository campaignScheduleSlotRepository;
     private final BidderStatusResolver bidderStatusResolver;
+    private final WbOrdersLedgerService ordersLedgerService;
 
 
     /**
@@ -79,6 +85,7 @@ public class AnalyticsService {
             List<Long> excludedNmIds,
             Integer page,
             Integer size,
+            String cursor,
             String search,
             List<Long> includedNmIds,
             Boolean filterToNone,
@@ -91,6 +98,17 @@ public class AnalyticsService {
         validatePeriods(periods);
         List<PeriodDto> sortedPeriods = sortPeriodsByDateFrom(periods);
 
+        ArticleSummarySortField resolvedSortBy = ArticleSummarySortField.fromParam(sortBy);
+        Sort.Direction resolvedSortDir = Sort.Direction.fromOptionalString(sortDir).orElse(Sort.Direction.DESC);
+
+        boolean paginated = page != null && size != null && size > 0;
+        if (paginated) {
+            SummaryPageFilter filter = new SummaryPageFilter(
+                    excludedNmIds, includedNmIds, search, filterToNone, onlyWithPhoto, onlyPriority, onlyInAdvertising);
+            return getSummaryPage(seller.getId(), cabinetId, sortedPeriods, filter,
+                    page, size, cursor, resolvedSortBy, resolvedSortDir);
+        }
+
         List<WbProductCard> visibleCards = applyCatalogFilters(
                 getVisibleCards(seller.getId(), cabinetId, excludedNmIds),
                 seller.getId(),
@@ -100,50 +118,97 @@ public class AnalyticsService {
                 onlyInAdvertising
         );
 
-        ArticleSummarySortField resolvedSortBy = ArticleSummarySortField.fromParam(sortBy);
-        Sort.Direction resolvedSortDir = Sort.Direction.fromOptionalString(sortDir).orElse(Sort.Direction.DESC);
-
-        boolean paginated = page != null && size != null && size > 0;
-        if (paginated) {
-            List<WbProductCard> filtered = visibleCards;
-            if (Boolean.TRUE.equals(filterToNone)) {
-                filtered = List.of();
-            } else if (includedNmIds != null && !includedNmIds.isEmpty()) {
-                var idSet = new java.util.HashSet<>(includedNmIds);
-                filtered = filtered.stream()
-                        .filter(c -> c.getNmId() != null && idSet.contains(c.getNmId()))
-                        .collect(Collectors.toList());
-            }
-            if (search != null && !search.isBlank()) {
-                filtered = filterCardsBySearch(filtered, search.trim());
-            }
-            sortProductCards(filtered, resolvedSortBy, resolvedSortDir);
-            int total = filtered.size();
-            int from = Math.min(page * size, total);
-            int to = Math.min(from + size, total);
-            List<WbProductCard> pageCards = from < to ? filtered.subList(from, to) : List.of();
-            boolean itemRatingSupported = isItemRatingSupported(seller.getId(), cabinetId);
-            return SummaryResponseDto.builder()
-                    .periods(sortedPeriods)
-                    .articles(mapToArticleSummaries(pageCards, itemRatingSupported))
-                    .aggregatedMetrics(null)
-                    .totalArticles((long) total)
-                    .build();
-        }
-
         Map<Integer, AggregatedMetricsDto> aggregatedMetrics = calculateAggregatedMetrics(
                 visibleCards, sortedPeriods, seller.getId(), cabinetId);
         boolean itemRatingSupported = isItemRatingSupported(seller.getId(), cabinetId);
         List<WbProductCard> sortedCards = new ArrayList<>(visibleCards);
         sortProductCards(sortedCards, resolvedSortBy, resolvedSortDir);
+        List<ArticleSummaryDto> articles = mapToArticleSummaries(sortedCards, itemRatingSupported);
+        applyTodayOrders(articles, cabinetId);
         return SummaryResponseDto.builder()
                 .periods(sortedPeriods)
-                .articles(mapToArticleSummaries(sortedCards, itemRatingSupported))
+                .articles(articles)
                 .aggregatedMetrics(aggregatedMetrics)
                 .totalArticles(null)
                 .build();
     }
 
+    /**
+     * Страница сводной: фильтры, сортировка и пагинация выполняются в БД по индексу
+     * {@code (cabinet_id, wb_created_at, nm_id)}, каталог целиком в память не загружается.
+     * С курсором — keyset по (ключ сортировки, nmId); без курсора — смещение по {@code page}
+     * (первая страница и прямой переход на страницу N). Общее число артикулов считается только на странице
+     * по смещению и дальше передаётся в курсоре.
+     */
+    private SummaryResponseDto getSummaryPage(
+            Long sellerId,
+            Long cabinetId,
+            List<PeriodDto> sortedPeriods,
+            SummaryPageFilter filter,
+            int page,
+            int size,
+            String cursor,
+            ArticleSummarySortField sortBy,
+            Sort.Direction sortDir
+    ) {
+        if (Boolean.TRUE.equals(filter.filterToNone())) {
+            return SummaryResponseDto.builder()
+                    .periods(sortedPeriods)
+                    .articles(List.of())
+                    .aggregatedMetrics(null)
+                    .totalArticles(0L)
+                    .build();
+        }
+
+        Specification<WbProductCard> spec = WbProductCardSpecifications.allOf(
+                WbProductCardSpecifications.visibleFor(sellerId, cabinetId),
+                WbProductCardSpecifications.nmIdNotIn(filter.excludedNmIds()),
+                WbProductCardSpecifications.nmIdIn(filter.includedNmIds()),
+                WbProductCardSpecifications.search(filter.search()),
+                Boolean.TRUE.equals(filter.onlyWithPhoto()) ? WbProductCardSpecifications.withPhoto() : null,
+                Boolean.TRUE.equals(filter.onlyPriority()) ? WbProductCardSpecifications.priorityOnly() : null,
+                Boolean.TRUE.equals(filter.onlyInAdvertising())
+                        ? WbProductCardSpecifications.inNonFinishedCampaigns(sellerId, cabinetId)
+                        : null
+        );
+        Sort sort = Sort.by(sortDir, sortBy.getEntityAttribute()).and(Sort.by(sortDir, "nmId"));
+
+        ArticleSummaryCursor after = ArticleSummaryCursor.decode(cursor);
+        List<WbProductCard> pageCards;
+        long total;
+        boolean hasNext;
+        if (after != null) {
+            Specification<WbProductCard> keyset = WbProductCardSpecifications.allOf(
+                    spec,
+                    WbProductCardSpecifications.afterWbCreatedAt(after.wbCreatedAt(), after.nmId(), sortDir)
+            );
+            List<WbProductCard> fetched = productCardRepository.findBy(keyset, q -> q.sortBy(sort).limit(size + 1).all());
+            hasNext = fetched.size() > size;
+            pageCards = hasNext ? fetched.subList(0, size) : fetched;
+            total = after.total() != null ? after.total() : productCardRepository.count(spec);
+        } else {
+            Page<WbProductCard> result = productCardRepository.findAll(spec, PageRequest.of(page, size, sort));
+            pageCards = result.getContent();
+            hasNext = result.hasNext();
+            total = result.getTotalElements();
+        }
+
+        String nextCursor = null;
+        if (hasNext && !pageCards.isEmpty()) {
+            WbProductCard last = pageCards.get(pageCards.size() - 1);
+            nextCursor = new ArticleSummaryCursor(last.getWbCreatedAt(), last.getNmId(), total).encode();
+        }
+        List<ArticleSummaryDto> articles = mapToArticleSummaries(pageCards, isItemRatingSupported(sellerId, cabinetId));
+        applyTodayOrders(articles, cabinetId);
+        return SummaryResponseDto.builder()
+                .periods(sortedPeriods)
+                .articles(articles)
+                .aggregatedMetrics(null)
+                .totalArticles(total)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
     /**
      * Список артикулов кабинета/продавца — только справочная информация для попапа фильтра.
      * Если onlyWithPhoto == true — только артикулы с заполненным фото.
@@ -198,17 +263,6 @@ public class AnalyticsService {
                 .build();
     }
 
-    private List<WbProductCard> filterCardsBySearch(List<WbProductCard> cards, String searchLower) {
-        String lower = searchLower.toLowerCase();
-        return cards.stream()
-                .filter(card ->
-                        (card.getTitle() != null && card.getTitle().toLowerCase().contains(lower))
-                                || (card.getVendorCode() != null && card.getVendorCode().toLowerCase().contains(lower))
-                                || (card.getNmId() != null && String.valueOf(card.getNmId()).contains(lower))
-                )
-                .collect(Collectors.toList());
-    }
-
     /**
      * Получает детальные метрики по группе (при cabinetId != null — по выбранному кабинету).
      */
@@ -603,6 +657,7 @@ public class AnalyticsService {
                 .periods(periods)
                 .metrics(calculateAllMetrics(card, periods, seller.getId(), cardCabinetId))
                 .dailyData(dailyData)
+                .todayOrders(getTodayOrders(nmId, cardCabinetId))
                 .campaigns(getCampaigns(nmId, cardCabinetId, campaignDateFrom, campaignDateTo))
                 .inWbPromotion(inWbPromotion)
                 .wbPromotionNames(wbPromotionNames)
@@ -615,6 +670,53 @@ public class AnalyticsService {
                 .build();
     }
 
+    /**
+     * Заказы артикулов страницы за сегодня — одним запросом к журналу заказов кабинета.
+     * Без выбранного кабинета не заполняются: один nmId может встречаться в нескольких кабинетах продавца.
+     */
+    private void applyTodayOrders(List<ArticleSummaryDto> articles, Long cabinetId) {
+        if (cabinetId == null || articles.isEmpty()) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        Map<Long, TodayOrdersDto> byNmId = ordersLedgerService.getDailyOrders(cabinetId, today, today).stream()
+                .collect(Collectors.toMap(
+                        WbOrderRepository.DailyOrdersProjection::getNmId,
+                        AnalyticsService::toTodayOrders,
+                        (first, second) -> first));
+        for (ArticleSummaryDto article : articles) {
+            article.setTodayOrders(byNmId.get(article.getNmId()));
+        }
+    }
+
+    /**
+     * Заказы артикула за сегодня из журнала; без заказов — нули, без кабинета — null.
+     */
+    private TodayOrdersDto getTodayOrders(Long nmId, Long cabinetId) {
+        if (cabinetId == null) {
+            return null;
+        }
+        LocalDate today = LocalDate.now();
+        return ordersLedgerService.getDailyOrders(cabinetId, nmId, today, today).stream()
+                .findFirst()
+                .map(AnalyticsService::toTodayOrders)
+                .orElseGet(() -> TodayOrdersDto.builder()
+                        .date(today)
+                        .orders(0L)
+                        .cancelled(0L)
+                        .ordersAmount(BigDecimal.ZERO)
+                        .build());
+    }
+
+    private static TodayOrdersDto toTodayOrders(WbOrderRepository.DailyOrdersProjection row) {
+        return TodayOrdersDto.builder()
+                .date(row.getDate())
+                .orders(row.getOrders())
+                .cancelled(row.getCancelled())
+                .ordersAmount(row.getRevenue())
+                .build();
+    }
+
     /**
      * Товары «в связке» — другие артикулы с тем же IMT ID в том же кабинете, без текущего nmId.
      */
@@ -717,6 +819,8 @@ public class AnalyticsService {
                     Comparator.nullsLast(Comparator.naturalOrder())
             );
         };
+        // Добивка по nmId — тот же порядок, что у постраничной выборки из БД.
+        comparator = comparator.thenComparing(WbProductCard::getNmId, Comparator.nullsLast(Comparator.naturalOrder()));
         if (effectiveSortDir == Sort.Direction.DESC) {
             comparator = comparator.reversed();
         }
@@ -1202,22 +1306,14 @@ public class AnalyticsService {
                         )
                 ));
         
-        // Названия и флаги складов
-        Map<Long, WbWarehouse> warehousesById = warehouseRepository.findAll().stream()
-                .collect(Collectors.toMap(
-                        w -> Long.valueOf(w.getId()),
-                        w -> w,
-                        (existing, replacement) -> existing
-                ));
-        
-        // Формируем список DTO
+        // Формируем список DTO (названия и флаги складов — из in-process справочника)
         return stockByWarehouse.entrySet().stream()
                 .map(entry -> {
                     Long warehouseId = entry.getKey();
                     StockAggregate aggregate = entry.getValue();
-                    WbWarehouse warehouse = warehousesById.get(warehouseId);
-                    String warehouseName = warehouse != null ? warehouse.getName() : "Склад " + warehouseId;
-                    boolean onFire = warehouse != null && Boolean.TRUE.equals(warehouse.getOnFire());
+                    WbWarehouseDirectory.Entry warehouse = warehouseDirectory.findById(warehouseId).orElse(null);
+                    String warehouseName = warehouse != null ? warehouse.name() : "Склад " + warehouseId;
+                    boolean onFire = warehouse != null && warehouse.onFire();
                     
                     return StockDto.builder()
                             .warehouseId(warehouseId)
@@ -1331,14 +1427,7 @@ public class AnalyticsService {
             Integer articlesCount,
             BidderStatus bidderStatus
     ) {
-        CampaignDto.CampaignDtoBuilder builder = CampaignDto.builder()
-                .id(c.getAdvertId())
-                .name(c.getName())
-                .type(c.getDisplayType())
-                .status(c.getStatus() != null ? c.getStatus().getCode() : null)
-                .statusName(c.getStatus() != null ? c.getStatus().getDescription() : null)
-                .createdAt(c.getCreateTime())
-                .updatedAt(resolveCampaignUpdatedAt(c));
+        CampaignDto.CampaignDtoBuilder builder = campaignDtoBuilder(c);
         if (articlesCount != null) {
             builder.articlesCount(articlesCount);
         }
@@ -1351,6 +1440,17 @@ public class AnalyticsService {
         return builder.build();
     }
 
+    private static CampaignDto.CampaignDtoBuilder campaignDtoBuilder(WbPromotionCampaign c) {
+        return CampaignDto.builder()
+                .id(c.getAdvertId())
+                .name(c.getName())
+                .type(c.getDisplayType())
+                .status(c.getStatus() != null ? c.getStatus().getCode() : null)
+                .statusName(c.getStatus() != null ? c.getStatus().getDescription() : null)
+                .createdAt(c.getCreateTime())
+                .updatedAt(resolveCampaignUpdatedAt(c));
+    }
+
     /**
      * Метрики кампании за период из fullstats WB: просмотры, клики, затраты, корзина (atbs), заказы.
      */
@@ -1377,7 +1477,17 @@ public class AnalyticsService {
                 sum = sum.add(s.getSum());
             }
         }
+        applyCampaignMetrics(builder, views, clicks, cart, orders, sum);
+    }
 
+    private static void applyCampaignMetrics(
+            CampaignDto.CampaignDtoBuilder builder,
+            int views,
+            int clicks,
+            int cart,
+            int orders,
+            BigDecimal sum
+    ) {
         BigDecimal ctr = MathUtils.calculatePercentage(clicks, views);
         BigDecimal cpc = clicks > 0
                 ? sum.divide(BigDecimal.valueOf(clicks), 2, RoundingMode.HALF_UP)
@@ -1424,21 +1534,10 @@ public class AnalyticsService {
         if (campaigns.isEmpty()) {
             return Collections.emptyList();
         }
-        List<Long> campaignIds = campaigns.stream().map(WbPromotionCampaign::getAdvertId).collect(Collectors.toList());
-        List<WbPromotionCampaignStatistics> allStats = campaignStatisticsRepository.findByCampaignAdvertIdInAndDateBetween(
-                campaignIds, from, to);
-        Map<Long, List<WbPromotionCampaignStatistics>> statsByCampaign = allStats.stream()
-                .collect(Collectors.groupingBy(s -> s.getCampaign().getAdvertId()));
-
-        Map<Long, Set<Long>> nmIdsByCampaign = campaignArticleRepository.findByCampaignIdIn(campaignIds).stream()
-                .collect(Collectors.groupingBy(
-                        WbCampaignArticle::getCampaignId,
-                        Collectors.mapping(WbCampaignArticle::getNmId, Collectors.toSet())
-                ));
-
-        List<Object[]> articleCounts = campaignArticleRepository.countByCampaignIdIn(campaignIds);
-        Map<Long, Integer> articlesCountByCampaign = articleCounts.stream()
-                .collect(Collectors.toMap(row -> (Long) row[0], row -> ((Number) row[1]).intValue()));
+        Long[] campaignIds = campaigns.stream().map(WbPromotionCampaign::getAdvertId).toArray(Long[]::new);
+        Map<Long, CampaignListMetricsProjection> metricsByCampaign = campaignStatisticsRepository
+                .findListMetricsByCampaignIds(campaignIds, from, to, nmIdFilter).stream()
+                .collect(Collectors.toMap(CampaignListMetricsProjection::getCampaignId, m -> m));
 
         Map<Long, WbCampaignManagementState> statesByCampaignId = campaignManagementStateRepository.findByCabinetId(cabinetId)
                 .stream()
@@ -1450,19 +1549,47 @@ public class AnalyticsService {
                 cabinetId, seller, campaigns, statesByCampaignId, slotsByCampaignId);
 
         return campaigns.stream()
-                .filter(c -> nmIdFilter == null
-                        || nmIdsByCampaign.getOrDefault(c.getAdvertId(), Collections.emptySet()).contains(nmIdFilter))
-                .map(c -> {
-                    Long advertId = c.getAdvertId();
-                    Set<Long> scopeNmIds = nmIdsByCampaign.getOrDefault(advertId, Collections.emptySet());
-                    List<WbPromotionCampaignStatistics> stats = statsByCampaign.getOrDefault(advertId, Collections.emptyList());
-                    Integer articlesCount = articlesCountByCampaign.getOrDefault(advertId, 0);
-                    BidderStatus bidderStatus = bidderStatuses.get(advertId);
-                    return buildCampaignDto(c, scopeNmIds, stats, true, articlesCount, bidderStatus);
-                })
+                .filter(c -> nmIdFilter == null || hasNmId(metricsByCampaign.get(c.getAdvertId())))
+                .map(c -> buildCampaignListDto(c, metricsByCampaign.get(c.getAdvertId()), bidderStatuses.get(c.getAdvertId())))
                 .collect(Collectors.toList());
     }
 
+    private static boolean hasNmId(CampaignListMetricsProjection metrics) {
+        return metrics != null && Boolean.TRUE.equals(metrics.getHasNmId());
+    }
+
+    /**
+     * DTO кампании для списка: метрики уже просуммированы в БД ({@link WbPromotionCampaignStatisticsRepository#findListMetricsByCampaignIds}).
+     */
+    private CampaignDto buildCampaignListDto(
+            WbPromotionCampaign c,
+            CampaignListMetricsProjection metrics,
+            BidderStatus bidderStatus
+    ) {
+        CampaignDto.CampaignDtoBuilder builder = campaignDtoBuilder(c);
+        builder.articlesCount(metrics != null ? metrics.getArticlesCount().intValue() : 0);
+        if (bidderStatus != null) {
+            builder.bidderStatus(bidderStatus.name());
+        }
+        if (metrics == null) {
+            applyCampaignMetrics(builder, 0, 0, 0, 0, BigDecimal.ZERO);
+        } else {
+            applyCampaignMetrics(
+                    builder,
+                    toInt(metrics.getViews()),
+                    toInt(metrics.getClicks()),
+                    toInt(metrics.getAtbs()),
+                    toInt(metrics.getOrders()),
+                    metrics.getSpend() != null ? metrics.getSpend() : BigDecimal.ZERO
+            );
+        }
+        return builder.build();
+    }
+
+    private static int toInt(Long value) {
+        return value != null ? value.intValue() : 0;
+    }
+
     /**
      * Детали рекламной кампании (комбо): название, статус, список артикулов с фото и названием.
      * Сначала поиск по кабинету; если кабинет в контексте не задан — по advertId с проверкой владельца кабинета.
@@ -1487,14 +1614,22 @@ public class AnalyticsService {
                 .distinct()
                 .collect(Collectors.toList());
         boolean itemRatingSupported = isItemRatingSupported(null, finalCabinetId);
+        Map<Long, WbProductCard> cardsByNmId = nmIds.isEmpty()
+                ? Collections.emptyMap()
+                : productCardRepository.findByCabinet_IdAndNmIdIn(finalCabinetId, nmIds).stream()
+                        .collect(Collectors.toMap(WbProductCard::getNmId, card -> card, (a, b) -> a));
         List<ArticleSummaryDto> articles = nmIds.stream()
-                .map(nmId -> productCardRepository.findByNmIdAndCabinet_Id(nmId, finalCabinetId)
-                        .map(card -> mapToArticleSummary(card, itemRatingSupported))
-                        .orElseGet(() -> ArticleSummaryDto.builder()
-                                .nmId(nmId)
-                                .title("Артикул " + nmId)
-                                .photoTm(null)
-                                .build()))
+                .map(nmId -> {
+                    WbProductCard card = cardsByNmId.get(nmId);
+                    if (card != null) {
+                        return mapToArticleSummary(card, itemRatingSupported);
+                    }
+                    return ArticleSummaryDto.builder()
+                            .nmId(nmId)
+                            .title("Артикул " + nmId)
+                            .photoTm(null)
+                            .build();
+                })
                 .collect(Collectors.toList());
         return CampaignDetailDto.builder()
                 .id(campaign.getAdvertId())
@@ -1526,7 +1661,8 @@ public class AnalyticsService {
             String sortBy,
             String sortDir,
             Integer page,
-            Integer size
+            Integer size,
+            String cursor
     ) {
         WbPromotionCampaign campaign = resolveCampaignForDetail(campaignId, cabinetId, sellerId);
         if (campaign == null) {
@@ -1548,10 +1684,20 @@ public class AnalyticsService {
                 NormQueryClusterSortField.fromParam(sortBy),
                 Sort.Direction.fromOptionalString(sortDir).orElse(Sort.Direction.DESC),
                 page != null ? page : 0,
-                size != null ? size : 20
+                size != null ? size : 20,
+                cursor
         );
     }
 
+    /**
+     * advertId кампании, доступной кабинету/продавцу, или {@code null} (для выгрузок: проверка доступа до начала записи ответа).
+     */
+    @Transactional(readOnly = true)
+    public Long resolveCampaignAdvertId(Long campaignId, Long cabinetId, Long sellerId) {
+        WbPromotionCampaign campaign = resolveCampaignForDetail(campaignId, cabinetId, sellerId);
+        return campaign != null ? campaign.getAdvertId() : null;
+    }
+
     private WbPromotionCampaign resolveCampaignForDetail(Long campaignId, Long cabinetId, Long sellerId) {
         WbPromotionCampaign campaign = null;
         if (cabinetId != null) {
@@ -1581,10 +1727,7 @@ public class AnalyticsService {
     public List<StockSizeDto> getStockSizes(Long nmId, String warehouseName, Long warehouseId, Long cabinetId) {
         Long resolvedWarehouseId = warehouseId;
         if (resolvedWarehouseId == null) {
-            resolvedWarehouseId = warehouseRepository.findAll().stream()
-                    .filter(w -> w.getName().equals(warehouseName))
-                    .map(w -> Long.valueOf(w.getId()))
-                    .findFirst()
+            resolvedWarehouseId = warehouseDirectory.findIdByName(warehouseName)
                     .orElseThrow(() -> new IllegalArgumentException("Склад не найден: " + warehouseName));
         }
 
@@ -1807,7 +1950,7 @@ public class AnalyticsService {
     /**
      * Item-rating WB недоступен для кабинетов с базовым токеном.
      */
-    private boolean isItemRatingSupported(Long sellerId, Long cabinetId) {
+    public boolean isItemRatingSupported(Long sellerId, Long cabinetId) {
         if (cabinetId != null) {
             return cabinetService.findById(cabinetId)
                     .map(c -> CabinetTokenType.effective(c.getTokenType()).supportsItemRating())
@@ -1830,4 +1973,18 @@ public class AnalyticsService {
         }
         return "unknown";
     }
+
+    /**
+     * Фильтры страницы сводной из запроса.
+     */
+    private record SummaryPageFilter(
+            List<Long> excludedNmIds,
+            List<Long> includedNmIds,
+            String search,
+            Boolean filterToNone,
+            Boolean onlyWithPhoto,
+            Boolean onlyPriority,
+            Boolean onlyInAdvertising
+    ) {
+    }
 }
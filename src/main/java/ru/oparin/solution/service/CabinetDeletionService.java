@@ -11,10 +11,6 @@ import ru.oparin.solution.model.WbArticleNoteFile;
 import ru.oparin.solution.model.WbCampaignNoteFile;
 import ru.oparin.solution.repository.*;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
 
 /**
@@ -35,6 +31,7 @@ public class CabinetDeletionService {
     private final WbProductPriceHistoryRepository productPriceHistoryRepository;
     private final WbProductStockRepository productStockRepository;
     private final WbProductFbsStockRepository productFbsStockRepository;
+    private final WbOrderRepository orderRepository;
     private final WbSellerWarehouseRepository sellerWarehouseRepository;
     private final WbProductBarcodeRepository productBarcodeRepository;
     private final WbProductCardAnalyticsRepository productCardAnalyticsRepository;
@@ -89,6 +86,13 @@ public class CabinetDeletionService {
                 productFbsStockRepository::deleteAllById);
     }
 
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void deleteStepOrders(Long cabinetId) {
+        deleteByIdBatches("Журнал заказов",
+                () -> orderRepository.findIdByCabinet_Id(cabinetId, PageRequest.of(0, BATCH_SIZE)),
+                orderRepository::deleteAllByIdInBatch);
+    }
+
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void deleteStepWbSellerWarehouses(Long cabinetId) {
         deleteByIdBatches("Склады продавца",
@@ -118,8 +122,8 @@ public class CabinetDeletionService {
     }
 
     /**
-     * Сначала удаляем файлы заметок по артикулам с диска и строки в wb_article_note_files,
-     * иначе при удалении заметок останутся сироты на диске.
+     * Строки wb_article_note_files удаляются пачками до заметок; файлы с диска удалит очистка загрузок
+     * (триггер освобождает их манифест).
      */
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void deleteStepArticleNoteFiles(Long cabinetId) {
@@ -128,9 +132,6 @@ public class CabinetDeletionService {
             if (page.isEmpty()) {
                 break;
             }
-            for (WbArticleNoteFile file : page.getContent()) {
-                deleteNoteFileFromDisk(file.getFilePath());
-            }
             articleNoteFileRepository.deleteAll(page.getContent());
             log.info("[Удаление кабинета]   Файлы заметок по артикулам: удалено записей {}", page.getContent().size());
         }
@@ -144,7 +145,7 @@ public class CabinetDeletionService {
     }
 
     /**
-     * Сначала удаляем файлы заметок РК с диска и строки в campaign_note_files, иначе при удалении заметок останутся сироты на диске.
+     * Строки wb_campaign_note_files удаляются пачками до заметок; файлы с диска удалит очистка загрузок.
      */
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void deleteStepWbCampaignNoteFiles(Long cabinetId) {
@@ -153,25 +154,11 @@ public class CabinetDeletionService {
             if (page.isEmpty()) {
                 break;
             }
-            for (WbCampaignNoteFile f : page.getContent()) {
-                deleteNoteFileFromDisk(f.getFilePath());
-            }
             campaignNoteFileRepository.deleteAll(page.getContent());
             log.info("[Удаление кабинета]   Файлы заметок РК: удалено записей {}", page.getContent().size());
         }
     }
 
-    private void deleteNoteFileFromDisk(String filePath) {
-        try {
-            Path path = Paths.get(filePath);
-            if (Files.exists(path)) {
-                Files.delete(path);
-            }
-        } catch (IOException e) {
-            log.warn("[Удаление кабинета] Не удалось удалить файл заметки с диска: {}", filePath, e);
-        }
-    }
-
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void deleteStepWbCampaignNotes(Long cabinetId) {
         deleteByIdBatches("Заметки по РК",
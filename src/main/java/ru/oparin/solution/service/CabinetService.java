@@ -428,6 +428,7 @@ public class CabinetService {
         cabinetDeletionService.deleteStepPriceHistory(cabinetId);
         cabinetDeletionService.deleteStepStocks(cabinetId);
         cabinetDeletionService.deleteStepFbsStocks(cabinetId);
+        cabinetDeletionService.deleteStepOrders(cabinetId);
         cabinetDeletionService.deleteStepWbSellerWarehouses(cabinetId);
         cabinetDeletionService.deleteStepBarcodes(cabinetId);
         cabinetDeletionService.deleteStepCardAnalytics(cabinetId);
@@ -1,28 +1,23 @@
 package ru.oparin.solution.service;
 
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.MailAuthenticationException;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 import ru.oparin.solution.dto.LandingLeadSource;
 import ru.oparin.solution.model.AccountDeletionReason;
 import ru.oparin.solution.model.User;
+import ru.oparin.solution.service.mail.EmailOutboxService;
 
 /**
  * Сервис отправки писем (восстановление пароля и т.д.).
+ * Письма формируются здесь и ставятся в исходящую очередь в транзакции вызывающего кода;
+ * SMTP-отправка выполняется фоновым воркером ({@link ru.oparin.solution.service.mail.EmailOutboxSender}).
  */
 @Service
 @RequiredArgsConstructor
-@Slf4j
 public class EmailService {
 
-    private final JavaMailSender mailSender;
-
-    @Value("${app.mail.from}")
-    private String fromEmail;
+    private final EmailOutboxService emailOutboxService;
 
     @Value("${app.frontend-url}")
     private String frontendUrl;
@@ -48,21 +43,7 @@ public class EmailService {
                 + "Ссылка действительна 12 часов. Если вы не запрашивали сброс, проигнорируйте это письмо.\n\n"
                 + "— " + brandName;
 
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject(subject);
-            message.setText(text);
-            mailSender.send(message);
-            log.info("Письмо для сброса пароля отправлено на {}", toEmail);
-        } catch (MailAuthenticationException e) {
-            log.error("Ошибка SMTP-аутентификации при отправке на {}: {}. Проверьте MAIL_PASSWORD и настройки почты (smtp.timeweb.ru).", toEmail, e.getMessage());
-            throw new RuntimeException("Не удалось отправить письмо. Попробуйте позже.", e);
-        } catch (Exception e) {
-            log.error("Ошибка отправки письма на {}: {}", toEmail, e.getMessage(), e);
-            throw new RuntimeException("Не удалось отправить письмо. Попробуйте позже.", e);
-        }
+        emailOutboxService.enqueue(toEmail, subject, text, "сброс пароля");
     }
 
     /**
@@ -80,21 +61,7 @@ public class EmailService {
                 + "Ссылка действительна 12 часов. Если вы не регистрировались в " + brandName + ", проигнорируйте это письмо.\n\n"
                 + "— " + brandName;
 
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject(subject);
-            message.setText(text);
-            mailSender.send(message);
-            log.info("Письмо для подтверждения email отправлено на {}", toEmail);
-        } catch (MailAuthenticationException e) {
-            log.error("Ошибка SMTP-аутентификации при отправке на {}: {}. Проверьте MAIL_PASSWORD и настройки почты (smtp.timeweb.ru).", toEmail, e.getMessage());
-            throw new RuntimeException("Не удалось отправить письмо. Попробуйте позже.", e);
-        } catch (Exception e) {
-            log.error("Ошибка отправки письма на {}: {}", toEmail, e.getMessage(), e);
-            throw new RuntimeException("Не удалось отправить письмо. Попробуйте позже.", e);
-        }
+        emailOutboxService.enqueue(toEmail, subject, text, "подтверждение email");
     }
 
     /**
@@ -155,21 +122,7 @@ public class EmailService {
     }
 
     private void sendLandingInboxEmail(String subject, String text, String requestLabel) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(auditInboxEmail);
-            message.setSubject(subject);
-            message.setText(text);
-            mailSender.send(message);
-            log.info("Заявка на {} отправлена на {}", requestLabel, auditInboxEmail);
-        } catch (MailAuthenticationException e) {
-            log.error("Ошибка SMTP-аутентификации при отправке заявки на {}: {}", requestLabel, e.getMessage());
-            throw new RuntimeException("Не удалось отправить запрос. Попробуйте позже.", e);
-        } catch (Exception e) {
-            log.error("Ошибка отправки заявки на {}: {}", requestLabel, e.getMessage(), e);
-            throw new RuntimeException("Не удалось отправить запрос. Попробуйте позже.", e);
-        }
+        emailOutboxService.enqueue(auditInboxEmail, subject, text, "заявка на " + requestLabel);
     }
 
     /**
@@ -226,21 +179,7 @@ public class EmailService {
     }
 
     private void sendSimple(String toEmail, String subject, String text, String context) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject(subject);
-            message.setText(text);
-            mailSender.send(message);
-            log.info("Письмо ({}) отправлено на {}", context, toEmail);
-        } catch (MailAuthenticationException e) {
-            log.error("Ошибка SMTP при отправке ({}) на {}: {}", context, toEmail, e.getMessage());
-            throw new RuntimeException("Не удалось отправить письмо. Попробуйте позже.", e);
-        } catch (Exception e) {
-            log.error("Ошибка отправки ({}) на {}: {}", context, toEmail, e.getMessage(), e);
-            throw new RuntimeException("Не удалось отправить письмо. Попробуйте позже.", e);
-        }
+        emailOutboxService.enqueue(toEmail, subject, text, context);
     }
 
     private String buildInviteLink(String token) {
@@ -0,0 +1,100 @@
+package ru.oparin.solution.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import ru.oparin.solution.model.WbArticleNoteFile;
+import ru.oparin.solution.model.WbCampaignNoteFile;
+import ru.oparin.solution.repository.WbArticleNoteFileRepository;
+import ru.oparin.solution.repository.WbCampaignNoteFileRepository;
+import ru.oparin.solution.util.ContentHashUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Досчитывает SHA-256 вложений заметок, загруженных до миграции 108.
+ * <p>
+ * Файл читается вне транзакции: выборка пачки и запись хэша — отдельные короткие запросы репозитория,
+ * поэтому соединение с БД не удерживается на время чтения диска. Скачивание такого файла до backfill
+ * отдаётся со слабым ETag (см. {@link ru.oparin.solution.service.files.StoredFileResponder}).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NoteFileHashBackfillService {
+
+    private final WbArticleNoteFileRepository articleNoteFileRepository;
+    private final WbCampaignNoteFileRepository campaignNoteFileRepository;
+
+    @Value("${app.uploads.hash-backfill-batch-size:100}")
+    private int batchSize;
+
+    /**
+     * Проходит обе таблицы вложений один раз.
+     *
+     * @return сколько хэшей сохранено
+     */
+    public int backfill() {
+        int articleFiles = backfill(
+                articleNoteFileRepository::findWithoutContentSha256,
+                WbArticleNoteFile::getId,
+                WbArticleNoteFile::getFilePath,
+                articleNoteFileRepository::updateContentSha256IfMissing);
+        int campaignFiles = backfill(
+                campaignNoteFileRepository::findWithoutContentSha256,
+                WbCampaignNoteFile::getId,
+                WbCampaignNoteFile::getFilePath,
+                campaignNoteFileRepository::updateContentSha256IfMissing);
+        return articleFiles + campaignFiles;
+    }
+
+    /**
+     * Пачки по возрастанию id: файлы, которых нет на диске, пропускаются и не зацикливают проход.
+     */
+    private <F> int backfill(
+            BiFunction<Long, Pageable, List<F>> findWithoutHash,
+            Function<F, Long> idOf,
+            Function<F, String> pathOf,
+            BiFunction<Long, String, Integer> updateIfMissing
+    ) {
+        int updated = 0;
+        long afterId = 0;
+        while (true) {
+            List<F> files = findWithoutHash.apply(afterId, PageRequest.of(0, batchSize));
+            if (files.isEmpty()) {
+                return updated;
+            }
+            for (F file : files) {
+                Long id = idOf.apply(file);
+                afterId = id;
+                String hash = hashOrNull(id, pathOf.apply(file));
+                if (hash != null) {
+                    updated += updateIfMissing.apply(id, hash);
+                }
+            }
+        }
+    }
+
+    private static String hashOrNull(Long fileId, String filePath) {
+        Path path = Paths.get(filePath);
+        if (!Files.isRegularFile(path)) {
+            log.debug("Хэш вложения не посчитан: файла нет на диске, id={}, path={}", fileId, filePath);
+            return null;
+        }
+        try {
+            return ContentHashUtils.sha256(path);
+        } catch (IOException e) {
+            log.warn("Хэш вложения не посчитан: id={}, {}", fileId, e.getMessage());
+            return null;
+        }
+    }
+}
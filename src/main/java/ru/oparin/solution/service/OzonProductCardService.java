@@ -9,7 +9,10 @@ import ru.oparin.solution.dto.ozon.OzonProductListResponse;
 import ru.oparin.solution.model.Cabinet;
 import ru.oparin.solution.model.OzonProductCard;
 import ru.oparin.solution.repository.OzonProductCardRepository;
+import ru.oparin.solution.repository.OzonProductUpsertWriter;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -25,6 +28,7 @@ import java.util.stream.Collectors;
 public class OzonProductCardService {
 
     private final OzonProductCardRepository productCardRepository;
+    private final OzonProductUpsertWriter upsertWriter;
 
     @Transactional(readOnly = true)
     public List<OzonProductCard> findByCabinetId(Long cabinetId) {
@@ -33,6 +37,8 @@ public class OzonProductCardService {
 
     /**
      * Сохраняет или обновляет карточки по списку товаров и детальной информации.
+     * Существующие карточки страницы читаются одним запросом; новые и изменённые пишутся пакетным upsert,
+     * неизменённые пропускаются.
      */
     @Transactional
     public void saveOrUpdateProducts(
@@ -51,34 +57,74 @@ public class OzonProductCardService {
                 .collect(Collectors.toMap(OzonProductInfoListResponse.Item::getId, Function.identity(), (a, b) -> a))
                 : Map.of();
 
-        int created = 0;
-        int updated = 0;
+        Map<Long, OzonProductListResponse.Item> itemsByProductId = new LinkedHashMap<>();
         for (OzonProductListResponse.Item item : listResponse.getResult().getItems()) {
-            if (item.getProductId() == null) {
-                continue;
+            if (item.getProductId() != null) {
+                itemsByProductId.put(item.getProductId(), item);
             }
+        }
+        if (itemsByProductId.isEmpty()) {
+            return;
+        }
+        Map<Long, OzonProductCard> existingByProductId = productCardRepository
+                .findByCabinet_IdAndProductIdIn(cabinet.getId(), itemsByProductId.keySet())
+                .stream()
+                .collect(Collectors.toMap(OzonProductCard::getProductId, Function.identity(), (a, b) -> a));
+
+        List<OzonProductUpsertWriter.CardRow> toWrite = new ArrayList<>();
+        int created = 0;
+        int unchanged = 0;
+        for (OzonProductListResponse.Item item : itemsByProductId.values()) {
             OzonProductInfoListResponse.Item info = infoByProductId.get(item.getProductId());
-            OzonProductCard card = productCardRepository
-                    .findByCabinet_IdAndProductId(cabinet.getId(), item.getProductId())
-                    .orElseGet(() -> OzonProductCard.builder()
-                            .cabinet(cabinet)
-                            .productId(item.getProductId())
-                            .build());
-            boolean isNew = card.getId() == null;
-            card.setOfferId(firstNotBlank(info != null ? info.getOfferId() : null, item.getOfferId()));
-            if (info != null) {
-                card.setTitle(trimTo(info.getName(), 500));
-                card.setSku(info.getSku());
-                card.setPhotoUrl(firstNotBlank(info.getPrimaryImage(), firstImage(info.getImages())));
-            }
-            productCardRepository.save(card);
-            if (isNew) {
+            OzonProductCard existing = existingByProductId.get(item.getProductId());
+            OzonProductUpsertWriter.CardRow row = buildCardRow(item, info, existing);
+            if (existing == null) {
                 created++;
-            } else {
-                updated++;
+            } else if (isUnchanged(existing, row)) {
+                unchanged++;
+                continue;
             }
+            toWrite.add(row);
         }
-        log.info("Ozon каталог cabinetId={}: создано {}, обновлено {}", cabinet.getId(), created, updated);
+        if (!toWrite.isEmpty()) {
+            upsertWriter.upsertCards(cabinet.getId(), toWrite);
+        }
+        log.info("Ozon каталог cabinetId={}: создано {}, обновлено {}, без изменений {}",
+                cabinet.getId(), created, toWrite.size() - created, unchanged);
+    }
+
+    /**
+     * Итоговые значения карточки: без детальной информации название, SKU и фото сохраняются прежними.
+     */
+    private static OzonProductUpsertWriter.CardRow buildCardRow(
+            OzonProductListResponse.Item item,
+            OzonProductInfoListResponse.Item info,
+            OzonProductCard existing
+    ) {
+        String offerId = firstNotBlank(info != null ? info.getOfferId() : null, item.getOfferId());
+        if (info != null) {
+            return new OzonProductUpsertWriter.CardRow(
+                    item.getProductId(),
+                    offerId,
+                    info.getSku(),
+                    trimTo(info.getName(), 500),
+                    firstNotBlank(info.getPrimaryImage(), firstImage(info.getImages()))
+            );
+        }
+        return new OzonProductUpsertWriter.CardRow(
+                item.getProductId(),
+                offerId,
+                existing != null ? existing.getSku() : null,
+                existing != null ? existing.getTitle() : null,
+                existing != null ? existing.getPhotoUrl() : null
+        );
+    }
+
+    private static boolean isUnchanged(OzonProductCard existing, OzonProductUpsertWriter.CardRow row) {
+        return Objects.equals(existing.getOfferId(), row.offerId())
+                && Objects.equals(existing.getSku(), row.sku())
+                && Objects.equals(existing.getTitle(), row.title())
+                && Objects.equals(existing.getPhotoUrl(), row.photoUrl());
     }
 
     private static String firstNotBlank(String... values) {
@@ -8,9 +8,16 @@ import ru.oparin.solution.dto.ozon.OzonProductInfoStocksResponse;
 import ru.oparin.solution.model.Cabinet;
 import ru.oparin.solution.model.OzonProductStock;
 import ru.oparin.solution.repository.OzonProductStockRepository;
+import ru.oparin.solution.repository.OzonProductUpsertWriter;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Сохранение остатков Ozon.
@@ -21,13 +28,18 @@ import java.util.List;
 public class OzonProductStockService {
 
     private final OzonProductStockRepository stockRepository;
+    private final OzonProductUpsertWriter upsertWriter;
 
+    /**
+     * Сохраняет остатки страницы: текущие строки товаров страницы читаются одним запросом,
+     * новые и изменённые пишутся пакетным upsert, неизменённые пропускаются.
+     */
     @Transactional
     public void saveStocks(Cabinet cabinet, OzonProductInfoStocksResponse response) {
         if (response == null || response.getItems() == null || response.getItems().isEmpty()) {
             return;
         }
-        List<OzonProductStock> toSave = new ArrayList<>();
+        Map<StockKey, OzonProductUpsertWriter.StockRow> incoming = new LinkedHashMap<>();
         for (OzonProductInfoStocksResponse.Item item : response.getItems()) {
             if (item.getProductId() == null || item.getStocks() == null) {
                 continue;
@@ -38,23 +50,44 @@ public class OzonProductStockService {
                 }
                 Long sku = stock.getSku() != null ? stock.getSku() : 0L;
                 String stockType = stock.getType().trim().toLowerCase();
-                OzonProductStock row = stockRepository
-                        .findByCabinet_IdAndProductIdAndSkuAndStockType(
-                                cabinet.getId(), item.getProductId(), sku, stockType)
-                        .orElseGet(() -> OzonProductStock.builder()
-                                .cabinet(cabinet)
-                                .productId(item.getProductId())
-                                .sku(sku)
-                                .stockType(stockType)
-                                .build());
-                row.setPresent(stock.getPresent() != null ? stock.getPresent() : 0);
-                row.setReserved(stock.getReserved() != null ? stock.getReserved() : 0);
-                toSave.add(row);
+                incoming.put(new StockKey(item.getProductId(), sku, stockType), new OzonProductUpsertWriter.StockRow(
+                        item.getProductId(),
+                        sku,
+                        stockType,
+                        stock.getPresent() != null ? stock.getPresent() : 0,
+                        stock.getReserved() != null ? stock.getReserved() : 0
+                ));
             }
         }
-        if (!toSave.isEmpty()) {
-            stockRepository.saveAll(toSave);
-            log.info("Ozon остатки cabinetId={}: сохранено/обновлено {}", cabinet.getId(), toSave.size());
+        if (incoming.isEmpty()) {
+            return;
+        }
+
+        Set<Long> productIds = new HashSet<>();
+        incoming.keySet().forEach(key -> productIds.add(key.productId()));
+        Map<StockKey, OzonProductStock> existing = new HashMap<>();
+        for (OzonProductStock row : stockRepository.findByCabinet_IdAndProductIdIn(cabinet.getId(), productIds)) {
+            existing.put(new StockKey(row.getProductId(), row.getSku(), row.getStockType()), row);
+        }
+
+        List<OzonProductUpsertWriter.StockRow> toWrite = new ArrayList<>();
+        for (Map.Entry<StockKey, OzonProductUpsertWriter.StockRow> entry : incoming.entrySet()) {
+            OzonProductStock current = existing.get(entry.getKey());
+            OzonProductUpsertWriter.StockRow row = entry.getValue();
+            if (current != null
+                    && Objects.equals(current.getPresent(), row.present())
+                    && Objects.equals(current.getReserved(), row.reserved())) {
+                continue;
+            }
+            toWrite.add(row);
+        }
+        if (!toWrite.isEmpty()) {
+            upsertWriter.upsertStocks(cabinet.getId(), toWrite);
         }
+        log.info("Ozon остатки cabinetId={}: сохранено/обновлено {}, без изменений {}",
+                cabinet.getId(), toWrite.size(), incoming.size() - toWrite.size());
+    }
+
+    private record StockKey(Long productId, Long sku, String stockType) {
     }
 }
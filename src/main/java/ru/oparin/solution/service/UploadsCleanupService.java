@@ -3,32 +3,45 @@ package ru.oparin.solution.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import ru.oparin.solution.repository.WbAbTestVariantRepository;
-import ru.oparin.solution.repository.WbArticleNoteFileRepository;
-import ru.oparin.solution.repository.WbCampaignNoteFileRepository;
+import ru.oparin.solution.model.StoredFile;
+import ru.oparin.solution.repository.StoredBlobRepository;
+import ru.oparin.solution.repository.StoredFileRepository;
+import ru.oparin.solution.service.abtest.WbAbTestService;
+import ru.oparin.solution.service.files.ContentAddressedBlobStore;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Stream;
 
 /**
- * Очистка файлов в каталоге загрузок, на которые больше нет ссылок в БД.
+ * Очистка каталога загрузок по манифесту {@code stored_files} и счётчикам ссылок {@code stored_blobs}.
+ * <p>
+ * Основная очистка — индексные запросы: строки манифеста с удалённым владельцем или непривязанным резервом
+ * и blob без ссылок, затем удаление конкретных файлов. Полная сверка каталога с манифестом — редкая страховка
+ * от файлов без строки манифеста (сбой между удалением строки и файла, ручные копии); идёт пачками с паузами,
+ * чтобы не грузить том.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class UploadsCleanupService {
 
-    private final WbArticleNoteFileRepository articleNoteFileRepository;
-    private final WbCampaignNoteFileRepository campaignNoteFileRepository;
-    private final WbAbTestVariantRepository abTestVariantRepository;
+    private final StoredFileRepository storedFileRepository;
+    private final StoredBlobRepository storedBlobRepository;
+    private final ContentAddressedBlobStore blobStore;
 
     @Value("${app.uploads.directory}")
     private String uploadsDirectory;
@@ -36,65 +49,178 @@ public class UploadsCleanupService {
     @Value("${app.uploads.orphan-min-age-hours:1}")
     private int orphanMinAgeHours;
 
+    @Value("${app.uploads.cleanup-batch-size:200}")
+    private int cleanupBatchSize;
+
+    @Value("${app.uploads.reconcile-batch-size:500}")
+    private int reconcileBatchSize;
+
+    @Value("${app.uploads.reconcile-pause-ms:200}")
+    private long reconcilePauseMs;
+
     /**
-     * Удаляет с диска файлы из каталога загрузок, которых нет в {@code wb_article_note_files} и {@code campaign_note_files}.
+     * Удаляет строки манифеста, чьи владельцы удалены или так и не были сохранены, старше
+     * {@code orphan-min-age-hours}, и их файлы; затем blob без ссылок после той же выдержки.
+     *
+     * @return количество удалённых строк манифеста и blob
+     */
+    public int cleanupReleasedFiles() {
+        return cleanupReleasedManifestRows() + cleanupUnreferencedBlobs();
+    }
+
+    private int cleanupReleasedManifestRows() {
+        Path uploadsRoot = uploadsRoot();
+        LocalDateTime before = LocalDateTime.now().minusHours(orphanMinAgeHours);
+        int deleted = 0;
+        while (true) {
+            List<StoredFile> batch = storedFileRepository.findDeletable(before, PageRequest.of(0, cleanupBatchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            int deletedInBatch = 0;
+            for (StoredFile file : batch) {
+                if (storedFileRepository.deleteIfDeletable(file.getId()) == 0) {
+                    continue;
+                }
+                deletedInBatch++;
+                if (!isBlob(file.getStoredName())) {
+                    deleteStoredFile(uploadsRoot, file.getStoredName());
+                }
+            }
+            deleted += deletedInBatch;
+            if (deletedInBatch < batch.size()) {
+                break;
+            }
+        }
+        return deleted;
+    }
+
+    private int cleanupUnreferencedBlobs() {
+        LocalDateTime touchedBefore = LocalDateTime.now().minusHours(orphanMinAgeHours);
+        int deleted = 0;
+        while (true) {
+            List<String> batch = storedBlobRepository.findUnreferenced(touchedBefore, cleanupBatchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            int deletedInBatch = 0;
+            for (String contentSha256 : batch) {
+                try {
+                    if (blobStore.deleteIfUnreferenced(contentSha256, touchedBefore)) {
+                        deletedInBatch++;
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Не удалось удалить blob загрузок {}: {}", contentSha256, e.getMessage());
+                }
+            }
+            deleted += deletedInBatch;
+            if (deletedInBatch < batch.size()) {
+                break;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Сверяет каталог загрузок (включая {@code blobs}) с манифестом и удаляет файлы без строки манифеста
+     * старше {@code orphan-min-age-hours}. Кэш UI-превью варианта А/Б считается частью исходного файла.
      *
      * @return количество удалённых файлов
      */
-    public int cleanupOrphanedFiles() {
-        Path uploadsRoot = Paths.get(uploadsDirectory).toAbsolutePath().normalize();
+    public int reconcileDirectory() {
+        Path uploadsRoot = uploadsRoot();
         if (!Files.isDirectory(uploadsRoot)) {
-            log.warn("Каталог загрузок не найден, очистка пропущена: {}", uploadsRoot);
+            log.warn("Каталог загрузок не найден, сверка пропущена: {}", uploadsRoot);
             return 0;
         }
 
-        Set<String> referencedPaths = loadReferencedPaths();
         Instant modifiedBefore = Instant.now().minus(orphanMinAgeHours, ChronoUnit.HOURS);
         int deleted = 0;
-
-        try (Stream<Path> files = Files.list(uploadsRoot)) {
-            for (Path filePath : files.filter(Files::isRegularFile).toList()) {
-                Path normalizedPath = filePath.toAbsolutePath().normalize();
-                if (!normalizedPath.startsWith(uploadsRoot)) {
-                    log.warn("Пропущен файл вне каталога загрузок: {}", normalizedPath);
-                    continue;
-                }
-                if (referencedPaths.contains(normalizedPath.toString())) {
-                    continue;
-                }
-                if (!isOlderThan(normalizedPath, modifiedBefore)) {
-                    continue;
-                }
-                if (deleteFile(normalizedPath)) {
-                    deleted++;
+        List<Path> batch = new ArrayList<>(reconcileBatchSize);
+        try (Stream<Path> files = Files.walk(uploadsRoot)) {
+            Iterator<Path> iterator = files.filter(Files::isRegularFile).iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() >= reconcileBatchSize) {
+                    deleted += reconcileBatch(uploadsRoot, batch, modifiedBefore);
+                    batch.clear();
+                    if (!pause()) {
+                        return deleted;
+                    }
                 }
             }
-        } catch (IOException e) {
+            deleted += reconcileBatch(uploadsRoot, batch, modifiedBefore);
+        } catch (IOException | UncheckedIOException e) {
             log.error("Ошибка при обходе каталога загрузок: {}", uploadsRoot, e);
         }
-
         return deleted;
     }
 
-    private Set<String> loadReferencedPaths() {
-        Set<String> referencedPaths = new HashSet<>();
-        for (String filePath : articleNoteFileRepository.findAllFilePaths()) {
-            referencedPaths.add(normalizeStoredPath(filePath));
+    private int reconcileBatch(Path uploadsRoot, List<Path> batch, Instant modifiedBefore) {
+        if (batch.isEmpty()) {
+            return 0;
         }
-        for (String filePath : campaignNoteFileRepository.findAllFilePaths()) {
-            referencedPaths.add(normalizeStoredPath(filePath));
+        Set<String> names = new HashSet<>();
+        for (Path filePath : batch) {
+            names.add(sourceName(uploadsRoot, filePath));
         }
-        Path uploadsRoot = Paths.get(uploadsDirectory).toAbsolutePath().normalize();
-        for (String fileName : abTestVariantRepository.findAllStoredFileNames()) {
-            if (fileName != null && !fileName.isBlank()) {
-                referencedPaths.add(uploadsRoot.resolve(fileName).normalize().toString());
+        Set<String> known = new HashSet<>(storedFileRepository.findExistingStoredNames(names));
+        known.addAll(storedBlobRepository.findExistingStoredNames(names));
+        int deleted = 0;
+        for (Path filePath : batch) {
+            if (known.contains(sourceName(uploadsRoot, filePath))) {
+                continue;
+            }
+            if (!isOlderThan(filePath, modifiedBefore)) {
+                continue;
+            }
+            if (deleteFile(filePath)) {
+                deleted++;
             }
         }
-        return referencedPaths;
+        return deleted;
+    }
+
+    /**
+     * Имя исходного файла относительно каталога загрузок (для UI-превью варианта А/Б — имя оригинала).
+     */
+    private static String sourceName(Path uploadsRoot, Path filePath) {
+        String name = uploadsRoot.relativize(filePath).toString().replace('\\', '/');
+        return name.endsWith(WbAbTestService.UI_PREVIEW_SUFFIX)
+                ? name.substring(0, name.length() - WbAbTestService.UI_PREVIEW_SUFFIX.length())
+                : name;
     }
 
-    private String normalizeStoredPath(String filePath) {
-        return Paths.get(filePath).toAbsolutePath().normalize().toString();
+    private static boolean isBlob(String storedName) {
+        return storedName.startsWith(ContentAddressedBlobStore.BLOB_DIRECTORY + "/");
+    }
+
+    private void deleteStoredFile(Path uploadsRoot, String storedName) {
+        Path filePath = uploadsRoot.resolve(storedName).normalize();
+        if (!filePath.startsWith(uploadsRoot)) {
+            log.warn("Пропущен файл вне каталога загрузок: {}", filePath);
+            return;
+        }
+        deleteFile(filePath);
+        deleteFile(filePath.resolveSibling(storedName + WbAbTestService.UI_PREVIEW_SUFFIX));
+    }
+
+    private Path uploadsRoot() {
+        return Paths.get(uploadsDirectory).toAbsolutePath().normalize();
+    }
+
+    private boolean pause() {
+        if (reconcilePauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(reconcilePauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Сверка каталога загрузок прервана");
+            return false;
+        }
     }
 
     private boolean isOlderThan(Path filePath, Instant modifiedBefore) {
@@ -108,11 +234,13 @@ public class UploadsCleanupService {
 
     private boolean deleteFile(Path filePath) {
         try {
-            Files.delete(filePath);
-            log.info("Удалён осиротевший файл загрузок: {}", filePath);
-            return true;
+            if (Files.deleteIfExists(filePath)) {
+                log.info("Удалён файл загрузок без владельца: {}", filePath);
+                return true;
+            }
+            return false;
         } catch (IOException e) {
-            log.warn("Не удалось удалить осиротевший файл загрузок: {}", filePath, e);
+            log.warn("Не удалось удалить файл загрузок: {}", filePath, e);
             return false;
         }
     }
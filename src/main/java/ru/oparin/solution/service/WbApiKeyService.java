@@ -1,5 +1,6 @@
 package ru.oparin.solution.service;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
@@ -8,6 +9,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import ru.oparin.solution.config.WbHttpProperties;
 import ru.oparin.solution.exception.UserException;
 import ru.oparin.solution.exception.WbRateLimitDeferException;
 import ru.oparin.solution.model.Cabinet;
@@ -15,6 +17,7 @@ import ru.oparin.solution.model.WbApiBaseUrl;
 import ru.oparin.solution.service.wb.Wb429RateLimitHeadersLogger;
 import ru.oparin.solution.service.wb.WbApiCategory;
 import ru.oparin.solution.service.wb.WbEndpointRateLimitCoordinator;
+import ru.oparin.solution.util.BaseUrlOverrideInterceptor;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
@@ -34,12 +37,14 @@ public class WbApiKeyService {
     private final CabinetService cabinetService;
     private final CabinetScopeStatusService cabinetScopeStatusService;
     private final WbEndpointRateLimitCoordinator wbEndpointRateLimitCoordinator;
+    private final WbHttpProperties wbHttpProperties;
 
     /**
      * Клиент только для проверок /ping по разным доменам WB API.
      * Используется для быстрой проверки доступа токена к категориям.
+     * Как и клиенты WB API, уходит на {@code wb.http.base-url-override}, если он задан.
      */
-    private final RestTemplate pingRestTemplate = new RestTemplate();
+    private RestTemplate pingRestTemplate;
 
     /**
      * URL-ы метода /ping для основных категорий WB API.
@@ -56,6 +61,13 @@ public class WbApiKeyService {
         PING_URLS.put(WbApiCategory.MARKETPLACE, WbApiBaseUrl.MARKETPLACE.getPingUrl());
     }
 
+    @PostConstruct
+    void initPingRestTemplate() {
+        pingRestTemplate = new RestTemplate();
+        BaseUrlOverrideInterceptor.of(wbHttpProperties.getBaseUrlOverride())
+                .ifPresent(pingRestTemplate.getInterceptors()::add);
+    }
+
     /**
      * Кабинет по умолчанию для пользователя (последний созданный).
      *
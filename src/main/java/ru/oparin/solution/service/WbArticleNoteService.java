@@ -12,20 +12,24 @@ import ru.oparin.solution.dto.notes.UpdateNoteRequest;
 import ru.oparin.solution.dto.notes.WbArticleNoteDto;
 import ru.oparin.solution.dto.notes.WbArticleNoteFileDto;
 import ru.oparin.solution.exception.UserException;
+import ru.oparin.solution.model.StoredFileOwnerType;
 import ru.oparin.solution.model.User;
 import ru.oparin.solution.model.WbArticleNote;
 import ru.oparin.solution.model.WbArticleNoteFile;
 import ru.oparin.solution.repository.WbArticleNoteFileRepository;
 import ru.oparin.solution.repository.WbArticleNoteRepository;
 import ru.oparin.solution.service.SellerContextService.SellerContext;
+import ru.oparin.solution.service.files.ContentAddressedBlobStore;
+import ru.oparin.solution.service.files.StoredContent;
+import ru.oparin.solution.service.files.StoredFileDownload;
+import ru.oparin.solution.service.files.StoredFileManifestService;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.List;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -38,12 +42,11 @@ public class WbArticleNoteService {
 
     private final WbArticleNoteRepository noteRepository;
     private final WbArticleNoteFileRepository fileRepository;
+    private final ContentAddressedBlobStore blobStore;
+    private final StoredFileManifestService manifestService;
     private final UserService userService;
     private final CabinetService cabinetService;
 
-    @Value("${app.uploads.directory}")
-    private String uploadsDirectory;
-
     @Value("${app.uploads.max-file-size}") // 30 MB
     private long maxFileSize;
 
@@ -141,12 +144,7 @@ public class WbArticleNoteService {
                 ));
         assertCurrentUserIsNoteAuthor(note, currentUser);
 
-        // Удаляем все файлы
-        List<WbArticleNoteFile> files = fileRepository.findByNoteIdOrderByUploadedAtAsc(noteId);
-        for (WbArticleNoteFile file : files) {
-            deleteFileFromDisk(file.getFilePath());
-        }
-
+        // Файлы с диска удалит очистка загрузок: удаление строк файлов освобождает их манифест
         noteRepository.delete(note);
         log.info("Удалена заметка ID={} для артикула nmId={}", noteId, nmId);
     }
@@ -174,31 +172,25 @@ public class WbArticleNoteService {
         validateFile(file);
 
         try {
-            // Убеждаемся, что директория существует
-            Path uploadsPath = Paths.get(uploadsDirectory);
-            if (!Files.exists(uploadsPath)) {
-                Files.createDirectories(uploadsPath);
-            }
-
-            // Генерируем уникальное имя файла
+            // Сохраняем файл в хранилище по хэшу содержимого (одинаковые файлы не дублируются)
             String originalFileName = file.getOriginalFilename();
-            String fileExtension = getFileExtension(originalFileName);
-            String uniqueFileName = UUID.randomUUID().toString() + fileExtension;
-            Path filePath = uploadsPath.resolve(uniqueFileName);
-
-            // Сохраняем файл
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            StoredContent stored;
+            try (InputStream inputStream = file.getInputStream()) {
+                stored = blobStore.store(inputStream, getFileExtension(originalFileName));
+            }
 
-            // Сохраняем информацию о файле в БД
+            // Сохраняем информацию о файле в БД и ссылку на blob в манифесте
             WbArticleNoteFile noteFile = WbArticleNoteFile.builder()
                     .note(note)
                     .fileName(originalFileName)
-                    .filePath(filePath.toString())
-                    .fileSize(file.getSize())
+                    .filePath(stored.path().toString())
+                    .fileSize(stored.sizeBytes())
                     .mimeType(file.getContentType())
+                    .contentSha256(stored.contentSha256())
                     .build();
 
             noteFile = fileRepository.save(noteFile);
+            manifestService.attach(stored, StoredFileOwnerType.ARTICLE_NOTE_FILE, noteFile.getId());
 
             log.info("Загружен файл ID={} для заметки ID={}, размер={} байт", 
                     noteFile.getId(), noteId, file.getSize());
@@ -238,26 +230,25 @@ public class WbArticleNoteService {
                         HttpStatus.NOT_FOUND
                 ));
 
-        // Удаляем файл с диска
-        deleteFileFromDisk(file.getFilePath());
-
-        // Удаляем запись из БД
+        // Удаляем запись из БД; файл с диска удалит очистка загрузок по манифесту
         fileRepository.delete(file);
 
         log.info("Удален файл ID={} для заметки ID={}", fileId, noteId);
     }
 
     /**
-     * Получает файл для скачивания.
+     * Получает файл для скачивания (путь, имя, MIME-тип и хэш содержимого для ETag).
+     * У файлов, загруженных до появления хэша, его досчитывает {@link NoteFileHashBackfillService};
+     * до этого хэш {@code null}.
      *
      * @param noteId ID заметки
      * @param fileId ID файла
      * @param nmId артикул WB
      * @param context контекст продавца
-     * @return путь к файлу
+     * @return файл для отдачи
      */
     @Transactional(readOnly = true)
-    public Path getFile(Long noteId, Long fileId, Long nmId, SellerContext context) {
+    public StoredFileDownload getFileDownload(Long noteId, Long fileId, Long nmId, SellerContext context) {
         long cabinetId = resolveCabinetId(context);
         noteRepository.findByIdAndNmIdAndCabinetId(noteId, nmId, cabinetId)
                 .orElseThrow(() -> new UserException(
@@ -279,34 +270,7 @@ public class WbArticleNoteService {
             );
         }
 
-        return filePath;
-    }
-
-    /**
-     * Получает информацию о файле.
-     *
-     * @param noteId ID заметки
-     * @param fileId ID файла
-     * @param nmId артикул WB
-     * @param context контекст продавца
-     * @return информация о файле
-     */
-    @Transactional(readOnly = true)
-    public WbArticleNoteFileDto getFileInfo(Long noteId, Long fileId, Long nmId, SellerContext context) {
-        long cabinetId = resolveCabinetId(context);
-        noteRepository.findByIdAndNmIdAndCabinetId(noteId, nmId, cabinetId)
-                .orElseThrow(() -> new UserException(
-                        "Заметка не найдена",
-                        HttpStatus.NOT_FOUND
-                ));
-
-        WbArticleNoteFile file = fileRepository.findByIdAndNoteId(fileId, noteId)
-                .orElseThrow(() -> new UserException(
-                        "Файл не найден",
-                        HttpStatus.NOT_FOUND
-                ));
-
-        return mapFileToDto(file);
+        return new StoredFileDownload(filePath, file.getFileName(), file.getMimeType(), file.getContentSha256());
     }
 
     /**
@@ -370,21 +334,6 @@ public class WbArticleNoteService {
         return fileName.substring(fileName.lastIndexOf("."));
     }
 
-    /**
-     * Удаляет файл с диска.
-     */
-    private void deleteFileFromDisk(String filePath) {
-        try {
-            Path path = Paths.get(filePath);
-            if (Files.exists(path)) {
-                Files.delete(path);
-                log.debug("Файл удален с диска: {}", filePath);
-            }
-        } catch (IOException e) {
-            log.warn("Не удалось удалить файл с диска: {}", filePath, e);
-        }
-    }
-
     /**
      * Преобразует Entity в DTO.
      */
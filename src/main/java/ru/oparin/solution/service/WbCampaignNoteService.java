@@ -12,20 +12,24 @@ import ru.oparin.solution.dto.notes.UpdateNoteRequest;
 import ru.oparin.solution.dto.notes.WbCampaignNoteDto;
 import ru.oparin.solution.dto.notes.WbCampaignNoteFileDto;
 import ru.oparin.solution.exception.UserException;
+import ru.oparin.solution.model.StoredFileOwnerType;
 import ru.oparin.solution.model.User;
 import ru.oparin.solution.model.WbCampaignNote;
 import ru.oparin.solution.model.WbCampaignNoteFile;
 import ru.oparin.solution.repository.WbCampaignNoteFileRepository;
 import ru.oparin.solution.repository.WbCampaignNoteRepository;
 import ru.oparin.solution.service.SellerContextService.SellerContext;
+import ru.oparin.solution.service.files.ContentAddressedBlobStore;
+import ru.oparin.solution.service.files.StoredContent;
+import ru.oparin.solution.service.files.StoredFileDownload;
+import ru.oparin.solution.service.files.StoredFileManifestService;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.List;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -38,9 +42,8 @@ public class WbCampaignNoteService {
 
     private final WbCampaignNoteRepository noteRepository;
     private final WbCampaignNoteFileRepository fileRepository;
-
-    @Value("${app.uploads.directory}")
-    private String uploadsDirectory;
+    private final ContentAddressedBlobStore blobStore;
+    private final StoredFileManifestService manifestService;
 
     @Value("${app.uploads.max-file-size}")
     private long maxFileSize;
@@ -100,10 +103,7 @@ public class WbCampaignNoteService {
                 .orElseThrow(() -> new UserException("Заметка не найдена", HttpStatus.NOT_FOUND));
         assertCurrentUserIsNoteAuthor(note, currentUser);
 
-        List<WbCampaignNoteFile> files = fileRepository.findByNote_IdOrderByUploadedAtAsc(noteId);
-        for (WbCampaignNoteFile file : files) {
-            deleteFileFromDisk(file.getFilePath());
-        }
+        // Файлы с диска удалит очистка загрузок: удаление строк файлов освобождает их манифест
         noteRepository.delete(note);
         log.info("Удалена заметка РК ID={} campaignId={}", noteId, campaignId);
     }
@@ -118,26 +118,22 @@ public class WbCampaignNoteService {
         validateFile(file);
 
         try {
-            Path uploadsPath = Paths.get(uploadsDirectory);
-            if (!Files.exists(uploadsPath)) {
-                Files.createDirectories(uploadsPath);
-            }
-
             String originalFileName = file.getOriginalFilename();
-            String fileExtension = getFileExtension(originalFileName);
-            String uniqueFileName = UUID.randomUUID().toString() + fileExtension;
-            Path filePath = uploadsPath.resolve(uniqueFileName);
-
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            StoredContent stored;
+            try (InputStream inputStream = file.getInputStream()) {
+                stored = blobStore.store(inputStream, getFileExtension(originalFileName));
+            }
 
             WbCampaignNoteFile noteFile = WbCampaignNoteFile.builder()
                     .note(note)
-                    .fileName(originalFileName != null ? originalFileName : uniqueFileName)
-                    .filePath(filePath.toString())
-                    .fileSize(file.getSize())
+                    .fileName(originalFileName != null ? originalFileName : stored.path().getFileName().toString())
+                    .filePath(stored.path().toString())
+                    .fileSize(stored.sizeBytes())
                     .mimeType(file.getContentType())
+                    .contentSha256(stored.contentSha256())
                     .build();
             noteFile = fileRepository.save(noteFile);
+            manifestService.attach(stored, StoredFileOwnerType.CAMPAIGN_NOTE_FILE, noteFile.getId());
             log.info("Загружен файл РК ID={} для заметки ID={}", noteFile.getId(), noteId);
             return mapFileToDto(noteFile);
         } catch (IOException e) {
@@ -156,13 +152,16 @@ public class WbCampaignNoteService {
         WbCampaignNoteFile file = fileRepository.findByIdAndNoteId(fileId, noteId)
                 .orElseThrow(() -> new UserException("Файл не найден", HttpStatus.NOT_FOUND));
 
-        deleteFileFromDisk(file.getFilePath());
         fileRepository.delete(file);
         log.info("Удалён файл РК ID={} заметки ID={}", fileId, noteId);
     }
 
+    /**
+     * Файл для скачивания; у старых файлов хэш содержимого {@code null}, пока его не досчитает
+     * {@link NoteFileHashBackfillService}.
+     */
     @Transactional(readOnly = true)
-    public Path getFile(Long noteId, Long fileId, Long campaignId, SellerContext context) {
+    public StoredFileDownload getFileDownload(Long noteId, Long fileId, Long campaignId, SellerContext context) {
         long cabinetId = resolveCabinetId(context);
         noteRepository.findByIdAndCampaignIdAndCabinetId(noteId, campaignId, cabinetId)
                 .orElseThrow(() -> new UserException("Заметка не найдена", HttpStatus.NOT_FOUND));
@@ -174,18 +173,7 @@ public class WbCampaignNoteService {
         if (!Files.exists(filePath)) {
             throw new UserException("Файл не найден на диске", HttpStatus.NOT_FOUND);
         }
-        return filePath;
-    }
-
-    @Transactional(readOnly = true)
-    public WbCampaignNoteFileDto getFileInfo(Long noteId, Long fileId, Long campaignId, SellerContext context) {
-        long cabinetId = resolveCabinetId(context);
-        noteRepository.findByIdAndCampaignIdAndCabinetId(noteId, campaignId, cabinetId)
-                .orElseThrow(() -> new UserException("Заметка не найдена", HttpStatus.NOT_FOUND));
-
-        WbCampaignNoteFile file = fileRepository.findByIdAndNoteId(fileId, noteId)
-                .orElseThrow(() -> new UserException("Файл не найден", HttpStatus.NOT_FOUND));
-        return mapFileToDto(file);
+        return new StoredFileDownload(filePath, file.getFileName(), file.getMimeType(), file.getContentSha256());
     }
 
     private void validateFile(MultipartFile file) {
@@ -224,18 +212,6 @@ public class WbCampaignNoteService {
         return fileName.substring(fileName.lastIndexOf("."));
     }
 
-    private void deleteFileFromDisk(String filePath) {
-        try {
-            Path path = Paths.get(filePath);
-            if (Files.exists(path)) {
-                Files.delete(path);
-                log.debug("Файл заметки РК удалён с диска: {}", filePath);
-            }
-        } catch (IOException e) {
-            log.warn("Не удалось удалить файл с диска: {}", filePath, e);
-        }
-    }
-
     private WbCampaignNoteDto mapToDto(WbCampaignNote note) {
         List<WbCampaignNoteFile> files = fileRepository.findByNote_IdOrderByUploadedAtAsc(note.getId());
         List<WbCampaignNoteFileDto> fileDtos = files.stream().map(this::mapFileToDto).collect(Collectors.toList());
@@ -17,6 +17,7 @@ import ru.oparin.solution.model.CabinetTokenType;
 import ru.oparin.solution.model.User;
 import ru.oparin.solution.model.WbProductCard;
 import ru.oparin.solution.service.events.WbApiEventService;
+import ru.oparin.solution.service.events.payload.WbMainStepPayload;
 import ru.oparin.solution.service.sync.*;
 import ru.oparin.solution.service.wb.WbApiCategory;
 
@@ -93,12 +94,19 @@ public class WbProductCardAnalyticsService {
     /**
      * Основной pipeline кабинета без повторного запроса CONTENT карточек.
      * Используется в событийной модели после успешного (или fallback) CONTENT этапа.
+     * Акции календаря не запрашиваются внутри транзакции: событие синхронизации ставится в очередь
+     * вместе с её коммитом и выполняется исполнителем событий.
      */
     @Transactional
     public void updateCabinetAnalyticsUsingExistingCardsInTransaction(Cabinet cabinet, LocalDate dateFrom, LocalDate dateTo) {
         Cabinet managed = findManagedCabinet(cabinet.getId());
         doUpdateCabinetAnalytics(managed, dateFrom, dateTo, false, false, false);
-        promotionCalendarService.syncPromotionsForCabinet(managed);
+        WbMainStepPayload calendarPayload = WbMainStepPayload.builder()
+                .dateFrom(dateFrom)
+                .dateTo(dateTo)
+                .includeStocks(false)
+                .build();
+        wbApiEventService.enqueuePromotionCalendarSyncCabinetEvent(managed.getId(), calendarPayload, "LEGACY_SERVICE");
     }
 
     /**
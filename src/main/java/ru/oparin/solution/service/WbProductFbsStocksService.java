@@ -3,6 +3,8 @@ package ru.oparin.solution.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -10,16 +12,21 @@ import org.springframework.web.client.HttpClientErrorException;
 import ru.oparin.solution.dto.wb.WbFbsStocksResponse;
 import ru.oparin.solution.model.Cabinet;
 import ru.oparin.solution.model.WbProductBarcode;
-import ru.oparin.solution.model.WbProductFbsStock;
 import ru.oparin.solution.model.WbSellerWarehouse;
 import ru.oparin.solution.repository.WbProductBarcodeRepository;
-import ru.oparin.solution.repository.WbProductFbsStockRepository;
+import ru.oparin.solution.repository.WbProductFbsStockCopyWriter;
+import ru.oparin.solution.service.wb.WbApiEventAttemptContext;
 import ru.oparin.solution.service.wb.WbFbsApiClient;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Синхронизация остатков FBS: POST /api/v3/stocks/{warehouseId} пачками по 1000 chrtId.
+ * Склады продавца обрабатываются несколькими потоками, снимок склада заменяется одной короткой транзакцией.
  */
 @Service
 @RequiredArgsConstructor
@@ -34,7 +41,16 @@ public class WbProductFbsStocksService {
     private final WbFbsApiClient fbsApiClient;
     private final WbSellerWarehouseService sellerWarehouseService;
     private final WbProductBarcodeRepository barcodeRepository;
-    private final WbProductFbsStockRepository fbsStockRepository;
+    private final WbProductFbsStockCopyWriter fbsStockCopyWriter;
+    @Qualifier("fbsStocksFetchExecutor")
+    private final Executor fbsStocksFetchExecutor;
+
+    /**
+     * Сколько складов продавца запрашивается параллельно. Лимит категории «Маркетплейс» общий на токен,
+     * поэтому значение держится небольшим; темп запросов к одному складу задаёт координатор лимитов WB.
+     */
+    @Value("${app.fbs-stocks.warehouse-parallelism:3}")
+    private int warehouseParallelism;
 
     /**
      * self-proxy, чтобы {@code @Transactional} на сохранении снимка не обходился самовызовом.
@@ -63,15 +79,54 @@ public class WbProductFbsStocksService {
             return;
         }
 
-        Map<Long, WbProductBarcode> barcodeByChrtId = firstBarcodeByChrtId(barcodes);
-        log.info("Синхронизация остатков FBS: cabinetId={}, складов={}, chrtId={}",
-                cabinet.getId(), warehouses.size(), chrtIds.size());
-
+        List<WbSellerWarehouse> active = new ArrayList<>();
         for (WbSellerWarehouse warehouse : warehouses) {
             if (Boolean.TRUE.equals(warehouse.getIsDeleting())) {
                 log.info("Пропуск склада продавца warehouseId={}: удаляется", warehouse.getWarehouseId());
                 continue;
             }
+            active.add(warehouse);
+        }
+        if (active.isEmpty()) {
+            return;
+        }
+
+        Map<Long, WbProductBarcode> barcodeByChrtId = firstBarcodeByChrtId(barcodes);
+        log.info("Синхронизация остатков FBS: cabinetId={}, складов={}, chrtId={}",
+                cabinet.getId(), active.size(), chrtIds.size());
+
+        Queue<WbSellerWarehouse> queue = new ConcurrentLinkedQueue<>(active);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Optional<WbApiEventAttemptContext.AttemptInfo> attempt = WbApiEventAttemptContext.current();
+        int lanes = Math.max(1, Math.min(warehouseParallelism, active.size()));
+        List<CompletableFuture<Void>> workers = new ArrayList<>(lanes);
+        for (int i = 0; i < lanes; i++) {
+            workers.add(CompletableFuture.runAsync(
+                    () -> WbApiEventAttemptContext.runWith(attempt,
+                            () -> drainWarehouseQueue(queue, failure, apiKey, cabinet, chrtIds, barcodeByChrtId)),
+                    fbsStocksFetchExecutor));
+        }
+        CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).join();
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    /**
+     * Поток обработки складов: берёт склады из общей очереди, пока она не опустеет или другой поток не упадёт.
+     * Ошибка (кроме 404 склада) останавливает все потоки и пробрасывается из {@link #syncCabinet}, как при
+     * последовательном обходе.
+     */
+    private void drainWarehouseQueue(
+            Queue<WbSellerWarehouse> queue,
+            AtomicReference<RuntimeException> failure,
+            String apiKey,
+            Cabinet cabinet,
+            List<Long> chrtIds,
+            Map<Long, WbProductBarcode> barcodeByChrtId
+    ) {
+        WbSellerWarehouse warehouse;
+        while (failure.get() == null && (warehouse = queue.poll()) != null) {
             try {
                 List<WbFbsStocksResponse.Item> items = fetchAllStocks(apiKey, warehouse.getWarehouseId(), chrtIds);
                 items = withMissingChrtAsZero(items, chrtIds);
@@ -79,12 +134,16 @@ public class WbProductFbsStocksService {
             } catch (HttpClientErrorException.NotFound e) {
                 log.warn("Склад продавца warehouseId={} не найден в WB при запросе остатков FBS, cabinetId={}",
                         warehouse.getWarehouseId(), cabinet.getId());
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+                return;
             }
         }
     }
 
     /**
-     * Перезаписывает снимок остатков FBS по одному складу продавца.
+     * Перезаписывает снимок остатков FBS по одному складу продавца одним проходом
+     * (см. {@link WbProductFbsStockCopyWriter}).
      *
      * @param cabinet          кабинет
      * @param warehouseId      ID склада продавца
@@ -98,43 +157,24 @@ public class WbProductFbsStocksService {
             List<WbFbsStocksResponse.Item> items,
             Map<Long, WbProductBarcode> barcodeByChrtId
     ) {
-        Map<Long, WbFbsStocksResponse.Item> byChrtId = new HashMap<>();
+        Map<Long, WbProductFbsStockCopyWriter.Row> byChrtId = new LinkedHashMap<>();
         for (WbFbsStocksResponse.Item item : items) {
             if (item == null || item.getChrtId() == null) {
                 continue;
             }
-            byChrtId.put(item.getChrtId(), item);
-        }
-
-        List<WbProductFbsStock> existing = fbsStockRepository.findByCabinet_IdAndWarehouseId(cabinet.getId(), warehouseId);
-        Map<Long, WbProductFbsStock> existingByChrtId = new HashMap<>();
-        for (WbProductFbsStock stock : existing) {
-            existingByChrtId.put(stock.getChrtId(), stock);
-        }
-
-        int upserted = 0;
-        for (WbFbsStocksResponse.Item item : byChrtId.values()) {
             WbProductBarcode barcode = barcodeByChrtId.get(item.getChrtId());
-            WbProductFbsStock stock = existingByChrtId.remove(item.getChrtId());
-            if (stock == null) {
-                stock = WbProductFbsStock.builder()
-                        .cabinet(cabinet)
-                        .warehouseId(warehouseId)
-                        .chrtId(item.getChrtId())
-                        .build();
-            }
-            stock.setNmId(barcode != null ? barcode.getNmId() : null);
-            stock.setSku(resolveSku(item, barcode));
-            stock.setAmount(item.getAmount() != null ? item.getAmount() : 0);
-            fbsStockRepository.save(stock);
-            upserted++;
+            byChrtId.put(item.getChrtId(), new WbProductFbsStockCopyWriter.Row(
+                    item.getChrtId(),
+                    barcode != null ? barcode.getNmId() : null,
+                    resolveSku(item, barcode),
+                    item.getAmount() != null ? item.getAmount() : 0
+            ));
         }
 
-        if (!existingByChrtId.isEmpty()) {
-            fbsStockRepository.deleteAll(existingByChrtId.values());
-        }
-        log.info("Остатки FBS cabinetId={}, warehouseId={}: сохранено {}, удалено устаревших {}",
-                cabinet.getId(), warehouseId, upserted, existingByChrtId.size());
+        WbProductFbsStockCopyWriter.Result result = fbsStockCopyWriter.replaceWarehouse(
+                cabinet.getId(), warehouseId, byChrtId.values());
+        log.info("Остатки FBS cabinetId={}, warehouseId={}: получено {}, изменено {}, удалено устаревших {}",
+                cabinet.getId(), warehouseId, byChrtId.size(), result.upserted(), result.deleted());
     }
 
     private List<WbFbsStocksResponse.Item> fetchAllStocks(String apiKey, Long warehouseId, List<Long> chrtIds) {
@@ -78,34 +78,16 @@ public class WbProductPriceService {
      * Нужно, когда после синхронизации из заказов появилась строка по размеру с СПП,
      * а следующая загрузка цен добавила агрегат без размера с {@code sppDiscount = null} —
      * иначе в аналитике выбиралась бы строка без СПП.
+     * Выполняется одним UPDATE по всему набору nmId (без выборки строк по каждому товару).
      */
     private void alignSppDiscountAcrossSizeRows(List<Long> nmIds, LocalDate date, Long cabinetId) {
         if (cabinetId == null || nmIds == null || nmIds.isEmpty()) {
             return;
         }
-        for (Long nmId : new LinkedHashSet<>(nmIds)) {
-            List<WbProductPriceHistory> rows = priceHistoryRepository.findByNmIdAndDateAndCabinet_Id(nmId, date, cabinetId);
-            if (rows.size() < 2) {
-                continue;
-            }
-            Integer spp = rows.stream()
-                    .map(WbProductPriceHistory::getSppDiscount)
-                    .filter(Objects::nonNull)
-                    .findFirst()
-                    .orElse(null);
-            if (spp == null) {
-                continue;
-            }
-            boolean changed = false;
-            for (WbProductPriceHistory row : rows) {
-                if (row.getSppDiscount() == null) {
-                    row.setSppDiscount(spp);
-                    changed = true;
-                }
-            }
-            if (changed) {
-                priceHistoryRepository.saveAll(rows);
-            }
+        int updated = priceHistoryRepository.alignSppDiscountByNmIds(
+                cabinetId, date, new LinkedHashSet<>(nmIds).toArray(Long[]::new));
+        if (updated > 0) {
+            log.debug("СПП выровнено по размерам: обновлено строк цены {} (кабинет {}, дата {})", updated, cabinetId, date);
         }
     }
 
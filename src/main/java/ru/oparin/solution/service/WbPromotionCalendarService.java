@@ -9,7 +9,6 @@ import ru.oparin.solution.dto.wb.WbCalendarPromotionsResponse;
 import ru.oparin.solution.exception.WbApiUnauthorizedScopeException;
 import ru.oparin.solution.model.Cabinet;
 import ru.oparin.solution.model.Role;
-import ru.oparin.solution.model.WbProductCard;
 import ru.oparin.solution.model.WbPromotionParticipation;
 import ru.oparin.solution.repository.WbProductCardRepository;
 import ru.oparin.solution.repository.WbPromotionParticipationRepository;
@@ -22,7 +21,8 @@ import java.util.*;
 
 /**
  * Синхронизация участия товаров кабинета в акциях календаря WB.
- * Получает список акций на сегодня, по каждой — список nmId в акции, пересекает с товарами кабинета и сохраняет.
+ * Получает список акций на сегодня, по каждой — список nmId в акции, пересекает с товарами кабинета
+ * и сохраняет разность с текущими участиями.
  */
 @Service
 @Slf4j
@@ -50,13 +50,13 @@ public class WbPromotionCalendarService {
     }
 
     /**
-     * Синхронизирует данные об участии в акциях для одного кабинета (своя транзакция).
-     * Берет акции на «сегодня» (UTC), по каждой запрашивает номенклатуры inAction=true,
-     * пересекает с nmId кабинета и сохраняет в promotion_participations (старые по кабинету удаляются).
+     * Синхронизирует данные об участии в акциях для одного кабинета.
+     * Берет акции на «сегодня» (UTC), по каждой запрашивает номенклатуры inAction=true и пересекает с nmId кабинета.
+     * HTTP-запросы выполняются вне транзакции; результат применяется короткой транзакцией
+     * {@link #applyParticipations} как разность с сохранёнными участиями.
      *
      * @param cabinet кабинет с заполненным apiKey
      */
-    @Transactional
     public void syncPromotionsForCabinet(Cabinet cabinet) {
         Long cabinetId = cabinet.getId();
         String apiKey = cabinet.getApiKey();
@@ -65,77 +65,10 @@ public class WbPromotionCalendarService {
             return;
         }
 
-        ZonedDateTime today = ZonedDateTime.now(ZoneOffset.UTC);
-        String start = WbCalendarApiClient.startOfDayUtc(today);
-        String end = WbCalendarApiClient.endOfDayUtc(today);
-
         try {
-            WbCalendarPromotionsResponse response = calendarApiClient.getPromotions(apiKey, start, end, false);
-            if (response.getData() == null || response.getData().getPromotions() == null
-                    || response.getData().getPromotions().isEmpty()) {
-                participationRepository.deleteByCabinet_Id(cabinetId);
-                log.debug("Кабинет {}: акций на сегодня нет, старые участия удалены", cabinetId);
-                return;
-            }
-
-            List<Long> cabinetNmIds = productCardRepository.findByCabinet_Id(cabinetId).stream()
-                    .map(WbProductCard::getNmId)
-                    .filter(Objects::nonNull)
-                    .distinct()
-                    .toList();
-            if (cabinetNmIds.isEmpty()) {
-                participationRepository.deleteByCabinet_Id(cabinetId);
-                log.debug("Кабинет {}: нет карточек, участия очищены", cabinetId);
-                return;
-            }
-
-            Set<Long> cabinetNmIdSet = new HashSet<>(cabinetNmIds);
-            List<WbPromotionParticipation> toSave = new ArrayList<>();
-            Set<String> uniqueKeys = new HashSet<>();
-
-            for (WbCalendarPromotionsResponse.CalendarPromotionItem promo : response.getData().getPromotions()) {
-                Long promoId = promo.getId();
-                String promoName = promo.getName() != null ? promo.getName() : "";
-                String promoType = promo.getType() != null ? promo.getType() : "";
-                // Метод nomenclatures неприменим для автоакций (документация WB).
-                if ("auto".equalsIgnoreCase(promoType)) {
-                    log.debug("Кабинет {}: акция {} (type=auto) — метод nomenclatures не поддерживается, пропуск", cabinetId, promoId);
-                    continue;
-                }
-                List<Long> inPromotion;
-                try {
-                    inPromotion = calendarApiClient.getAllNomenclatureIdsInPromotion(apiKey, promoId, true);
-                } catch (HttpClientErrorException e) {
-                    if (e.getStatusCode().value() == 422) {
-                        log.warn("Кабинет {}: акция {} — 422 (номенклатуры недоступны), пропуск", cabinetId, promoId);
-                        continue;
-                    }
-                    throw e;
-                }
-                for (Long nmId : inPromotion) {
-                    if (cabinetNmIdSet.contains(nmId)) {
-                        String key = cabinetId + ":" + nmId + ":" + promoId;
-                        if (!uniqueKeys.add(key)) {
-                            // WB может вернуть дубли nmId в рамках одной акции/запроса.
-                            continue;
-                        }
-                        toSave.add(WbPromotionParticipation.builder()
-                                .cabinet(cabinet)
-                                .nmId(nmId)
-                                .wbPromotionId(promoId)
-                                .wbPromotionName(promoName)
-                                .wbPromotionType(promoType)
-                                .build());
-                    }
-                }
-            }
-
-            participationRepository.deleteByCabinet_Id(cabinetId);
-            participationRepository.flush();
-            if (!toSave.isEmpty()) {
-                participationRepository.saveAll(toSave);
-            }
-            log.info("Кабинет {}: синхронизация акций завершена, участий: {}", cabinetId, toSave.size());
+            Map<ParticipationKey, PromotionInfo> participations = fetchParticipations(cabinetId, apiKey);
+            self.applyParticipations(cabinet, participations);
+            log.info("Кабинет {}: синхронизация акций завершена, участий: {}", cabinetId, participations.size());
             cabinetScopeStatusService.recordSuccess(cabinetId, WbApiCategory.PRICES_AND_DISCOUNTS);
         } catch (WbApiUnauthorizedScopeException e) {
             cabinetScopeStatusService.recordFailure(cabinetId, e.getCategory(), e.getMessage());
@@ -151,19 +84,129 @@ public class WbPromotionCalendarService {
         }
     }
 
+    /**
+     * Собирает участия товаров кабинета в акциях на сегодня. Номенклатуры акций запрашиваются последовательно:
+     * лимит метода nomenclatures — на токен, темп задаёт координатор лимитов WB.
+     */
+    private Map<ParticipationKey, PromotionInfo> fetchParticipations(Long cabinetId, String apiKey) {
+        Set<Long> cabinetNmIds = new HashSet<>(productCardRepository.findAllNmIdsByCabinet_Id(cabinetId));
+        if (cabinetNmIds.isEmpty()) {
+            log.debug("Кабинет {}: нет карточек, участия будут очищены", cabinetId);
+            return Map.of();
+        }
+
+        ZonedDateTime today = ZonedDateTime.now(ZoneOffset.UTC);
+        String start = WbCalendarApiClient.startOfDayUtc(today);
+        String end = WbCalendarApiClient.endOfDayUtc(today);
+
+        WbCalendarPromotionsResponse response = calendarApiClient.getPromotions(apiKey, start, end, false);
+        if (response.getData() == null || response.getData().getPromotions() == null
+                || response.getData().getPromotions().isEmpty()) {
+            log.debug("Кабинет {}: акций на сегодня нет, участия будут очищены", cabinetId);
+            return Map.of();
+        }
+
+        Map<ParticipationKey, PromotionInfo> participations = new LinkedHashMap<>();
+        for (WbCalendarPromotionsResponse.CalendarPromotionItem promo : response.getData().getPromotions()) {
+            Long promoId = promo.getId();
+            String promoName = promo.getName() != null ? promo.getName() : "";
+            String promoType = promo.getType() != null ? promo.getType() : "";
+            // Метод nomenclatures неприменим для автоакций (документация WB).
+            if ("auto".equalsIgnoreCase(promoType)) {
+                log.debug("Кабинет {}: акция {} (type=auto) — метод nomenclatures не поддерживается, пропуск", cabinetId, promoId);
+                continue;
+            }
+            List<Long> inPromotion;
+            try {
+                inPromotion = calendarApiClient.getAllNomenclatureIdsInPromotion(apiKey, promoId, true);
+            } catch (HttpClientErrorException e) {
+                if (e.getStatusCode().value() == 422) {
+                    log.warn("Кабинет {}: акция {} — 422 (номенклатуры недоступны), пропуск", cabinetId, promoId);
+                    continue;
+                }
+                throw e;
+            }
+            PromotionInfo info = new PromotionInfo(promoName, promoType);
+            for (Long nmId : inPromotion) {
+                if (cabinetNmIds.contains(nmId)) {
+                    // WB может вернуть дубли nmId в рамках одной акции/запроса.
+                    participations.putIfAbsent(new ParticipationKey(nmId, promoId), info);
+                }
+            }
+        }
+        return participations;
+    }
+
+    /**
+     * Приводит участия кабинета к переданному набору: удаляет исчезнувшие пары (nmId, акция),
+     * обновляет название/тип изменившихся и вставляет новые. Неизменные строки не трогаются.
+     *
+     * @param cabinet        кабинет
+     * @param participations актуальные участия по ключу (nmId, id акции)
+     */
+    @Transactional
+    public void applyParticipations(Cabinet cabinet, Map<ParticipationKey, PromotionInfo> participations) {
+        Map<ParticipationKey, PromotionInfo> toInsert = new LinkedHashMap<>(participations);
+        List<WbPromotionParticipation> toDelete = new ArrayList<>();
+        int updated = 0;
+
+        for (WbPromotionParticipation existing : participationRepository.findByCabinet_Id(cabinet.getId())) {
+            PromotionInfo info = toInsert.remove(new ParticipationKey(existing.getNmId(), existing.getWbPromotionId()));
+            if (info == null) {
+                toDelete.add(existing);
+                continue;
+            }
+            if (!Objects.equals(existing.getWbPromotionName(), info.name())
+                    || !Objects.equals(existing.getWbPromotionType(), info.type())) {
+                existing.setWbPromotionName(info.name());
+                existing.setWbPromotionType(info.type());
+                updated++;
+            }
+        }
+
+        if (!toDelete.isEmpty()) {
+            participationRepository.deleteAllInBatch(toDelete);
+        }
+        if (!toInsert.isEmpty()) {
+            List<WbPromotionParticipation> toSave = new ArrayList<>(toInsert.size());
+            toInsert.forEach((key, info) -> toSave.add(WbPromotionParticipation.builder()
+                    .cabinet(cabinet)
+                    .nmId(key.nmId())
+                    .wbPromotionId(key.promotionId())
+                    .wbPromotionName(info.name())
+                    .wbPromotionType(info.type())
+                    .build()));
+            participationRepository.saveAll(toSave);
+        }
+        log.debug("Кабинет {}: участия в акциях — добавлено {}, удалено {}, обновлено {}",
+                cabinet.getId(), toInsert.size(), toDelete.size(), updated);
+    }
+
     /**
      * Синхронизация акций для всех кабинетов с API-ключом (активные селлеры).
-     * Для каждого кабинета вызывается syncPromotionsForCabinet через прокси — своя транзакция.
+     * Параллельность по кабинетам даёт очередь событий {@code PROMOTION_CALENDAR_SYNC_CABINET}.
      */
     public void syncPromotionsForAllCabinets() {
         List<Cabinet> cabinets = cabinetService.findCabinetsWithApiKeyAndUser(Role.USER);
         log.info("Запуск синхронизации акций для {} кабинетов", cabinets.size());
         for (Cabinet cabinet : cabinets) {
             try {
-                self.syncPromotionsForCabinet(cabinet);
+                syncPromotionsForCabinet(cabinet);
             } catch (Exception e) {
                 log.error("Ошибка синхронизации акций для кабинета {}: {}", cabinet.getId(), e.getMessage(), e);
             }
         }
     }
+
+    /**
+     * Участие товара в акции: ключ разности при синхронизации.
+     */
+    public record ParticipationKey(Long nmId, Long promotionId) {
+    }
+
+    /**
+     * Название и тип акции из календаря WB.
+     */
+    public record PromotionInfo(String name, String type) {
+    }
 }
@@ -5,21 +5,23 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.oparin.solution.dto.analytics.NormQueryClusterCursor;
 import ru.oparin.solution.dto.analytics.NormQueryClusterRowDto;
 import ru.oparin.solution.dto.analytics.NormQueryClusterSortField;
 import ru.oparin.solution.dto.analytics.NormQueryClustersResponseDto;
 import ru.oparin.solution.dto.wb.WbNormQueryStatsResponse;
-import ru.oparin.solution.model.WbPromotionCampaign;
-import ru.oparin.solution.model.WbPromotionNormQueryStatistics;
-import ru.oparin.solution.repository.WbPromotionCampaignRepository;
+import ru.oparin.solution.repository.WbPromotionNormQueryStatisticsCopyWriter;
 import ru.oparin.solution.repository.WbPromotionNormQueryStatisticsRepository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Сохранение и чтение статистики по поисковым кластерам WB.
@@ -34,11 +36,26 @@ public class WbPromotionNormQueryStatisticsService {
     private static final int DEFAULT_PAGE_SIZE = 20;
     private static final int MAX_PAGE_SIZE = 100;
 
+    private static final int CLUSTER_COUNT_CACHE_MAX_ENTRIES = 2_000;
+
     private final WbPromotionNormQueryStatisticsRepository repository;
-    private final WbPromotionCampaignRepository campaignRepository;
+    private final WbPromotionNormQueryStatisticsCopyWriter copyWriter;
+
+    /**
+     * LRU-кэш числа кластеров по фильтру (см. {@link #resolveTotalElements}).
+     */
+    private final Map<ClusterCountKey, Long> clusterCountCache = Collections.synchronizedMap(
+            new LinkedHashMap<ClusterCountKey, Long>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ClusterCountKey, Long> eldest) {
+                    return size() > CLUSTER_COUNT_CACHE_MAX_ENTRIES;
+                }
+            });
 
     /**
      * Удаляет данные за период по кампаниям батча и сохраняет ответ WB.
+     * Строки загружаются через COPY во временную таблицу и переносятся одним {@code INSERT ... SELECT}
+     * (см. {@link WbPromotionNormQueryStatisticsCopyWriter}); удаление и вставка — в одной транзакции.
      */
     @Transactional
     public void replaceStatisticsForCampaigns(
@@ -50,62 +67,66 @@ public class WbPromotionNormQueryStatisticsService {
         if (campaignIds == null || campaignIds.isEmpty()) {
             return;
         }
-        repository.deleteByCampaignAdvertIdInAndDateBetween(campaignIds, dateFrom, dateTo);
         if (response == null || response.getItems() == null || response.getItems().isEmpty()) {
+            copyWriter.replaceRange(campaignIds, dateFrom, dateTo, Collections.emptyIterator());
             log.info("Ответ normquery stats пуст для кампаний {}", campaignIds);
             return;
         }
-        List<WbPromotionNormQueryStatistics> toSave = new ArrayList<>();
-        for (WbNormQueryStatsResponse.ResponseItem item : response.getItems()) {
-            if (item.getAdvertId() == null || item.getNmId() == null || item.getDailyStats() == null) {
-                continue;
-            }
-            Optional<WbPromotionCampaign> campaignOpt = campaignRepository.findById(item.getAdvertId());
-            if (campaignOpt.isEmpty()) {
-                log.debug("Кампания advertId {} не найдена, пропуск normquery", item.getAdvertId());
-                continue;
-            }
-            WbPromotionCampaign campaign = campaignOpt.get();
-            for (WbNormQueryStatsResponse.DailyStat daily : item.getDailyStats()) {
-                if (daily == null || daily.getStat() == null) {
-                    continue;
-                }
-                LocalDate date = parseDate(daily.getDate());
-                if (date == null) {
-                    continue;
-                }
-                WbNormQueryStatsResponse.Stat stat = daily.getStat();
-                if (stat.getNormQuery() == null || stat.getNormQuery().isBlank()) {
-                    continue;
-                }
-                toSave.add(WbPromotionNormQueryStatistics.builder()
-                        .campaign(campaign)
-                        .nmId(item.getNmId())
-                        .date(date)
-                        .normQuery(stat.getNormQuery().trim())
-                        .avgPos(stat.getAvgPos())
-                        .clicks(stat.getClicks())
-                        .atbs(stat.getAtbs())
-                        .orders(stat.getOrders())
-                        .shks(stat.getShks())
-                        .spend(stat.getSpend())
-                        .cpc(stat.getCpc())
-                        .views(stat.getViews())
-                        .ctr(stat.getCtr())
-                        .cpm(stat.getCpm())
-                        .build());
-            }
+        Iterator<WbPromotionNormQueryStatisticsCopyWriter.Row> rows = response.getItems().stream()
+                .filter(item -> item.getAdvertId() != null && item.getNmId() != null && item.getDailyStats() != null)
+                .flatMap(item -> item.getDailyStats().stream()
+                        .map(daily -> toCopyRow(item, daily))
+                        .filter(Objects::nonNull))
+                .iterator();
+        int saved = copyWriter.replaceRange(campaignIds, dateFrom, dateTo, rows);
+        if (saved > 0) {
+            log.info("Сохранено {} записей normquery stats для кампаний {}", saved, campaignIds);
         }
-        if (!toSave.isEmpty()) {
-            repository.saveAll(toSave);
-            log.info("Сохранено {} записей normquery stats для кампаний {}", toSave.size(), campaignIds);
+    }
+
+    /**
+     * Строка для COPY или {@code null}, если в дневной статистике нет даты или кластера.
+     */
+    private WbPromotionNormQueryStatisticsCopyWriter.Row toCopyRow(
+            WbNormQueryStatsResponse.ResponseItem item,
+            WbNormQueryStatsResponse.DailyStat daily
+    ) {
+        if (daily == null || daily.getStat() == null) {
+            return null;
+        }
+        LocalDate date = parseDate(daily.getDate());
+        if (date == null) {
+            return null;
         }
+        WbNormQueryStatsResponse.Stat stat = daily.getStat();
+        if (stat.getNormQuery() == null || stat.getNormQuery().isBlank()) {
+            return null;
+        }
+        return new WbPromotionNormQueryStatisticsCopyWriter.Row(
+                item.getAdvertId(),
+                item.getNmId(),
+                date,
+                stat.getNormQuery().trim(),
+                stat.getAvgPos(),
+                stat.getClicks(),
+                stat.getAtbs(),
+                stat.getOrders(),
+                stat.getShks(),
+                stat.getSpend(),
+                stat.getCpc(),
+                stat.getViews(),
+                stat.getCtr(),
+                stat.getCpm()
+        );
     }
 
     /**
      * Агрегированные кластеры за период: постранично, с поиском и сортировкой.
+     * Следующие страницы читаются keyset-курсором из {@code nextCursor}; общее число кластеров
+     * считается один раз на версию данных (см. {@link #resolveTotalElements}).
      *
      * @param search подстрока для фильтра по {@code norm_query} (без учёта регистра)
+     * @param cursor курсор из {@code nextCursor} предыдущей страницы; если задан — {@code page} не влияет на выборку
      */
     @Transactional(readOnly = true)
     public NormQueryClustersResponseDto getAggregatedClustersPage(
@@ -117,16 +138,18 @@ public class WbPromotionNormQueryStatisticsService {
             NormQueryClusterSortField sortBy,
             Sort.Direction sortDir,
             int page,
-            int size
+            int size,
+            String cursor
     ) {
         int safePage = Math.max(page, 0);
         int safeSize = size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
         String searchPattern = toSearchPattern(search);
         NormQueryClusterSortField resolvedSortBy = sortBy != null ? sortBy : NormQueryClusterSortField.CLICKS;
         Sort.Direction resolvedSortDir = sortDir != null ? sortDir : Sort.Direction.DESC;
+        NormQueryClusterCursor after = NormQueryClusterCursor.decode(cursor, resolvedSortBy, resolvedSortDir);
 
-        long totalElements = repository.countAggregatedClusters(
-                campaignId, dateFrom, dateTo, nmId, searchPattern);
+        LocalDateTime lastSyncedAt = repository.findMaxUpdatedAt(campaignId, dateFrom, dateTo, nmId);
+        long totalElements = resolveTotalElements(campaignId, dateFrom, dateTo, nmId, searchPattern, lastSyncedAt);
         List<WbPromotionNormQueryStatisticsRepository.NormQueryClusterAggregateRow> rows =
                 repository.findAggregatedClustersPage(
                         campaignId,
@@ -136,13 +159,17 @@ public class WbPromotionNormQueryStatisticsService {
                         searchPattern,
                         resolvedSortBy,
                         resolvedSortDir,
-                        safeSize,
+                        after,
+                        safeSize + 1,
                         safePage * safeSize
                 );
-        LocalDateTime lastSyncedAt = repository.findMaxUpdatedAt(campaignId, dateFrom, dateTo, nmId);
+        boolean hasMore = rows.size() > safeSize;
+        if (hasMore) {
+            rows = rows.subList(0, safeSize);
+        }
 
         NormQueryClusterRowDto totals = null;
-        if (safePage == 0) {
+        if (after == null && safePage == 0) {
             WbPromotionNormQueryStatisticsRepository.NormQueryClusterTotalsRow totalsRow =
                     repository.findTotalsByCampaignAndPeriod(
                             campaignId, dateFrom, dateTo, nmId, searchPattern);
@@ -152,7 +179,9 @@ public class WbPromotionNormQueryStatisticsService {
         List<NormQueryClusterRowDto> rowDtos = rows.stream()
                 .map(this::mapAggregateRow)
                 .toList();
-        boolean hasMore = (long) (safePage + 1) * safeSize < totalElements;
+        String nextCursor = hasMore && !rowDtos.isEmpty()
+                ? NormQueryClusterCursor.after(resolvedSortBy, resolvedSortDir, rowDtos.get(rowDtos.size() - 1)).encode()
+                : null;
 
         return NormQueryClustersResponseDto.builder()
                 .totals(totals)
@@ -161,11 +190,40 @@ public class WbPromotionNormQueryStatisticsService {
                 .page(safePage)
                 .size(safeSize)
                 .hasMore(hasMore)
+                .nextCursor(nextCursor)
                 .lastSyncedAt(lastSyncedAt)
                 .build();
     }
 
-    private static String toSearchPattern(String search) {
+    /**
+     * Число кластеров по фильтру. COUNT по агрегату дорогой на больших кампаниях, поэтому результат кэшируется
+     * с ключом, включающим {@code MAX(updated_at)} выборки: любая перезаливка статистики меняет ключ.
+     */
+    private long resolveTotalElements(
+            Long campaignId,
+            LocalDate dateFrom,
+            LocalDate dateTo,
+            Long nmId,
+            String searchPattern,
+            LocalDateTime lastSyncedAt
+    ) {
+        if (lastSyncedAt == null) {
+            return 0L;
+        }
+        ClusterCountKey key = new ClusterCountKey(campaignId, dateFrom, dateTo, nmId, searchPattern, lastSyncedAt);
+        Long cached = clusterCountCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long count = repository.countAggregatedClusters(campaignId, dateFrom, dateTo, nmId, searchPattern);
+        clusterCountCache.put(key, count);
+        return count;
+    }
+
+    /**
+     * Шаблон {@code LIKE} по кластеру (нижний регистр) или {@code null} при пустом поиске.
+     */
+    public static String toSearchPattern(String search) {
         if (search == null) {
             return null;
         }
@@ -228,4 +286,14 @@ public class WbPromotionNormQueryStatisticsService {
             return null;
         }
     }
+
+    private record ClusterCountKey(
+            Long campaignId,
+            LocalDate dateFrom,
+            LocalDate dateTo,
+            Long nmId,
+            String searchPattern,
+            LocalDateTime lastSyncedAt
+    ) {
+    }
 }
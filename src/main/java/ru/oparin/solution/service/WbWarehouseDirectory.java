@@ -0,0 +1,135 @@
+package ru.oparin.solution.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.oparin.solution.model.WbWarehouse;
+import ru.oparin.solution.repository.WbWarehouseRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-process справочник складов WB для экранов остатков.
+ * <p>
+ * Снимок неизменяемый и подменяется целиком: читатели никогда не видят частично обновлённые карты.
+ * Перечитывается после синка складов на этом инстансе и при смене версии в
+ * {@code reference_data_versions} (версию двигает триггер на {@code wb_warehouses}, в т.ч. ручная правка
+ * {@code on_fire}) — так изменения доходят до всех инстансов без запросов к складам на каждый HTTP-запрос.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WbWarehouseDirectory {
+
+    private final WbWarehouseRepository warehouseRepository;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Склад по ID WB.
+     */
+    public Optional<Entry> findById(Long warehouseId) {
+        if (warehouseId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(currentSnapshot().byId().get(warehouseId));
+    }
+
+    /**
+     * ID склада по названию (без учёта регистра и лишних пробелов).
+     */
+    public Optional<Long> findIdByName(String warehouseName) {
+        String key = normalizeName(warehouseName);
+        if (key == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(currentSnapshot().idsByNormalizedName().get(key));
+    }
+
+    /**
+     * Перечитывает справочник из БД и атомарно подменяет снимок.
+     * Версия читается до данных: изменение, попавшее между запросами, подхватит следующая проверка версии.
+     */
+    public synchronized void reload() {
+        long version = warehouseRepository.findDirectoryVersion().orElse(0L);
+        List<WbWarehouse> warehouses = warehouseRepository.findAll();
+        snapshot = buildSnapshot(version, warehouses);
+        log.debug("Справочник складов WB перечитан: {} складов, версия {}", warehouses.size(), version);
+    }
+
+    /**
+     * Сверяет версию справочника с БД; при расхождении перечитывает снимок.
+     * Пока справочник ни разу не запрашивался, ничего не делает.
+     */
+    @Scheduled(fixedDelayString = "${app.warehouse-directory.version-check-delay-ms:30000}")
+    public void refreshIfVersionChanged() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        try {
+            long version = warehouseRepository.findDirectoryVersion().orElse(0L);
+            if (version != current.version()) {
+                reload();
+            }
+        } catch (Exception e) {
+            log.warn("Не удалось проверить версию справочника складов WB: {}", e.getMessage());
+        }
+    }
+
+    private Snapshot currentSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                reload();
+            }
+            return snapshot;
+        }
+    }
+
+    private static Snapshot buildSnapshot(long version, List<WbWarehouse> warehouses) {
+        Map<Long, Entry> byId = new HashMap<>();
+        Map<String, Long> idsByName = new HashMap<>();
+        for (WbWarehouse warehouse : warehouses) {
+            if (warehouse.getId() == null) {
+                continue;
+            }
+            Long id = Long.valueOf(warehouse.getId());
+            byId.putIfAbsent(id, new Entry(id, warehouse.getName(), Boolean.TRUE.equals(warehouse.getOnFire())));
+            String nameKey = normalizeName(warehouse.getName());
+            if (nameKey != null) {
+                idsByName.merge(nameKey, id, Math::min);
+            }
+        }
+        return new Snapshot(version, Map.copyOf(byId), Map.copyOf(idsByName));
+    }
+
+    private static String normalizeName(String name) {
+        if (name == null) {
+            return null;
+        }
+        String normalized = name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    /**
+     * Склад WB в справочнике.
+     *
+     * @param id     ID склада WB
+     * @param name   название склада
+     * @param onFire склад пострадал от ЧС (огонёк в UI остатков)
+     */
+    public record Entry(Long id, String name, boolean onFire) {
+    }
+
+    private record Snapshot(long version, Map<Long, Entry> byId, Map<String, Long> idsByNormalizedName) {
+    }
+}
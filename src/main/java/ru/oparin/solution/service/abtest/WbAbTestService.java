@@ -26,6 +26,9 @@ import ru.oparin.solution.service.WbAbTestQuotaService;
 import ru.oparin.solution.service.events.WbApiEventService;
 import ru.oparin.solution.service.events.payload.WbAbTestStartPayload;
 import ru.oparin.solution.service.events.payload.WbAbTestStartStep;
+import ru.oparin.solution.service.files.ContentAddressedBlobStore;
+import ru.oparin.solution.service.files.StoredContent;
+import ru.oparin.solution.service.files.StoredFileManifestService;
 import ru.oparin.solution.service.wb.WbContentApiClient;
 
 import javax.imageio.IIOImage;
@@ -35,6 +38,7 @@ import javax.imageio.ImageWriter;
 import javax.imageio.stream.ImageOutputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -62,6 +66,8 @@ public class WbAbTestService {
     private static final int UI_PREVIEW_MAX_SIDE = 720;
     /** Качество JPEG UI-превью (0..1). */
     private static final float UI_PREVIEW_JPEG_QUALITY = 0.82f;
+    /** Суффикс кэша UI-превью рядом с оригиналом ({@code <имя оригинала>.ui2.jpg}). */
+    public static final String UI_PREVIEW_SUFFIX = ".ui2.jpg";
 
     /**
      * Сообщение для UI: токен без права записи в Content (типичный 401 на media/file).
@@ -103,6 +109,8 @@ public class WbAbTestService {
     private final WbContentApiClient contentApiClient;
     private final WbApiEventService wbApiEventService;
     private final WbAbTestQuotaService abTestQuotaService;
+    private final ContentAddressedBlobStore blobStore;
+    private final StoredFileManifestService manifestService;
     private final ObjectMapper objectMapper;
 
     @Value("${app.uploads.directory}")
@@ -249,15 +257,16 @@ public class WbAbTestService {
                 if (file == null || file.isEmpty()) {
                     continue;
                 }
-                String storedName = storeUpload(file);
-                abTestVariantRepository.save(WbAbTestVariant.builder()
+                StoredContent stored = storeUpload(file);
+                WbAbTestVariant variant = abTestVariantRepository.save(WbAbTestVariant.builder()
                         .abTestId(test.getId())
                         .sortOrder(order++)
                         .control(false)
-                        .storedFileName(storedName)
+                        .storedFileName(stored.storedName())
                         .photoUrl(null)
                         .previewUrl(null)
                         .build());
+                manifestService.attach(stored, StoredFileOwnerType.AB_TEST_VARIANT, variant.getId());
                 uploadedCount++;
             }
         }
@@ -564,11 +573,12 @@ public class WbAbTestService {
             test.setOriginalGalleryUrlsJson(writeJson(photos.galleryUrls()));
             abTestRepository.save(test);
 
-            String controlStoredName = downloadAndStoreFromUrl(photos.mainUrl());
-            control.setStoredFileName(controlStoredName);
+            StoredContent controlStored = downloadAndStoreFromUrl(photos.mainUrl());
+            control.setStoredFileName(controlStored.storedName());
             control.setPhotoUrl(photos.mainUrl());
             control.setPreviewUrl(photos.previewUrl() != null ? photos.previewUrl() : photos.mainUrl());
             abTestVariantRepository.save(control);
+            manifestService.attach(controlStored, StoredFileOwnerType.AB_TEST_VARIANT, control.getId());
         }
 
         continueStartWithoutOverwritingGallery(cabinet.getId(), test.getId(), triggerSource);
@@ -808,7 +818,7 @@ public class WbAbTestService {
             Path path = Paths.get(uploadsDirectory).resolve(variant.getStoredFileName());
             try {
                 byte[] bytes = Files.readAllBytes(path);
-                contentApiClient.uploadMediaFile(apiKey, test.getNmId(), 1, bytes, variant.getStoredFileName());
+                contentApiClient.uploadMediaFile(apiKey, test.getNmId(), 1, bytes, path.getFileName().toString());
                 return;
             } catch (IOException e) {
                 log.warn("Не удалось прочитать файл варианта id={}: {}", variant.getId(), e.getMessage());
@@ -904,9 +914,9 @@ public class WbAbTestService {
      * Скачивает фото по CDN URL WB и сохраняет в uploads для последующей загрузки через media/file.
      *
      * @param photoUrl URL big/hq главного фото
-     * @return имя сохранённого файла
+     * @return сохранённый файл
      */
-    private String downloadAndStoreFromUrl(String photoUrl) {
+    private StoredContent downloadAndStoreFromUrl(String photoUrl) {
         if (photoUrl == null || photoUrl.isBlank()) {
             throw new IllegalStateException("Нет URL главного фото для скачивания");
         }
@@ -967,16 +977,10 @@ public class WbAbTestService {
         return ".jpg";
     }
 
-    private String storeBytes(byte[] bytes, String extension) {
+    private StoredContent storeBytes(byte[] bytes, String extension) {
         try {
-            Path uploadsPath = Paths.get(uploadsDirectory);
-            if (!Files.exists(uploadsPath)) {
-                Files.createDirectories(uploadsPath);
-            }
             String ext = extension != null && extension.startsWith(".") ? extension : ".jpg";
-            String unique = "abtest_" + UUID.randomUUID().toString().replace("-", "") + ext;
-            Files.write(uploadsPath.resolve(unique), bytes);
-            return unique;
+            return blobStore.store(new ByteArrayInputStream(bytes), ext);
         } catch (IOException e) {
             throw new IllegalStateException("Не удалось сохранить скачанное фото контрольного варианта", e);
         }
@@ -1001,23 +1005,16 @@ public class WbAbTestService {
                 .orElse(response.getCards().isEmpty() ? null : response.getCards().get(0));
     }
 
-    private String storeUpload(MultipartFile file) {
+    private StoredContent storeUpload(MultipartFile file) {
         validateImageFile(file);
-        try {
-            Path uploadsPath = Paths.get(uploadsDirectory);
-            if (!Files.exists(uploadsPath)) {
-                Files.createDirectories(uploadsPath);
-            }
+        try (java.io.InputStream inputStream = file.getInputStream()) {
             String original = file.getOriginalFilename() != null ? file.getOriginalFilename() : "photo.jpg";
             String ext = "";
             int dot = original.lastIndexOf('.');
             if (dot >= 0) {
                 ext = original.substring(dot);
             }
-            String unique = "abtest_" + UUID.randomUUID().toString().replace("-", "") + ext;
-            Path target = uploadsPath.resolve(unique);
-            Files.copy(file.getInputStream(), target);
-            return unique;
+            return blobStore.store(inputStream, ext);
         } catch (IOException e) {
             throw new IllegalStateException("Не удалось сохранить файл варианта", e);
         }
@@ -1155,7 +1152,7 @@ public class WbAbTestService {
      */
     public Path ensureUiPreviewJpeg(Path original) {
         // .ui2.jpg — новый кэш с учётом EXIF Orientation (старые .ui.jpg могли быть «на боку»).
-        Path preview = original.resolveSibling(original.getFileName().toString() + ".ui2.jpg");
+        Path preview = original.resolveSibling(original.getFileName().toString() + UI_PREVIEW_SUFFIX);
         try {
             if (Files.isRegularFile(preview)
                     && Files.getLastModifiedTime(preview).compareTo(Files.getLastModifiedTime(original)) >= 0
@@ -0,0 +1,56 @@
+package ru.oparin.solution.service.analytics;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+/**
+ * Keyset-курсор страницы сводной аналитики: значение ключа сортировки и nmId последнего артикула страницы.
+ * Передаётся клиенту непрозрачной строкой (base64url).
+ * <p>
+ * Несёт и общее число артикулов, посчитанное на первой странице: страницы по курсору {@code count} не выполняют.
+ *
+ * @param wbCreatedAt дата появления карточки на WB у последнего артикула страницы
+ * @param nmId        nmId последнего артикула страницы (добивка порядка при равных датах)
+ * @param total       общее число артикулов по фильтру; {@code null} — курсор старого формата, без итога
+ */
+public record ArticleSummaryCursor(LocalDateTime wbCreatedAt, Long nmId, Long total) {
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Кодирует курсор в строку для ответа API.
+     */
+    public String encode() {
+        String raw = wbCreatedAt + SEPARATOR + nmId + (total != null ? SEPARATOR + total : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбирает курсор из запроса.
+     *
+     * @return курсор или {@code null}, если строка пустая
+     * @throws IllegalArgumentException если курсор повреждён
+     */
+    public static ArticleSummaryCursor decode(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value.trim()), StandardCharsets.UTF_8);
+            String[] parts = raw.split(Pattern.quote(SEPARATOR), -1);
+            if (parts.length < 2 || parts.length > 3) {
+                throw new IllegalArgumentException("Некорректный курсор страницы");
+            }
+            return new ArticleSummaryCursor(
+                    LocalDateTime.parse(parts[0]),
+                    Long.parseLong(parts[1]),
+                    parts.length == 3 ? Long.parseLong(parts[2]) : null
+            );
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный курсор страницы", e);
+        }
+    }
+}
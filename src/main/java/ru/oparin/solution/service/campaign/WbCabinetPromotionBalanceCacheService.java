@@ -1,68 +1,74 @@
 package ru.oparin.solution.service.campaign;
 
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.oparin.solution.dto.analytics.manage.BalanceRefreshResponseDto;
 import ru.oparin.solution.dto.analytics.manage.BalanceSourceOptionDto;
 import ru.oparin.solution.dto.analytics.manage.BalanceSourcesResponseDto;
-import ru.oparin.solution.dto.wb.WbPromotionBalanceResponse;
-import ru.oparin.solution.exception.WbRateLimitDeferException;
 import ru.oparin.solution.model.Cabinet;
 import ru.oparin.solution.model.CabinetTokenType;
 import ru.oparin.solution.model.WbApiEventType;
 import ru.oparin.solution.model.WbCabinetPromotionBalanceCache;
 import ru.oparin.solution.repository.WbCabinetPromotionBalanceCacheRepository;
 import ru.oparin.solution.service.CabinetService;
-import ru.oparin.solution.service.events.WbEventRateLimitService;
-import ru.oparin.solution.service.wb.WbPromotionApiClient;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Кэш баланса продвижения WB по кабинету с соблюдением лимитов API.
+ * Чтение не ждёт WB: обновление выполняет {@link WbPromotionBalanceRefresher} в фоне, один запрос на кабинет.
  */
 @Service
 @RequiredArgsConstructor
-@Slf4j
 public class WbCabinetPromotionBalanceCacheService {
 
+    /** Сколько явное обновление ждёт ответа WB, прежде чем вернуть кэш с пометкой «обновляется». */
+    private static final long REFRESH_WAIT_SECONDS = 15;
+
     private final WbCabinetPromotionBalanceCacheRepository cacheRepository;
     private final CabinetService cabinetService;
-    private final WbPromotionApiClient promotionApiClient;
-    private final WbEventRateLimitService rateLimitService;
+    private final WbPromotionBalanceRefresher balanceRefresher;
 
     /**
-     * Без readOnly: при пустом кэше идёт запрос в WB и результат сохраняется в БД.
+     * Источники баланса из кэша без ожидания WB (stale-while-revalidate): при устаревшем или пустом кэше
+     * запускается фоновое обновление, ответ отдаётся сразу.
+     *
+     * @param tryRefresh запускать ли фоновое обновление
      */
-    @Transactional
-    public BalanceSourcesResponseDto getBalanceSources(Long cabinetId, boolean tryRefreshIfMissing) {
-        BalanceRefreshResponseDto result = resolveSources(cabinetId, tryRefreshIfMissing, false);
-        return result.getSources();
-    }
-
-    @Transactional
-    public BalanceRefreshResponseDto refreshBalance(Long cabinetId) {
-        return resolveSources(cabinetId, true, true);
+    public BalanceSourcesResponseDto getBalanceSources(Long cabinetId, boolean tryRefresh) {
+        Cabinet cabinet = findCabinet(cabinetId);
+        if (!hasApiKey(cabinet)) {
+            return emptySources(null, false);
+        }
+        Optional<WbCabinetPromotionBalanceCache> cached = findCache(cabinetId);
+        if (cached.isPresent()) {
+            boolean stale = !isCacheFresh(cached.get(), resolveTokenType(cabinet));
+            if (stale && tryRefresh) {
+                balanceRefresher.refresh(cabinetId);
+            }
+            return mapSources(cached.get(), stale);
+        }
+        if (tryRefresh) {
+            balanceRefresher.refresh(cabinetId);
+        }
+        return emptySources(null, true);
     }
 
     /**
-     * Текущий кэш баланса кабинета (без обращения к WB).
+     * Явное обновление баланса: присоединяется к идущему запросу кабинета или запускает новый
+     * и ждёт его не дольше {@link #REFRESH_WAIT_SECONDS}.
      */
-    @Transactional(readOnly = true)
-    public Optional<WbCabinetPromotionBalanceCache> findCache(Long cabinetId) {
-        return cacheRepository.findById(cabinetId);
-    }
-
-    private BalanceRefreshResponseDto resolveSources(Long cabinetId, boolean tryRefreshIfMissing, boolean forceRefresh) {
-        Cabinet cabinet = cabinetService.findById(cabinetId)
-                .orElseThrow(() -> new IllegalArgumentException("Кабинет не найден"));
-        if (cabinet.getApiKey() == null || cabinet.getApiKey().isBlank()) {
+    public BalanceRefreshResponseDto refreshBalance(Long cabinetId) {
+        Cabinet cabinet = findCabinet(cabinetId);
+        if (!hasApiKey(cabinet)) {
             return BalanceRefreshResponseDto.builder()
                     .sources(emptySources(null, false))
                     .refreshed(false)
@@ -71,25 +77,28 @@ public class WbCabinetPromotionBalanceCacheService {
                     .build();
         }
 
-        Optional<WbCabinetPromotionBalanceCache> cached = cacheRepository.findById(cabinetId);
-        CabinetTokenType tokenType = cabinet.getTokenType() != null ? cabinet.getTokenType() : CabinetTokenType.BASIC;
+        WbPromotionBalanceRefresher.RefreshOutcome outcome;
+        try {
+            outcome = balanceRefresher.refresh(cabinetId).get(REFRESH_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            return inProgressResponse(cabinetId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return inProgressResponse(cabinetId);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            outcome = new WbPromotionBalanceRefresher.RefreshOutcome(null, false, false, null, cause.getMessage());
+        }
 
-        if (!forceRefresh && cached.isPresent()) {
-            boolean stale = !isCacheFresh(cached.get(), tokenType);
-            return toRefreshResponse(cached.get(), false, stale, null, null);
+        if (outcome.refreshed()) {
+            return toRefreshResponse(outcome.cache(), true, false, null, null);
         }
-        if (!forceRefresh && !tryRefreshIfMissing) {
-            return BalanceRefreshResponseDto.builder()
-                    .sources(emptySources(null, true))
-                    .refreshed(false)
-                    .stale(true)
-                    .message("Баланс ещё не загружался")
-                    .build();
+        if (outcome.inProgressElsewhere()) {
+            return inProgressResponse(cabinetId);
         }
-
-        LocalDateTime deferUntil = rateLimitService.peekDeferUntil(cabinetId, WbApiEventType.PROMOTION_BALANCE, tokenType);
-        if (deferUntil != null) {
-            long sec = Math.max(1, Duration.between(LocalDateTime.now(), deferUntil).getSeconds());
+        Optional<WbCabinetPromotionBalanceCache> cached = findCache(cabinetId);
+        if (outcome.deferUntil() != null) {
+            long sec = Math.max(1, Duration.between(LocalDateTime.now(), outcome.deferUntil()).getSeconds());
             if (cached.isPresent()) {
                 return toRefreshResponse(cached.get(), false, true, sec,
                         "Следующее обновление баланса будет доступно через " + formatSeconds(sec));
@@ -102,35 +111,48 @@ public class WbCabinetPromotionBalanceCacheService {
                     .message("Лимит WB: повторите через " + formatSeconds(sec))
                     .build();
         }
-
-        try {
-            WbPromotionBalanceResponse balance = promotionApiClient.getBalance(cabinet.getApiKey());
-            WbCabinetPromotionBalanceCache saved = saveCache(cabinetId, balance, null);
-            return toRefreshResponse(saved, true, false, null, null);
-        } catch (WbRateLimitDeferException e) {
-            long sec = Math.max(1, Duration.between(LocalDateTime.now(), e.getDeferUntil()).getSeconds());
-            if (cached.isPresent()) {
-                return toRefreshResponse(cached.get(), false, true, sec,
-                        "Лимит WB: повторите через " + formatSeconds(sec));
-            }
-            return BalanceRefreshResponseDto.builder()
-                    .sources(emptySources(null, true))
-                    .refreshed(false)
-                    .stale(true)
-                    .nextAvailableInSeconds(sec)
-                    .message("Лимит WB: повторите через " + formatSeconds(sec))
-                    .build();
-        } catch (Exception e) {
-            if (cached.isPresent()) {
-                return toRefreshResponse(cached.get(), false, true, null, e.getMessage());
-            }
-            return BalanceRefreshResponseDto.builder()
-                    .sources(emptySources(null, true))
-                    .refreshed(false)
-                    .stale(true)
-                    .message(e.getMessage())
-                    .build();
+        if (cached.isPresent()) {
+            return toRefreshResponse(cached.get(), false, true, null, outcome.error());
         }
+        return BalanceRefreshResponseDto.builder()
+                .sources(emptySources(null, true))
+                .refreshed(false)
+                .stale(true)
+                .message(outcome.error())
+                .build();
+    }
+
+    /**
+     * Текущий кэш баланса кабинета (без обращения к WB); строка без успешного ответа WB не считается кэшем.
+     */
+    @Transactional(readOnly = true)
+    public Optional<WbCabinetPromotionBalanceCache> findCache(Long cabinetId) {
+        return cacheRepository.findById(cabinetId).filter(cache -> cache.getFetchedAt() != null);
+    }
+
+    private BalanceRefreshResponseDto inProgressResponse(Long cabinetId) {
+        String message = "Баланс обновляется, повторите через несколько секунд";
+        return findCache(cabinetId)
+                .map(cache -> toRefreshResponse(cache, false, true, null, message))
+                .orElseGet(() -> BalanceRefreshResponseDto.builder()
+                        .sources(emptySources(null, true))
+                        .refreshed(false)
+                        .stale(true)
+                        .message(message)
+                        .build());
+    }
+
+    private Cabinet findCabinet(Long cabinetId) {
+        return cabinetService.findById(cabinetId)
+                .orElseThrow(() -> new IllegalArgumentException("Кабинет не найден"));
+    }
+
+    private static boolean hasApiKey(Cabinet cabinet) {
+        return cabinet.getApiKey() != null && !cabinet.getApiKey().isBlank();
+    }
+
+    private static CabinetTokenType resolveTokenType(Cabinet cabinet) {
+        return cabinet.getTokenType() != null ? cabinet.getTokenType() : CabinetTokenType.BASIC;
     }
 
     private boolean isCacheFresh(WbCabinetPromotionBalanceCache cache, CabinetTokenType tokenType) {
@@ -141,33 +163,6 @@ public class WbCabinetPromotionBalanceCacheService {
         return cache.getFetchedAt().plusNanos(delayMs * 1_000_000L).isAfter(LocalDateTime.now());
     }
 
-    /** Сохраняет ответ WB в {@code wb_cabinet_promotion_balance_cache}. */
-    private WbCabinetPromotionBalanceCache saveCache(Long cabinetId, WbPromotionBalanceResponse balance, String error) {
-        WbCabinetPromotionBalanceCache entity = cacheRepository.findById(cabinetId)
-                .orElseGet(() -> WbCabinetPromotionBalanceCache.builder().cabinetId(cabinetId).build());
-        if (balance != null) {
-            entity.setBalanceRub(balance.getBalance() != null ? balance.getBalance() : 0);
-            entity.setNetRub(balance.getNet() != null ? balance.getNet() : 0);
-            entity.setBonusRub(balance.resolveBonusRub());
-            entity.setCashbackRub(balance.resolveCashbackRub());
-            entity.setCashbackPercent(balance.resolveCashbackPercent());
-            entity.setFetchedAt(LocalDateTime.now());
-            entity.setFetchError(null);
-            log.info(
-                    "Баланс WB сохранён: cabinetId={}, счёт={}, баланс={}, бонусы={}, промо={} (до {}%)",
-                    cabinetId,
-                    entity.getBalanceRub(),
-                    entity.getNetRub(),
-                    entity.getBonusRub(),
-                    entity.getCashbackRub(),
-                    entity.getCashbackPercent()
-            );
-        } else {
-            entity.setFetchError(error);
-        }
-        return cacheRepository.save(entity);
-    }
-
     private BalanceRefreshResponseDto toRefreshResponse(
             WbCabinetPromotionBalanceCache cache,
             boolean refreshed,
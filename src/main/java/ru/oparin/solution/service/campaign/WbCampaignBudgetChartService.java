@@ -42,6 +42,7 @@ public class WbCampaignBudgetChartService {
         LocalDateTime periodFrom = period.from();
         LocalDateTime periodTo = period.to();
 
+        timelineService.flushPendingWrites();
         List<WbCampaignBudgetTimeline> events = timelineService.findInPeriod(campaignId, cabinetId, periodFrom, periodTo);
         List<WbCampaignBudgetTimeline> budgetAnchor = timelineService.findBudgetAnchorBefore(campaignId, cabinetId, periodFrom);
         boolean activeAtPeriodStart = timelineService.wasActiveImmediatelyBefore(campaignId, cabinetId, periodFrom);
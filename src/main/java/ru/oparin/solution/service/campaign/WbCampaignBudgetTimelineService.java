@@ -16,6 +16,8 @@ import java.util.List;
 
 /**
  * Запись событий временной шкалы бюджета рекламной кампании.
+ * Точки пишутся через {@link WbCampaignBudgetTimelineWriteBuffer}; методы чтения буфер не сбрасывают —
+ * это делает {@link #flushPendingWrites()} один раз на построение графика.
  */
 @Service
 @RequiredArgsConstructor
@@ -25,13 +27,13 @@ public class WbCampaignBudgetTimelineService {
     private static final int CHART_BUDGET_ANCHOR_LIMIT = 150;
 
     private final WbCampaignBudgetTimelineRepository timelineRepository;
+    private final WbCampaignBudgetTimelineWriteBuffer writeBuffer;
 
-    @Transactional
     public void recordSnapshot(Long campaignId, Long cabinetId, Integer budgetTotal) {
         if (budgetTotal == null) {
             return;
         }
-        timelineRepository.save(WbCampaignBudgetTimeline.builder()
+        writeBuffer.add(WbCampaignBudgetTimeline.builder()
                 .campaignId(campaignId)
                 .cabinetId(cabinetId)
                 .recordedAt(LocalDateTime.now(ZONE))
@@ -40,9 +42,8 @@ public class WbCampaignBudgetTimelineService {
                 .build());
     }
 
-    @Transactional
     public void recordTopUp(Long campaignId, Long cabinetId, int topUpAmount, Integer budgetTotalAfter) {
-        timelineRepository.save(WbCampaignBudgetTimeline.builder()
+        writeBuffer.add(WbCampaignBudgetTimeline.builder()
                 .campaignId(campaignId)
                 .cabinetId(cabinetId)
                 .recordedAt(LocalDateTime.now(ZONE))
@@ -52,9 +53,8 @@ public class WbCampaignBudgetTimelineService {
                 .build());
     }
 
-    @Transactional
     public void recordStart(Long campaignId, Long cabinetId) {
-        timelineRepository.save(WbCampaignBudgetTimeline.builder()
+        writeBuffer.add(WbCampaignBudgetTimeline.builder()
                 .campaignId(campaignId)
                 .cabinetId(cabinetId)
                 .recordedAt(LocalDateTime.now(ZONE))
@@ -62,9 +62,8 @@ public class WbCampaignBudgetTimelineService {
                 .build());
     }
 
-    @Transactional
     public void recordStop(Long campaignId, Long cabinetId) {
-        timelineRepository.save(WbCampaignBudgetTimeline.builder()
+        writeBuffer.add(WbCampaignBudgetTimeline.builder()
                 .campaignId(campaignId)
                 .cabinetId(cabinetId)
                 .recordedAt(LocalDateTime.now(ZONE))
@@ -72,6 +71,13 @@ public class WbCampaignBudgetTimelineService {
                 .build());
     }
 
+    /**
+     * Записывает накопленные точки, чтобы следующие чтения видели только что записанные события.
+     */
+    public void flushPendingWrites() {
+        writeBuffer.flush();
+    }
+
     @Transactional(readOnly = true)
     public List<WbCampaignBudgetTimeline> findInPeriod(Long campaignId, Long cabinetId, LocalDateTime from, LocalDateTime to) {
         return timelineRepository.findByCampaignIdAndCabinetIdAndRecordedAtBetweenOrderByRecordedAtAsc(
@@ -0,0 +1,209 @@
+package ru.oparin.solution.service.campaign;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.oparin.solution.config.CampaignBudgetTimelineProperties;
+import ru.oparin.solution.model.WbCampaignBudgetTimeline;
+import ru.oparin.solution.model.WbCampaignBudgetTimelineEventType;
+import ru.oparin.solution.repository.WbCampaignBudgetTimelineBatchWriter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Отложенная запись временной шкалы бюджета РК: точки копятся в памяти и уходят в БД одним батчем
+ * раз в {@code flush-delay-ms}, при заполнении буфера и при остановке приложения.
+ * <p>
+ * Серия SNAPSHOT с тем же остатком, что и у предыдущей точки РК, сворачивается до первого и последнего снимка:
+ * первый пишется сразу, последний держится в памяти и заменяется следующим, пока остаток не изменится,
+ * не придёт событие другого типа или не истечёт {@code snapshot-run-gap-seconds}. Длинная серия не держит
+ * последний снимок бесконечно: плановый сброс записывает его, если с последней записанной точки серии прошло
+ * больше {@code snapshot-tail-flush-seconds}, и серия продолжается от него. Промежуточные снимки
+ * не меняют линию бюджета на графике (одинаковые соседние точки и так схлопываются).
+ * <p>
+ * Состояние серий локально для экземпляра приложения; интервал разрыва серии ограничивает,
+ * как долго оно может расходиться с БД, если тик РК переехал на другой экземпляр.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WbCampaignBudgetTimelineWriteBuffer {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Moscow");
+
+    private final WbCampaignBudgetTimelineBatchWriter batchWriter;
+    private final CampaignBudgetTimelineProperties properties;
+
+    private final Object lock = new Object();
+    private List<WbCampaignBudgetTimeline> pending = new ArrayList<>();
+    private final Map<CampaignKey, SnapshotRun> runs = new HashMap<>();
+
+    /**
+     * Добавляет точку; при заполнении буфера сразу сбрасывает его в БД.
+     */
+    public void add(WbCampaignBudgetTimeline point) {
+        List<WbCampaignBudgetTimeline> toWrite = null;
+        synchronized (lock) {
+            CampaignKey key = new CampaignKey(point.getCampaignId(), point.getCabinetId());
+            SnapshotRun run = runs.get(key);
+            if (point.getEventType() == WbCampaignBudgetTimelineEventType.SNAPSHOT) {
+                if (run != null && run.continuesWith(point, snapshotRunGap())) {
+                    run.tail = point;
+                    return;
+                }
+                closeRun(run);
+                pending.add(point);
+                runs.put(key, new SnapshotRun(point));
+            } else {
+                closeRun(runs.remove(key));
+                pending.add(point);
+            }
+            if (pending.size() >= properties.getFlushBatchSize()) {
+                toWrite = drainPending();
+            }
+        }
+        write(toWrite);
+    }
+
+    /**
+     * Сбрасывает накопленные точки (кроме удерживаемых последних снимков непрерывных серий).
+     * Вызывается один раз перед построением графика, чтобы только что записанные события сразу попадали на него.
+     */
+    public void flush() {
+        List<WbCampaignBudgetTimeline> toWrite;
+        synchronized (lock) {
+            toWrite = drainPending();
+        }
+        write(toWrite);
+    }
+
+    @Scheduled(fixedDelayString = "${app.campaign-budget-timeline.flush-delay-ms:5000}")
+    public void flushScheduled() {
+        List<WbCampaignBudgetTimeline> toWrite;
+        synchronized (lock) {
+            LocalDateTime now = LocalDateTime.now(ZONE);
+            Duration tailFlushInterval = Duration.ofSeconds(properties.getSnapshotTailFlushSeconds());
+            Iterator<SnapshotRun> iterator = runs.values().iterator();
+            while (iterator.hasNext()) {
+                SnapshotRun run = iterator.next();
+                if (run.isExpired(now, snapshotRunGap())) {
+                    closeRun(run);
+                    iterator.remove();
+                } else if (run.isTailDue(tailFlushInterval)) {
+                    closeRun(run);
+                }
+            }
+            toWrite = drainPending();
+        }
+        write(toWrite);
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        List<WbCampaignBudgetTimeline> toWrite;
+        synchronized (lock) {
+            runs.values().forEach(this::closeRun);
+            runs.clear();
+            toWrite = drainPending();
+        }
+        write(toWrite);
+    }
+
+    private void closeRun(SnapshotRun run) {
+        if (run != null && run.tail != null) {
+            pending.add(run.tail);
+            run.lastWrittenAt = run.tail.getRecordedAt();
+            run.tail = null;
+        }
+    }
+
+    private List<WbCampaignBudgetTimeline> drainPending() {
+        if (pending.isEmpty()) {
+            return null;
+        }
+        List<WbCampaignBudgetTimeline> drained = pending;
+        pending = new ArrayList<>();
+        return drained;
+    }
+
+    private void write(List<WbCampaignBudgetTimeline> points) {
+        if (points == null || points.isEmpty()) {
+            return;
+        }
+        try {
+            batchWriter.insertAll(points, properties.getFlushBatchSize());
+        } catch (RuntimeException e) {
+            log.warn("Не удалось записать {} точек шкалы бюджета РК, повтор при следующем сбросе: {}",
+                    points.size(), e.getMessage());
+            requeue(points);
+        }
+    }
+
+    private void requeue(List<WbCampaignBudgetTimeline> points) {
+        synchronized (lock) {
+            List<WbCampaignBudgetTimeline> merged = new ArrayList<>(points.size() + pending.size());
+            merged.addAll(points);
+            merged.addAll(pending);
+            int overflow = merged.size() - properties.getMaxPendingPoints();
+            if (overflow > 0) {
+                log.error("Буфер шкалы бюджета РК переполнен, отброшено {} старых точек", overflow);
+                merged = new ArrayList<>(merged.subList(overflow, merged.size()));
+            }
+            pending = merged;
+        }
+    }
+
+    private Duration snapshotRunGap() {
+        return Duration.ofSeconds(properties.getSnapshotRunGapSeconds());
+    }
+
+    private record CampaignKey(Long campaignId, Long cabinetId) {
+    }
+
+    /**
+     * Непрерывная серия SNAPSHOT с одинаковым остатком: первый снимок уже в очереди записи, {@code tail} — последний.
+     */
+    private static final class SnapshotRun {
+
+        private final Integer budgetTotal;
+        private LocalDateTime lastRecordedAt;
+        private LocalDateTime lastWrittenAt;
+        private WbCampaignBudgetTimeline tail;
+
+        SnapshotRun(WbCampaignBudgetTimeline first) {
+            this.budgetTotal = first.getBudgetTotal();
+            this.lastRecordedAt = first.getRecordedAt();
+            this.lastWrittenAt = first.getRecordedAt();
+        }
+
+        boolean continuesWith(WbCampaignBudgetTimeline snapshot, Duration gap) {
+            if (!Objects.equals(budgetTotal, snapshot.getBudgetTotal())
+                    || Duration.between(lastRecordedAt, snapshot.getRecordedAt()).compareTo(gap) > 0) {
+                return false;
+            }
+            lastRecordedAt = snapshot.getRecordedAt();
+            return true;
+        }
+
+        boolean isExpired(LocalDateTime now, Duration gap) {
+            return Duration.between(lastRecordedAt, now).compareTo(gap) > 0;
+        }
+
+        /**
+         * Удерживаемый снимок отстоит от последней записанной точки серии дальше интервала — пора записать.
+         */
+        boolean isTailDue(Duration interval) {
+            return tail != null && Duration.between(lastWrittenAt, tail.getRecordedAt()).compareTo(interval) >= 0;
+        }
+    }
+}
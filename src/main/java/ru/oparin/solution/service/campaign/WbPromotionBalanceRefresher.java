@@ -0,0 +1,176 @@
+package ru.oparin.solution.service.campaign;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.oparin.solution.dto.wb.WbPromotionBalanceResponse;
+import ru.oparin.solution.exception.WbRateLimitDeferException;
+import ru.oparin.solution.model.Cabinet;
+import ru.oparin.solution.model.CabinetTokenType;
+import ru.oparin.solution.model.WbApiEventType;
+import ru.oparin.solution.model.WbCabinetPromotionBalanceCache;
+import ru.oparin.solution.repository.WbCabinetPromotionBalanceCacheRepository;
+import ru.oparin.solution.service.CabinetService;
+import ru.oparin.solution.service.events.WbEventRateLimitService;
+import ru.oparin.solution.service.wb.WbPromotionApiClient;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Обновление баланса продвижения WB по кабинету в режиме single-flight.
+ * <p>
+ * Внутри узла конкурентные вызовы получают один и тот же future; между узлами запрос дедуплицируется
+ * арендой в строке кэша ({@link WbCabinetPromotionBalanceCacheRepository#tryClaimRefresh}).
+ * HTTP к WB выполняется в фоновом пуле вне транзакции; в БД — только короткие запросы до и после.
+ */
+@Slf4j
+@Component
+public class WbPromotionBalanceRefresher {
+
+    /** Старшие 32 бита ключа advisory lock — пространство «баланс продвижения», младшие — id кабинета. */
+    private static final long ADVISORY_LOCK_NAMESPACE = 0x57_42_42_4CL;
+    /** Аренда дольше типичного запроса с повтором по 429; зависшая после падения узла перехватывается. */
+    private static final Duration REFRESH_LEASE_TTL = Duration.ofMinutes(2);
+
+    private final CabinetService cabinetService;
+    private final WbCabinetPromotionBalanceCacheRepository cacheRepository;
+    private final WbPromotionApiClient promotionApiClient;
+    private final WbEventRateLimitService rateLimitService;
+    private final Executor executor;
+
+    private final Map<Long, CompletableFuture<RefreshOutcome>> inFlight = new ConcurrentHashMap<>();
+
+    public WbPromotionBalanceRefresher(
+            CabinetService cabinetService,
+            WbCabinetPromotionBalanceCacheRepository cacheRepository,
+            WbPromotionApiClient promotionApiClient,
+            WbEventRateLimitService rateLimitService,
+            @Qualifier("balanceRefreshExecutor") Executor executor
+    ) {
+        this.cabinetService = cabinetService;
+        this.cacheRepository = cacheRepository;
+        this.promotionApiClient = promotionApiClient;
+        this.rateLimitService = rateLimitService;
+        this.executor = executor;
+    }
+
+    /**
+     * Запускает обновление баланса кабинета или присоединяется к уже идущему на этом узле.
+     */
+    public CompletableFuture<RefreshOutcome> refresh(Long cabinetId) {
+        CompletableFuture<RefreshOutcome> created = new CompletableFuture<>();
+        CompletableFuture<RefreshOutcome> existing = inFlight.putIfAbsent(cabinetId, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    created.complete(doRefresh(cabinetId));
+                } catch (RuntimeException e) {
+                    created.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(cabinetId, created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(cabinetId, created);
+            created.complete(RefreshOutcome.failed("Обновление баланса отложено: очередь переполнена"));
+        }
+        return created;
+    }
+
+    private RefreshOutcome doRefresh(Long cabinetId) {
+        Cabinet cabinet = cabinetService.findById(cabinetId).orElse(null);
+        if (cabinet == null || cabinet.getApiKey() == null || cabinet.getApiKey().isBlank()) {
+            return RefreshOutcome.failed("API-ключ кабинета не задан");
+        }
+        CabinetTokenType tokenType = cabinet.getTokenType() != null ? cabinet.getTokenType() : CabinetTokenType.BASIC;
+        LocalDateTime deferUntil = rateLimitService.peekDeferUntil(cabinetId, WbApiEventType.PROMOTION_BALANCE, tokenType);
+        if (deferUntil != null) {
+            return RefreshOutcome.deferred(deferUntil);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (cacheRepository.tryClaimRefresh(cabinetId, now, now.minus(REFRESH_LEASE_TTL), lockKey(cabinetId)) == 0) {
+            return RefreshOutcome.inProgressElsewhere();
+        }
+        try {
+            WbPromotionBalanceResponse balance = promotionApiClient.getBalance(cabinet.getApiKey());
+            return RefreshOutcome.refreshed(saveBalance(cabinetId, balance));
+        } catch (WbRateLimitDeferException e) {
+            cacheRepository.releaseRefresh(cabinetId, null, LocalDateTime.now());
+            return RefreshOutcome.deferred(e.getDeferUntil());
+        } catch (RuntimeException e) {
+            log.warn("Баланс WB не обновлён: cabinetId={}, {}", cabinetId, e.getMessage());
+            cacheRepository.releaseRefresh(cabinetId, e.getMessage(), LocalDateTime.now());
+            return RefreshOutcome.failed(e.getMessage());
+        }
+    }
+
+    /** Сохраняет ответ WB в {@code wb_cabinet_promotion_balance_cache} и снимает аренду. */
+    private WbCabinetPromotionBalanceCache saveBalance(Long cabinetId, WbPromotionBalanceResponse balance) {
+        WbCabinetPromotionBalanceCache entity = cacheRepository.findById(cabinetId)
+                .orElseGet(() -> WbCabinetPromotionBalanceCache.builder().cabinetId(cabinetId).build());
+        entity.setBalanceRub(balance.getBalance() != null ? balance.getBalance() : 0);
+        entity.setNetRub(balance.getNet() != null ? balance.getNet() : 0);
+        entity.setBonusRub(balance.resolveBonusRub());
+        entity.setCashbackRub(balance.resolveCashbackRub());
+        entity.setCashbackPercent(balance.resolveCashbackPercent());
+        entity.setFetchedAt(LocalDateTime.now());
+        entity.setFetchError(null);
+        entity.setRefreshStartedAt(null);
+        log.info(
+                "Баланс WB сохранён: cabinetId={}, счёт={}, баланс={}, бонусы={}, промо={} (до {}%)",
+                cabinetId,
+                entity.getBalanceRub(),
+                entity.getNetRub(),
+                entity.getBonusRub(),
+                entity.getCashbackRub(),
+                entity.getCashbackPercent()
+        );
+        return cacheRepository.save(entity);
+    }
+
+    private static long lockKey(Long cabinetId) {
+        return (ADVISORY_LOCK_NAMESPACE << 32) | (cabinetId & 0xFFFF_FFFFL);
+    }
+
+    /**
+     * Итог обновления.
+     *
+     * @param cache      сохранённый кэш (только при {@code refreshed})
+     * @param deferUntil когда WB снова примет запрос (лимит), иначе {@code null}
+     * @param error      текст ошибки запроса, иначе {@code null}
+     */
+    public record RefreshOutcome(
+            WbCabinetPromotionBalanceCache cache,
+            boolean refreshed,
+            boolean inProgressElsewhere,
+            LocalDateTime deferUntil,
+            String error
+    ) {
+
+        static RefreshOutcome refreshed(WbCabinetPromotionBalanceCache cache) {
+            return new RefreshOutcome(cache, true, false, null, null);
+        }
+
+        static RefreshOutcome deferred(LocalDateTime deferUntil) {
+            return new RefreshOutcome(null, false, false, deferUntil, null);
+        }
+
+        static RefreshOutcome inProgressElsewhere() {
+            return new RefreshOutcome(null, false, true, null, null);
+        }
+
+        static RefreshOutcome failed(String error) {
+            return new RefreshOutcome(null, false, false, null, error);
+        }
+    }
+}
@@ -75,6 +75,15 @@ public class OzonApiEventService {
         enqueueProductListEvent(cabinetId, payload, buildProductListDedupKey(cabinetId, payload.lastId()), triggerSource);
     }
 
+    /**
+     * Сохраняет в payload выполняющегося события каталога позицию после последней сохранённой страницы:
+     * после падения повтор события продолжит с неё, а не с начала.
+     */
+    @Transactional
+    public void checkpointProductListEvent(Long eventId, OzonProductListPagePayload payload) {
+        eventRepository.updatePayloadIfRunning(eventId, writePayload(payload), OzonApiEventStatus.RUNNING, LocalDateTime.now());
+    }
+
     /**
      * Загрузка цен по кабинету после завершения каталога.
      */
@@ -4,32 +4,29 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
-import ru.oparin.solution.dto.ozon.OzonProductInfoListResponse;
-import ru.oparin.solution.dto.ozon.OzonProductListResponse;
 import ru.oparin.solution.model.Cabinet;
 import ru.oparin.solution.model.CabinetUpdateErrorScope;
 import ru.oparin.solution.model.OzonApiEvent;
 import ru.oparin.solution.service.CabinetService;
 import ru.oparin.solution.service.CabinetUpdateErrorService;
-import ru.oparin.solution.service.OzonProductCardService;
 import ru.oparin.solution.service.events.payload.OzonProductListPagePayload;
-import ru.oparin.solution.service.ozon.OzonProductsApiClient;
+import ru.oparin.solution.service.sync.OzonProductCatalogSyncService;
+import ru.oparin.solution.service.sync.PipelinedPageLoader;
 
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Objects;
 
+/**
+ * Загрузка каталога Ozon: страницы грузятся подряд с упреждением в пределах бюджета времени события,
+ * {@code last_id} фиксируется в payload после каждой сохранённой страницы; остаток — следующим событием.
+ */
 @Component("ozonProductListPageEventExecutor")
 @RequiredArgsConstructor
 @Slf4j
 public class OzonProductListPageEventExecutor implements OzonApiEventExecutor {
 
-    private static final int PAGE_LIMIT = 100;
-
     private final OzonApiEventService eventService;
     private final CabinetService cabinetService;
-    private final OzonProductsApiClient productsApiClient;
-    private final OzonProductCardService productCardService;
+    private final OzonProductCatalogSyncService catalogSyncService;
     private final CabinetUpdateErrorService cabinetUpdateErrorService;
 
     @Override
@@ -43,18 +40,21 @@ public class OzonProductListPageEventExecutor implements OzonApiEventExecutor {
         }
 
         try {
-            String lastId = payload.lastId() != null ? payload.lastId() : "";
-            OzonProductListResponse listResponse = productsApiClient.listProducts(clientId, apiKey, lastId, PAGE_LIMIT);
-            List<Long> productIds = extractProductIds(listResponse);
-            OzonProductInfoListResponse infoResponse = productIds.isEmpty()
-                    ? null
-                    : productsApiClient.getProductInfoList(clientId, apiKey, productIds);
-            productCardService.saveOrUpdateProducts(cabinet, listResponse, infoResponse);
+            String startLastId = payload.lastId() != null ? payload.lastId() : "";
+            PipelinedPageLoader.Result result = catalogSyncService.syncPages(
+                    cabinet,
+                    clientId,
+                    apiKey,
+                    startLastId,
+                    nextLastId -> eventService.checkpointProductListEvent(event.getId(), OzonProductListPagePayload.builder()
+                            .lastId(nextLastId)
+                            .includeStocks(payload.includeStocks())
+                            .build())
+            );
 
-            String nextLastId = listResponse.getResult() != null ? listResponse.getResult().getLastId() : null;
-            if (hasMore(listResponse, nextLastId)) {
+            if (!result.finished()) {
                 OzonProductListPagePayload nextPayload = OzonProductListPagePayload.builder()
-                        .lastId(nextLastId)
+                        .lastId(result.cursor())
                         .includeStocks(payload.includeStocks())
                         .build();
                 eventService.enqueueNextProductListEvent(cabinet.getId(), nextPayload, event.getTriggerSource());
@@ -78,25 +78,4 @@ public class OzonProductListPageEventExecutor implements OzonApiEventExecutor {
             return OzonApiEventExecutionResult.retryableError(e.getMessage());
         }
     }
-
-    private static List<Long> extractProductIds(OzonProductListResponse listResponse) {
-        if (listResponse == null || listResponse.getResult() == null || listResponse.getResult().getItems() == null) {
-            return List.of();
-        }
-        return listResponse.getResult().getItems().stream()
-                .map(OzonProductListResponse.Item::getProductId)
-                .filter(Objects::nonNull)
-                .distinct()
-                .toList();
-    }
-
-    private static boolean hasMore(OzonProductListResponse listResponse, String nextLastId) {
-        if (nextLastId == null || nextLastId.isBlank()) {
-            return false;
-        }
-        if (listResponse.getResult() == null || listResponse.getResult().getItems() == null) {
-            return false;
-        }
-        return !listResponse.getResult().getItems().isEmpty();
-    }
 }
@@ -14,10 +14,6 @@ import org.springframework.stereotype.Component;
 import ru.oparin.solution.config.WbEventsProperties;
 import ru.oparin.solution.exception.WbRateLimitDeferException;
 import ru.oparin.solution.model.WbApiEvent;
-import ru.oparin.solution.model.WbApiEventType;
-import ru.oparin.solution.repository.WbProductCardRepository;
-import ru.oparin.solution.service.events.payload.WbAnalyticsSalesFunnelPayload;
-import ru.oparin.solution.service.events.payload.WbStocksByNmIdPayload;
 import ru.oparin.solution.service.wb.WbApiEventAttemptContext;
 
 import java.time.LocalDateTime;
@@ -34,7 +30,6 @@ public class WbApiEventDispatcher {
     private final WbEventRateLimitService rateLimitService;
     private final ApplicationContext applicationContext;
     private final WbEventsProperties wbEventsProperties;
-    private final WbProductCardRepository productCardRepository;
     @Qualifier("cabinetUpdateExecutor")
     private final ThreadPoolTaskExecutor cabinetUpdateExecutor;
 
@@ -71,7 +66,6 @@ public class WbApiEventDispatcher {
         if (events.isEmpty()) {
             return;
         }
-        events = prioritizeEventsForPriorityCards(events);
         log.info("WB events poll: получено событий к обработке {}", events.size());
 
         GroupedExecutionPlan executionPlan = buildGroupedExecutionPlan(events);
@@ -190,7 +184,7 @@ public class WbApiEventDispatcher {
 
     private String formatEventForLog(WbApiEvent event, int queueIndex, int queueTotal) {
         Long cabinetId = event.getCabinet() != null ? event.getCabinet().getId() : null;
-        Long nmId = extractNmId(event);
+        Long nmId = event.getNmId();
         StringBuilder label = new StringBuilder();
         label.append("id=").append(event.getId());
         label.append(", type=").append(event.getEventType());
@@ -212,67 +206,6 @@ public class WbApiEventDispatcher {
         return label.toString();
     }
 
-    private List<WbApiEvent> prioritizeEventsForPriorityCards(List<WbApiEvent> events) {
-        Map<Long, Set<Long>> nmIdsByCabinet = collectNmIdsByCabinet(events);
-        if (nmIdsByCabinet.isEmpty()) {
-            return events;
-        }
-
-        Map<Long, Set<Long>> priorityNmIdsByCabinet = new HashMap<>();
-        nmIdsByCabinet.forEach((cabinetId, nmIds) -> {
-            List<Long> priorityNmIds = productCardRepository.findPriorityNmIdsByCabinetAndNmIdIn(cabinetId, nmIds.stream().toList());
-            priorityNmIdsByCabinet.put(cabinetId, new HashSet<>(priorityNmIds));
-        });
-
-        // Сначала события по приоритетным карточкам; среди равных по этому признаку — меньший id раньше (FIFO по очереди постановки).
-        return events.stream()
-                .sorted(
-                        Comparator.comparing((WbApiEvent event) -> isPriorityNmEvent(event, priorityNmIdsByCabinet))
-                                .reversed()
-                                .thenComparing(WbApiEvent::getId, Comparator.nullsLast(Comparator.naturalOrder()))
-                )
-                .toList();
-    }
-
-    private Map<Long, Set<Long>> collectNmIdsByCabinet(List<WbApiEvent> events) {
-        Map<Long, Set<Long>> result = new HashMap<>();
-        for (WbApiEvent event : events) {
-            Long cabinetId = event.getCabinet() != null ? event.getCabinet().getId() : null;
-            Long nmId = extractNmId(event);
-            if (cabinetId == null || nmId == null) {
-                continue;
-            }
-            result.computeIfAbsent(cabinetId, ignored -> new HashSet<>()).add(nmId);
-        }
-        return result;
-    }
-
-    private boolean isPriorityNmEvent(WbApiEvent event, Map<Long, Set<Long>> priorityNmIdsByCabinet) {
-        Long cabinetId = event.getCabinet() != null ? event.getCabinet().getId() : null;
-        Long nmId = extractNmId(event);
-        if (cabinetId == null || nmId == null) {
-            return false;
-        }
-        return priorityNmIdsByCabinet.getOrDefault(cabinetId, Set.of()).contains(nmId);
-    }
-
-    private Long extractNmId(WbApiEvent event) {
-        try {
-            if (event.getEventType() == WbApiEventType.ANALYTICS_SALES_FUNNEL_NMID) {
-                WbAnalyticsSalesFunnelPayload payload = eventService.readPayload(event, WbAnalyticsSalesFunnelPayload.class);
-                return payload.nmId();
-            }
-            if (event.getEventType() == WbApiEventType.STOCKS_BY_NMID) {
-                WbStocksByNmIdPayload payload = eventService.readPayload(event, WbStocksByNmIdPayload.class);
-                return payload.nmId();
-            }
-        } catch (Exception e) {
-            log.warn("Не удалось извлечь nmId из payload события id={}, type={}: {}",
-                    event.getId(), event.getEventType(), e.getMessage());
-        }
-        return null;
-    }
-
     @Scheduled(fixedDelayString = "${app.wb-events.stuck-check-delay-ms}")
     @SchedulerLock(name = "wbApiEventDispatcherRecoverStuck", lockAtLeastFor = "PT1S", lockAtMostFor = "PT2M")
     public void recoverStuckRunning() {
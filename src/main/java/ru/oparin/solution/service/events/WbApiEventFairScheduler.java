@@ -0,0 +1,167 @@
+package ru.oparin.solution.service.events;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.oparin.solution.config.WbEventsProperties;
+import ru.oparin.solution.model.WbApiEvent;
+import ru.oparin.solution.model.WbApiEventSchedulingClass;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Выбор событий poll из due-кандидатов (по одному на кабинет и тип) со справедливым разделением пула.
+ * <p>
+ * Между классами {@link WbApiEventSchedulingClass} — взвешенный deficit round-robin: в каждом раунде класс
+ * получает квант {@code weight} плюс бонус старения (по {@code aging-step-seconds} ожидания самого старого
+ * события), но не больше {@code max-concurrent} событий за poll. Внутри класса — круговой обход кабинетов
+ * (DRR с единичной стоимостью события), начиная со следующего после последнего обслуженного в прошлом poll,
+ * поэтому кабинет с большим каталогом не вытесняет маленькие. Внутри кабинета — события по приоритетным
+ * карточкам, затем больший priority, ранний nextAttemptAt, меньший id.
+ */
+@Component
+@RequiredArgsConstructor
+public class WbApiEventFairScheduler {
+
+    private static final Comparator<WbApiEvent> WITHIN_CABINET_ORDER = Comparator
+            .comparing(WbApiEvent::getPriority, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(WbApiEvent::getNextAttemptAt, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(WbApiEvent::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final WbEventsProperties wbEventsProperties;
+
+    /** Последний обслуженный кабинет по классу — с него продолжается обход в следующем poll. */
+    private final ConcurrentMap<WbApiEventSchedulingClass, Long> lastServedCabinetByClass = new ConcurrentHashMap<>();
+
+    /**
+     * @param candidates           due-события (по одному на кабинет и тип)
+     * @param priorityCardEventIds id событий по приоритетным карточкам
+     * @param now                  момент poll (для старения)
+     * @param batchSize            максимум событий за poll
+     * @return выбранные события в порядке отправки в пул
+     */
+    public List<WbApiEvent> select(
+            List<WbApiEvent> candidates,
+            Set<Long> priorityCardEventIds,
+            LocalDateTime now,
+            int batchSize
+    ) {
+        Map<WbApiEventSchedulingClass, ClassQueue> queues = new EnumMap<>(WbApiEventSchedulingClass.class);
+        for (WbApiEvent event : candidates) {
+            WbApiEventSchedulingClass schedulingClass = WbApiEventSchedulingClass.of(event.getEventType());
+            queues.computeIfAbsent(schedulingClass, ignored -> new ClassQueue()).add(event);
+        }
+        Comparator<WbApiEvent> withinCabinet = Comparator
+                .comparing((WbApiEvent event) -> priorityCardEventIds.contains(event.getId()))
+                .reversed()
+                .thenComparing(WITHIN_CABINET_ORDER);
+        queues.forEach((schedulingClass, queue) -> {
+            WbEventsProperties.SchedulingClassSettings settings = wbEventsProperties.settingsFor(schedulingClass);
+            queue.prepare(withinCabinet, lastServedCabinetByClass.get(schedulingClass));
+            queue.quantum = settings.getWeight() + agingBonus(queue.oldestDueAt, now);
+            queue.remainingSlots = Math.max(0, settings.getMaxConcurrent());
+        });
+
+        List<WbApiEvent> selected = new ArrayList<>(Math.min(batchSize, candidates.size()));
+        boolean progress = true;
+        while (selected.size() < batchSize && progress) {
+            progress = false;
+            for (Map.Entry<WbApiEventSchedulingClass, ClassQueue> entry : queues.entrySet()) {
+                ClassQueue queue = entry.getValue();
+                if (!queue.isActive()) {
+                    queue.deficit = 0;
+                    continue;
+                }
+                queue.deficit += queue.quantum;
+                while (queue.deficit >= 1 && queue.isActive() && selected.size() < batchSize) {
+                    WbApiEvent event = queue.pollNext();
+                    selected.add(event);
+                    lastServedCabinetByClass.put(entry.getKey(), cabinetId(event));
+                    queue.deficit--;
+                    progress = true;
+                }
+                if (!queue.isActive()) {
+                    queue.deficit = 0;
+                }
+            }
+        }
+        return selected;
+    }
+
+    private int agingBonus(LocalDateTime oldestDueAt, LocalDateTime now) {
+        int stepSeconds = wbEventsProperties.getAgingStepSeconds();
+        if (oldestDueAt == null || stepSeconds <= 0 || !oldestDueAt.isBefore(now)) {
+            return 0;
+        }
+        long waitedSeconds = Duration.between(oldestDueAt, now).getSeconds();
+        return (int) Math.min(Integer.MAX_VALUE / 2, waitedSeconds / stepSeconds);
+    }
+
+    private static Long cabinetId(WbApiEvent event) {
+        return event.getCabinet() != null ? event.getCabinet().getId() : null;
+    }
+
+    /**
+     * Кандидаты одного класса: очередь событий на кабинет и кольцо кабинетов для кругового обхода.
+     */
+    private static final class ClassQueue {
+        private final Map<Long, List<WbApiEvent>> eventsByCabinet = new HashMap<>();
+        private final Deque<Deque<WbApiEvent>> cabinetRing = new ArrayDeque<>();
+        private LocalDateTime oldestDueAt;
+        private int quantum;
+        private int deficit;
+        private int remainingSlots;
+
+        void add(WbApiEvent event) {
+            eventsByCabinet.computeIfAbsent(cabinetId(event), ignored -> new ArrayList<>()).add(event);
+            LocalDateTime dueAt = event.getNextAttemptAt();
+            if (dueAt != null && (oldestDueAt == null || dueAt.isBefore(oldestDueAt))) {
+                oldestDueAt = dueAt;
+            }
+        }
+
+        /**
+         * Сортирует события кабинетов и строит кольцо по возрастанию cabinetId, начиная после {@code lastServedCabinetId}.
+         */
+        void prepare(Comparator<WbApiEvent> withinCabinet, Long lastServedCabinetId) {
+            List<Long> cabinetIds = new ArrayList<>(eventsByCabinet.keySet());
+            cabinetIds.sort(Comparator.nullsLast(Comparator.naturalOrder()));
+            int start = 0;
+            if (lastServedCabinetId != null) {
+                while (start < cabinetIds.size()
+                        && cabinetIds.get(start) != null
+                        && cabinetIds.get(start) <= lastServedCabinetId) {
+                    start++;
+                }
+                if (start == cabinetIds.size()) {
+                    start = 0;
+                }
+            }
+            for (int i = 0; i < cabinetIds.size(); i++) {
+                List<WbApiEvent> events = eventsByCabinet.get(cabinetIds.get((start + i) % cabinetIds.size()));
+                events.sort(withinCabinet);
+                cabinetRing.addLast(new ArrayDeque<>(events));
+            }
+        }
+
+        boolean isActive() {
+            return remainingSlots > 0 && !cabinetRing.isEmpty();
+        }
+
+        /**
+         * Событие следующего кабинета в кольце; кабинет уходит в конец кольца или выбывает, если событий больше нет.
+         */
+        WbApiEvent pollNext() {
+            Deque<WbApiEvent> cabinetEvents = cabinetRing.pollFirst();
+            WbApiEvent event = cabinetEvents.pollFirst();
+            if (!cabinetEvents.isEmpty()) {
+                cabinetRing.addLast(cabinetEvents);
+            }
+            remainingSlots--;
+            return event;
+        }
+    }
+}
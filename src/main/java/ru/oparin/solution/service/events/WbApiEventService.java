@@ -24,7 +24,6 @@ import ru.oparin.solution.service.sync.WbPromotionCampaignSyncService;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -97,6 +96,7 @@ public class WbApiEventService {
     private final WbPromotionCampaignSyncService promotionCampaignSyncService;
     private final ObjectMapper objectMapper;
     private final WbEventsProperties wbEventsProperties;
+    private final WbApiEventFairScheduler fairScheduler;
 
     @Transactional
     public void enqueueInitialContentEvent(Long cabinetId, LocalDate dateFrom, LocalDate dateTo, boolean includeStocks, String triggerSource) {
@@ -136,7 +136,6 @@ public class WbApiEventService {
                 .status(WbApiEventStatus.CREATED)
                 .executorBeanName(STOCKS_EXECUTOR_BEAN)
                 .cabinet(cabinet)
-                .payloadJson(writePayload(payload))
                 .dedupKey(dedupKey)
                 .attemptCount(0)
                 .maxAttempts(STOCKS_EVENT_MAX_ATTEMPTS)
@@ -146,6 +145,7 @@ public class WbApiEventService {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
+        bindPayload(event, payload);
         eventRepository.save(event);
     }
 
@@ -225,7 +225,6 @@ public class WbApiEventService {
                 .status(WbApiEventStatus.CREATED)
                 .executorBeanName(ITEM_RATING_SYNC_EXECUTOR_BEAN)
                 .cabinet(cabinet)
-                .payloadJson(writePayload(payload))
                 .dedupKey(dedupKey)
                 .attemptCount(0)
                 .maxAttempts(SIDECAR_EVENT_MAX_ATTEMPTS)
@@ -235,6 +234,7 @@ public class WbApiEventService {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
+        bindPayload(event, payload);
         eventRepository.save(event);
         log.info("Создано событие шага item-rating: eventId={}, cabinetId={}, offset={}, nextAttemptAt={}",
                 event.getId(), cabinet.getId(), payload.offset(), nextAttemptAt);
@@ -254,7 +254,6 @@ public class WbApiEventService {
                 .status(WbApiEventStatus.CREATED)
                 .executorBeanName(PROMOTION_CALENDAR_SYNC_EXECUTOR_BEAN)
                 .cabinet(cabinet)
-                .payloadJson(writePayload(payload))
                 .dedupKey(dedupKey)
                 .attemptCount(0)
                 .maxAttempts(SIDECAR_EVENT_MAX_ATTEMPTS)
@@ -264,6 +263,7 @@ public class WbApiEventService {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
+        bindPayload(event, payload);
         eventRepository.save(event);
     }
 
@@ -288,7 +288,6 @@ public class WbApiEventService {
                 .status(WbApiEventStatus.CREATED)
                 .executorBeanName(WAREHOUSES_SYNC_EXECUTOR_BEAN)
                 .cabinet(cabinet)
-                .payloadJson(writePayload(payload))
                 .dedupKey(dedupKey)
                 .attemptCount(0)
                 .maxAttempts(WAREHOUSES_EVENT_MAX_ATTEMPTS)
@@ -298,6 +297,7 @@ public class WbApiEventService {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
+        bindPayload(event, payload);
         eventRepository.save(event);
         enqueueFbsWarehousesSyncCabinetEvent(cabinetId, triggerSource);
     }
@@ -329,7 +329,6 @@ public class WbApiEventService {
                 .status(WbApiEventStatus.CREATED)
                 .executorBeanName(FBS_WAREHOUSES_SYNC_EXECUTOR_BEAN)
                 .cabinet(cabinet)
-                .payloadJson(writePayload(payload))
                 .dedupKey(dedupKey)
                 .attemptCount(0)
                 .maxAttempts(WAREHOUSES_EVENT_MAX_ATTEMPTS)
@@ -339,6 +338,7 @@ public class WbApiEventService {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
+        bindPayload(event, payload);
         eventRepository.save(event);
     }
 
@@ -368,7 +368,6 @@ public class WbApiEventService {
                 .status(WbApiEventStatus.CREATED)
                 .executorBeanName(FBS_STOCKS_EXECUTOR_BEAN)
                 .cabinet(cabinet)
-                .payloadJson(writePayload(payload))
                 .dedupKey(dedupKey)
                 .attemptCount(0)
                 .maxAttempts(STOCKS_EVENT_MAX_ATTEMPTS)
@@ -378,6 +377,7 @@ public class WbApiEventService {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
+        bindPayload(event, payload);
         eventRepository.save(event);
     }
 
@@ -408,7 +408,6 @@ public class WbApiEventService {
                 .status(WbApiEventStatus.CREATED)
                 .executorBeanName(ANALYTICS_EXECUTOR_BEAN)
                 .cabinet(cabinet)
-                .payloadJson(writePayload(payload))
                 .dedupKey(dedupKey)
                 .attemptCount(0)
                 .maxAttempts(ANALYTICS_EVENT_MAX_ATTEMPTS)
@@ -418,6 +417,7 @@ public class WbApiEventService {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
+        bindPayload(event, payload);
         eventRepository.save(event);
     }
 
@@ -443,7 +443,6 @@ public class WbApiEventService {
                 .status(WbApiEventStatus.CREATED)
                 .executorBeanName(PRICES_CABINET_WITH_SPP_EXECUTOR_BEAN)
                 .cabinet(cabinet)
-                .payloadJson(writePayload(payload))
                 .dedupKey(dedupKey)
                 .attemptCount(0)
                 .maxAttempts(PRICES_EVENT_MAX_ATTEMPTS)
@@ -453,6 +452,7 @@ public class WbApiEventService {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
+        bindPayload(event, payload);
         eventRepository.save(event);
     }
 
@@ -516,7 +516,6 @@ public class WbApiEventService {
                 .status(WbApiEventStatus.CREATED)
                 .executorBeanName(executorBean)
                 .cabinet(cabinet)
-                .payloadJson(writePayload(payload))
                 .dedupKey(dedupKey)
                 .attemptCount(0)
                 .maxAttempts(PROMOTION_EVENT_MAX_ATTEMPTS)
@@ -526,6 +525,7 @@ public class WbApiEventService {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
+        bindPayload(event, payload);
         event = eventRepository.save(event);
         log.debug("Событие с id={} сохранено/обновлено", event.getId());
         return event.getId();
@@ -545,7 +545,6 @@ public class WbApiEventService {
                 .status(WbApiEventStatus.CREATED)
                 .executorBeanName(PROMOTION_COUNT_EXECUTOR_BEAN)
                 .cabinet(cabinet)
-                .payloadJson(writePayload(payload))
                 .dedupKey(dedupKey)
                 .attemptCount(0)
                 .maxAttempts(PROMOTION_EVENT_MAX_ATTEMPTS)
@@ -555,6 +554,7 @@ public class WbApiEventService {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
+        bindPayload(event, payload);
         eventRepository.save(event);
         return true;
     }
@@ -579,12 +579,12 @@ public class WbApiEventService {
             String triggerSource,
             long excludeAdvertBatchEventId
     ) {
-        String advertsPrefix = promotionAdvertsDedupPrefix(cabinetId, payload.dateFrom(), payload.dateTo());
-        if (eventRepository.existsOtherByCabinet_IdAndEventTypeAndStatusInAndDedupKeyPrefix(
+        if (eventRepository.existsOtherByCabinet_IdAndEventTypeAndStatusInAndPeriod(
                 cabinetId,
                 WbApiEventType.PROMOTION_ADVERTS_BATCH,
                 ACTIVE_STATUSES,
-                advertsPrefix,
+                payload.dateFrom(),
+                payload.dateTo(),
                 excludeAdvertBatchEventId
         )) {
             return;
@@ -598,12 +598,12 @@ public class WbApiEventService {
             tryFinalizeMain(cabinetId, excludeAdvertBatchEventId);
             return;
         }
-        String statsPrefix = promotionStatsDedupPrefix(cabinetId, payload.dateFrom(), payload.dateTo());
-        if (eventRepository.existsByCabinet_IdAndEventTypeAndStatusInAndDedupKeyPrefix(
+        if (eventRepository.existsByCabinet_IdAndEventTypeAndStatusInAndPeriod(
                 cabinetId,
                 WbApiEventType.PROMOTION_STATS_BATCH,
                 ACTIVE_STATUSES,
-                statsPrefix
+                payload.dateFrom(),
+                payload.dateTo()
         )) {
             return;
         }
@@ -620,11 +620,12 @@ public class WbApiEventService {
 
     @Transactional(readOnly = true)
     public boolean hasOtherActivePromotionStatsBatches(Long cabinetId, Long excludeEventId, LocalDate dateFrom, LocalDate dateTo) {
-        return eventRepository.existsOtherByCabinet_IdAndEventTypeAndStatusInAndDedupKeyPrefix(
+        return eventRepository.existsOtherByCabinet_IdAndEventTypeAndStatusInAndPeriod(
                 cabinetId,
                 WbApiEventType.PROMOTION_STATS_BATCH,
                 ACTIVE_STATUSES,
-                promotionStatsDedupPrefix(cabinetId, dateFrom, dateTo),
+                dateFrom,
+                dateTo,
                 excludeEventId
         );
     }
@@ -641,11 +642,12 @@ public class WbApiEventService {
             String triggerSource,
             long excludeStatsBatchEventId
     ) {
-        if (eventRepository.existsOtherByCabinet_IdAndEventTypeAndStatusInAndDedupKeyPrefix(
+        if (eventRepository.existsOtherByCabinet_IdAndEventTypeAndStatusInAndPeriod(
                 cabinetId,
                 WbApiEventType.PROMOTION_STATS_BATCH,
                 ACTIVE_STATUSES,
-                promotionStatsDedupPrefix(cabinetId, dateFrom, dateTo),
+                dateFrom,
+                dateTo,
                 excludeStatsBatchEventId
         )) {
             return;
@@ -656,12 +658,12 @@ public class WbApiEventService {
             tryFinalizeMain(cabinetId, excludeStatsBatchEventId);
             return;
         }
-        String normqueryPrefix = promotionNormQueryStatsDedupPrefix(cabinetId, dateFrom, dateTo);
-        if (eventRepository.existsByCabinet_IdAndEventTypeAndStatusInAndDedupKeyPrefix(
+        if (eventRepository.existsByCabinet_IdAndEventTypeAndStatusInAndPeriod(
                 cabinetId,
                 WbApiEventType.PROMOTION_NORMQUERY_STATS_BATCH,
                 ACTIVE_STATUSES,
-                normqueryPrefix
+                dateFrom,
+                dateTo
         )) {
             return;
         }
@@ -688,11 +690,12 @@ public class WbApiEventService {
             LocalDate dateFrom,
             LocalDate dateTo
     ) {
-        return eventRepository.existsOtherByCabinet_IdAndEventTypeAndStatusInAndDedupKeyPrefix(
+        return eventRepository.existsOtherByCabinet_IdAndEventTypeAndStatusInAndPeriod(
                 cabinetId,
                 WbApiEventType.PROMOTION_NORMQUERY_STATS_BATCH,
                 ACTIVE_STATUSES,
-                promotionNormQueryStatsDedupPrefix(cabinetId, dateFrom, dateTo),
+                dateFrom,
+                dateTo,
                 excludeEventId
         );
     }
@@ -723,7 +726,6 @@ public class WbApiEventService {
                 .status(WbApiEventStatus.CREATED)
                 .executorBeanName(PROMOTION_NORMQUERY_STATS_BATCH_EXECUTOR_BEAN)
                 .cabinet(cabinet)
-                .payloadJson(writePayload(batchPayload))
                 .dedupKey(dedupKey)
                 .attemptCount(0)
                 .maxAttempts(PROMOTION_EVENT_MAX_ATTEMPTS)
@@ -733,6 +735,7 @@ public class WbApiEventService {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
+        bindPayload(event, batchPayload);
         eventRepository.save(event);
     }
 
@@ -762,7 +765,6 @@ public class WbApiEventService {
                 .status(WbApiEventStatus.CREATED)
                 .executorBeanName(PROMOTION_ADVERTS_BATCH_EXECUTOR_BEAN)
                 .cabinet(cabinet)
-                .payloadJson(writePayload(batchPayload))
                 .dedupKey(dedupKey)
                 .attemptCount(0)
                 .maxAttempts(PROMOTION_EVENT_MAX_ATTEMPTS)
@@ -772,6 +774,7 @@ public class WbApiEventService {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
+        bindPayload(event, batchPayload);
         eventRepository.save(event);
     }
 
@@ -801,7 +804,6 @@ public class WbApiEventService {
                 .status(WbApiEventStatus.CREATED)
                 .executorBeanName(PROMOTION_STATS_BATCH_EXECUTOR_BEAN)
                 .cabinet(cabinet)
-                .payloadJson(writePayload(batchPayload))
                 .dedupKey(dedupKey)
                 .attemptCount(0)
                 .maxAttempts(PROMOTION_EVENT_MAX_ATTEMPTS)
@@ -811,6 +813,7 @@ public class WbApiEventService {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
+        bindPayload(event, batchPayload);
         eventRepository.save(event);
     }
 
@@ -851,6 +854,7 @@ public class WbApiEventService {
     /**
      * Due-события для poll: не больше одного на пару (кабинет, тип события).
      * Лимиты WB на кабинет+endpoint — нет смысла тащить в один poll сотни STOCKS одного кабинета.
+     * Из кандидатов не больше {@code poll-batch-size} выбирает {@link WbApiEventFairScheduler}.
      */
     @Transactional(readOnly = true)
     public List<WbApiEvent> findDueEvents() {
@@ -864,22 +868,24 @@ public class WbApiEventService {
         if (ids == null || ids.isEmpty()) {
             return List.of();
         }
-        Map<Long, WbApiEvent> byId = eventRepository.findAllByIdInWithCabinet(ids).stream()
-                .collect(Collectors.toMap(WbApiEvent::getId, e -> e, (a, b) -> a));
-        // Глобальный порядок для пула: выше priority раньше, затем FIFO по nextAttemptAt/id.
-        List<WbApiEvent> sorted = ids.stream()
-                .map(byId::get)
-                .filter(Objects::nonNull)
-                .sorted(Comparator
-                        .comparing(WbApiEvent::getPriority, Comparator.nullsLast(Comparator.reverseOrder()))
-                        .thenComparing(WbApiEvent::getNextAttemptAt, Comparator.nullsLast(Comparator.naturalOrder()))
-                        .thenComparing(WbApiEvent::getId, Comparator.nullsLast(Comparator.naturalOrder())))
-                .toList();
+        List<WbApiEvent> candidates = eventRepository.findAllByIdInWithCabinet(ids);
+        Set<Long> priorityCardEventIds = findPriorityCardEventIds(candidates);
         int batchSize = Math.max(1, wbEventsProperties.getPollBatchSize());
-        if (sorted.size() <= batchSize) {
-            return sorted;
+        return fairScheduler.select(candidates, priorityCardEventIds, LocalDateTime.now(), batchSize);
+    }
+
+    /**
+     * ID событий, относящихся к приоритетным карточкам своих кабинетов (одним запросом по колонке nm_id).
+     */
+    private Set<Long> findPriorityCardEventIds(List<WbApiEvent> events) {
+        List<Long> nmEventIds = events.stream()
+                .filter(event -> event.getNmId() != null)
+                .map(WbApiEvent::getId)
+                .toList();
+        if (nmEventIds.isEmpty()) {
+            return Set.of();
         }
-        return sorted.subList(0, batchSize);
+        return new HashSet<>(eventRepository.findIdsForPriorityCards(nmEventIds));
     }
 
     @Transactional
@@ -1070,12 +1076,14 @@ public class WbApiEventService {
             WbApiEventStatus status,
             WbApiEventType eventType,
             Long cabinetId,
+            Long nmId,
+            Long campaignId,
             WbApiEventSortField sortBy,
             Sort.Direction sortDir
     ) {
         Sort sort = sortForAdminEvents(sortBy, sortDir);
         Pageable pageable = PageRequest.of(page, Math.clamp(size, 1, 100), sort);
-        Page<WbApiEvent> eventsPage = eventRepository.findAdminEvents(status, eventType, cabinetId, pageable);
+        Page<WbApiEvent> eventsPage = eventRepository.findAdminEvents(status, eventType, cabinetId, nmId, campaignId, pageable);
         List<WbApiEventDto> content = eventsPage.getContent().stream().map(this::toDto).toList();
         return PageResponse.<WbApiEventDto>builder()
                 .content(content)
@@ -1272,7 +1280,6 @@ public class WbApiEventService {
                 .status(WbApiEventStatus.CREATED)
                 .executorBeanName(AB_TEST_START_EXECUTOR_BEAN)
                 .cabinet(cabinet)
-                .payloadJson(writePayload(normalized))
                 .dedupKey(dedupKey)
                 .attemptCount(0)
                 .maxAttempts(AB_TEST_EVENT_MAX_ATTEMPTS)
@@ -1282,6 +1289,7 @@ public class WbApiEventService {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
+        bindPayload(event, normalized);
         event = eventRepository.save(event);
         log.info(
                 "Создано событие шага А/Б-старта: eventId={}, cabinetId={}, abTestId={}, step={}, variantId={}, nextAttemptAt={}",
@@ -1327,7 +1335,6 @@ public class WbApiEventService {
                 .status(WbApiEventStatus.CREATED)
                 .executorBeanName(AB_TEST_APPLY_PHOTO_EXECUTOR_BEAN)
                 .cabinet(cabinet)
-                .payloadJson(writePayload(payload))
                 .dedupKey(dedupKey)
                 .attemptCount(0)
                 .maxAttempts(AB_TEST_EVENT_MAX_ATTEMPTS)
@@ -1337,6 +1344,7 @@ public class WbApiEventService {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
+        bindPayload(event, payload);
         event = eventRepository.save(event);
         return event.getId();
     }
@@ -1361,7 +1369,6 @@ public class WbApiEventService {
                 .status(WbApiEventStatus.CREATED)
                 .executorBeanName(AB_TEST_STATS_POLL_EXECUTOR_BEAN)
                 .cabinet(cabinet)
-                .payloadJson(writePayload(payload))
                 .dedupKey(dedupKey)
                 .attemptCount(0)
                 .maxAttempts(AB_TEST_EVENT_MAX_ATTEMPTS)
@@ -1371,11 +1378,12 @@ public class WbApiEventService {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
+        bindPayload(event, payload);
         event = eventRepository.save(event);
         return event.getId();
     }
 
-    public <T> T readPayload(WbApiEvent event, Class<T> payloadType) {
+    public <T extends WbApiEventPayload> T readPayload(WbApiEvent event, Class<T> payloadType) {
         try {
             return objectMapper.readValue(event.getPayloadJson(), payloadType);
         } catch (Exception e) {
@@ -1395,7 +1403,6 @@ public class WbApiEventService {
                 .status(WbApiEventStatus.CREATED)
                 .executorBeanName(CONTENT_EXECUTOR_BEAN)
                 .cabinet(cabinet)
-                .payloadJson(writePayload(payload))
                 .dedupKey(dedupKey)
                 .attemptCount(0)
                 .maxAttempts(CONTENT_EVENT_MAX_ATTEMPTS)
@@ -1405,10 +1412,28 @@ public class WbApiEventService {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
+        bindPayload(event, payload);
         eventRepository.save(event);
     }
 
-    private String writePayload(Object payload) {
+    /**
+     * Записывает payload в событие вместе с индексируемыми колонками (nmId, кампания, период).
+     * Класс payload должен соответствовать типу события.
+     */
+    private void bindPayload(WbApiEvent event, WbApiEventPayload payload) {
+        Class<? extends WbApiEventPayload> expectedType = WbApiEventPayload.payloadClassOf(event.getEventType());
+        if (payload.getClass() != expectedType) {
+            throw new IllegalArgumentException("Payload " + payload.getClass().getSimpleName()
+                    + " не соответствует типу события " + event.getEventType());
+        }
+        event.setPayloadJson(writePayload(payload));
+        event.setNmId(payload.nmId());
+        event.setCampaignId(payload.campaignId());
+        event.setDateFrom(payload.dateFrom());
+        event.setDateTo(payload.dateTo());
+    }
+
+    private String writePayload(WbApiEventPayload payload) {
         try {
             return objectMapper.writeValueAsString(payload);
         } catch (JsonProcessingException e) {
@@ -1442,6 +1467,8 @@ public class WbApiEventService {
                 .cabinetId(event.getCabinet() != null ? event.getCabinet().getId() : null)
                 .cabinetName(event.getCabinet() != null ? event.getCabinet().getName() : null)
                 .dedupKey(event.getDedupKey())
+                .nmId(event.getNmId())
+                .campaignId(event.getCampaignId())
                 .attemptCount(event.getAttemptCount())
                 .maxAttempts(event.getMaxAttempts())
                 .nextAttemptAt(event.getNextAttemptAt())
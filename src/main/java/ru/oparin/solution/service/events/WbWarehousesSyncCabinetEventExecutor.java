@@ -9,6 +9,7 @@ import ru.oparin.solution.exception.WbApiUnauthorizedScopeException;
 import ru.oparin.solution.model.WbApiEvent;
 import ru.oparin.solution.service.CabinetScopeStatusService;
 import ru.oparin.solution.service.CabinetService;
+import ru.oparin.solution.service.WbWarehouseDirectory;
 import ru.oparin.solution.service.WbWarehouseService;
 import ru.oparin.solution.service.events.payload.WbMainStepPayload;
 import ru.oparin.solution.service.wb.WbApiCategory;
@@ -25,6 +26,7 @@ public class WbWarehousesSyncCabinetEventExecutor implements WbApiEventExecutor
     private final CabinetService cabinetService;
     private final WbWarehousesApiClient warehousesApiClient;
     private final WbWarehouseService warehouseService;
+    private final WbWarehouseDirectory warehouseDirectory;
     private final CabinetScopeStatusService cabinetScopeStatusService;
 
     @Override
@@ -38,6 +40,7 @@ public class WbWarehousesSyncCabinetEventExecutor implements WbApiEventExecutor
         try {
             List<WbWarehouseResponse> warehouses = warehousesApiClient.getWbOffices(cabinet.getApiKey());
             warehouseService.saveOrUpdateWarehouses(warehouses);
+            warehouseDirectory.reload();
             cabinetScopeStatusService.recordSuccess(cabinetId, WbApiCategory.MARKETPLACE);
             return WbApiEventExecutionResult.completedSuccessfully();
         } catch (WbApiUnauthorizedScopeException e) {
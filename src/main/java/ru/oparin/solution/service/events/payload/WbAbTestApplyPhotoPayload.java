@@ -12,5 +12,5 @@ public record WbAbTestApplyPhotoPayload(
         String reason,
         /** Если true — после успешной смены фото тест переводится в DISABLED. */
         boolean finishAfterApply
-) {
+) implements WbApiEventPayload {
 }
@@ -14,7 +14,7 @@ public record WbAbTestStartPayload(
         WbAbTestStartStep step,
         /** Для {@link WbAbTestStartStep#UPLOAD_VARIANT} — id варианта. */
         Long variantId
-) {
+) implements WbApiEventPayload {
 
     /**
      * Эффективный шаг с учётом обратной совместимости payload без {@code step}.
@@ -8,5 +8,5 @@ import lombok.Builder;
 @Builder
 public record WbAbTestStatsPollPayload(
         Long abTestId
-) {
+) implements WbApiEventPayload {
 }
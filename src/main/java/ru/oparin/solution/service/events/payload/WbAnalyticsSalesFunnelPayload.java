@@ -10,5 +10,5 @@ public record WbAnalyticsSalesFunnelPayload(
         LocalDate dateFrom,
         LocalDate dateTo,
         boolean includeStocks
-) {
+) implements WbApiEventPayload {
 }
@@ -0,0 +1,92 @@
+package ru.oparin.solution.service.events.payload;
+
+import ru.oparin.solution.model.WbApiEventType;
+
+import java.time.LocalDate;
+
+/**
+ * Payload события очереди WB API. Класс payload однозначно определяется типом события
+ * ({@link #payloadClassOf(WbApiEventType)}).
+ * <p>
+ * Методы {@link #nmId()}, {@link #campaignId()}, {@link #dateFrom()}, {@link #dateTo()} дают значения
+ * индексируемых колонок события: по ним идут приоритизация, дедупликация и фильтры без разбора JSON.
+ */
+public sealed interface WbApiEventPayload permits
+        WbAbTestApplyPhotoPayload,
+        WbAbTestStartPayload,
+        WbAbTestStatsPollPayload,
+        WbAnalyticsSalesFunnelPayload,
+        WbContentCardsListPagePayload,
+        WbItemRatingSyncStepPayload,
+        WbMainStepPayload,
+        WbPromotionAdvertsBatchPayload,
+        WbPromotionCampaignControlPayload,
+        WbPromotionNormQueryStatsBatchPayload,
+        WbPromotionStatsBatchPayload,
+        WbStocksByNmIdPayload {
+
+    /**
+     * @return артикул WB, если событие относится к одной карточке
+     */
+    default Long nmId() {
+        return null;
+    }
+
+    /**
+     * @return ID рекламной кампании, если событие управляет одной кампанией
+     */
+    default Long campaignId() {
+        return null;
+    }
+
+    /**
+     * @return начало периода синхронизации
+     */
+    default LocalDate dateFrom() {
+        return null;
+    }
+
+    /**
+     * @return конец периода синхронизации
+     */
+    default LocalDate dateTo() {
+        return null;
+    }
+
+    /**
+     * Класс payload для типа события.
+     *
+     * @param eventType тип события
+     * @return класс payload или {@code null}, если тип не ставится в очередь (только метаданные rate-limit)
+     */
+    static Class<? extends WbApiEventPayload> payloadClassOf(WbApiEventType eventType) {
+        return switch (eventType) {
+            case CONTENT_CARDS_LIST_PAGE -> WbContentCardsListPagePayload.class;
+            case AB_TEST_START -> WbAbTestStartPayload.class;
+            case AB_TEST_APPLY_PHOTO -> WbAbTestApplyPhotoPayload.class;
+            case AB_TEST_STATS_POLL -> WbAbTestStatsPollPayload.class;
+            case ANALYTICS_SALES_FUNNEL_NMID -> WbAnalyticsSalesFunnelPayload.class;
+            case ANALYTICS_ITEM_RATING_CABINET -> WbItemRatingSyncStepPayload.class;
+            case PROMOTION_ADVERTS_BATCH -> WbPromotionAdvertsBatchPayload.class;
+            case PROMOTION_STATS_BATCH -> WbPromotionStatsBatchPayload.class;
+            case PROMOTION_NORMQUERY_STATS_BATCH -> WbPromotionNormQueryStatsBatchPayload.class;
+            case PROMOTION_CAMPAIGN_START, PROMOTION_CAMPAIGN_PAUSE -> WbPromotionCampaignControlPayload.class;
+            case STOCKS_BY_NMID -> WbStocksByNmIdPayload.class;
+            case PRICES_CABINET_WITH_SPP,
+                 PROMOTION_COUNT,
+                 PROMOTION_CALENDAR_SYNC_CABINET,
+                 WAREHOUSES_SYNC_CABINET,
+                 FBS_WAREHOUSES_SYNC_CABINET,
+                 FBS_STOCKS_CABINET -> WbMainStepPayload.class;
+            case CONTENT_CARDS_TRASH,
+                 CONTENT_MEDIA_FILE,
+                 CONTENT_MEDIA_SAVE,
+                 PROMOTION_BALANCE,
+                 PROMOTION_BUDGET_GET,
+                 PROMOTION_BUDGET_DEPOSIT,
+                 PROMOTION_CALENDAR_NOMENCLATURES,
+                 COMMON_SELLER_INFO,
+                 STATISTICS_SUPPLIER_ORDERS -> null;
+        };
+    }
+}
@@ -11,5 +11,5 @@ public record WbContentCardsListPagePayload(
         boolean includeStocks,
         Long cursorNmId,
         String cursorUpdatedAt
-) {
+) implements WbApiEventPayload {
 }
@@ -17,5 +17,5 @@ public record WbItemRatingSyncStepPayload(
         LocalDate dateFrom,
         LocalDate dateTo,
         boolean includeStocks
-) {
+) implements WbApiEventPayload {
 }
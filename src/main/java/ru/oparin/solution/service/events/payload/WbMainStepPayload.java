@@ -11,5 +11,5 @@ public record WbMainStepPayload(
         LocalDate dateFrom,
         LocalDate dateTo,
         boolean includeStocks
-) {
+) implements WbApiEventPayload {
 }
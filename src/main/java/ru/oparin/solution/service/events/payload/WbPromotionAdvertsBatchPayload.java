@@ -12,5 +12,5 @@ public record WbPromotionAdvertsBatchPayload(
         LocalDate dateFrom,
         LocalDate dateTo,
         boolean includeStocks
-) {
+) implements WbApiEventPayload {
 }
@@ -8,5 +8,10 @@ import lombok.Builder;
 @Builder
 public record WbPromotionCampaignControlPayload(
         Long advertId
-) {
+) implements WbApiEventPayload {
+
+    @Override
+    public Long campaignId() {
+        return advertId;
+    }
 }
@@ -22,5 +22,5 @@ public record WbPromotionNormQueryStatsBatchPayload(
         LocalDate dateFrom,
         LocalDate dateTo,
         boolean includeStocks
-) {
+) implements WbApiEventPayload {
 }
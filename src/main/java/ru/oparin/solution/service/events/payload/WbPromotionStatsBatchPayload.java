@@ -12,5 +12,5 @@ public record WbPromotionStatsBatchPayload(
         LocalDate dateFrom,
         LocalDate dateTo,
         boolean includeStocks
-) {
+) implements WbApiEventPayload {
 }
@@ -5,5 +5,5 @@ import lombok.Builder;
 @Builder
 public record WbStocksByNmIdPayload(
         Long nmId
-) {
+) implements WbApiEventPayload {
 }
@@ -0,0 +1,220 @@
+package ru.oparin.solution.service.export;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.oparin.solution.dto.analytics.NormQueryClusterSortField;
+import ru.oparin.solution.dto.analytics.SummaryRequestDto;
+import ru.oparin.solution.model.User;
+import ru.oparin.solution.repository.AnalyticsExportRepository;
+import ru.oparin.solution.service.AnalyticsService;
+import ru.oparin.solution.service.WbPromotionNormQueryStatisticsService;
+import ru.oparin.solution.util.ArticleRatingUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Выгрузки CSV/XLSX: сводная по артикулам, поисковые кластеры и суточная статистика кампании.
+ * <p>
+ * Доступ и параметры проверяются до начала ответа; сами строки читаются курсором JDBC
+ * и пишутся в поток ответа по одной, поэтому память не растёт с числом строк.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AnalyticsExportService {
+
+    private static final int DEFAULT_PERIOD_DAYS = 14;
+
+    private static final List<String> SUMMARY_COLUMNS = List.of(
+            "Артикул WB", "Артикул продавца", "Название", "Бренд", "Предмет", "Рейтинг", "Приоритет", "Создан на WB");
+
+    private static final List<String> NORM_QUERY_COLUMNS = List.of(
+            "Поисковый кластер", "Ср. позиция", "Клики", "Корзины", "Заказы", "Расход", "CPC", "CPO");
+
+    private static final List<String> CAMPAIGN_STATISTICS_COLUMNS = List.of(
+            "Дата", "Артикул WB", "Показы", "Клики", "CTR", "CPC", "Расход", "Корзины", "Заказы", "CR", "CPA",
+            "Заказано шт.", "Отмены", "Сумма заказов");
+
+    private final AnalyticsExportRepository exportRepository;
+    private final AnalyticsService analyticsService;
+
+    /**
+     * Артикулы сводной с фильтрами запроса сводной (страница, курсор и периоды игнорируются).
+     */
+    public StreamingResponseBody exportSummaryArticles(User seller, Long cabinetId, SummaryRequestDto request, ExportFormat format) {
+        AnalyticsExportRepository.SummaryArticlesFilter filter = new AnalyticsExportRepository.SummaryArticlesFilter(
+                request.getExcludedNmIds(),
+                request.getIncludedNmIds(),
+                request.getSearch(),
+                request.getOnlyWithPhoto(),
+                request.getOnlyPriority(),
+                request.getOnlyInAdvertising()
+        );
+        boolean filterToNone = Boolean.TRUE.equals(request.getFilterToNone());
+        boolean itemRatingSupported = analyticsService.isItemRatingSupported(seller.getId(), cabinetId);
+        Sort.Direction sortDir = Sort.Direction.fromOptionalString(request.getSortDir()).orElse(Sort.Direction.DESC);
+        Long sellerId = seller.getId();
+
+        return out -> write(format, out, "Сводная", SUMMARY_COLUMNS, writer -> {
+            if (filterToNone) {
+                return;
+            }
+            exportRepository.streamSummaryArticles(sellerId, cabinetId, filter, sortDir, rs -> writer.row(
+                    rs.getLong(1),
+                    rs.getString(2),
+                    rs.getString(3),
+                    rs.getString(4),
+                    rs.getString(5),
+                    itemRatingSupported ? ArticleRatingUtils.toDisplayRating(rs.getBigDecimal(6)) : null,
+                    rs.getBoolean(7),
+                    rs.getObject(8, LocalDateTime.class)
+            ));
+        });
+    }
+
+    /**
+     * Поисковые кластеры кампании за период (фильтры и сортировка — как у экрана кластеров, без пагинации).
+     *
+     * @return тело ответа или {@code null}, если кампания недоступна
+     */
+    public StreamingResponseBody exportNormQueryClusters(
+            Long campaignId,
+            Long cabinetId,
+            Long sellerId,
+            LocalDate dateFrom,
+            LocalDate dateTo,
+            Long nmId,
+            String search,
+            String sortBy,
+            String sortDir,
+            ExportFormat format
+    ) {
+        Long advertId = analyticsService.resolveCampaignAdvertId(campaignId, cabinetId, sellerId);
+        if (advertId == null) {
+            return null;
+        }
+        ExportPeriod period = ExportPeriod.of(dateFrom, dateTo);
+        String searchPattern = WbPromotionNormQueryStatisticsService.toSearchPattern(search);
+        NormQueryClusterSortField resolvedSortBy = NormQueryClusterSortField.fromParam(sortBy);
+        Sort.Direction resolvedSortDir = Sort.Direction.fromOptionalString(sortDir).orElse(Sort.Direction.DESC);
+
+        return out -> write(format, out, "Кластеры", NORM_QUERY_COLUMNS, writer ->
+                exportRepository.streamNormQueryClusters(advertId, period.from(), period.to(), nmId, searchPattern,
+                        resolvedSortBy, resolvedSortDir, rs -> writer.row(
+                                rs.getString(1),
+                                rs.getBigDecimal(2),
+                                rs.getLong(3),
+                                rs.getLong(4),
+                                rs.getLong(5),
+                                rs.getBigDecimal(6),
+                                rs.getBigDecimal(7),
+                                rs.getBigDecimal(8)
+                        )));
+    }
+
+    /**
+     * Суточная статистика кампании по артикулам за период.
+     *
+     * @return тело ответа или {@code null}, если кампания недоступна
+     */
+    public StreamingResponseBody exportCampaignStatistics(
+            Long campaignId,
+            Long cabinetId,
+            Long sellerId,
+            LocalDate dateFrom,
+            LocalDate dateTo,
+            Long nmId,
+            ExportFormat format
+    ) {
+        Long advertId = analyticsService.resolveCampaignAdvertId(campaignId, cabinetId, sellerId);
+        if (advertId == null) {
+            return null;
+        }
+        ExportPeriod period = ExportPeriod.of(dateFrom, dateTo);
+
+        return out -> write(format, out, "Статистика", CAMPAIGN_STATISTICS_COLUMNS, writer ->
+                exportRepository.streamCampaignStatistics(advertId, period.from(), period.to(), nmId, rs -> writer.row(
+                        rs.getObject(1, LocalDate.class),
+                        rs.getLong(2),
+                        rs.getObject(3, Integer.class),
+                        rs.getObject(4, Integer.class),
+                        rs.getBigDecimal(5),
+                        rs.getBigDecimal(6),
+                        rs.getBigDecimal(7),
+                        rs.getObject(8, Integer.class),
+                        rs.getObject(9, Integer.class),
+                        rs.getBigDecimal(10),
+                        rs.getBigDecimal(11),
+                        rs.getObject(12, Integer.class),
+                        rs.getObject(13, Integer.class),
+                        rs.getBigDecimal(14)
+                )));
+    }
+
+    /**
+     * Имя файла выгрузки: {@code <prefix>-<дата>.<расширение>}.
+     */
+    public static String fileName(String prefix, ExportFormat format) {
+        return prefix + "-" + LocalDate.now() + "." + format.getExtension();
+    }
+
+    private void write(
+            ExportFormat format,
+            OutputStream out,
+            String sheetName,
+            List<String> columns,
+            RowsWriter rows
+    ) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        try (TabularExportWriter writer = TabularExportWriter.open(format, out, sheetName)) {
+            writer.header(columns);
+            try {
+                rows.writeRows(new RowSink(writer));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.finish();
+        }
+        log.info("Выгрузка «{}» ({}) сформирована за {} мс", sheetName, format, System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * Период выгрузки: по умолчанию последние 14 дней (как у экрана кластеров), перепутанные границы меняются местами.
+     */
+    private record ExportPeriod(LocalDate from, LocalDate to) {
+
+        static ExportPeriod of(LocalDate dateFrom, LocalDate dateTo) {
+            LocalDate from = dateFrom != null ? dateFrom : LocalDate.now().minusDays(DEFAULT_PERIOD_DAYS - 1);
+            LocalDate to = dateTo != null ? dateTo : LocalDate.now();
+            return from.isAfter(to) ? new ExportPeriod(to, from) : new ExportPeriod(from, to);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowsWriter {
+        void writeRows(RowSink sink);
+    }
+
+    /**
+     * Адаптер писателя для {@link RowCallbackHandler}: ошибки записи в поток пробрасываются как {@link UncheckedIOException}.
+     */
+    private record RowSink(TabularExportWriter writer) {
+
+        void row(Object... values) {
+            try {
+                writer.row(values);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ru.oparin.solution.service.export;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Формат файла выгрузки.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+
+    CSV("text/csv;charset=UTF-8", "csv"),
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+    private final String contentType;
+    private final String extension;
+
+    /**
+     * Разбор параметра REST ({@code csv}, {@code xlsx}); по умолчанию CSV.
+     *
+     * @throws IllegalArgumentException если формат не поддерживается
+     */
+    public static ExportFormat fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return CSV;
+        }
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value.trim())) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Неподдерживаемый формат выгрузки: " + value);
+    }
+}
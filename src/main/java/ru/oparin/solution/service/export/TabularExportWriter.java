@@ -0,0 +1,34 @@
+package ru.oparin.solution.service.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Построчная запись табличной выгрузки в поток ответа. Реализации не накапливают строки в памяти.
+ */
+public interface TabularExportWriter extends Closeable {
+
+    /**
+     * Открывает писатель нужного формата поверх потока ответа (поток закрывает вызывающий код).
+     */
+    static TabularExportWriter open(ExportFormat format, OutputStream out, String sheetName) {
+        return switch (format) {
+            case CSV -> new CsvExportWriter(out);
+            case XLSX -> new XlsxExportWriter(out, sheetName);
+        };
+    }
+
+    void header(List<String> columns) throws IOException;
+
+    /**
+     * Строка значений: {@code String}, {@code Number}, {@code Boolean}, {@code LocalDate}, {@code LocalDateTime} или {@code null}.
+     */
+    void row(Object... values) throws IOException;
+
+    /**
+     * Дописывает файл в поток. Для XLSX книга целиком формируется только здесь (из временных файлов SXSSF).
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,149 @@
+package ru.oparin.solution.service.files;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.oparin.solution.model.StoredBlob;
+import ru.oparin.solution.repository.StoredBlobRepository;
+import ru.oparin.solution.service.abtest.WbAbTestService;
+import ru.oparin.solution.util.ContentHashUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Контентно-адресуемое хранилище загрузок: файл лежит по SHA-256 содержимого
+ * ({@code blobs/ab/cd/<sha256><ext>}), одинаковые загрузки делят один файл и его UI-превью.
+ * <p>
+ * Поток пишется во временный файл в каталоге {@code blobs} с подсчётом хэша и переносится на место
+ * атомарным rename; если такой blob уже есть, временный файл удаляется. Ссылки владельцев считает
+ * {@link StoredFileManifestService}, файлы без ссылок удаляет очистка загрузок.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ContentAddressedBlobStore {
+
+    /** Каталог blob внутри каталога загрузок. */
+    public static final String BLOB_DIRECTORY = "blobs";
+
+    private static final String TEMP_PREFIX = ".upload-";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int MAX_EXTENSION_LENGTH = 10;
+
+    private final StoredFileManifestService manifestService;
+    private final StoredBlobRepository storedBlobRepository;
+
+    @Value("${app.uploads.directory}")
+    private String uploadsDirectory;
+
+    /**
+     * Записывает поток в хранилище и резервирует blob; поток читается один раз, без буферизации в памяти.
+     *
+     * @param extension расширение для нового blob (из имени загруженного файла), может быть {@code null}
+     */
+    public StoredContent store(InputStream source, String extension) throws IOException {
+        Path blobsRoot = uploadsRoot().resolve(BLOB_DIRECTORY);
+        Files.createDirectories(blobsRoot);
+        Path temp = blobsRoot.resolve(TEMP_PREFIX + UUID.randomUUID() + TEMP_SUFFIX);
+        try {
+            String contentSha256 = ContentHashUtils.copyWithSha256(source, temp);
+            long sizeBytes = Files.size(temp);
+            String storedName = manifestService.reserveBlob(contentSha256, blobName(contentSha256, extension), sizeBytes);
+            Path target = resolve(storedName);
+            if (Files.isRegularFile(target)) {
+                log.debug("Загрузка совпала с существующим blob: {}", storedName);
+            } else {
+                Files.createDirectories(target.getParent());
+                moveAtomically(temp, target);
+            }
+            return new StoredContent(storedName, contentSha256, sizeBytes, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Удаляет blob без ссылок вместе с UI-превью. Строка блокируется на время удаления файла,
+     * поэтому параллельная загрузка того же содержимого дождётся удаления и запишет файл заново.
+     *
+     * @return {@code true}, если blob удалён
+     */
+    @Transactional
+    public boolean deleteIfUnreferenced(String contentSha256, LocalDateTime touchedBefore) {
+        StoredBlob blob = storedBlobRepository.lockUnreferenced(contentSha256, touchedBefore).orElse(null);
+        if (blob == null) {
+            return false;
+        }
+        Path path = resolve(blob.getStoredName());
+        try {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(path.resolveSibling(path.getFileName() + WbAbTestService.UI_PREVIEW_SUFFIX));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось удалить blob " + blob.getStoredName(), e);
+        }
+        storedBlobRepository.delete(blob);
+        log.info("Удалён blob загрузок без ссылок: {}", blob.getStoredName());
+        return true;
+    }
+
+    /**
+     * Абсолютный путь blob по пути относительно каталога загрузок.
+     */
+    public Path resolve(String storedName) {
+        Path uploadsRoot = uploadsRoot();
+        Path path = uploadsRoot.resolve(storedName).normalize();
+        if (!path.startsWith(uploadsRoot)) {
+            throw new IllegalArgumentException("Путь вне каталога загрузок: " + storedName);
+        }
+        return path;
+    }
+
+    private Path uploadsRoot() {
+        return Paths.get(uploadsDirectory).toAbsolutePath().normalize();
+    }
+
+    private static String blobName(String contentSha256, String extension) {
+        return BLOB_DIRECTORY + "/" + contentSha256.substring(0, 2) + "/" + contentSha256.substring(2, 4)
+                + "/" + contentSha256 + normalizeExtension(extension);
+    }
+
+    /**
+     * Расширение в нижнем регистре с точкой; непечатное, слишком длинное или с разделителями пути отбрасывается.
+     */
+    private static String normalizeExtension(String extension) {
+        if (extension == null) {
+            return "";
+        }
+        String ext = extension.startsWith(".") ? extension.substring(1) : extension;
+        if (ext.isEmpty() || ext.length() > MAX_EXTENSION_LENGTH) {
+            return "";
+        }
+        for (int i = 0; i < ext.length(); i++) {
+            char c = ext.charAt(i);
+            if (c >= 128 || !Character.isLetterOrDigit(c)) {
+                return "";
+            }
+        }
+        return "." + ext.toLowerCase(Locale.ROOT);
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
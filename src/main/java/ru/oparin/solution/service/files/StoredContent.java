@@ -0,0 +1,14 @@
+package ru.oparin.solution.service.files;
+
+import java.nio.file.Path;
+
+/**
+ * Файл, записанный в контентно-адресуемое хранилище загрузок.
+ *
+ * @param storedName    путь относительно каталога загрузок
+ * @param contentSha256 SHA-256 содержимого (hex)
+ * @param sizeBytes     размер в байтах
+ * @param path          абсолютный путь на диске
+ */
+public record StoredContent(String storedName, String contentSha256, long sizeBytes, Path path) {
+}
@@ -0,0 +1,14 @@
+package ru.oparin.solution.service.files;
+
+import java.nio.file.Path;
+
+/**
+ * Файл из хранилища загрузок, готовый к отдаче клиенту.
+ *
+ * @param path          путь на диске
+ * @param fileName      оригинальное имя (для {@code Content-Disposition})
+ * @param mimeType      MIME-тип из БД или {@code null}
+ * @param contentSha256 SHA-256 содержимого (hex) — строгий ETag; {@code null}, пока хэш старого файла не досчитан
+ */
+public record StoredFileDownload(Path path, String fileName, String mimeType, String contentSha256) {
+}
@@ -0,0 +1,60 @@
+package ru.oparin.solution.service.files;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.oparin.solution.model.StoredBlob;
+import ru.oparin.solution.model.StoredFile;
+import ru.oparin.solution.model.StoredFileOwnerType;
+import ru.oparin.solution.repository.StoredBlobRepository;
+import ru.oparin.solution.repository.StoredFileRepository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Запись манифеста загрузок: строки blob ({@code stored_blobs}) и ссылок владельцев на них ({@code stored_files}).
+ * <p>
+ * Порядок при загрузке: файл пишется во временный файл с подсчётом хэша → {@link #reserveBlob} (своя транзакция)
+ * → перенос на место → сохранение владельца → {@link #attach} в транзакции владельца. Если транзакция владельца
+ * откатится, у blob не появится ссылки и файл удалит очистка по истечении выдержки.
+ */
+@Service
+@RequiredArgsConstructor
+public class StoredFileManifestService {
+
+    private final StoredFileRepository storedFileRepository;
+    private final StoredBlobRepository storedBlobRepository;
+
+    /**
+     * Резервирует blob по хэшу содержимого; фиксируется сразу, независимо от транзакции вызывающего.
+     *
+     * @param storedName путь для нового blob; если blob с таким хэшем уже есть, используется его путь
+     * @return путь blob относительно каталога загрузок
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public String reserveBlob(String contentSha256, String storedName, long sizeBytes) {
+        storedBlobRepository.reserve(contentSha256, storedName, sizeBytes, LocalDateTime.now());
+        return storedBlobRepository.findById(contentSha256)
+                .map(StoredBlob::getStoredName)
+                .orElseThrow(() -> new IllegalStateException("Blob не найден после резерва: " + contentSha256));
+    }
+
+    /**
+     * Привязывает blob к сохранённому владельцу в текущей транзакции: строка манифеста и +1 к счётчику ссылок.
+     */
+    @Transactional
+    public void attach(StoredContent content, StoredFileOwnerType ownerType, Long ownerId) {
+        if (storedBlobRepository.incrementRefCount(content.contentSha256()) == 0) {
+            throw new IllegalStateException("Blob удалён до привязки к владельцу: " + content.storedName());
+        }
+        storedFileRepository.save(StoredFile.builder()
+                .storedName(content.storedName())
+                .ownerType(ownerType)
+                .ownerId(ownerId)
+                .sizeBytes(content.sizeBytes())
+                .contentSha256(content.contentSha256())
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+}
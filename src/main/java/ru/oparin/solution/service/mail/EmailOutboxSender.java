@@ -0,0 +1,83 @@
+package ru.oparin.solution.service.mail;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+import ru.oparin.solution.model.EmailOutboxMessage;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Отправка писем из очереди: пачка due-писем уходит одним вызовом {@link JavaMailSender#send(SimpleMailMessage...)}
+ * (одно SMTP-соединение на пачку), результат по каждому письму пишется в строку очереди.
+ * <p>
+ * SMTP-обмен идёт вне транзакций БД: захват и запись результата — отдельные короткие транзакции.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxSender {
+
+    private final EmailOutboxService outboxService;
+    private final JavaMailSender mailSender;
+
+    @Value("${app.mail.from}")
+    private String fromEmail;
+
+    /**
+     * Отправляет очередную пачку писем.
+     *
+     * @return число писем, взятых в отправку
+     */
+    public int sendDueBatch() {
+        List<EmailOutboxMessage> batch = outboxService.claimDue();
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Map<SimpleMailMessage, EmailOutboxMessage> byMail = new IdentityHashMap<>();
+        SimpleMailMessage[] mails = new SimpleMailMessage[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            mails[i] = toMail(batch.get(i));
+            byMail.put(mails[i], batch.get(i));
+        }
+
+        Map<Long, Exception> failures = new HashMap<>();
+        try {
+            mailSender.send(mails);
+        } catch (MailSendException e) {
+            Map<Object, Exception> failed = e.getFailedMessages();
+            if (failed.isEmpty()) {
+                batch.forEach(message -> failures.put(message.getId(), e));
+            } else {
+                failed.forEach((mail, error) -> {
+                    EmailOutboxMessage message = mail instanceof SimpleMailMessage simple ? byMail.get(simple) : null;
+                    if (message != null) {
+                        failures.put(message.getId(), error);
+                    }
+                });
+            }
+        } catch (Exception e) {
+            log.error("Ошибка SMTP при отправке пачки из {} писем: {}. Проверьте MAIL_PASSWORD и настройки почты.",
+                    batch.size(), e.getMessage());
+            batch.forEach(message -> failures.put(message.getId(), e));
+        }
+        outboxService.recordResults(batch, failures);
+        return batch.size();
+    }
+
+    private SimpleMailMessage toMail(EmailOutboxMessage message) {
+        SimpleMailMessage mail = new SimpleMailMessage();
+        mail.setFrom(fromEmail);
+        mail.setTo(message.getToEmail());
+        mail.setSubject(message.getSubject());
+        mail.setText(message.getBody());
+        return mail;
+    }
+}
@@ -0,0 +1,157 @@
+package ru.oparin.solution.service.mail;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.oparin.solution.config.MailOutboxProperties;
+import ru.oparin.solution.model.EmailOutboxMessage;
+import ru.oparin.solution.model.EmailOutboxStatus;
+import ru.oparin.solution.repository.EmailOutboxRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Исходящая очередь писем: постановка в транзакции вызывающего кода и учёт результатов отправки.
+ * <p>
+ * Письмо уходит только после коммита бизнес-транзакции; при откате строка очереди откатывается вместе с ней.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxService {
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+    private static final String STALE_SENDING_ERROR = "Результат последней попытки не записан: письмо зависло в SENDING";
+
+    private final EmailOutboxRepository outboxRepository;
+    private final MailOutboxProperties properties;
+
+    /**
+     * Ставит письмо в очередь (в текущей транзакции, если она есть).
+     *
+     * @param context назначение письма для логов
+     */
+    @Transactional
+    public void enqueue(String toEmail, String subject, String text, String context) {
+        LocalDateTime now = LocalDateTime.now();
+        EmailOutboxMessage message = EmailOutboxMessage.builder()
+                .toEmail(toEmail)
+                .subject(subject)
+                .body(text)
+                .context(context)
+                .status(EmailOutboxStatus.PENDING)
+                .attemptCount(0)
+                .maxAttempts(properties.getMaxAttempts())
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+        outboxRepository.save(message);
+        log.info("Письмо ({}) на {} поставлено в очередь", context, toEmail);
+    }
+
+    /**
+     * Захватывает due-письма для отправки (PENDING → SENDING) с учётом лимита писем в минуту.
+     */
+    @Transactional
+    public List<EmailOutboxMessage> claimDue() {
+        LocalDateTime now = LocalDateTime.now();
+        long sentLastMinute = outboxRepository.countByStatusAndSentAtAfter(EmailOutboxStatus.SENT, now.minusMinutes(1));
+        int allowance = (int) Math.min(properties.getBatchSize(), properties.getMaxPerMinute() - sentLastMinute);
+        if (allowance <= 0) {
+            return List.of();
+        }
+        List<EmailOutboxMessage> due = outboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAscIdAsc(
+                EmailOutboxStatus.PENDING, now, PageRequest.of(0, allowance));
+        for (EmailOutboxMessage message : due) {
+            message.setStatus(EmailOutboxStatus.SENDING);
+            message.setAttemptCount(message.getAttemptCount() + 1);
+            message.setUpdatedAt(now);
+        }
+        return outboxRepository.saveAll(due);
+    }
+
+    /**
+     * Записывает результат отправки пачки.
+     *
+     * @param failures ошибки по ID писем; письма без ошибки считаются отправленными
+     */
+    @Transactional
+    public void recordResults(List<EmailOutboxMessage> batch, Map<Long, Exception> failures) {
+        LocalDateTime now = LocalDateTime.now();
+        for (EmailOutboxMessage message : batch) {
+            Exception error = failures.get(message.getId());
+            if (error == null) {
+                message.setStatus(EmailOutboxStatus.SENT);
+                message.setSentAt(now);
+                message.setLastError(null);
+                log.info("Письмо ({}) отправлено на {}", message.getContext(), message.getToEmail());
+            } else if (message.getAttemptCount() >= message.getMaxAttempts()) {
+                message.setStatus(EmailOutboxStatus.FAILED);
+                message.setLastError(truncate(error.getMessage()));
+                log.error("Письмо ({}) на {} не отправлено после {} попыток: {}",
+                        message.getContext(), message.getToEmail(), message.getAttemptCount(), error.getMessage());
+            } else {
+                message.setStatus(EmailOutboxStatus.PENDING);
+                message.setNextAttemptAt(now.plusSeconds(backoffSeconds(message.getAttemptCount())));
+                message.setLastError(truncate(error.getMessage()));
+                log.warn("Ошибка отправки письма ({}) на {}, попытка {}: {}",
+                        message.getContext(), message.getToEmail(), message.getAttemptCount(), error.getMessage());
+            }
+            message.setUpdatedAt(now);
+        }
+        outboxRepository.saveAll(batch);
+    }
+
+    /**
+     * Возвращает в очередь письма, зависшие в SENDING дольше таймаута (доставка «хотя бы один раз»).
+     * Зависшие на последней попытке переводятся в FAILED, а не получают попытку сверх {@code maxAttempts}.
+     *
+     * @return число возвращённых в очередь писем
+     */
+    @Transactional
+    public int requeueStale() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minusMinutes(properties.getSendingTimeoutMinutes());
+        int failed = outboxRepository.failStaleExhausted(
+                EmailOutboxStatus.SENDING,
+                EmailOutboxStatus.FAILED,
+                staleBefore,
+                STALE_SENDING_ERROR,
+                now
+        );
+        if (failed > 0) {
+            log.error("Исходящая почта: {} писем зависли в SENDING на последней попытке и переведены в FAILED", failed);
+        }
+        return outboxRepository.requeueStale(
+                EmailOutboxStatus.SENDING,
+                EmailOutboxStatus.PENDING,
+                staleBefore,
+                now
+        );
+    }
+
+    /**
+     * Удаляет отправленные письма старше срока хранения.
+     */
+    @Transactional
+    public long deleteSentBefore(LocalDateTime threshold) {
+        return outboxRepository.deleteByStatusAndSentAtBefore(EmailOutboxStatus.SENT, threshold);
+    }
+
+    private long backoffSeconds(int attempt) {
+        long backoff = properties.getInitialBackoffSeconds() << Math.min(Math.max(attempt - 1, 0), 20);
+        return Math.min(backoff, properties.getMaxBackoffSeconds());
+    }
+
+    private static String truncate(String value) {
+        if (value == null || value.length() <= MAX_ERROR_LENGTH) {
+            return value;
+        }
+        return value.substring(0, MAX_ERROR_LENGTH);
+    }
+}
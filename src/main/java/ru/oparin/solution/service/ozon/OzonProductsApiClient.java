@@ -10,11 +10,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import ru.oparin.solution.config.OzonHttpProperties;
 import ru.oparin.solution.dto.ozon.OzonProductInfoListResponse;
 import ru.oparin.solution.dto.ozon.OzonProductInfoPricesResponse;
 import ru.oparin.solution.dto.ozon.OzonProductInfoStocksResponse;
 import ru.oparin.solution.dto.ozon.OzonProductListResponse;
 import ru.oparin.solution.model.OzonApiEventType;
+import ru.oparin.solution.util.BaseUrlOverrideInterceptor;
 
 import java.time.Duration;
 import java.util.LinkedHashMap;
@@ -38,11 +40,13 @@ public class OzonProductsApiClient {
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
 
-    public OzonProductsApiClient() {
+    public OzonProductsApiClient(OzonHttpProperties ozonHttpProperties) {
         SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
         requestFactory.setConnectTimeout(CONNECT_TIMEOUT);
         requestFactory.setReadTimeout(READ_TIMEOUT);
         this.restTemplate = new RestTemplate(requestFactory);
+        BaseUrlOverrideInterceptor.of(ozonHttpProperties.getBaseUrlOverride())
+                .ifPresent(restTemplate.getInterceptors()::add);
         this.objectMapper = new ObjectMapper()
                 .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
     }
@@ -9,8 +9,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import ru.oparin.solution.config.OzonHttpProperties;
 import ru.oparin.solution.dto.ozon.OzonSellerInfoResponse;
 import ru.oparin.solution.model.OzonApiEventType;
+import ru.oparin.solution.util.BaseUrlOverrideInterceptor;
 
 import java.time.Duration;
 
@@ -31,11 +33,13 @@ public class OzonSellerApiClient {
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
 
-    public OzonSellerApiClient() {
+    public OzonSellerApiClient(OzonHttpProperties ozonHttpProperties) {
         SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
         requestFactory.setConnectTimeout(CONNECT_TIMEOUT);
         requestFactory.setReadTimeout(READ_TIMEOUT);
         this.restTemplate = new RestTemplate(requestFactory);
+        BaseUrlOverrideInterceptor.of(ozonHttpProperties.getBaseUrlOverride())
+                .ifPresent(restTemplate.getInterceptors()::add);
         this.objectMapper = new ObjectMapper()
                 .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
     }
@@ -0,0 +1,113 @@
+package ru.oparin.solution.service.sync;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import ru.oparin.solution.config.OzonEventsProperties;
+import ru.oparin.solution.dto.ozon.OzonProductInfoListResponse;
+import ru.oparin.solution.dto.ozon.OzonProductListResponse;
+import ru.oparin.solution.model.Cabinet;
+import ru.oparin.solution.service.OzonProductCardService;
+import ru.oparin.solution.service.ozon.OzonProductsApiClient;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Загрузка каталога Ozon с упреждением страниц: список + детальная информация страницы N+1
+ * запрашиваются, пока страница N сохраняется.
+ */
+@Service
+@Slf4j
+public class OzonProductCatalogSyncService {
+
+    private static final int PAGE_LIMIT = 100;
+
+    private final OzonProductsApiClient productsApiClient;
+    private final OzonProductCardService productCardService;
+    private final OzonEventsProperties ozonEventsProperties;
+    private final Executor pageFetchExecutor;
+
+    public OzonProductCatalogSyncService(
+            OzonProductsApiClient productsApiClient,
+            OzonProductCardService productCardService,
+            OzonEventsProperties ozonEventsProperties,
+            @Qualifier("ozonPageFetchExecutor") Executor pageFetchExecutor
+    ) {
+        this.productsApiClient = productsApiClient;
+        this.productCardService = productCardService;
+        this.ozonEventsProperties = ozonEventsProperties;
+        this.pageFetchExecutor = pageFetchExecutor;
+    }
+
+    /**
+     * Грузит страницы каталога начиная с {@code startLastId}, пока не кончится список или бюджет времени события.
+     *
+     * @param onPageCommitted вызывается с {@code last_id} следующей страницы после сохранения каждой страницы (чекпойнт)
+     */
+    public PipelinedPageLoader.Result syncPages(
+            Cabinet cabinet,
+            String clientId,
+            String apiKey,
+            String startLastId,
+            Consumer<String> onPageCommitted
+    ) {
+        long deadlineMs = System.currentTimeMillis()
+                + Math.max(1, ozonEventsProperties.getProductListBudgetSeconds()) * 1000L;
+        PipelinedPageLoader.Result result = PipelinedPageLoader.run(
+                startLastId != null ? startLastId : "",
+                lastId -> fetchPage(clientId, apiKey, lastId),
+                CatalogPage::nextLastId,
+                (page, nextLastId) -> {
+                    productCardService.saveOrUpdateProducts(cabinet, page.list(), page.info());
+                    onPageCommitted.accept(nextLastId);
+                },
+                () -> System.currentTimeMillis() < deadlineMs,
+                ozonEventsProperties.getPageFetchMinIntervalMs(),
+                pageFetchExecutor
+        );
+        log.info("Ozon каталог cabinetId={}: сохранено страниц {}, конец списка: {}",
+                cabinet.getId(), result.pages(), result.finished());
+        return result;
+    }
+
+    private CatalogPage fetchPage(String clientId, String apiKey, String lastId) {
+        OzonProductListResponse listResponse = productsApiClient.listProducts(clientId, apiKey, lastId, PAGE_LIMIT);
+        List<Long> productIds = extractProductIds(listResponse);
+        OzonProductInfoListResponse infoResponse = productIds.isEmpty()
+                ? null
+                : productsApiClient.getProductInfoList(clientId, apiKey, productIds);
+        return new CatalogPage(listResponse, infoResponse);
+    }
+
+    private static List<Long> extractProductIds(OzonProductListResponse listResponse) {
+        if (listResponse == null || listResponse.getResult() == null || listResponse.getResult().getItems() == null) {
+            return List.of();
+        }
+        return listResponse.getResult().getItems().stream()
+                .map(OzonProductListResponse.Item::getProductId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * Страница каталога: список товаров и детальная информация по ним.
+     */
+    private record CatalogPage(OzonProductListResponse list, OzonProductInfoListResponse info) {
+
+        /**
+         * {@code last_id} следующей страницы или пустая строка, если страниц больше нет.
+         */
+        String nextLastId() {
+            if (list == null || list.getResult() == null || list.getResult().getItems() == null
+                    || list.getResult().getItems().isEmpty()) {
+                return "";
+            }
+            String lastId = list.getResult().getLastId();
+            return lastId != null ? lastId : "";
+        }
+    }
+}
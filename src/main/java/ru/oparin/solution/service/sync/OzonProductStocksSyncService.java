@@ -1,17 +1,20 @@
 package ru.oparin.solution.service.sync;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import ru.oparin.solution.config.OzonEventsProperties;
+import ru.oparin.solution.dto.ozon.OzonProductInfoStocksResponse;
 import ru.oparin.solution.model.Cabinet;
 import ru.oparin.solution.service.OzonProductStockService;
 import ru.oparin.solution.service.ozon.OzonProductsApiClient;
 
+import java.util.concurrent.Executor;
+
 /**
  * Синхронизация остатков Ozon из Seller API.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class OzonProductStocksSyncService {
 
@@ -19,24 +22,42 @@ public class OzonProductStocksSyncService {
 
     private final OzonProductsApiClient productsApiClient;
     private final OzonProductStockService stockService;
+    private final OzonEventsProperties ozonEventsProperties;
+    private final Executor pageFetchExecutor;
+
+    public OzonProductStocksSyncService(
+            OzonProductsApiClient productsApiClient,
+            OzonProductStockService stockService,
+            OzonEventsProperties ozonEventsProperties,
+            @Qualifier("ozonPageFetchExecutor") Executor pageFetchExecutor
+    ) {
+        this.productsApiClient = productsApiClient;
+        this.stockService = stockService;
+        this.ozonEventsProperties = ozonEventsProperties;
+        this.pageFetchExecutor = pageFetchExecutor;
+    }
 
+    /**
+     * Загружает все страницы остатков; следующая страница запрашивается, пока текущая сохраняется.
+     * Курсор не сохраняется между запусками: при повторе остатки перезагружаются с начала (upsert идемпотентен).
+     */
     public void syncAllStocks(Cabinet cabinet, String clientId, String apiKey) {
         log.info("Ozon: загрузка остатков cabinetId={}", cabinet.getId());
-        String cursor = "";
-        int pages = 0;
-        int totalItems = 0;
-        do {
-            var page = productsApiClient.listProductStocks(clientId, apiKey, cursor, STOCKS_PAGE_LIMIT);
-            if (page.getItems() != null) {
-                totalItems += page.getItems().size();
-                stockService.saveStocks(cabinet, page);
-            }
-            pages++;
-            cursor = page.getCursor();
-            if (cursor == null) {
-                cursor = "";
-            }
-        } while (!cursor.isBlank());
-        log.info("Ozon: остатки загружены cabinetId={}, страниц={}, позиций={}", cabinet.getId(), pages, totalItems);
+        int[] totalItems = {0};
+        PipelinedPageLoader.Result result = PipelinedPageLoader.run(
+                "",
+                cursor -> productsApiClient.listProductStocks(clientId, apiKey, cursor, STOCKS_PAGE_LIMIT),
+                OzonProductInfoStocksResponse::getCursor,
+                (page, nextCursor) -> {
+                    if (page.getItems() != null) {
+                        totalItems[0] += page.getItems().size();
+                        stockService.saveStocks(cabinet, page);
+                    }
+                },
+                () -> true,
+                ozonEventsProperties.getPageFetchMinIntervalMs(),
+                pageFetchExecutor
+        );
+        log.info("Ozon: остатки загружены cabinetId={}, страниц={}, позиций={}", cabinet.getId(), result.pages(), totalItems[0]);
     }
 }
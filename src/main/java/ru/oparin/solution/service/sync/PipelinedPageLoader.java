@@ -0,0 +1,158 @@
+package ru.oparin.solution.service.sync;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Курсорная постраничная загрузка с упреждением на одну страницу: пока страница N сохраняется,
+ * страница N+1 уже запрашивается. В полёте не больше одного запроса, поэтому частота запросов
+ * ограничивается только {@code minFetchIntervalMs}, а не временем сохранения.
+ * <p>
+ * Если сохранение падает, упреждающая загрузка отменяется с прерыванием потока: ожидание интервала
+ * прерывается сразу, уже начатый HTTP-запрос (блокирующий ввод-вывод не реагирует на interrupt)
+ * дорабатывает до ответа или таймаута клиента, но его результат отбрасывается.
+ */
+public final class PipelinedPageLoader {
+
+    private PipelinedPageLoader() {
+    }
+
+    /**
+     * Загрузка страницы по курсору.
+     */
+    @FunctionalInterface
+    public interface PageFetcher<P> {
+        P fetch(String cursor);
+    }
+
+    /**
+     * Сохранение страницы; вызывается последовательно в потоке вызывающего кода.
+     *
+     * @param <P> тип страницы
+     */
+    @FunctionalInterface
+    public interface PageHandler<P> {
+        /**
+         * @param nextCursor курсор следующей страницы (чекпойнт после успешного сохранения), пустой — страниц больше нет
+         */
+        void handle(P page, String nextCursor);
+    }
+
+    /**
+     * Итог прохода.
+     *
+     * @param cursor   курсор, с которого продолжать (после последней сохранённой страницы)
+     * @param pages    сколько страниц сохранено
+     * @param finished {@code true}, если достигнут конец списка
+     */
+    public record Result(String cursor, int pages, boolean finished) {
+    }
+
+    /**
+     * Загружает и сохраняет страницы, пока они есть и {@code continueFetching} разрешает запрос следующей.
+     *
+     * @param startCursor        курсор первой страницы ({@code ""} — с начала)
+     * @param nextCursor         курсор следующей страницы из ответа ({@code null}/пустой — конец)
+     * @param continueFetching   проверяется перед запросом каждой следующей страницы (бюджет времени)
+     * @param minFetchIntervalMs минимальный интервал между началами запросов
+     * @param executor           пул упреждающей загрузки
+     */
+    public static <P> Result run(
+            String startCursor,
+            PageFetcher<P> fetcher,
+            Function<P, String> nextCursor,
+            PageHandler<P> handler,
+            BooleanSupplier continueFetching,
+            long minFetchIntervalMs,
+            Executor executor
+    ) {
+        Pacer pacer = new Pacer(minFetchIntervalMs);
+        FutureTask<P> inFlight = fetchAsync(fetcher, startCursor, pacer, executor);
+        String cursor = startCursor;
+        int pages = 0;
+        while (inFlight != null) {
+            P page = await(inFlight);
+            String next = normalize(nextCursor.apply(page));
+            boolean more = !next.isEmpty();
+            inFlight = more && continueFetching.getAsBoolean() ? fetchAsync(fetcher, next, pacer, executor) : null;
+            try {
+                handler.handle(page, next);
+            } catch (RuntimeException e) {
+                if (inFlight != null) {
+                    inFlight.cancel(true);
+                }
+                throw e;
+            }
+            pages++;
+            cursor = next;
+            if (!more) {
+                return new Result(cursor, pages, true);
+            }
+        }
+        return new Result(cursor, pages, false);
+    }
+
+    /**
+     * Запускает загрузку через {@link FutureTask}: в отличие от {@code CompletableFuture}, его
+     * {@code cancel(true)} прерывает поток, выполняющий загрузку.
+     */
+    private static <P> FutureTask<P> fetchAsync(PageFetcher<P> fetcher, String cursor, Pacer pacer, Executor executor) {
+        FutureTask<P> task = new FutureTask<>(() -> {
+            pacer.awaitSlot();
+            return fetcher.fetch(cursor);
+        });
+        executor.execute(task);
+        return task;
+    }
+
+    private static <P> P await(FutureTask<P> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ожидание страницы прервано", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Ошибка загрузки страницы", e.getCause());
+        }
+    }
+
+    private static String normalize(String cursor) {
+        return cursor == null ? "" : cursor.trim();
+    }
+
+    /**
+     * Выдерживает минимальный интервал между запросами одного прохода.
+     */
+    private static final class Pacer {
+
+        private final long minIntervalMs;
+        private long lastStartedAtMs;
+
+        Pacer(long minIntervalMs) {
+            this.minIntervalMs = Math.max(0, minIntervalMs);
+        }
+
+        synchronized void awaitSlot() {
+            long waitMs = lastStartedAtMs + minIntervalMs - System.currentTimeMillis();
+            if (waitMs > 0) {
+                try {
+                    Thread.sleep(waitMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Загрузка страницы прервана", e);
+                }
+            }
+            lastStartedAtMs = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package ru.oparin.solution.service.sync;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.oparin.solution.dto.wb.WbOrdersResponse;
+import ru.oparin.solution.model.Cabinet;
+import ru.oparin.solution.repository.WbOrderCopyWriter;
+import ru.oparin.solution.repository.WbOrderRepository;
+import ru.oparin.solution.service.wb.WbOrdersApiClient;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Журнал заказов WB ({@code wb_orders}): инкрементальная загрузка из Statistics API и сводки по нему.
+ * <p>
+ * Заказы читаются потоково и пишутся пачками по {@code app.wb-orders.write-batch-size} в короткой транзакции,
+ * курсор — максимальный {@code last_change_date} кабинета в журнале. СПП и дневные заказы/выручка
+ * по артикулу считаются SQL-запросами по журналу, без повторных вызовов WB.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WbOrdersLedgerService {
+
+    /**
+     * WB отдаёт не более ~80 000 заказов за запрос; полная страница означает, что есть продолжение.
+     */
+    private static final int WB_PAGE_LIMIT = 80_000;
+
+    /**
+     * Год-заглушка WB для пустых дат ({@code 0001-01-01T00:00:00}).
+     */
+    private static final int MIN_VALID_YEAR = 2000;
+
+    private final WbOrdersApiClient ordersApiClient;
+    private final WbOrderRepository orderRepository;
+    private final WbOrderCopyWriter orderCopyWriter;
+
+    /**
+     * self-proxy, чтобы {@code @Transactional} на записи пачки не обходился самовызовом.
+     */
+    @Lazy
+    @Autowired
+    private WbOrdersLedgerService self;
+
+    @Value("${app.wb-orders.initial-days:3}")
+    private int initialDays;
+
+    @Value("${app.wb-orders.write-batch-size:1000}")
+    private int writeBatchSize;
+
+    /**
+     * Дозагружает в журнал заказы кабинета, изменённые с момента последней загрузки
+     * (для пустого журнала — за {@code app.wb-orders.initial-days} дней).
+     *
+     * @return число полученных от WB заказов
+     */
+    public int syncOrders(Cabinet cabinet, String apiKey) {
+        Long cabinetId = cabinet.getId();
+        LocalDateTime cursor = orderRepository.findMaxLastChangeDate(cabinetId)
+                .orElseGet(() -> LocalDate.now().minusDays(initialDays).atStartOfDay());
+        int total = 0;
+        while (true) {
+            LedgerBatch batch = new LedgerBatch(cabinetId);
+            int received = ordersApiClient.streamOrders(apiKey, cursor, batch::add);
+            batch.flush();
+            total += received;
+            log.info("Журнал заказов кабинета (ID: {}): с {} получено {}, записано {}",
+                    cabinetId, cursor, received, batch.written);
+            if (received < WB_PAGE_LIMIT || batch.maxLastChangeDate == null || !batch.maxLastChangeDate.isAfter(cursor)) {
+                return total;
+            }
+            cursor = batch.maxLastChangeDate;
+        }
+    }
+
+    /**
+     * Записывает пачку заказов в журнал одной транзакцией.
+     */
+    @Transactional
+    public int appendOrders(Long cabinetId, List<WbOrderCopyWriter.Row> rows) {
+        return orderCopyWriter.append(cabinetId, rows);
+    }
+
+    /**
+     * СПП по артикулам из заказов за дату (см. {@link WbOrderRepository#findSppByNmId}).
+     */
+    public List<WbOrderRepository.SppByNmIdProjection> getSppByNmId(Long cabinetId, LocalDate date) {
+        return orderRepository.findSppByNmId(cabinetId, date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Заказы, отмены и выручка по артикулу за каждый день периода (включительно).
+     */
+    public List<WbOrderRepository.DailyOrdersProjection> getDailyOrders(Long cabinetId, LocalDate dateFrom, LocalDate dateTo) {
+        return orderRepository.findDailyOrders(cabinetId, dateFrom.atStartOfDay(), dateTo.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Заказы, отмены и выручка одного артикула за каждый день периода (включительно).
+     */
+    public List<WbOrderRepository.DailyOrdersProjection> getDailyOrders(
+            Long cabinetId, Long nmId, LocalDate dateFrom, LocalDate dateTo) {
+        return orderRepository.findDailyOrdersByNmId(
+                cabinetId, nmId, dateFrom.atStartOfDay(), dateTo.plusDays(1).atStartOfDay());
+    }
+
+    private static WbOrderCopyWriter.Row toRow(WbOrdersResponse.Order order) {
+        LocalDateTime orderDate = parseWbDateTime(order.getDate());
+        LocalDateTime lastChangeDate = parseWbDateTime(order.getLastChangeDate());
+        if (order.getSrid() == null || order.getSrid().isBlank() || orderDate == null || lastChangeDate == null) {
+            return null;
+        }
+        return new WbOrderCopyWriter.Row(
+                order.getSrid(),
+                order.getGNumber(),
+                order.getNmId(),
+                order.getBarcode(),
+                order.getSupplierArticle(),
+                order.getWarehouseName(),
+                orderDate,
+                lastChangeDate,
+                order.getTotalPrice(),
+                order.getDiscountPercent(),
+                order.getSpp(),
+                order.getFinishedPrice(),
+                order.getPriceWithDisc(),
+                Boolean.TRUE.equals(order.getIsCancel()),
+                parseWbDateTime(order.getCancelDate())
+        );
+    }
+
+    private static LocalDateTime parseWbDateTime(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            LocalDateTime parsed = LocalDateTime.parse(value.length() > 19 && value.charAt(10) == 'T'
+                    ? stripOffset(value)
+                    : value);
+            return parsed.getYear() < MIN_VALID_YEAR ? null : parsed;
+        } catch (DateTimeParseException e) {
+            log.warn("Не удалось разобрать дату заказа WB: {}", value);
+            return null;
+        }
+    }
+
+    /**
+     * WB отдаёт время МСК без смещения; на случай {@code Z}/смещения оно отбрасывается, дробная часть секунд остаётся.
+     */
+    private static String stripOffset(String value) {
+        int end = value.length();
+        for (int i = 19; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == 'Z' || c == '+' || c == '-') {
+                end = i;
+                break;
+            }
+        }
+        return value.substring(0, end);
+    }
+
+    /**
+     * Буфер заказов одного запроса: копит строки и сбрасывает их в журнал пачками.
+     */
+    private class LedgerBatch {
+
+        private final Long cabinetId;
+        private final List<WbOrderCopyWriter.Row> rows = new ArrayList<>();
+        private LocalDateTime maxLastChangeDate;
+        private int written;
+
+        LedgerBatch(Long cabinetId) {
+            this.cabinetId = cabinetId;
+        }
+
+        void add(WbOrdersResponse.Order order) {
+            WbOrderCopyWriter.Row row = toRow(order);
+            if (row == null) {
+                return;
+            }
+            if (maxLastChangeDate == null || row.lastChangeDate().isAfter(maxLastChangeDate)) {
+                maxLastChangeDate = row.lastChangeDate();
+            }
+            rows.add(row);
+            if (rows.size() >= writeBatchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (rows.isEmpty()) {
+                return;
+            }
+            written += self.appendOrders(cabinetId, new ArrayList<>(rows));
+            rows.clear();
+        }
+    }
+}
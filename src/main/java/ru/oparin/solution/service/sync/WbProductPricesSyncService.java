@@ -4,19 +4,19 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.ResourceAccessException;
-import ru.oparin.solution.dto.wb.WbOrdersResponse;
 import ru.oparin.solution.dto.wb.WbProductPricesRequest;
 import ru.oparin.solution.dto.wb.WbProductPricesResponse;
 import ru.oparin.solution.exception.WbApiUnauthorizedScopeException;
+import ru.oparin.solution.exception.WbRateLimitDeferException;
 import ru.oparin.solution.model.Cabinet;
 import ru.oparin.solution.model.WbApiBaseUrl;
 import ru.oparin.solution.model.WbProductCard;
 import ru.oparin.solution.model.WbProductPriceHistory;
+import ru.oparin.solution.repository.WbOrderRepository;
 import ru.oparin.solution.repository.WbProductCardRepository;
 import ru.oparin.solution.service.CabinetScopeStatusService;
 import ru.oparin.solution.service.WbProductPriceService;
 import ru.oparin.solution.service.wb.WbApiCategory;
-import ru.oparin.solution.service.wb.WbOrdersApiClient;
 import ru.oparin.solution.service.wb.WbProductsApiClient;
 
 import java.net.UnknownHostException;
@@ -37,7 +37,7 @@ public class WbProductPricesSyncService {
     private final WbProductCardRepository productCardRepository;
     private final WbProductPriceService productPriceService;
     private final WbProductsApiClient productsApiClient;
-    private final WbOrdersApiClient ordersApiClient;
+    private final WbOrdersLedgerService ordersLedgerService;
     private final CabinetScopeStatusService cabinetScopeStatusService;
 
     /**
@@ -83,7 +83,8 @@ public class WbProductPricesSyncService {
 
     /**
      * Обновляет СПП (скидку постоянного покупателя) из заказов WB за вчерашнюю дату.
-     * Загружает заказы за дату, извлекает значения СПП по артикулам и обновляет историю цен кабинета.
+     * Дозагружает журнал заказов кабинета, затем берёт значения СПП по артикулам из журнала SQL-запросом
+     * и обновляет историю цен кабинета. Если WB отложил дозагрузку по лимиту, СПП считается по уже загруженному.
      *
      * @param cabinet кабинет, для которого обновляется СПП
      * @param apiKey  API-ключ WB для доступа к API заказов
@@ -93,24 +94,34 @@ public class WbProductPricesSyncService {
         log.info("Начало обновления СПП из заказов за дату {} для кабинета (ID: {})", date, cabinet.getId());
 
         try {
-            List<WbOrdersResponse.Order> orders = ordersApiClient.getOrders(apiKey, date, 1);
-            if (orders == null || orders.isEmpty()) {
-                log.info("Не найдено заказов за дату {} для кабинета (ID: {}). Пропускаем обновление СПП.", date, cabinet.getId());
-                return;
+            try {
+                ordersLedgerService.syncOrders(cabinet, apiKey);
+            } catch (RuntimeException e) {
+                WbRateLimitDeferException defer = WbRateLimitDeferException.findInChain(e);
+                if (defer == null) {
+                    throw e;
+                }
+                log.warn("Дозагрузка заказов кабинета (ID: {}) отложена WB до {}; СПП по уже загруженным заказам",
+                        cabinet.getId(), defer.getDeferUntil());
             }
 
-            log.info("Получено заказов за дату {}: {} для кабинета (ID: {})", date, orders.size(), cabinet.getId());
-
-            SppExtractionResult sppResult = extractSppByNmIdFromOrders(orders);
-            logConflictingSppIfAny(sppResult.sppValuesByNmId(), sppResult.sppLastValueByNmId(), date);
-
-            if (sppResult.sppLastValueByNmId().isEmpty()) {
-                log.warn("Не найдено валидных данных СПП в заказах за дату {} для кабинета (ID: {})", date, cabinet.getId());
+            List<WbOrderRepository.SppByNmIdProjection> sppRows = ordersLedgerService.getSppByNmId(cabinet.getId(), date);
+            if (sppRows.isEmpty()) {
+                log.info("Не найдено заказов с СПП за дату {} для кабинета (ID: {}). Пропускаем обновление СПП.", date, cabinet.getId());
                 return;
             }
 
-            log.info("Найдено {} уникальных артикулов с данными СПП для обновления", sppResult.sppLastValueByNmId().size());
-            productPriceService.updateSppDiscount(sppResult.sppLastValueByNmId(), date, cabinet.getId());
+            Map<Long, Integer> sppByNmId = new HashMap<>();
+            for (WbOrderRepository.SppByNmIdProjection row : sppRows) {
+                sppByNmId.put(row.getNmId(), row.getSpp());
+                if (row.getDistinctValues() != null && row.getDistinctValues() > 1) {
+                    log.warn("Разные значения СПП для товара nmId={} за дату {}: {} значений. Используется последнее: {}",
+                            row.getNmId(), date, row.getDistinctValues(), row.getSpp());
+                }
+            }
+
+            log.info("Найдено {} уникальных артикулов с данными СПП для обновления", sppByNmId.size());
+            productPriceService.updateSppDiscount(sppByNmId, date, cabinet.getId());
             log.info("Завершено обновление СПП из заказов за дату {} для кабинета (ID: {})", date, cabinet.getId());
             cabinetScopeStatusService.recordSuccess(cabinet.getId(), WbApiCategory.STATISTICS);
         } catch (WbApiUnauthorizedScopeException e) {
@@ -188,34 +199,6 @@ public class WbProductPricesSyncService {
         }
     }
 
-    private static SppExtractionResult extractSppByNmIdFromOrders(List<WbOrdersResponse.Order> orders) {
-        Map<Long, Integer> sppLastValueByNmId = new HashMap<>();
-        Map<Long, Set<Integer>> sppValuesByNmId = new HashMap<>();
-
-        for (WbOrdersResponse.Order order : orders) {
-            if (order.getNmId() != null && order.getSpp() != null) {
-                Long nmId = order.getNmId();
-                Integer spp = order.getSpp();
-                sppValuesByNmId.computeIfAbsent(nmId, k -> new HashSet<>()).add(spp);
-                sppLastValueByNmId.put(nmId, spp);
-            }
-        }
-
-        return new SppExtractionResult(sppLastValueByNmId, sppValuesByNmId);
-    }
-
-    private static void logConflictingSppIfAny(
-            Map<Long, Set<Integer>> sppValuesByNmId,
-            Map<Long, Integer> sppLastValueByNmId,
-            LocalDate date) {
-        for (Map.Entry<Long, Set<Integer>> entry : sppValuesByNmId.entrySet()) {
-            if (entry.getValue().size() > 1) {
-                log.warn("Разные значения СПП для товара nmId={} за дату {}: {}. Используется последнее: {}",
-                        entry.getKey(), date, entry.getValue(), sppLastValueByNmId.get(entry.getKey()));
-            }
-        }
-    }
-
     private void handleWbUnauthorizedScope(Cabinet cabinet, WbApiUnauthorizedScopeException e) {
         cabinetScopeStatusService.recordFailure(cabinet.getId(), e.getCategory(), e.getMessage());
         log.warn("Для кабинета {} нет доступа к категории WB API: {}. Проверьте настройки токена в ЛК продавца.",
@@ -239,9 +222,4 @@ public class WbProductPricesSyncService {
         }
         return batches;
     }
-
-    private record SppExtractionResult(
-            Map<Long, Integer> sppLastValueByNmId,
-            Map<Long, Set<Integer>> sppValuesByNmId
-    ) {}
 }
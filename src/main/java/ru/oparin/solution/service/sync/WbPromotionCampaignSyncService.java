@@ -1,13 +1,14 @@
 package ru.oparin.solution.service.sync;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ru.oparin.solution.dto.wb.*;
 import ru.oparin.solution.exception.WbApiUnauthorizedScopeException;
 import ru.oparin.solution.exception.WbRateLimitDeferException;
 import ru.oparin.solution.model.*;
+import ru.oparin.solution.repository.CampaignNmIdProjection;
 import ru.oparin.solution.repository.WbCampaignArticleRepository;
 import ru.oparin.solution.repository.WbPromotionCampaignRepository;
 import ru.oparin.solution.repository.WbPromotionCampaignStatisticsRepository;
@@ -15,22 +16,29 @@ import ru.oparin.solution.service.WbPromotionCampaignService;
 import ru.oparin.solution.service.WbPromotionCampaignStatisticsService;
 import ru.oparin.solution.service.WbPromotionNormQueryStatisticsService;
 import ru.oparin.solution.service.wb.AbstractWbApiClient;
+import ru.oparin.solution.service.wb.WbApiEventAttemptContext;
 import ru.oparin.solution.service.wb.WbApiTokenTypeResolver;
 import ru.oparin.solution.service.wb.WbPromotionApiClient;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 
 /**
  * Синхронизация рекламных кампаний и их статистики с WB API.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class WbPromotionCampaignSyncService {
 
@@ -58,6 +66,29 @@ public class WbPromotionCampaignSyncService {
     private final WbCampaignArticleRepository campaignArticleRepository;
     private final WbPromotionCampaignStatisticsRepository campaignStatisticsRepository;
     private final WbApiTokenTypeResolver tokenTypeResolver;
+    private final Executor batchFetchExecutor;
+
+    public WbPromotionCampaignSyncService(
+            WbPromotionApiClient promotionApiClient,
+            WbPromotionCampaignService promotionCampaignService,
+            WbPromotionCampaignStatisticsService campaignStatisticsService,
+            WbPromotionNormQueryStatisticsService normQueryStatisticsService,
+            WbPromotionCampaignRepository campaignRepository,
+            WbCampaignArticleRepository campaignArticleRepository,
+            WbPromotionCampaignStatisticsRepository campaignStatisticsRepository,
+            WbApiTokenTypeResolver tokenTypeResolver,
+            @Qualifier("wbBatchFetchExecutor") Executor batchFetchExecutor
+    ) {
+        this.promotionApiClient = promotionApiClient;
+        this.promotionCampaignService = promotionCampaignService;
+        this.campaignStatisticsService = campaignStatisticsService;
+        this.normQueryStatisticsService = normQueryStatisticsService;
+        this.campaignRepository = campaignRepository;
+        this.campaignArticleRepository = campaignArticleRepository;
+        this.campaignStatisticsRepository = campaignStatisticsRepository;
+        this.tokenTypeResolver = tokenTypeResolver;
+        this.batchFetchExecutor = batchFetchExecutor;
+    }
 
     public WbPromotionCountResponse fetchPromotionCount(String apiKey) {
         return promotionApiClient.getPromotionCount(apiKey);
@@ -213,21 +244,34 @@ public class WbPromotionCampaignSyncService {
         normQueryStatisticsService.replaceStatisticsForCampaigns(merged, campaignIds, dateFrom, dateTo);
     }
 
+    /**
+     * Пары advertId/nmId для normquery: связи кампаний с артикулами, а для кампаний без связей — артикулы
+     * из их статистики (один запрос на весь набор). Недостающие связи дописываются одним INSERT.
+     */
     private List<WbNormQueryStatsRequest.Item> buildNormQueryItems(List<Long> campaignIds) {
-        List<WbCampaignArticle> articles = campaignArticleRepository.findByCampaignIdIn(campaignIds);
-        List<WbNormQueryStatsRequest.Item> items = new ArrayList<>();
-        if (!articles.isEmpty()) {
-            for (WbCampaignArticle article : articles) {
-                items.add(WbNormQueryStatsRequest.Item.builder()
-                        .advertId(article.getCampaignId())
-                        .nmId(article.getNmId())
-                        .build());
+        Map<Long, Set<Long>> nmIdsByCampaign = new HashMap<>();
+        for (WbCampaignArticle article : campaignArticleRepository.findByCampaignIdIn(campaignIds)) {
+            nmIdsByCampaign.computeIfAbsent(article.getCampaignId(), id -> new LinkedHashSet<>()).add(article.getNmId());
+        }
+
+        List<Long> withoutArticles = campaignIds.stream()
+                .filter(id -> !nmIdsByCampaign.containsKey(id))
+                .distinct()
+                .toList();
+        if (!withoutArticles.isEmpty()) {
+            for (CampaignNmIdProjection pair : campaignStatisticsRepository.findDistinctCampaignNmIdPairs(withoutArticles)) {
+                nmIdsByCampaign.computeIfAbsent(pair.getCampaignId(), id -> new LinkedHashSet<>()).add(pair.getNmId());
+            }
+            int restored = campaignArticleRepository.insertMissingFromStatistics(withoutArticles);
+            if (restored > 0) {
+                log.info("Восстановлено {} связей кампания–артикул из статистики для {} кампаний без связей",
+                        restored, withoutArticles.size());
             }
-            return items;
         }
-        for (Long campaignId : campaignIds) {
-            List<Long> nmIds = campaignStatisticsRepository.findDistinctNmIdsByCampaignAdvertId(campaignId);
-            for (Long nmId : nmIds) {
+
+        List<WbNormQueryStatsRequest.Item> items = new ArrayList<>();
+        for (Long campaignId : campaignIds.stream().distinct().toList()) {
+            for (Long nmId : nmIdsByCampaign.getOrDefault(campaignId, Set.of())) {
                 items.add(WbNormQueryStatsRequest.Item.builder()
                         .advertId(campaignId)
                         .nmId(nmId)
@@ -260,18 +304,13 @@ public class WbPromotionCampaignSyncService {
                 return allCampaignIds;
             }
 
-            List<WbPromotionAdvertsResponse.Campaign> allCampaigns = fetchAdvertsV2InBatches(apiKey, allCampaignIds);
+            int savedCampaigns = loadAndSaveAdvertsV2InBatches(cabinet, apiKey, allCampaignIds);
 
-            if (allCampaigns.isEmpty()) {
+            if (savedCampaigns == 0) {
                 log.info("Не удалось получить детальную информацию о кампаниях для кабинета (ID: {})", cabinet.getId());
                 return allCampaignIds;
             }
 
-            WbPromotionAdvertsResponse advertsResponse = WbPromotionAdvertsResponse.builder()
-                    .adverts(allCampaigns)
-                    .build();
-            promotionCampaignService.saveOrUpdateCampaigns(advertsResponse, cabinet);
-
             log.info("Завершено обновление рекламных кампаний для кабинета (ID: {})", cabinet.getId());
             return allCampaignIds;
 
@@ -316,19 +355,13 @@ public class WbPromotionCampaignSyncService {
 
             log.info("Загрузка статистики для {} кампаний (перезапись существующих записей)", toFetch.size());
 
-            List<WbPromotionFullStatsResponse.CampaignStats> allStats = fetchStatisticsInBatches(
-                    apiKey, toFetch, dateFrom, dateTo);
+            int savedCampaigns = loadAndSaveStatisticsInBatches(seller, apiKey, toFetch, dateFrom, dateTo);
 
-            if (allStats.isEmpty()) {
+            if (savedCampaigns == 0) {
                 log.info("Не удалось получить статистику кампаний для продавца (ID: {})", seller.getId());
                 return;
             }
 
-            WbPromotionFullStatsResponse statsResponse = WbPromotionFullStatsResponse.builder()
-                    .adverts(allStats)
-                    .build();
-            campaignStatisticsService.saveOrUpdateStatistics(statsResponse, seller);
-
             log.info("Завершено обновление статистики кампаний для продавца (ID: {})", seller.getId());
 
         } catch (Exception e) {
@@ -370,89 +403,158 @@ public class WbPromotionCampaignSyncService {
     }
 
     /**
-     * Загрузка деталей кампаний через GET /api/advert/v2/adverts батчами по 50 ID.
+     * Загрузка деталей кампаний через GET /api/advert/v2/adverts батчами по 50 ID с сохранением каждого батча.
+     * Следующий батч запрашивается, пока текущий сохраняется ({@link PipelinedPageLoader}).
+     *
+     * @return число сохранённых кампаний
      */
-    private List<WbPromotionAdvertsResponse.Campaign> fetchAdvertsV2InBatches(String apiKey, List<Long> campaignIds) {
-        List<WbPromotionAdvertsResponse.Campaign> allCampaigns = new ArrayList<>();
-        int campaignsBatchSize = campaignsBatchSizeBasic;
-        int totalBatches = (campaignIds.size() + campaignsBatchSize - 1) / campaignsBatchSize;
-
+    private int loadAndSaveAdvertsV2InBatches(Cabinet cabinet, String apiKey, List<Long> campaignIds) {
+        List<List<Long>> batches = partition(campaignIds, campaignsBatchSizeBasic);
         log.info("Загрузка детальной информации о {} кампаниях (v2) батчами по {} (всего батчей: {})",
-                campaignIds.size(), campaignsBatchSize, totalBatches);
-
-        for (int i = 0; i < campaignIds.size(); i += campaignsBatchSize) {
-            int endIndex = Math.min(i + campaignsBatchSize, campaignIds.size());
-            List<Long> batch = campaignIds.subList(i, endIndex);
-            int currentBatch = (i / campaignsBatchSize) + 1;
-
-            try {
-                log.info("Загрузка батча {}/{}: {} кампаний", currentBatch, totalBatches, batch.size());
-                WbPromotionAdvertsResponse batchResponse = promotionApiClient.getAdvertsV2(apiKey, batch);
-                if (batchResponse != null && batchResponse.getAdverts() != null) {
-                    allCampaigns.addAll(batchResponse.getAdverts());
-                    log.info("Получено {} кампаний из батча {}/{}", batchResponse.getAdverts().size(), currentBatch, totalBatches);
-                }
-            } catch (Exception e) {
-                if (AbstractWbApiClient.isSoftLoggedWbError(e)) {
-                    log.warn("Ошибка при загрузке батча {}/{} кампаний (v2): {}", currentBatch, totalBatches, e.getMessage());
-                } else {
-                    log.error("Ошибка при загрузке батча {}/{} кампаний (v2): {}", currentBatch, totalBatches, e.getMessage(), e);
+                campaignIds.size(), campaignsBatchSizeBasic, batches.size());
+
+        int[] saved = {0};
+        runBatchPipeline(
+                batches.size(),
+                index -> fetchAdvertsV2Batch(apiKey, batches.get(index), index + 1, batches.size()),
+                campaigns -> {
+                    if (!campaigns.isEmpty()) {
+                        promotionCampaignService.saveOrUpdateCampaigns(
+                                WbPromotionAdvertsResponse.builder().adverts(campaigns).build(),
+                                cabinet
+                        );
+                        saved[0] += campaigns.size();
+                    }
                 }
+        );
+        return saved[0];
+    }
+
+    private List<WbPromotionAdvertsResponse.Campaign> fetchAdvertsV2Batch(
+            String apiKey,
+            List<Long> batch,
+            int currentBatch,
+            int totalBatches
+    ) {
+        try {
+            log.info("Загрузка батча {}/{}: {} кампаний", currentBatch, totalBatches, batch.size());
+            WbPromotionAdvertsResponse batchResponse = promotionApiClient.getAdvertsV2(apiKey, batch);
+            if (batchResponse != null && batchResponse.getAdverts() != null) {
+                log.info("Получено {} кампаний из батча {}/{}", batchResponse.getAdverts().size(), currentBatch, totalBatches);
+                return batchResponse.getAdverts();
+            }
+        } catch (Exception e) {
+            if (AbstractWbApiClient.isSoftLoggedWbError(e)) {
+                log.warn("Ошибка при загрузке батча {}/{} кампаний (v2): {}", currentBatch, totalBatches, e.getMessage());
+            } else {
+                log.error("Ошибка при загрузке батча {}/{} кампаний (v2): {}", currentBatch, totalBatches, e.getMessage(), e);
             }
         }
-        return allCampaigns;
+        return List.of();
     }
 
-    private List<WbPromotionFullStatsResponse.CampaignStats> fetchStatisticsInBatches(
+    /**
+     * Загрузка статистики кампаний (fullstats) батчами с сохранением каждого батча;
+     * следующий батч запрашивается, пока текущий сохраняется.
+     *
+     * @return число кампаний, по которым сохранена статистика
+     */
+    private int loadAndSaveStatisticsInBatches(
+            User seller,
             String apiKey,
             List<Long> campaignIds,
             LocalDate dateFrom,
             LocalDate dateTo
     ) {
-        List<WbPromotionFullStatsResponse.CampaignStats> allStats = new ArrayList<>();
-        int statisticsBatchSize = statisticsBatchSizeBasic;
-        int totalBatches = (campaignIds.size() + statisticsBatchSize - 1) / statisticsBatchSize;
-        String dateFromStr = dateFrom.format(DATE_FORMATTER);
-        String dateToStr = dateTo.format(DATE_FORMATTER);
-
+        List<List<Long>> batches = partition(campaignIds, statisticsBatchSizeBasic);
         log.info("Загрузка статистики для {} кампаний батчами по {} (всего батчей: {})",
-                campaignIds.size(), statisticsBatchSize, totalBatches);
-
-        for (int i = 0; i < campaignIds.size(); i += statisticsBatchSize) {
-            int endIndex = Math.min(i + statisticsBatchSize, campaignIds.size());
-            List<Long> batch = campaignIds.subList(i, endIndex);
-            int currentBatch = (i / statisticsBatchSize) + 1;
-
-            try {
-                log.info("Загрузка статистики батча {}/{}: {} кампаний", currentBatch, totalBatches, batch.size());
-                WbPromotionFullStatsRequest request = WbPromotionFullStatsRequest.builder()
-                        .advertId(batch)
-                        .dateFrom(dateFromStr)
-                        .dateTo(dateToStr)
-                        .build();
-                WbPromotionFullStatsResponse batchResponse = promotionApiClient.getPromotionFullStats(apiKey, request);
-                if (batchResponse != null && batchResponse.getAdverts() != null) {
-                    allStats.addAll(batchResponse.getAdverts());
-                    List<Long> missing = findMissingCampaignIds(batchResponse, batch);
-                    if (!missing.isEmpty()) {
-                        log.info("Для {} кампаний из батча {}/{} нет статистики за период {} - {}: {}",
-                                missing.size(), currentBatch, totalBatches, dateFrom, dateTo, missing);
+                campaignIds.size(), statisticsBatchSizeBasic, batches.size());
+
+        int[] savedCampaigns = {0};
+        int[] savedDays = {0};
+        runBatchPipeline(
+                batches.size(),
+                index -> fetchStatisticsBatch(apiKey, batches.get(index), index + 1, batches.size(), dateFrom, dateTo),
+                stats -> {
+                    if (!stats.isEmpty()) {
+                        campaignStatisticsService.saveOrUpdateStatistics(
+                                WbPromotionFullStatsResponse.builder().adverts(stats).build(),
+                                seller
+                        );
+                        savedCampaigns[0] += stats.size();
+                        savedDays[0] += stats.stream()
+                                .mapToInt(c -> c.getDays() != null ? c.getDays().size() : 0)
+                                .sum();
                     }
                 }
-            } catch (Exception e) {
-                if (AbstractWbApiClient.isSoftLoggedWbError(e)) {
-                    log.warn("Ошибка при загрузке статистики батча {}/{}: {}", currentBatch, totalBatches, e.getMessage());
-                } else {
-                    log.error("Ошибка при загрузке статистики батча {}/{}: {}", currentBatch, totalBatches, e.getMessage(), e);
+        );
+        log.info("Загружено всего {} кампаний ({} дней статистики) из {} запрошенных",
+                savedCampaigns[0], savedDays[0], campaignIds.size());
+        return savedCampaigns[0];
+    }
+
+    private List<WbPromotionFullStatsResponse.CampaignStats> fetchStatisticsBatch(
+            String apiKey,
+            List<Long> batch,
+            int currentBatch,
+            int totalBatches,
+            LocalDate dateFrom,
+            LocalDate dateTo
+    ) {
+        try {
+            log.info("Загрузка статистики батча {}/{}: {} кампаний", currentBatch, totalBatches, batch.size());
+            WbPromotionFullStatsRequest request = WbPromotionFullStatsRequest.builder()
+                    .advertId(batch)
+                    .dateFrom(dateFrom.format(DATE_FORMATTER))
+                    .dateTo(dateTo.format(DATE_FORMATTER))
+                    .build();
+            WbPromotionFullStatsResponse batchResponse = promotionApiClient.getPromotionFullStats(apiKey, request);
+            if (batchResponse != null && batchResponse.getAdverts() != null) {
+                List<Long> missing = findMissingCampaignIds(batchResponse, batch);
+                if (!missing.isEmpty()) {
+                    log.info("Для {} кампаний из батча {}/{} нет статистики за период {} - {}: {}",
+                            missing.size(), currentBatch, totalBatches, dateFrom, dateTo, missing);
                 }
+                return batchResponse.getAdverts();
+            }
+        } catch (Exception e) {
+            if (AbstractWbApiClient.isSoftLoggedWbError(e)) {
+                log.warn("Ошибка при загрузке статистики батча {}/{}: {}", currentBatch, totalBatches, e.getMessage());
+            } else {
+                log.error("Ошибка при загрузке статистики батча {}/{}: {}", currentBatch, totalBatches, e.getMessage(), e);
             }
         }
+        return List.of();
+    }
 
-        int totalDays = allStats.stream()
-                .mapToInt(c -> c.getDays() != null ? c.getDays().size() : 0)
-                .sum();
-        log.info("Загружено всего {} кампаний ({} дней статистики) из {} запрошенных", allStats.size(), totalDays, campaignIds.size());
-        return allStats;
+    /**
+     * Батчи по индексу через {@link PipelinedPageLoader}: курсор — номер батча. Ошибка загрузки батча
+     * логируется и даёт пустой батч; ошибка сохранения прерывает проход. Загрузка в пуле выполняется
+     * с контекстом попытки события, чтобы клиент WB логировал попытки из очереди.
+     */
+    private <T> void runBatchPipeline(int batchCount, IntFunction<List<T>> fetchBatch, Consumer<List<T>> saveBatch) {
+        if (batchCount == 0) {
+            return;
+        }
+        Optional<WbApiEventAttemptContext.AttemptInfo> attempt = WbApiEventAttemptContext.current();
+        PipelinedPageLoader.<IndexedBatch<T>>run(
+                "0",
+                cursor -> WbApiEventAttemptContext.callWith(attempt, () ->
+                        new IndexedBatch<>(Integer.parseInt(cursor), fetchBatch.apply(Integer.parseInt(cursor)))),
+                batch -> batch.index() + 1 < batchCount ? String.valueOf(batch.index() + 1) : "",
+                (batch, nextCursor) -> saveBatch.accept(batch.items()),
+                () -> true,
+                0L,
+                batchFetchExecutor
+        );
+    }
+
+    private static <T> List<List<T>> partition(List<T> list, int batchSize) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int i = 0; i < list.size(); i += batchSize) {
+            batches.add(new ArrayList<>(list.subList(i, Math.min(i + batchSize, list.size()))));
+        }
+        return batches;
     }
 
     private List<Long> findMissingCampaignIds(WbPromotionFullStatsResponse response, List<Long> requestedIds) {
@@ -465,4 +567,6 @@ public class WbPromotionCampaignSyncService {
     }
 
     private record CampaignIdsByType(List<Long> type8Ids, List<Long> type9Ids) {}
+
+    private record IndexedBatch<T>(int index, List<T> items) {}
 }
@@ -15,6 +15,7 @@ import ru.oparin.solution.dto.wb.WbApiProblemResponse;
 import ru.oparin.solution.dto.wb.WbApiSimpleErrorResponse;
 import ru.oparin.solution.exception.WbApiUnauthorizedScopeException;
 import ru.oparin.solution.exception.WbRateLimitDeferException;
+import ru.oparin.solution.util.BaseUrlOverrideInterceptor;
 
 import java.net.URI;
 import java.net.UnknownHostException;
@@ -88,6 +89,8 @@ public abstract class AbstractWbApiClient {
             }
             return response;
         });
+        BaseUrlOverrideInterceptor.of(wbHttpProperties.getBaseUrlOverride())
+                .ifPresent(rt.getInterceptors()::add);
         return rt;
     }
 
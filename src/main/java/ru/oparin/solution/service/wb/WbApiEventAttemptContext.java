@@ -1,6 +1,7 @@
 package ru.oparin.solution.service.wb;
 
 import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * Контекст попытки WB API-события для текущего потока.
@@ -31,6 +32,35 @@ public final class WbApiEventAttemptContext {
         return Optional.ofNullable(HOLDER.get());
     }
 
+    /**
+     * Выполняет действие в потоке пула с контекстом попытки, снятым в потоке события через {@link #current()}.
+     * Прежний контекст исполняющего потока восстанавливается: при переполнении пула задача выполняется
+     * в самом потоке события.
+     */
+    public static <T> T callWith(Optional<AttemptInfo> attempt, Supplier<T> action) {
+        AttemptInfo previous = HOLDER.get();
+        attempt.ifPresentOrElse(HOLDER::set, HOLDER::remove);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                HOLDER.set(previous);
+            } else {
+                HOLDER.remove();
+            }
+        }
+    }
+
+    /**
+     * То же, что {@link #callWith}, для действия без результата.
+     */
+    public static void runWith(Optional<AttemptInfo> attempt, Runnable action) {
+        callWith(attempt, () -> {
+            action.run();
+            return null;
+        });
+    }
+
     /**
      * Номер попытки для лога: из контекста события или локальный (внутри одного вызова клиента).
      *
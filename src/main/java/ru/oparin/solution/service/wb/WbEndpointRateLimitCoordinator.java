@@ -24,6 +24,13 @@ import java.util.concurrent.atomic.AtomicLong;
  * Для неизвестных путей — минимальный fallback в {@link WbHttpSuccessSpacingMsResolver}.
  * На {@code 429} — {@code X-Ratelimit-Retry} / {@code X-Ratelimit-Reset}, иначе пауза как после 2xx.
  * <p>
+ * Если endpoint отдаёт {@code X-Ratelimit-Limit} / {@code X-Ratelimit-Remaining} и на успешных ответах,
+ * слот переходит на token bucket: ёмкость — {@code Limit}, остаток синхронизируется с {@code Remaining},
+ * время восстановления одного запроса — наибольший наблюдавшийся {@code X-Ratelimit-Reset} (до первого
+ * наблюдения — пауза из {@link WbHttpSuccessSpacingMsResolver}). Пока остаток большой, запросы идут пачкой
+ * без пауз; скорость пополнения масштабируется по AIMD (+{@value #AIMD_INCREASE} на 2xx, ×0.5 на 429).
+ * Для endpoint без заголовков остаётся фиксированная пауза после 2xx.
+ * <p>
  * Время «не раньше чем» для следующего запроса по слоту — в {@link #slots} ({@code nextAllowedAtMs}).
  * Короткие паузы (spacing после 2xx) и календарь ждут в потоке; длинные ожидания (обычно после 429)
  * откладывают событие через {@link WbRateLimitDeferException}.
@@ -42,6 +49,12 @@ public class WbEndpointRateLimitCoordinator {
      */
     private static final long SHORT_SLOT_WAIT_BUDGET_MS = 20_000L;
 
+    /** Аддитивный рост доли скорости пополнения bucket на каждом 2xx с заголовками лимита. */
+    private static final double AIMD_INCREASE = 0.05;
+
+    /** Нижняя граница доли скорости пополнения после серии 429. */
+    private static final double AIMD_MIN_RATE_FACTOR = 0.125;
+
     private final WbHttpSuccessSpacingMsResolver httpSuccessSpacingMs;
     private final WbApiTokenTypeResolver tokenTypeResolver;
 
@@ -76,8 +89,8 @@ public class WbEndpointRateLimitCoordinator {
         long shortWaitBudgetUntil = System.currentTimeMillis() + SHORT_SLOT_WAIT_BUDGET_MS;
 
         while (true) {
-            long until = slot.getNextAllowedAtMs();
             long now = System.currentTimeMillis();
+            long until = slot.tryAcquire(now);
             if (until <= now) {
                 return;
             }
@@ -137,38 +150,146 @@ public class WbEndpointRateLimitCoordinator {
         }
         RateSlot slot = slots.computeIfAbsent(slotKey(apiKey, endpointKey), k -> new RateSlot());
         CabinetTokenType tokenType = tokenTypeResolver.resolveByAuthorizationHeader(apiKey);
-
-        long now = System.currentTimeMillis();
-        if (httpStatus == HttpStatus.TOO_MANY_REQUESTS.value()) {
-            Integer retrySec = Wb429RateLimitHeadersLogger.parsePositiveIntHeader(
-                    headers.getFirst(Wb429RateLimitHeadersLogger.X_RATELIMIT_RETRY));
-            Integer resetSec = Wb429RateLimitHeadersLogger.parsePositiveIntHeader(
-                    headers.getFirst(Wb429RateLimitHeadersLogger.X_RATELIMIT_RESET));
-            if (retrySec != null && retrySec > 0) {
-                slot.setNextAllowedAtMs(now + retrySec * 1000L);
-            } else if (resetSec != null && resetSec > 0) {
-                slot.setNextAllowedAtMs(now + resetSec * 1000L);
-            } else {
-                slot.setNextAllowedAtMs(now + httpSuccessSpacingMs.spacingAfter2xxMs(endpointKey, tokenType));
-            }
-        } else if (httpStatus >= 200 && httpStatus <= 299) {
-            slot.setNextAllowedAtMs(now + httpSuccessSpacingMs.spacingAfter2xxMs(endpointKey, tokenType));
-        }
+        long spacingMs = httpSuccessSpacingMs.spacingAfter2xxMs(endpointKey, tokenType);
+        slot.onResponse(System.currentTimeMillis(), httpStatus, headers, spacingMs);
     }
 
     private static String slotKey(String apiKey, String endpointKey) {
         return Integer.toHexString(apiKey.trim().hashCode()) + "|" + endpointKey;
     }
 
-    private static final class RateSlot {
+    /**
+     * Состояние лимита слота: «не раньше чем» (spacing, 429) и token bucket, если endpoint отдаёт заголовки лимита.
+     * Время передаётся явно, чтобы последовательность ответов можно было воспроизвести в тесте.
+     */
+    static final class RateSlot {
         private final AtomicLong nextAllowedAtMs = new AtomicLong(0L);
 
-        long getNextAllowedAtMs() {
-            return nextAllowedAtMs.get();
-        }
+        /** Ёмкость bucket по {@code X-Ratelimit-Limit}; 0 — заголовков не было, действует фиксированная пауза. */
+        private int capacity;
+        private double tokens;
+        private long lastRefillAtMs;
+        /** Наибольший наблюдавшийся {@code X-Ratelimit-Reset} на 2xx (мс); 0 — не наблюдался. */
+        private long learnedRefillMs;
+        /** Пауза из метаданных типа события — время восстановления запроса, пока оно не выучено. */
+        private long fallbackRefillMs;
+        /** Доля скорости пополнения (AIMD). */
+        private double rateFactor = 1.0;
 
         void setNextAllowedAtMs(long epochMs) {
             nextAllowedAtMs.updateAndGet(prev -> Math.max(prev, epochMs));
         }
+
+        synchronized boolean hasBucket() {
+            return capacity > 0;
+        }
+
+        /**
+         * Учитывает ответ WB по слоту.
+         *
+         * @param now       время ответа
+         * @param spacingMs пауза после 2xx из метаданных типа события
+         */
+        void onResponse(long now, int httpStatus, HttpHeaders headers, long spacingMs) {
+            if (httpStatus == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                Integer retrySec = Wb429RateLimitHeadersLogger.parsePositiveIntHeader(
+                        headers.getFirst(Wb429RateLimitHeadersLogger.X_RATELIMIT_RETRY));
+                Integer resetSec = Wb429RateLimitHeadersLogger.parsePositiveIntHeader(
+                        headers.getFirst(Wb429RateLimitHeadersLogger.X_RATELIMIT_RESET));
+                long retryAtMs;
+                if (retrySec != null && retrySec > 0) {
+                    retryAtMs = now + retrySec * 1000L;
+                } else if (resetSec != null && resetSec > 0) {
+                    retryAtMs = now + resetSec * 1000L;
+                } else {
+                    retryAtMs = now + spacingMs;
+                }
+                onTooManyRequests(retryAtMs);
+            } else if (httpStatus >= 200 && httpStatus <= 299) {
+                Integer limit = Wb429RateLimitHeadersLogger.parsePositiveIntHeader(
+                        headers.getFirst(Wb429RateLimitHeadersLogger.X_RATELIMIT_LIMIT));
+                Integer remaining = Wb429RateLimitHeadersLogger.parsePositiveIntHeader(
+                        headers.getFirst(Wb429RateLimitHeadersLogger.X_RATELIMIT_REMAINING));
+                if (limit != null && limit > 0 && remaining != null) {
+                    Integer resetSec = Wb429RateLimitHeadersLogger.parsePositiveIntHeader(
+                            headers.getFirst(Wb429RateLimitHeadersLogger.X_RATELIMIT_RESET));
+                    onSuccessWithLimitHeaders(now, limit, remaining, resetSec, spacingMs);
+                } else if (!hasBucket()) {
+                    setNextAllowedAtMs(now + spacingMs);
+                }
+            }
+        }
+
+        /**
+         * Забирает разрешение на запрос.
+         *
+         * @return время, не раньше которого можно повторить попытку; {@code <= now} — разрешение получено
+         */
+        synchronized long tryAcquire(long now) {
+            long penaltyUntil = nextAllowedAtMs.get();
+            if (penaltyUntil > now || capacity <= 0) {
+                return penaltyUntil;
+            }
+            refill(now);
+            if (tokens >= 1.0) {
+                tokens -= 1.0;
+                return now;
+            }
+            double msPerToken = refillIntervalMs() / rateFactor;
+            return now + Math.max(1L, (long) Math.ceil((1.0 - tokens) * msPerToken));
+        }
+
+        /**
+         * Синхронизирует bucket с заголовками успешного ответа: остаток WB — верхняя граница локального.
+         * <p>
+         * Допущение: {@code X-Ratelimit-Reset} на 2xx — секунды до восстановления следующего запроса, поэтому
+         * наибольшее наблюдавшееся значение (при неполном bucket) и есть интервал пополнения. Если WB отдаёт
+         * в нём время до восстановления всего всплеска, интервал выучится в {@code Limit} раз больше: 429 не будет,
+         * но после всплеска слот пойдёт медленнее фиксированной паузы (см. {@code WbEndpointRateLimitSimulationTest}).
+         */
+        synchronized void onSuccessWithLimitHeaders(long now, int limit, int remaining, Integer resetSec, long spacingMs) {
+            fallbackRefillMs = spacingMs;
+            if (resetSec != null && resetSec > 0 && remaining < limit) {
+                learnedRefillMs = Math.max(learnedRefillMs, resetSec * 1000L);
+            }
+            if (capacity <= 0) {
+                tokens = remaining;
+            } else {
+                refill(now);
+                tokens = Math.min(tokens, remaining);
+            }
+            capacity = limit;
+            lastRefillAtMs = Math.max(lastRefillAtMs, now);
+            rateFactor = Math.min(1.0, rateFactor + AIMD_INCREASE);
+            if (remaining == 0) {
+                tokens = 0;
+                long restoreMs = resetSec != null && resetSec > 0 ? resetSec * 1000L : refillIntervalMs();
+                setNextAllowedAtMs(now + restoreMs);
+            }
+        }
+
+        /**
+         * 429: bucket пуст до {@code retryAtMs}, скорость пополнения уменьшается вдвое.
+         */
+        synchronized void onTooManyRequests(long retryAtMs) {
+            setNextAllowedAtMs(retryAtMs);
+            if (capacity > 0) {
+                tokens = 0;
+                lastRefillAtMs = Math.max(lastRefillAtMs, retryAtMs);
+                rateFactor = Math.max(AIMD_MIN_RATE_FACTOR, rateFactor * 0.5);
+            }
+        }
+
+        private void refill(long now) {
+            if (now <= lastRefillAtMs) {
+                return;
+            }
+            tokens = Math.min(capacity, tokens + (now - lastRefillAtMs) * rateFactor / refillIntervalMs());
+            lastRefillAtMs = now;
+        }
+
+        private long refillIntervalMs() {
+            return Math.max(1L, learnedRefillMs > 0 ? learnedRefillMs : fallbackRefillMs);
+        }
     }
 }
@@ -1,21 +1,23 @@
 package ru.oparin.solution.service.wb;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.util.UriComponentsBuilder;
 import ru.oparin.solution.dto.wb.WbOrdersResponse;
+import ru.oparin.solution.exception.WbRateLimitDeferException;
 import ru.oparin.solution.model.WbApiEventType;
 
-import java.time.LocalDate;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Клиент для работы с Statistics API Wildberries.
@@ -31,56 +33,40 @@ public class WbOrdersApiClient extends AbstractWbApiClient {
         return WbApiCategory.STATISTICS;
     }
 
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
 
     /**
-     * Получение заказов за указанную дату.
-     * При таймауте или ошибке соединения выполняются ретраи.
+     * Потоково читает заказы, изменённые начиная с {@code dateFrom} (flag=0), и передаёт их по одному в {@code consumer}.
+     * Ответ разбирается {@link JsonParser} прямо из потока, без чтения тела в строку и списка заказов в памяти.
+     * При таймауте или ошибке соединения выполняются ретраи; {@code consumer} тогда получит часть заказов повторно.
      *
-     * @param apiKey API ключ продавца
-     * @param dateFrom дата начала периода (формат: yyyy-MM-dd)
-     * @param flag флаг для фильтрации заказов (1 - только реализованные)
-     * @return список заказов
+     * @param apiKey   API ключ продавца
+     * @param dateFrom дата и время последнего изменения заказа (МСК), включительно
+     * @param consumer обработчик заказа
+     * @return число прочитанных заказов
      */
-    public List<WbOrdersResponse.Order> getOrders(String apiKey, LocalDate dateFrom, Integer flag) {
-        return executeWithConnectionRetry("заказы продавца (СПП)", () -> getOrdersOnce(apiKey, dateFrom, flag));
+    public int streamOrders(String apiKey, LocalDateTime dateFrom, Consumer<WbOrdersResponse.Order> consumer) {
+        return executeWithConnectionRetry("заказы продавца", () -> streamOrdersOnce(apiKey, dateFrom, consumer));
     }
 
-    private List<WbOrdersResponse.Order> getOrdersOnce(String apiKey, LocalDate dateFrom, Integer flag) {
+    private int streamOrdersOnce(String apiKey, LocalDateTime dateFrom, Consumer<WbOrdersResponse.Order> consumer) {
         HttpHeaders headers = createAuthHeaders(apiKey);
-        HttpEntity<String> entity = new HttpEntity<>(headers);
-
-        UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromHttpUrl(
-                        WbApiEventType.STATISTICS_SUPPLIER_ORDERS.getDefaultUrl())
-                .queryParam("dateFrom", dateFrom.format(DATE_FORMATTER));
-
-        if (flag != null) {
-            uriBuilder.queryParam("flag", flag);
-        }
-
-        String url = uriBuilder.toUriString();
-        logWbApiCall(url, "заказы продавца (СПП)");
+        String url = UriComponentsBuilder.fromHttpUrl(WbApiEventType.STATISTICS_SUPPLIER_ORDERS.getDefaultUrl())
+                .queryParam("dateFrom", dateFrom.format(DATE_TIME_FORMATTER))
+                .toUriString();
+        logWbApiCall(url, "заказы продавца");
 
         try {
-            ResponseEntity<String> response = restTemplate.exchange(
+            Integer count = restTemplate.execute(
                     url,
                     HttpMethod.GET,
-                    entity,
-                    String.class
-            );
-
-            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
-                throw new RestClientException("Неожиданный ответ от WB API: " + response.getStatusCode());
-            }
-
-            List<WbOrdersResponse.Order> orders = objectMapper.readValue(
-                    response.getBody(),
-                    new TypeReference<List<WbOrdersResponse.Order>>() {}
+                    request -> request.getHeaders().putAll(headers),
+                    response -> readOrders(response, consumer)
             );
-
-            log.info("Получено заказов: {}", orders != null ? orders.size() : 0);
-            return orders != null ? orders : List.of();
-
+            log.info("Получено заказов: {}", count != null ? count : 0);
+            return count != null ? count : 0;
+        } catch (WbRateLimitDeferException e) {
+            throw e;
         } catch (HttpClientErrorException e) {
             throwIf401ScopeNotAllowed(e);
             logWbApiError("получение заказов WB", e);
@@ -92,4 +78,28 @@ public class WbOrdersApiClient extends AbstractWbApiClient {
             throw new RestClientException("Ошибка при получении заказов: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * Разбирает JSON-массив заказов по одному объекту.
+     */
+    private int readOrders(ClientHttpResponse response, Consumer<WbOrdersResponse.Order> consumer) throws IOException {
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            throw new RestClientException("Неожиданный ответ от WB API: " + response.getStatusCode());
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(response.getBody())) {
+            JsonToken first = parser.nextToken();
+            if (first == null || first == JsonToken.VALUE_NULL) {
+                return 0;
+            }
+            if (first != JsonToken.START_ARRAY) {
+                throw new RestClientException("Неожиданный формат ответа заказов WB: " + first);
+            }
+            int count = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                consumer.accept(objectMapper.readValue(parser, WbOrdersResponse.Order.class));
+                count++;
+            }
+            return count;
+        }
+    }
 }
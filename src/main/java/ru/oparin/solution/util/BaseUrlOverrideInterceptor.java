@@ -0,0 +1,62 @@
+package ru.oparin.solution.util;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.support.HttpRequestWrapper;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Optional;
+
+/**
+ * Перенаправляет запросы клиента внешнего API на другой базовый URL с сохранением пути и query —
+ * для локального симулятора WB/Ozon при нагрузочном тестировании. Исходный хост уходит в заголовке
+ * {@value #ORIGINAL_HOST_HEADER}: у разных доменов WB пересекаются пути.
+ * <p>
+ * Ставится последним перехватчиком: лимиты по endpoint считаются по исходному URL.
+ */
+public final class BaseUrlOverrideInterceptor implements ClientHttpRequestInterceptor {
+
+    public static final String ORIGINAL_HOST_HEADER = "X-Original-Host";
+
+    private final URI baseUri;
+
+    private BaseUrlOverrideInterceptor(URI baseUri) {
+        this.baseUri = baseUri;
+    }
+
+    /**
+     * @param baseUrl базовый URL вида {@code http://localhost:12345}; пустой — перенаправление выключено
+     */
+    public static Optional<BaseUrlOverrideInterceptor> of(String baseUrl) {
+        if (baseUrl == null || baseUrl.isBlank()) {
+            return Optional.empty();
+        }
+        return Optional.of(new BaseUrlOverrideInterceptor(URI.create(baseUrl.trim())));
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        URI original = request.getURI();
+        URI target = UriComponentsBuilder.fromUri(original)
+                .scheme(baseUri.getScheme())
+                .host(baseUri.getHost())
+                .port(baseUri.getPort())
+                .build(true)
+                .toUri();
+        HttpRequest redirected = new HttpRequestWrapper(request) {
+            @Override
+            public URI getURI() {
+                return target;
+            }
+        };
+        if (original.getHost() != null) {
+            redirected.getHeaders().set(ORIGINAL_HOST_HEADER, original.getHost());
+        }
+        return execution.execute(redirected, body);
+    }
+}
@@ -0,0 +1,51 @@
+package ru.oparin.solution.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 содержимого файлов: считается потоково, без чтения файла в память.
+ */
+public final class ContentHashUtils {
+
+    private ContentHashUtils() {
+    }
+
+    /**
+     * Копирует поток в файл и возвращает SHA-256 записанного содержимого (hex, нижний регистр).
+     */
+    public static String copyWithSha256(InputStream source, Path target) throws IOException {
+        MessageDigest digest = newSha256();
+        try (DigestInputStream in = new DigestInputStream(source, digest)) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * SHA-256 содержимого файла (hex, нижний регистр).
+     */
+    public static String sha256(Path file) throws IOException {
+        MessageDigest digest = newSha256();
+        try (DigestInputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package ru.oparin.solution.util;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Потоковая запись строк в PostgreSQL через {@code COPY ... FROM STDIN (FORMAT csv)}.
+ * <p>
+ * Строки кодируются в CSV и отправляются блоками, без накопления всего payload в памяти.
+ * Пустое поле без кавычек — {@code NULL}, строки всегда в кавычках (пустая строка остаётся пустой строкой).
+ * Используется внутри текущей транзакции: соединение берётся у вызывающего кода.
+ */
+public final class PgCopyWriter implements AutoCloseable {
+
+    private static final int FLUSH_THRESHOLD_BYTES = 64 * 1024;
+
+    private final CopyIn copyIn;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(FLUSH_THRESHOLD_BYTES * 2);
+    private final StringBuilder line = new StringBuilder(256);
+    private boolean firstColumn = true;
+    private long rowCount;
+    private boolean finished;
+
+    private PgCopyWriter(CopyIn copyIn) {
+        this.copyIn = copyIn;
+    }
+
+    /**
+     * Открывает COPY в таблицу.
+     *
+     * @param connection соединение текущей транзакции (в т.ч. прокси пула)
+     * @param table      таблица (с префиксом схемы для постоянных таблиц)
+     * @param columns    столбцы в порядке записи значений
+     */
+    public static PgCopyWriter open(Connection connection, String table, String... columns) throws SQLException {
+        String sql = "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT csv)";
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+        return new PgCopyWriter(copyIn);
+    }
+
+    public PgCopyWriter value(String value) {
+        separator();
+        if (value != null) {
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    line.append('"');
+                }
+                line.append(c);
+            }
+            line.append('"');
+        }
+        return this;
+    }
+
+    public PgCopyWriter value(Long value) {
+        separator();
+        if (value != null) {
+            line.append(value.longValue());
+        }
+        return this;
+    }
+
+    public PgCopyWriter value(Integer value) {
+        separator();
+        if (value != null) {
+            line.append(value.intValue());
+        }
+        return this;
+    }
+
+    public PgCopyWriter value(BigDecimal value) {
+        separator();
+        if (value != null) {
+            line.append(value.toPlainString());
+        }
+        return this;
+    }
+
+    public PgCopyWriter value(Boolean value) {
+        separator();
+        if (value != null) {
+            line.append(value ? 't' : 'f');
+        }
+        return this;
+    }
+
+    public PgCopyWriter value(LocalDate value) {
+        separator();
+        if (value != null) {
+            line.append(value);
+        }
+        return this;
+    }
+
+    public PgCopyWriter value(LocalDateTime value) {
+        separator();
+        if (value != null) {
+            line.append(value);
+        }
+        return this;
+    }
+
+    /**
+     * Завершает текущую строку; при накоплении блока отправляет его на сервер.
+     */
+    public void endRow() throws SQLException {
+        line.append('\n');
+        byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+        buffer.write(bytes, 0, bytes.length);
+        line.setLength(0);
+        firstColumn = true;
+        rowCount++;
+        if (buffer.size() >= FLUSH_THRESHOLD_BYTES) {
+            flushBuffer();
+        }
+    }
+
+    /**
+     * Отправляет остаток и завершает COPY.
+     *
+     * @return число строк, принятых сервером
+     */
+    public long finish() throws SQLException {
+        flushBuffer();
+        finished = true;
+        long copied = copyIn.endCopy();
+        return copied >= 0 ? copied : rowCount;
+    }
+
+    /**
+     * Прерывает незавершённый COPY (ошибка при формировании строк), чтобы соединение вернулось в рабочее состояние.
+     */
+    @Override
+    public void close() throws SQLException {
+        if (!finished && copyIn.isActive()) {
+            copyIn.cancelCopy();
+        }
+    }
+
+    private void separator() {
+        if (!firstColumn) {
+            line.append(',');
+        }
+        firstColumn = false;
+    }
+
+    private void flushBuffer() throws SQLException {
+        if (buffer.size() == 0) {
+            return;
+        }
+        byte[] bytes = buffer.toByteArray();
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.reset();
+    }
+}
@@ -0,0 +1,33 @@
+-- Версии справочников для инвалидации in-process кэшей на всех инстансах.
+-- Версия увеличивается триггером на любое изменение таблицы справочника (в т.ч. ручную правку on_fire).
+
+CREATE TABLE IF NOT EXISTS solution.reference_data_versions (
+    name VARCHAR(64) PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+COMMENT ON TABLE solution.reference_data_versions IS 'Версии справочников: инстансы сравнивают версию и перечитывают кэш при изменении';
+COMMENT ON COLUMN solution.reference_data_versions.name IS 'Имя справочника (обычно имя таблицы)';
+COMMENT ON COLUMN solution.reference_data_versions.version IS 'Монотонно растущая версия справочника';
+COMMENT ON COLUMN solution.reference_data_versions.updated_at IS 'Момент последнего изменения справочника';
+
+INSERT INTO solution.reference_data_versions (name, version)
+VALUES ('wb_warehouses', 1)
+ON CONFLICT (name) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION solution.bump_reference_data_version() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO solution.reference_data_versions (name, version, updated_at)
+    VALUES (TG_TABLE_NAME, 1, NOW())
+    ON CONFLICT (name) DO UPDATE
+        SET version = solution.reference_data_versions.version + 1,
+            updated_at = NOW();
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_wb_warehouses_reference_version ON solution.wb_warehouses;
+CREATE TRIGGER trg_wb_warehouses_reference_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON solution.wb_warehouses
+    FOR EACH STATEMENT EXECUTE FUNCTION solution.bump_reference_data_version();
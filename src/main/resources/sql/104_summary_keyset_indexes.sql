@@ -0,0 +1,10 @@
+-- Сводная аналитика: фильтрация, сортировка и keyset-пагинация артикулов на стороне БД.
+-- Порядок индекса совпадает с сортировкой по умолчанию (wb_created_at DESC, nm_id DESC),
+-- так что страница читается прямо из индекса без сортировки всего каталога.
+
+CREATE INDEX IF NOT EXISTS idx_wb_product_cards_cabinet_wb_created_at
+    ON solution.wb_product_cards (cabinet_id, wb_created_at DESC, nm_id DESC);
+
+-- Фильтр «только в рекламе»: EXISTS по nm_id (PK (campaign_id, nm_id) для этого не подходит).
+CREATE INDEX IF NOT EXISTS idx_wb_campaign_articles_nm_id
+    ON solution.wb_campaign_articles (nm_id);
@@ -0,0 +1,11 @@
+-- Поиск по поисковым кластерам: LOWER(norm_query) LIKE '%…%' идёт по триграммному GIN-индексу
+-- вместо последовательного сканирования таблицы.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_wb_norm_query_statistics_norm_query_trgm
+    ON solution.wb_promotion_norm_query_statistics USING gin (LOWER(norm_query) gin_trgm_ops);
+
+-- Выборка кампании за период с группировкой по кластеру (агрегат страницы и итоги).
+CREATE INDEX IF NOT EXISTS idx_wb_norm_query_statistics_campaign_date
+    ON solution.wb_promotion_norm_query_statistics (campaign_id, date, norm_query);
@@ -0,0 +1,30 @@
+-- Исходящие письма (transactional outbox): запись в транзакции вызывающего кода, отправка фоновым воркером.
+
+CREATE TABLE IF NOT EXISTS solution.email_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    to_email VARCHAR(320) NOT NULL,
+    subject VARCHAR(500) NOT NULL,
+    body TEXT NOT NULL,
+    context VARCHAR(120) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempt_count INTEGER NOT NULL DEFAULT 0,
+    max_attempts INTEGER NOT NULL,
+    next_attempt_at TIMESTAMP NOT NULL,
+    last_error TEXT,
+    sent_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+COMMENT ON TABLE solution.email_outbox IS 'Очередь исходящих писем: PENDING → SENDING → SENT/FAILED, повтор с backoff.';
+COMMENT ON COLUMN solution.email_outbox.context IS 'Назначение письма (сброс пароля, приглашение и т.д.) для логов.';
+COMMENT ON COLUMN solution.email_outbox.status IS 'PENDING, SENDING, SENT, FAILED.';
+COMMENT ON COLUMN solution.email_outbox.next_attempt_at IS 'Не раньше этого момента письмо берётся в отправку.';
+COMMENT ON COLUMN solution.email_outbox.sent_at IS 'Момент успешной передачи SMTP-серверу (для лимита писем в минуту).';
+
+CREATE INDEX IF NOT EXISTS idx_email_outbox_pending_next_attempt
+    ON solution.email_outbox (next_attempt_at)
+    WHERE status = 'PENDING';
+
+CREATE INDEX IF NOT EXISTS idx_email_outbox_status_sent_at
+    ON solution.email_outbox (status, sent_at);
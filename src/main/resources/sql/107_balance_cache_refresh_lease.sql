@@ -0,0 +1,7 @@
+-- Аренда обновления баланса WB: один узел в момент времени ходит в GET /adv/v1/balance за кабинет.
+
+ALTER TABLE solution.wb_cabinet_promotion_balance_cache
+    ADD COLUMN IF NOT EXISTS refresh_started_at TIMESTAMP;
+
+COMMENT ON COLUMN solution.wb_cabinet_promotion_balance_cache.refresh_started_at IS
+    'Начало текущего обновления баланса (аренда узла); NULL — обновление не идёт. Просроченная аренда перехватывается';
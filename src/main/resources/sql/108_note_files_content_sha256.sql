@@ -0,0 +1,11 @@
+-- SHA-256 содержимого вложений заметок: строгий ETag при скачивании.
+-- Для файлов, загруженных до миграции, хэш считается при первом скачивании.
+
+ALTER TABLE solution.wb_article_note_files
+    ADD COLUMN IF NOT EXISTS content_sha256 VARCHAR(64);
+
+ALTER TABLE solution.wb_campaign_note_files
+    ADD COLUMN IF NOT EXISTS content_sha256 VARCHAR(64);
+
+COMMENT ON COLUMN solution.wb_article_note_files.content_sha256 IS 'SHA-256 содержимого файла (hex), источник ETag';
+COMMENT ON COLUMN solution.wb_campaign_note_files.content_sha256 IS 'SHA-256 содержимого файла (hex), источник ETag';
@@ -0,0 +1,78 @@
+-- Манифест файлов каталога загрузок: очистка идёт индексным запросом по манифесту, а не обходом каталога.
+-- Строка резервируется до записи файла (owner_id IS NULL) и привязывается к владельцу в его транзакции.
+-- Удаление строки владельца (в т.ч. каскадное) помечает манифест освобождённым триггером.
+
+CREATE TABLE IF NOT EXISTS solution.stored_files (
+    id BIGSERIAL PRIMARY KEY,
+    stored_name VARCHAR(512) NOT NULL,
+    owner_type VARCHAR(32) NOT NULL,
+    owner_id BIGINT,
+    size_bytes BIGINT,
+    content_sha256 VARCHAR(64),
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    released_at TIMESTAMP,
+    CONSTRAINT uk_stored_files_stored_name UNIQUE (stored_name)
+);
+
+CREATE INDEX IF NOT EXISTS idx_stored_files_owner
+    ON solution.stored_files (owner_type, owner_id);
+
+CREATE INDEX IF NOT EXISTS idx_stored_files_released_at
+    ON solution.stored_files (released_at)
+    WHERE released_at IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_stored_files_pending_created_at
+    ON solution.stored_files (created_at)
+    WHERE owner_id IS NULL AND released_at IS NULL;
+
+COMMENT ON TABLE solution.stored_files IS 'Манифест файлов в каталоге загрузок (вложения заметок, фото вариантов А/Б)';
+COMMENT ON COLUMN solution.stored_files.stored_name IS 'Имя файла относительно каталога загрузок';
+COMMENT ON COLUMN solution.stored_files.owner_type IS 'Тип владельца: ARTICLE_NOTE_FILE, CAMPAIGN_NOTE_FILE, AB_TEST_VARIANT';
+COMMENT ON COLUMN solution.stored_files.owner_id IS 'ID строки владельца; NULL — файл зарезервирован, владелец ещё не сохранён';
+COMMENT ON COLUMN solution.stored_files.size_bytes IS 'Размер файла в байтах';
+COMMENT ON COLUMN solution.stored_files.content_sha256 IS 'SHA-256 содержимого (hex)';
+COMMENT ON COLUMN solution.stored_files.created_at IS 'Момент резервирования имени файла';
+COMMENT ON COLUMN solution.stored_files.released_at IS 'Момент удаления владельца; файл удаляется очисткой после выдержки';
+
+CREATE OR REPLACE FUNCTION solution.release_stored_file() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE solution.stored_files
+    SET released_at = NOW()
+    WHERE owner_type = TG_ARGV[0]
+      AND owner_id = OLD.id
+      AND released_at IS NULL;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_wb_article_note_files_release_stored_file ON solution.wb_article_note_files;
+CREATE TRIGGER trg_wb_article_note_files_release_stored_file
+    AFTER DELETE ON solution.wb_article_note_files
+    FOR EACH ROW EXECUTE FUNCTION solution.release_stored_file('ARTICLE_NOTE_FILE');
+
+DROP TRIGGER IF EXISTS trg_wb_campaign_note_files_release_stored_file ON solution.wb_campaign_note_files;
+CREATE TRIGGER trg_wb_campaign_note_files_release_stored_file
+    AFTER DELETE ON solution.wb_campaign_note_files
+    FOR EACH ROW EXECUTE FUNCTION solution.release_stored_file('CAMPAIGN_NOTE_FILE');
+
+DROP TRIGGER IF EXISTS trg_wb_ab_test_variant_release_stored_file ON solution.wb_ab_test_variant;
+CREATE TRIGGER trg_wb_ab_test_variant_release_stored_file
+    AFTER DELETE ON solution.wb_ab_test_variant
+    FOR EACH ROW EXECUTE FUNCTION solution.release_stored_file('AB_TEST_VARIANT');
+
+-- Манифест для файлов, загруженных до миграции (все файлы лежат в корне каталога загрузок).
+INSERT INTO solution.stored_files (stored_name, owner_type, owner_id, size_bytes, content_sha256, created_at)
+SELECT regexp_replace(f.file_path, '^.*[/\\]', ''), 'ARTICLE_NOTE_FILE', f.id, f.file_size, f.content_sha256, f.uploaded_at
+FROM solution.wb_article_note_files f
+ON CONFLICT (stored_name) DO NOTHING;
+
+INSERT INTO solution.stored_files (stored_name, owner_type, owner_id, size_bytes, content_sha256, created_at)
+SELECT regexp_replace(f.file_path, '^.*[/\\]', ''), 'CAMPAIGN_NOTE_FILE', f.id, f.file_size, f.content_sha256, f.uploaded_at
+FROM solution.wb_campaign_note_files f
+ON CONFLICT (stored_name) DO NOTHING;
+
+INSERT INTO solution.stored_files (stored_name, owner_type, owner_id, created_at)
+SELECT v.stored_file_name, 'AB_TEST_VARIANT', v.id, v.created_at
+FROM solution.wb_ab_test_variant v
+WHERE v.stored_file_name IS NOT NULL AND v.stored_file_name <> ''
+ON CONFLICT (stored_name) DO NOTHING;
@@ -0,0 +1,51 @@
+-- Контентно-адресуемое хранилище загрузок: один файл на SHA-256 содержимого (blobs/ab/cd/<sha256><ext>).
+-- Владельцы (файлы заметок, варианты А/Б) ссылаются на blob через строки манифеста stored_files;
+-- ref_count — число живых ссылок, файл удаляется очисткой после выдержки с ref_count = 0.
+
+CREATE TABLE IF NOT EXISTS solution.stored_blobs (
+    content_sha256 VARCHAR(64) PRIMARY KEY,
+    stored_name VARCHAR(512) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    ref_count INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    touched_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    CONSTRAINT uk_stored_blobs_stored_name UNIQUE (stored_name)
+);
+
+CREATE INDEX IF NOT EXISTS idx_stored_blobs_unreferenced_touched_at
+    ON solution.stored_blobs (touched_at)
+    WHERE ref_count = 0;
+
+COMMENT ON TABLE solution.stored_blobs IS 'Файлы загрузок, адресуемые SHA-256 содержимого, со счётчиком ссылок';
+COMMENT ON COLUMN solution.stored_blobs.content_sha256 IS 'SHA-256 содержимого (hex)';
+COMMENT ON COLUMN solution.stored_blobs.stored_name IS 'Путь относительно каталога загрузок: blobs/<2 символа>/<2 символа>/<sha256><расширение>';
+COMMENT ON COLUMN solution.stored_blobs.size_bytes IS 'Размер файла в байтах';
+COMMENT ON COLUMN solution.stored_blobs.ref_count IS 'Число живых строк stored_files, ссылающихся на файл';
+COMMENT ON COLUMN solution.stored_blobs.touched_at IS 'Последний резерв при загрузке или момент обнуления ref_count; отсчёт выдержки перед удалением';
+
+-- Несколько владельцев ссылаются на один blob: имя в манифесте больше не уникально.
+ALTER TABLE solution.stored_files DROP CONSTRAINT IF EXISTS uk_stored_files_stored_name;
+
+CREATE INDEX IF NOT EXISTS idx_stored_files_stored_name
+    ON solution.stored_files (stored_name);
+
+-- Удаление владельца освобождает его строку манифеста и снимает ссылку с blob.
+CREATE OR REPLACE FUNCTION solution.release_stored_file() RETURNS TRIGGER AS $$
+BEGIN
+    WITH released AS (
+        UPDATE solution.stored_files
+        SET released_at = NOW()
+        WHERE owner_type = TG_ARGV[0]
+          AND owner_id = OLD.id
+          AND released_at IS NULL
+        RETURNING stored_name
+    )
+    UPDATE solution.stored_blobs b
+    SET ref_count = b.ref_count - 1,
+        touched_at = CASE WHEN b.ref_count = 1 THEN NOW() ELSE b.touched_at END
+    FROM released r
+    WHERE b.stored_name = r.stored_name
+      AND b.ref_count > 0;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,46 @@
+-- Журнал заказов WB (GET /api/v1/supplier/orders): строка на srid в кабинете.
+-- Заполняется инкрементально от максимального last_change_date кабинета; новая версия заказа
+-- (больший last_change_date) обновляет строку, строки не удаляются до удаления кабинета.
+-- Из журнала SQL-запросами считаются СПП и заказы/выручка по артикулу за день.
+
+CREATE TABLE IF NOT EXISTS solution.wb_orders (
+    id BIGSERIAL PRIMARY KEY,
+    cabinet_id BIGINT NOT NULL REFERENCES solution.cabinets(id) ON DELETE CASCADE,
+    srid VARCHAR(128) NOT NULL,
+    g_number VARCHAR(64),
+    nm_id BIGINT,
+    barcode VARCHAR(64),
+    supplier_article VARCHAR(255),
+    warehouse_name VARCHAR(255),
+    order_date TIMESTAMP NOT NULL,
+    last_change_date TIMESTAMP NOT NULL,
+    total_price NUMERIC(14, 2),
+    discount_percent INTEGER,
+    spp INTEGER,
+    finished_price NUMERIC(14, 2),
+    price_with_disc NUMERIC(14, 2),
+    is_cancel BOOLEAN NOT NULL DEFAULT FALSE,
+    cancel_date TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    CONSTRAINT uq_wb_orders_cabinet_srid UNIQUE (cabinet_id, srid)
+);
+
+CREATE INDEX IF NOT EXISTS idx_wb_orders_cabinet_order_date
+    ON solution.wb_orders (cabinet_id, order_date);
+
+CREATE INDEX IF NOT EXISTS idx_wb_orders_cabinet_last_change_date
+    ON solution.wb_orders (cabinet_id, last_change_date);
+
+COMMENT ON TABLE solution.wb_orders IS 'Журнал заказов WB из Statistics API, одна строка на srid в кабинете';
+COMMENT ON COLUMN solution.wb_orders.srid IS 'Уникальный ID заказа WB (srid)';
+COMMENT ON COLUMN solution.wb_orders.g_number IS 'ID корзины покупателя (gNumber)';
+COMMENT ON COLUMN solution.wb_orders.order_date IS 'Дата и время заказа (МСК, как в ответе WB)';
+COMMENT ON COLUMN solution.wb_orders.last_change_date IS 'Дата последнего изменения заказа в WB; курсор инкрементальной загрузки';
+COMMENT ON COLUMN solution.wb_orders.total_price IS 'Цена без скидок';
+COMMENT ON COLUMN solution.wb_orders.discount_percent IS 'Скидка продавца, %';
+COMMENT ON COLUMN solution.wb_orders.spp IS 'Скидка постоянного покупателя (СПП), %';
+COMMENT ON COLUMN solution.wb_orders.finished_price IS 'Фактическая цена с учётом всех скидок';
+COMMENT ON COLUMN solution.wb_orders.price_with_disc IS 'Цена со скидкой продавца; выручка в дневной сводке';
+COMMENT ON COLUMN solution.wb_orders.is_cancel IS 'Заказ отменён';
+COMMENT ON COLUMN solution.wb_orders.cancel_date IS 'Дата отмены заказа';
@@ -0,0 +1,42 @@
+-- Payload событий WB API хранится как jsonb; параметры, по которым очередь приоритизирует, дедуплицирует
+-- и фильтрует события, вынесены в отдельные колонки с индексами вместо разбора JSON и LIKE по dedup_key.
+
+ALTER TABLE solution.wb_api_events
+    ALTER COLUMN payload_json TYPE JSONB USING payload_json::jsonb;
+
+ALTER TABLE solution.wb_api_events ADD COLUMN IF NOT EXISTS nm_id BIGINT;
+ALTER TABLE solution.wb_api_events ADD COLUMN IF NOT EXISTS campaign_id BIGINT;
+ALTER TABLE solution.wb_api_events ADD COLUMN IF NOT EXISTS date_from DATE;
+ALTER TABLE solution.wb_api_events ADD COLUMN IF NOT EXISTS date_to DATE;
+
+-- Заполнение для событий, созданных до миграции (даты в payload — ISO-строки yyyy-MM-dd).
+UPDATE solution.wb_api_events
+SET nm_id = CASE WHEN payload_json ->> 'nmId' ~ '^[0-9]+$' THEN (payload_json ->> 'nmId')::bigint END,
+    campaign_id = CASE WHEN payload_json ->> 'advertId' ~ '^[0-9]+$' THEN (payload_json ->> 'advertId')::bigint END,
+    date_from = CASE WHEN payload_json ->> 'dateFrom' ~ '^\d{4}-\d{2}-\d{2}$' THEN (payload_json ->> 'dateFrom')::date END,
+    date_to = CASE WHEN payload_json ->> 'dateTo' ~ '^\d{4}-\d{2}-\d{2}$' THEN (payload_json ->> 'dateTo')::date END
+WHERE payload_json IS NOT NULL
+  AND nm_id IS NULL
+  AND campaign_id IS NULL
+  AND date_from IS NULL
+  AND date_to IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_wb_api_events_dedup_key_status
+    ON solution.wb_api_events (dedup_key, status);
+
+CREATE INDEX IF NOT EXISTS idx_wb_api_events_cabinet_type_period
+    ON solution.wb_api_events (cabinet_id, event_type, date_from, date_to, status);
+
+CREATE INDEX IF NOT EXISTS idx_wb_api_events_cabinet_nm_id
+    ON solution.wb_api_events (cabinet_id, nm_id)
+    WHERE nm_id IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_wb_api_events_cabinet_campaign_id
+    ON solution.wb_api_events (cabinet_id, campaign_id)
+    WHERE campaign_id IS NOT NULL;
+
+COMMENT ON COLUMN solution.wb_api_events.payload_json IS 'JSON-параметры события для исполнителя (класс payload определяется типом события)';
+COMMENT ON COLUMN solution.wb_api_events.nm_id IS 'Артикул WB из payload (события по одной карточке); для приоритизации и фильтров';
+COMMENT ON COLUMN solution.wb_api_events.campaign_id IS 'ID рекламной кампании из payload (запуск/пауза); для дедупликации и фильтров';
+COMMENT ON COLUMN solution.wb_api_events.date_from IS 'Начало периода синхронизации из payload';
+COMMENT ON COLUMN solution.wb_api_events.date_to IS 'Конец периода синхронизации из payload';
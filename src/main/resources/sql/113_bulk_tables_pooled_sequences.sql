@@ -0,0 +1,54 @@
+-- ID массовых таблиц (аналитика, статистика, остатки, история цен, таймлайн бюджета, norm query, очереди событий)
+-- выдаются блоками из sequence с шагом 50 (Hibernate pooled-lo) вместо IDENTITY: иначе Hibernate не может
+-- батчить INSERT и каждая строка — отдельный round trip.
+--
+-- Sequence приводится к имени <таблица>_id_seq: у переименованных таблиц (089–091) BIGSERIAL-sequence
+-- сохранила старое имя. DEFAULT nextval(...) остаётся — вставки в обход Hibernate (native upsert, COPY) берут
+-- начало следующего блока и с pooled-lo не пересекаются.
+
+DO $$
+DECLARE
+    t TEXT;
+    seq TEXT;
+BEGIN
+    FOREACH t IN ARRAY ARRAY[
+        'wb_product_card_analytics',
+        'wb_promotion_campaign_statistics',
+        'wb_product_stocks',
+        'wb_product_fbs_stocks',
+        'ozon_product_stocks',
+        'wb_product_price_history',
+        'ozon_product_price_history',
+        'wb_campaign_budget_timeline',
+        'wb_promotion_norm_query_statistics',
+        'wb_api_events',
+        'ozon_api_events'
+    ]
+    LOOP
+        seq := pg_get_serial_sequence('solution.' || t, 'id');
+        IF seq IS NULL THEN
+            RAISE EXCEPTION 'У таблицы solution.% нет sequence для id', t;
+        END IF;
+
+        IF seq <> 'solution.' || t || '_id_seq' THEN
+            EXECUTE format('ALTER SEQUENCE %s RENAME TO %I', seq, t || '_id_seq');
+        END IF;
+
+        EXECUTE format('ALTER SEQUENCE solution.%I INCREMENT BY 50', t || '_id_seq');
+        EXECUTE format(
+            'SELECT setval(''solution.%I'', GREATEST((SELECT last_value FROM solution.%I), COALESCE((SELECT max(id) FROM solution.%I), 0), 1))',
+            t || '_id_seq', t || '_id_seq', t);
+    END LOOP;
+END $$;
+
+COMMENT ON SEQUENCE solution.wb_product_card_analytics_id_seq IS 'ID аналитики воронки; шаг 50 — блоки Hibernate pooled-lo для батчевых INSERT';
+COMMENT ON SEQUENCE solution.wb_promotion_campaign_statistics_id_seq IS 'ID статистики кампаний; шаг 50 — блоки Hibernate pooled-lo для батчевых INSERT';
+COMMENT ON SEQUENCE solution.wb_product_stocks_id_seq IS 'ID остатков WB; шаг 50 — блоки Hibernate pooled-lo для батчевых INSERT';
+COMMENT ON SEQUENCE solution.wb_product_fbs_stocks_id_seq IS 'ID остатков FBS; шаг 50 — блоки Hibernate pooled-lo для батчевых INSERT';
+COMMENT ON SEQUENCE solution.ozon_product_stocks_id_seq IS 'ID остатков Ozon; шаг 50 — блоки Hibernate pooled-lo для батчевых INSERT';
+COMMENT ON SEQUENCE solution.wb_product_price_history_id_seq IS 'ID истории цен WB; шаг 50 — блоки Hibernate pooled-lo для батчевых INSERT';
+COMMENT ON SEQUENCE solution.ozon_product_price_history_id_seq IS 'ID истории цен Ozon; шаг 50 — блоки Hibernate pooled-lo для батчевых INSERT';
+COMMENT ON SEQUENCE solution.wb_campaign_budget_timeline_id_seq IS 'ID таймлайна бюджета; шаг 50 — блоки Hibernate pooled-lo для батчевых INSERT';
+COMMENT ON SEQUENCE solution.wb_promotion_norm_query_statistics_id_seq IS 'ID статистики norm query; шаг 50 — блоки Hibernate pooled-lo для батчевых INSERT';
+COMMENT ON SEQUENCE solution.wb_api_events_id_seq IS 'ID событий WB API; шаг 50 — блоки Hibernate pooled-lo для батчевых INSERT';
+COMMENT ON SEQUENCE solution.ozon_api_events_id_seq IS 'ID событий Ozon API; шаг 50 — блоки Hibernate pooled-lo для батчевых INSERT';
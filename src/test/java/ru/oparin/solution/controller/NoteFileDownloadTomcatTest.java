@@ -0,0 +1,280 @@
+package ru.oparin.solution.controller;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityFilterAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import ru.oparin.solution.service.SellerContextService;
+import ru.oparin.solution.service.UserService;
+import ru.oparin.solution.service.WbArticleNoteService;
+import ru.oparin.solution.service.WbCampaignNoteService;
+import ru.oparin.solution.service.files.StoredFileDownload;
+import ru.oparin.solution.service.files.StoredFileResponder;
+import ru.oparin.solution.util.ContentHashUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Скачивание файлов заметок через встроенный Tomcat (а не mock-запросы): одновременные полные загрузки большого
+ * файла с обоих endpoint'ов, 304 по {@code If-None-Match}, 206 с {@code Content-Range}, параллельная загрузка
+ * по диапазонам. Тело каждого ответа сравнивается с файлом побайтно.
+ */
+@SpringBootTest(classes = NoteFileDownloadTomcatTest.DownloadApp.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class NoteFileDownloadTomcatTest {
+
+    private static final int FILE_SIZE = 24 * 1024 * 1024 + 123;
+    private static final int CONCURRENT_DOWNLOADS = 8;
+    private static final int COMPARE_CHUNK = 64 * 1024;
+    private static final long NM_ID = 100L;
+    private static final long CAMPAIGN_ID = 200L;
+    private static final long NOTE_ID = 5L;
+    private static final long FILE_ID = 7L;
+
+    @TempDir
+    static Path dir;
+
+    private static Path file;
+    private static String sha256;
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${server.servlet.context-path:}")
+    private String contextPath;
+
+    @MockBean
+    private WbArticleNoteService articleNoteService;
+
+    @MockBean
+    private WbCampaignNoteService campaignNoteService;
+
+    @MockBean
+    private SellerContextService sellerContextService;
+
+    @MockBean
+    private UserService userService;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @BeforeAll
+    static void writeLargeFile() throws IOException {
+        file = dir.resolve("отчёт.bin");
+        Random random = new Random(38);
+        byte[] chunk = new byte[COMPARE_CHUNK];
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (int written = 0; written < FILE_SIZE; written += chunk.length) {
+                random.nextBytes(chunk);
+                out.write(chunk, 0, Math.min(chunk.length, FILE_SIZE - written));
+            }
+        }
+        sha256 = ContentHashUtils.sha256(file);
+    }
+
+    @BeforeEach
+    void setUp() {
+        StoredFileDownload download = new StoredFileDownload(file, "отчёт.bin", "application/octet-stream", sha256);
+        when(articleNoteService.getFileDownload(eq(NOTE_ID), eq(FILE_ID), eq(NM_ID), any())).thenReturn(download);
+        when(campaignNoteService.getFileDownload(eq(NOTE_ID), eq(FILE_ID), eq(CAMPAIGN_ID), any())).thenReturn(download);
+    }
+
+    @Test
+    void concurrentFullDownloadsGetWholeFile() throws Exception {
+        List<Integer> statuses = concurrently(CONCURRENT_DOWNLOADS, i -> {
+            String url = i % 2 == 0 ? articleFileUrl() : campaignFileUrl();
+            HttpResponse<InputStream> response = get(url);
+            assertThat(response.headers().firstValueAsLong(HttpHeaders.CONTENT_LENGTH)).hasValue(FILE_SIZE);
+            assertThat(response.headers().firstValue(HttpHeaders.ETAG)).hasValue("\"" + sha256 + "\"");
+            assertBodyIsFileSlice(response.body(), 0, FILE_SIZE);
+            return response.statusCode();
+        });
+
+        assertThat(statuses).containsOnly(200);
+    }
+
+    @Test
+    void matchingIfNoneMatchGives304WithoutBody() throws Exception {
+        HttpResponse<InputStream> first = get(articleFileUrl());
+        String etag = first.headers().firstValue(HttpHeaders.ETAG).orElseThrow();
+        first.body().close();
+
+        HttpResponse<byte[]> revalidated = client.send(request(campaignFileUrl())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+
+        assertThat(revalidated.statusCode()).isEqualTo(304);
+        assertThat(revalidated.headers().firstValue(HttpHeaders.ETAG)).hasValue(etag);
+        assertThat(revalidated.body()).isEmpty();
+    }
+
+    @Test
+    void rangeGives206WithContentRange() throws Exception {
+        long start = 3L * 1024 * 1024 + 17;
+        long end = 7L * 1024 * 1024 + 4_000;
+
+        HttpResponse<InputStream> response = getRange(articleFileUrl(), "bytes=" + start + "-" + end);
+
+        assertThat(response.statusCode()).isEqualTo(206);
+        assertThat(response.headers().firstValue(HttpHeaders.CONTENT_RANGE))
+                .hasValue("bytes " + start + "-" + end + "/" + FILE_SIZE);
+        assertThat(response.headers().firstValueAsLong(HttpHeaders.CONTENT_LENGTH)).hasValue(end - start + 1);
+        assertBodyIsFileSlice(response.body(), start, end - start + 1);
+
+        HttpResponse<InputStream> tail = getRange(campaignFileUrl(), "bytes=-1000");
+        assertThat(tail.statusCode()).isEqualTo(206);
+        assertThat(tail.headers().firstValue(HttpHeaders.CONTENT_RANGE))
+                .hasValue("bytes " + (FILE_SIZE - 1000) + "-" + (FILE_SIZE - 1) + "/" + FILE_SIZE);
+        assertBodyIsFileSlice(tail.body(), FILE_SIZE - 1000, 1000);
+    }
+
+    @Test
+    void concurrentRangeDownloadsCoverWholeFile() throws Exception {
+        long part = FILE_SIZE / CONCURRENT_DOWNLOADS;
+        List<Integer> statuses = concurrently(CONCURRENT_DOWNLOADS, i -> {
+            long start = i * part;
+            long end = i == CONCURRENT_DOWNLOADS - 1 ? FILE_SIZE - 1 : start + part - 1;
+            HttpResponse<InputStream> response = getRange(i % 2 == 0 ? campaignFileUrl() : articleFileUrl(),
+                    "bytes=" + start + "-" + end);
+            assertThat(response.headers().firstValue(HttpHeaders.CONTENT_RANGE))
+                    .hasValue("bytes " + start + "-" + end + "/" + FILE_SIZE);
+            assertBodyIsFileSlice(response.body(), start, end - start + 1);
+            return response.statusCode();
+        });
+
+        assertThat(statuses).containsOnly(206);
+    }
+
+    private String articleFileUrl() {
+        return baseUrl() + "/analytics/article/" + NM_ID + "/notes/" + NOTE_ID + "/files/" + FILE_ID;
+    }
+
+    private String campaignFileUrl() {
+        return baseUrl() + "/advertising/campaigns/" + CAMPAIGN_ID + "/notes/" + NOTE_ID + "/files/" + FILE_ID;
+    }
+
+    private String baseUrl() {
+        return "http://localhost:" + port + contextPath;
+    }
+
+    private HttpResponse<InputStream> get(String url) throws IOException, InterruptedException {
+        return client.send(request(url).build(), HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    private HttpResponse<InputStream> getRange(String url, String range) throws IOException, InterruptedException {
+        return client.send(request(url).header(HttpHeaders.RANGE, range).build(), HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    private static HttpRequest.Builder request(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).GET();
+    }
+
+    /**
+     * Сравнивает тело ответа с байтами файла {@code [offset, offset + length)} блоками, не держа тело целиком в памяти;
+     * после диапазона в теле не должно быть лишних байт.
+     */
+    private static void assertBodyIsFileSlice(InputStream body, long offset, long length) throws IOException {
+        try (InputStream actual = body; InputStream expected = Files.newInputStream(file)) {
+            expected.skipNBytes(offset);
+            byte[] actualChunk = new byte[COMPARE_CHUNK];
+            byte[] expectedChunk = new byte[COMPARE_CHUNK];
+            long compared = 0;
+            while (compared < length) {
+                int n = (int) Math.min(COMPARE_CHUNK, length - compared);
+                assertThat(actual.readNBytes(actualChunk, 0, n)).as("тело оборвано после байта %d", offset + compared)
+                        .isEqualTo(n);
+                expected.readNBytes(expectedChunk, 0, n);
+                assertThat(Arrays.mismatch(actualChunk, 0, n, expectedChunk, 0, n))
+                        .as("байты отличаются в блоке с %d", offset + compared)
+                        .isEqualTo(-1);
+                compared += n;
+            }
+            assertThat(actual.read()).as("лишние байты после диапазона").isEqualTo(-1);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Download {
+        int run(int index) throws Exception;
+    }
+
+    /**
+     * Запускает {@code count} загрузок одновременно и возвращает их статусы.
+     */
+    private static List<Integer> concurrently(int count, Download download) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                futures.add(executor.submit((Callable<Integer>) () -> {
+                    start.await();
+                    return download.run(index);
+                }));
+            }
+            start.countDown();
+            List<Integer> statuses = new ArrayList<>();
+            for (Future<Integer> future : futures) {
+                statuses.add(future.get(2, TimeUnit.MINUTES));
+            }
+            return statuses;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Только контроллеры заметок и {@link StoredFileResponder} на встроенном Tomcat; БД и безопасность не поднимаются,
+     * сервисы заметок — моки.
+     */
+    @SpringBootConfiguration
+    @EnableAutoConfiguration(exclude = {
+            DataSourceAutoConfiguration.class,
+            DataSourceTransactionManagerAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class,
+            SecurityAutoConfiguration.class,
+            SecurityFilterAutoConfiguration.class,
+            UserDetailsServiceAutoConfiguration.class
+    })
+    @Import({WbArticleNotesController.class, WbCampaignNotesController.class, StoredFileResponder.class})
+    static class DownloadApp {
+    }
+}
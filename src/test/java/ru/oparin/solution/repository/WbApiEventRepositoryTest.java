@@ -0,0 +1,248 @@
+package ru.oparin.solution.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.oparin.solution.model.Cabinet;
+import ru.oparin.solution.model.User;
+import ru.oparin.solution.model.WbApiEvent;
+import ru.oparin.solution.model.WbApiEventStatus;
+import ru.oparin.solution.model.WbApiEventType;
+import ru.oparin.solution.model.WbProductCard;
+import ru.oparin.solution.service.events.payload.WbAnalyticsSalesFunnelPayload;
+import ru.oparin.solution.service.events.payload.WbApiEventPayload;
+import ru.oparin.solution.service.events.payload.WbMainStepPayload;
+import ru.oparin.solution.service.events.payload.WbPromotionAdvertsBatchPayload;
+import ru.oparin.solution.service.events.payload.WbPromotionStatsBatchPayload;
+import ru.oparin.solution.service.events.payload.WbStocksByNmIdPayload;
+import ru.oparin.solution.support.AbstractPostgresJpaTest;
+import ru.oparin.solution.support.TestEntities;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Запросы по колонкам маршрутизации событий (nm_id, date_from, date_to) дают тот же результат, что прежние:
+ * разбор payload диспетчером + выборка приоритетных nmId по кабинету и LIKE по префиксу dedup_key.
+ */
+class WbApiEventRepositoryTest extends AbstractPostgresJpaTest {
+
+    private static final LocalDate JAN_1 = LocalDate.of(2026, 1, 1);
+    private static final LocalDate JAN_7 = LocalDate.of(2026, 1, 7);
+    private static final LocalDate JAN_14 = LocalDate.of(2026, 1, 14);
+
+    private static final Set<WbApiEventStatus> ACTIVE_STATUSES = Set.of(
+            WbApiEventStatus.CREATED,
+            WbApiEventStatus.RUNNING,
+            WbApiEventStatus.FAILED_RETRYABLE,
+            WbApiEventStatus.DEFERRED_RATE_LIMIT
+    );
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    @Autowired
+    private WbApiEventRepository repository;
+
+    @Autowired
+    private TestEntityManager em;
+
+    private Cabinet cabinet;
+    private Cabinet otherCabinet;
+
+    @BeforeEach
+    void setUp() {
+        User user = TestEntities.user(em, "events@test.local");
+        cabinet = TestEntities.wbCabinet(em, user, "events-key");
+        otherCabinet = TestEntities.wbCabinet(em, user, "events-other-key");
+        card(cabinet, 100L, true);
+        card(cabinet, 101L, false);
+        card(otherCabinet, 200L, true);
+    }
+
+    @Test
+    void priorityCardEventsMatchPayloadLookup() {
+        List<WbApiEvent> events = List.of(
+                event(cabinet, WbApiEventType.STOCKS_BY_NMID, new WbStocksByNmIdPayload(100L), "s:100", WbApiEventStatus.CREATED),
+                event(cabinet, WbApiEventType.STOCKS_BY_NMID, new WbStocksByNmIdPayload(101L), "s:101", WbApiEventStatus.CREATED),
+                event(cabinet, WbApiEventType.STOCKS_BY_NMID, new WbStocksByNmIdPayload(999L), "s:999", WbApiEventStatus.CREATED),
+                event(cabinet, WbApiEventType.ANALYTICS_SALES_FUNNEL_NMID,
+                        new WbAnalyticsSalesFunnelPayload(100L, JAN_1, JAN_7, false), "a:100", WbApiEventStatus.RUNNING),
+                event(otherCabinet, WbApiEventType.ANALYTICS_SALES_FUNNEL_NMID,
+                        new WbAnalyticsSalesFunnelPayload(200L, JAN_1, JAN_7, true), "a:200", WbApiEventStatus.CREATED),
+                event(otherCabinet, WbApiEventType.STOCKS_BY_NMID, new WbStocksByNmIdPayload(100L), "s:other:100", WbApiEventStatus.CREATED),
+                event(cabinet, WbApiEventType.PRICES_CABINET_WITH_SPP,
+                        WbMainStepPayload.builder().dateFrom(JAN_1).dateTo(JAN_7).build(), "p", WbApiEventStatus.CREATED),
+                statsBatch(cabinet, JAN_1, JAN_7, 0, WbApiEventStatus.CREATED));
+        em.flush();
+        em.clear();
+
+        List<Long> ids = events.stream().map(WbApiEvent::getId).toList();
+        Set<Long> priority = new HashSet<>(repository.findIdsForPriorityCards(ids));
+
+        assertThat(priority).isEqualTo(legacyPriorityEventIds(repository.findAllById(ids)));
+        assertThat(priority).containsExactlyInAnyOrder(events.get(0).getId(), events.get(3).getId(), events.get(4).getId());
+        assertThat(repository.findIdsForPriorityCards(List.of(events.get(0).getId()))).containsExactly(events.get(0).getId());
+    }
+
+    @Test
+    void periodCheckMatchesDedupKeyPrefix() {
+        List<WbApiEvent> events = new ArrayList<>();
+        events.add(statsBatch(cabinet, JAN_1, JAN_7, 0, WbApiEventStatus.CREATED));
+        events.add(statsBatch(cabinet, JAN_1, JAN_7, 1, WbApiEventStatus.SUCCESS));
+        events.add(statsBatch(cabinet, JAN_1, JAN_14, 0, WbApiEventStatus.DEFERRED_RATE_LIMIT));
+        events.add(statsBatch(otherCabinet, JAN_1, JAN_7, 0, WbApiEventStatus.RUNNING));
+        events.add(advertsBatch(cabinet, JAN_1, JAN_7, 0, WbApiEventStatus.FAILED_RETRYABLE));
+        events.add(advertsBatch(cabinet, JAN_1, JAN_7, 1, WbApiEventStatus.FAILED_FINAL));
+        em.flush();
+        em.clear();
+
+        List<Long> excludeIds = new ArrayList<>(events.stream().map(WbApiEvent::getId).toList());
+        excludeIds.add(-1L);
+        for (Cabinet c : List.of(cabinet, otherCabinet)) {
+            for (WbApiEventType type : List.of(WbApiEventType.PROMOTION_STATS_BATCH, WbApiEventType.PROMOTION_ADVERTS_BATCH)) {
+                for (LocalDate[] period : List.of(new LocalDate[]{JAN_1, JAN_7}, new LocalDate[]{JAN_1, JAN_14},
+                        new LocalDate[]{JAN_7, JAN_14})) {
+                    String prefix = type.name() + ":" + c.getId() + ":" + period[0] + ":" + period[1] + ":";
+                    for (Long excludeId : excludeIds) {
+                        assertThat(repository.existsOtherByCabinet_IdAndEventTypeAndStatusInAndPeriod(
+                                c.getId(), type, ACTIVE_STATUSES, period[0], period[1], excludeId))
+                                .as("%s excluding %d", prefix, excludeId)
+                                .isEqualTo(legacyExistsByPrefix(c.getId(), type, prefix, excludeId));
+                    }
+                    assertThat(repository.existsByCabinet_IdAndEventTypeAndStatusInAndPeriod(
+                            c.getId(), type, ACTIVE_STATUSES, period[0], period[1]))
+                            .isEqualTo(legacyExistsByPrefix(c.getId(), type, prefix, -1L));
+                }
+            }
+        }
+        assertThat(repository.existsOtherByCabinet_IdAndEventTypeAndStatusInAndPeriod(cabinet.getId(),
+                WbApiEventType.PROMOTION_STATS_BATCH, ACTIVE_STATUSES, JAN_1, JAN_7, events.get(0).getId())).isFalse();
+        assertThat(repository.existsOtherByCabinet_IdAndEventTypeAndStatusInAndPeriod(cabinet.getId(),
+                WbApiEventType.PROMOTION_ADVERTS_BATCH, ACTIVE_STATUSES, JAN_1, JAN_7, events.get(5).getId())).isTrue();
+    }
+
+    /**
+     * Прежняя приоритизация диспетчера: nmId из payload (ANALYTICS_SALES_FUNNEL_NMID, STOCKS_BY_NMID),
+     * затем приоритетные nmId среди них отдельным запросом на кабинет.
+     */
+    private Set<Long> legacyPriorityEventIds(List<WbApiEvent> events) {
+        Map<Long, Set<Long>> nmIdsByCabinet = new HashMap<>();
+        for (WbApiEvent event : events) {
+            Long nmId = legacyExtractNmId(event);
+            if (nmId != null) {
+                nmIdsByCabinet.computeIfAbsent(event.getCabinet().getId(), ignored -> new HashSet<>()).add(nmId);
+            }
+        }
+        Map<Long, Set<Long>> priorityNmIdsByCabinet = new HashMap<>();
+        nmIdsByCabinet.forEach((cabinetId, nmIds) -> priorityNmIdsByCabinet.put(cabinetId, new HashSet<>(em.getEntityManager()
+                .createQuery("SELECT c.nmId FROM WbProductCard c WHERE c.cabinet.id = :cabinetId AND c.nmId IN :nmIds AND c.isPriority = true", Long.class)
+                .setParameter("cabinetId", cabinetId)
+                .setParameter("nmIds", List.copyOf(nmIds))
+                .getResultList())));
+
+        Set<Long> result = new HashSet<>();
+        for (WbApiEvent event : events) {
+            Long nmId = legacyExtractNmId(event);
+            if (nmId != null && priorityNmIdsByCabinet.getOrDefault(event.getCabinet().getId(), Set.of()).contains(nmId)) {
+                result.add(event.getId());
+            }
+        }
+        return result;
+    }
+
+    private Long legacyExtractNmId(WbApiEvent event) {
+        try {
+            if (event.getEventType() == WbApiEventType.ANALYTICS_SALES_FUNNEL_NMID) {
+                return objectMapper.readValue(event.getPayloadJson(), WbAnalyticsSalesFunnelPayload.class).nmId();
+            }
+            if (event.getEventType() == WbApiEventType.STOCKS_BY_NMID) {
+                return objectMapper.readValue(event.getPayloadJson(), WbStocksByNmIdPayload.class).nmId();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return null;
+    }
+
+    /**
+     * Прежняя проверка «ещё есть активные батчи периода»: LIKE по префиксу dedup_key «TYPE:cabinet:from:to:».
+     */
+    private boolean legacyExistsByPrefix(Long cabinetId, WbApiEventType type, String prefix, Long excludeEventId) {
+        return em.getEntityManager().createQuery("""
+                        select case when count(e) > 0 then true else false end
+                          from WbApiEvent e
+                         where e.cabinet.id = :cabinetId
+                           and e.eventType = :eventType
+                           and e.status in :statuses
+                           and e.dedupKey like concat(:prefix, '%')
+                           and e.id <> :excludeEventId
+                        """, Boolean.class)
+                .setParameter("cabinetId", cabinetId)
+                .setParameter("eventType", type)
+                .setParameter("statuses", ACTIVE_STATUSES)
+                .setParameter("prefix", prefix)
+                .setParameter("excludeEventId", excludeEventId)
+                .getSingleResult();
+    }
+
+    private WbApiEvent statsBatch(Cabinet cabinet, LocalDate from, LocalDate to, int batchIndex, WbApiEventStatus status) {
+        return event(cabinet, WbApiEventType.PROMOTION_STATS_BATCH,
+                new WbPromotionStatsBatchPayload(List.of(1L, 2L), batchIndex, from, to, false),
+                "PROMOTION_STATS_BATCH:" + cabinet.getId() + ":" + from + ":" + to + ":" + batchIndex, status);
+    }
+
+    private WbApiEvent advertsBatch(Cabinet cabinet, LocalDate from, LocalDate to, int batchIndex, WbApiEventStatus status) {
+        return event(cabinet, WbApiEventType.PROMOTION_ADVERTS_BATCH,
+                new WbPromotionAdvertsBatchPayload(List.of(1L, 2L), batchIndex, from, to, false),
+                "PROMOTION_ADVERTS_BATCH:" + cabinet.getId() + ":" + from + ":" + to + ":" + batchIndex, status);
+    }
+
+    /** Событие как после {@code WbApiEventService.bindPayload}: JSON payload и колонки маршрутизации из него. */
+    private WbApiEvent event(Cabinet cabinet, WbApiEventType type, WbApiEventPayload payload, String dedupKey,
+                             WbApiEventStatus status) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            return em.persist(WbApiEvent.builder()
+                    .eventType(type)
+                    .status(status)
+                    .executorBeanName("testExecutor")
+                    .cabinet(cabinet)
+                    .payloadJson(objectMapper.writeValueAsString(payload))
+                    .nmId(payload.nmId())
+                    .campaignId(payload.campaignId())
+                    .dateFrom(payload.dateFrom())
+                    .dateTo(payload.dateTo())
+                    .dedupKey(dedupKey)
+                    .attemptCount(0)
+                    .maxAttempts(3)
+                    .nextAttemptAt(now)
+                    .priority(50)
+                    .triggerSource("TEST")
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void card(Cabinet cabinet, long nmId, boolean priority) {
+        em.persist(WbProductCard.builder()
+                .nmId(nmId)
+                .cabinet(cabinet)
+                .title("Card " + nmId)
+                .isPriority(priority)
+                .build());
+    }
+}
@@ -0,0 +1,193 @@
+package ru.oparin.solution.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.oparin.solution.model.Cabinet;
+import ru.oparin.solution.model.WbProductFbsStock;
+import ru.oparin.solution.support.AbstractPostgresJpaTest;
+import ru.oparin.solution.support.TestEntities;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link WbProductFbsStockCopyWriter#replaceWarehouse}: тот же снимок склада, что у прежней замены через
+ * сущности (save по каждому chrtId, deleteAll исчезнувших); неизменённые строки не перезаписываются.
+ */
+@Import(WbProductFbsStockCopyWriter.class)
+class WbProductFbsStockCopyWriterTest extends AbstractPostgresJpaTest {
+
+    private static final long WAREHOUSE = 501L;
+    private static final long OTHER_WAREHOUSE = 502L;
+    private static final LocalDateTime SEEDED_AT = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private static final long UNCHANGED = 1L;
+    private static final long AMOUNT_CHANGED = 2L;
+    private static final long VANISHED = 3L;
+    private static final long APPEARED = 4L;
+    private static final long SKU_FILLED = 5L;
+    private static final long NM_ID_LOST = 6L;
+
+    @Autowired
+    private WbProductFbsStockCopyWriter copyWriter;
+
+    @Autowired
+    private WbProductFbsStockRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager em;
+
+    private Cabinet legacyCabinet;
+    private Cabinet copyCabinet;
+
+    @BeforeEach
+    void setUp() {
+        var user = TestEntities.user(em, "fbs@test.local");
+        legacyCabinet = TestEntities.wbCabinet(em, user, "fbs-legacy-key");
+        copyCabinet = TestEntities.wbCabinet(em, user, "fbs-copy-key");
+        for (Cabinet cabinet : List.of(legacyCabinet, copyCabinet)) {
+            stock(cabinet, WAREHOUSE, UNCHANGED, 10L, "sku-1", 5);
+            stock(cabinet, WAREHOUSE, AMOUNT_CHANGED, 20L, "sku-2", 5);
+            stock(cabinet, WAREHOUSE, VANISHED, 30L, "sku-3", 1);
+            stock(cabinet, WAREHOUSE, SKU_FILLED, 50L, null, 0);
+            stock(cabinet, WAREHOUSE, NM_ID_LOST, 60L, "sku-6", 2);
+            stock(cabinet, OTHER_WAREHOUSE, UNCHANGED, 10L, "sku-1", 9);
+        }
+        em.flush();
+        em.clear();
+        jdbcTemplate.update("UPDATE solution.wb_product_fbs_stocks SET created_at = ?, updated_at = ?",
+                Timestamp.valueOf(SEEDED_AT), Timestamp.valueOf(SEEDED_AT));
+    }
+
+    @Test
+    void matchesLegacyReplace() {
+        List<WbProductFbsStockCopyWriter.Row> snapshot = List.of(
+                new WbProductFbsStockCopyWriter.Row(UNCHANGED, 10L, "sku-1", 5),
+                new WbProductFbsStockCopyWriter.Row(AMOUNT_CHANGED, 20L, "sku-2", 7),
+                new WbProductFbsStockCopyWriter.Row(APPEARED, 40L, "sku-4", 3),
+                new WbProductFbsStockCopyWriter.Row(SKU_FILLED, 50L, "sku-5", 0),
+                new WbProductFbsStockCopyWriter.Row(NM_ID_LOST, null, "sku-6", 2));
+
+        legacyReplace(legacyCabinet, WAREHOUSE, snapshot);
+        WbProductFbsStockCopyWriter.Result result = copyWriter.replaceWarehouse(copyCabinet.getId(), WAREHOUSE, snapshot);
+
+        assertThat(state(copyCabinet)).isEqualTo(state(legacyCabinet));
+        assertThat(state(copyCabinet)).doesNotContainKey(WAREHOUSE + ":" + VANISHED);
+        assertThat(result.upserted()).isEqualTo(4);
+        assertThat(result.deleted()).isEqualTo(1);
+
+        Map<String, LocalDateTime> updatedAt = updatedAt(copyCabinet);
+        assertThat(updatedAt.get(WAREHOUSE + ":" + UNCHANGED)).isEqualTo(SEEDED_AT);
+        assertThat(updatedAt.get(OTHER_WAREHOUSE + ":" + UNCHANGED)).isEqualTo(SEEDED_AT);
+        assertThat(updatedAt.get(WAREHOUSE + ":" + AMOUNT_CHANGED)).isAfter(SEEDED_AT);
+        assertThat(updatedAt.get(WAREHOUSE + ":" + NM_ID_LOST)).isAfter(SEEDED_AT);
+    }
+
+    @Test
+    void emptySnapshotClearsOnlyThatWarehouse() {
+        legacyReplace(legacyCabinet, WAREHOUSE, List.of());
+        WbProductFbsStockCopyWriter.Result result = copyWriter.replaceWarehouse(copyCabinet.getId(), WAREHOUSE, List.of());
+
+        assertThat(state(copyCabinet)).isEqualTo(state(legacyCabinet));
+        assertThat(state(copyCabinet)).containsOnlyKeys(OTHER_WAREHOUSE + ":" + UNCHANGED);
+        assertThat(result.upserted()).isZero();
+        assertThat(result.deleted()).isEqualTo(5);
+    }
+
+    @Test
+    void repeatedSnapshotChangesNothing() {
+        List<WbProductFbsStockCopyWriter.Row> snapshot = List.of(
+                new WbProductFbsStockCopyWriter.Row(UNCHANGED, 10L, "sku-1", 5),
+                new WbProductFbsStockCopyWriter.Row(AMOUNT_CHANGED, 20L, "sku-2", 5),
+                new WbProductFbsStockCopyWriter.Row(VANISHED, 30L, "sku-3", 1),
+                new WbProductFbsStockCopyWriter.Row(SKU_FILLED, 50L, null, 0),
+                new WbProductFbsStockCopyWriter.Row(NM_ID_LOST, 60L, "sku-6", 2));
+
+        WbProductFbsStockCopyWriter.Result result = copyWriter.replaceWarehouse(copyCabinet.getId(), WAREHOUSE, snapshot);
+
+        assertThat(result.upserted()).isZero();
+        assertThat(result.deleted()).isZero();
+        assertThat(updatedAt(copyCabinet).values()).containsOnly(SEEDED_AT);
+    }
+
+    /**
+     * Прежний {@code replaceWarehouseStocks}: существующие сущности склада по chrtId, save по каждой строке
+     * снимка, deleteAll оставшихся.
+     */
+    private void legacyReplace(Cabinet cabinet, Long warehouseId, List<WbProductFbsStockCopyWriter.Row> rows) {
+        Cabinet managed = em.find(Cabinet.class, cabinet.getId());
+        Map<Long, WbProductFbsStock> existingByChrtId = new HashMap<>();
+        for (WbProductFbsStock stock : repository.findByCabinet_IdAndWarehouseId(cabinet.getId(), warehouseId)) {
+            existingByChrtId.put(stock.getChrtId(), stock);
+        }
+        for (WbProductFbsStockCopyWriter.Row row : rows) {
+            WbProductFbsStock stock = existingByChrtId.remove(row.chrtId());
+            if (stock == null) {
+                stock = WbProductFbsStock.builder()
+                        .cabinet(managed)
+                        .warehouseId(warehouseId)
+                        .chrtId(row.chrtId())
+                        .build();
+            }
+            stock.setNmId(row.nmId());
+            stock.setSku(row.sku());
+            stock.setAmount(row.amount());
+            repository.save(stock);
+        }
+        if (!existingByChrtId.isEmpty()) {
+            repository.deleteAll(existingByChrtId.values());
+        }
+        em.flush();
+        em.clear();
+    }
+
+    /** Остатки кабинета: «склад:chrtId» → «nmId|sku|amount». */
+    private Map<String, String> state(Cabinet cabinet) {
+        Map<String, String> state = new HashMap<>();
+        jdbcTemplate.query("""
+                        SELECT warehouse_id, chrt_id, nm_id, sku, amount
+                          FROM solution.wb_product_fbs_stocks
+                         WHERE cabinet_id = ?
+                        """,
+                rs -> {
+                    state.put(rs.getLong("warehouse_id") + ":" + rs.getLong("chrt_id"),
+                            rs.getObject("nm_id") + "|" + rs.getString("sku") + "|" + rs.getInt("amount"));
+                },
+                cabinet.getId());
+        return state;
+    }
+
+    private Map<String, LocalDateTime> updatedAt(Cabinet cabinet) {
+        Map<String, LocalDateTime> result = new HashMap<>();
+        jdbcTemplate.query("SELECT warehouse_id, chrt_id, updated_at FROM solution.wb_product_fbs_stocks WHERE cabinet_id = ?",
+                rs -> {
+                    result.put(rs.getLong("warehouse_id") + ":" + rs.getLong("chrt_id"),
+                            rs.getTimestamp("updated_at").toLocalDateTime());
+                },
+                cabinet.getId());
+        return result;
+    }
+
+    private void stock(Cabinet cabinet, long warehouseId, long chrtId, Long nmId, String sku, int amount) {
+        em.persist(WbProductFbsStock.builder()
+                .cabinet(cabinet)
+                .warehouseId(warehouseId)
+                .chrtId(chrtId)
+                .nmId(nmId)
+                .sku(sku)
+                .amount(amount)
+                .build());
+    }
+}
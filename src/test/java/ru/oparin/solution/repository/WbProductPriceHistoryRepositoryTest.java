@@ -0,0 +1,175 @@
+package ru.oparin.solution.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ru.oparin.solution.model.Cabinet;
+import ru.oparin.solution.model.WbProductPriceHistory;
+import ru.oparin.solution.support.AbstractPostgresJpaTest;
+import ru.oparin.solution.support.SqlStatementCounter;
+import ru.oparin.solution.support.StatementCountingConfiguration;
+import ru.oparin.solution.support.TestEntities;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link WbProductPriceHistoryRepository#alignSppDiscountByNmIds}: тот же результат, что у прежнего цикла
+ * по nmId в {@code WbProductPriceService}, одной командой UPDATE. {@code saveAll} истории цен идёт батчами
+ * INSERT с ID блоками из sequence (113_bulk_tables_pooled_sequences.sql).
+ */
+@Import(StatementCountingConfiguration.class)
+class WbProductPriceHistoryRepositoryTest extends AbstractPostgresJpaTest {
+
+    private static final LocalDate DATE = LocalDate.of(2026, 3, 10);
+
+    private static final long SIZES_WITH_SPP = 101L;
+    private static final long SINGLE_ROW_WITHOUT_SPP = 102L;
+    private static final long NO_SPP_AT_ALL = 103L;
+    private static final long ALREADY_ALIGNED = 104L;
+    private static final long NOT_REQUESTED = 105L;
+
+    @Autowired
+    private WbProductPriceHistoryRepository repository;
+
+    @Autowired
+    private SqlStatementCounter statementCounter;
+
+    @Autowired
+    private TestEntityManager em;
+
+    private Cabinet cabinet;
+    private Cabinet otherCabinet;
+
+    @BeforeEach
+    void setUp() {
+        var user = TestEntities.user(em, "spp@test.local");
+        cabinet = TestEntities.wbCabinet(em, user, "spp-key");
+        otherCabinet = TestEntities.wbCabinet(em, user, "spp-other-key");
+
+        price(cabinet, SIZES_WITH_SPP, DATE, null, 25);
+        price(cabinet, SIZES_WITH_SPP, DATE, 1L, null);
+        price(cabinet, SIZES_WITH_SPP, DATE, 2L, null);
+        price(cabinet, SIZES_WITH_SPP, DATE.minusDays(1), null, null);
+        price(otherCabinet, SIZES_WITH_SPP, DATE, null, null);
+
+        price(cabinet, SINGLE_ROW_WITHOUT_SPP, DATE, null, null);
+
+        price(cabinet, NO_SPP_AT_ALL, DATE, null, null);
+        price(cabinet, NO_SPP_AT_ALL, DATE, 1L, null);
+
+        price(cabinet, ALREADY_ALIGNED, DATE, null, 17);
+        price(cabinet, ALREADY_ALIGNED, DATE, 1L, 17);
+
+        price(cabinet, NOT_REQUESTED, DATE, null, 30);
+        price(cabinet, NOT_REQUESTED, DATE, 1L, null);
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void matchesLegacyLoopInSingleStatement() {
+        List<Long> nmIds = List.of(SIZES_WITH_SPP, SINGLE_ROW_WITHOUT_SPP, NO_SPP_AT_ALL, ALREADY_ALIGNED, SIZES_WITH_SPP);
+        Map<Long, Integer> expected = legacyAlign(repository.findAll(), nmIds, DATE, cabinet.getId());
+        em.clear();
+        statementCounter.reset();
+
+        int updated = repository.alignSppDiscountByNmIds(
+                cabinet.getId(), DATE, new LinkedHashSet<>(nmIds).toArray(Long[]::new));
+
+        assertThat(statementCounter.statements()).hasSize(1);
+        assertThat(statementCounter.count("update")).isEqualTo(1);
+        assertThat(updated).isEqualTo(2);
+        assertThat(sppById(repository.findAll())).isEqualTo(expected);
+    }
+
+    @Test
+    void saveAllBatchesInsertsAndAllocatesIdsInBlocks() {
+        Cabinet owner = em.find(Cabinet.class, cabinet.getId());
+        List<WbProductPriceHistory> rows = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            rows.add(row(owner, 10_000L + i, DATE, null, null));
+        }
+        statementCounter.reset();
+
+        repository.saveAll(rows);
+        em.flush();
+
+        long nextvals = statementCounter.statements().stream().filter(sql -> sql.contains("nextval")).count();
+        // batch_size 50: 1000 строк — 20 executeBatch; шаг sequence 50 — 20 nextval (остаток блока меньше 50).
+        assertThat(statementCounter.batches()).isEqualTo(20);
+        assertThat(statementCounter.count("insert")).isEqualTo(20);
+        assertThat(nextvals).isEqualTo(20);
+        assertThat(statementCounter.total()).as("%s", statementCounter.statements()).isEqualTo(40);
+        assertThat(rows).extracting(WbProductPriceHistory::getId).doesNotContainNull().doesNotHaveDuplicates();
+    }
+
+    /**
+     * Прежняя реализация {@code alignSppDiscountAcrossSizeRows}: по каждому nmId строки за день,
+     * первое известное СПП копируется в строки без СПП. Возвращает СПП по id строк после выравнивания.
+     */
+    private static Map<Long, Integer> legacyAlign(
+            List<WbProductPriceHistory> allRows, List<Long> nmIds, LocalDate date, Long cabinetId) {
+        Map<Long, Integer> result = sppById(allRows);
+        for (Long nmId : new LinkedHashSet<>(nmIds)) {
+            List<WbProductPriceHistory> rows = allRows.stream()
+                    .filter(row -> row.getNmId().equals(nmId)
+                            && row.getDate().equals(date)
+                            && row.getCabinet().getId().equals(cabinetId))
+                    .toList();
+            if (rows.size() < 2) {
+                continue;
+            }
+            Integer spp = rows.stream()
+                    .map(WbProductPriceHistory::getSppDiscount)
+                    .filter(Objects::nonNull)
+                    .findFirst()
+                    .orElse(null);
+            if (spp == null) {
+                continue;
+            }
+            for (WbProductPriceHistory row : rows) {
+                if (row.getSppDiscount() == null) {
+                    result.put(row.getId(), spp);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Map<Long, Integer> sppById(List<WbProductPriceHistory> rows) {
+        Map<Long, Integer> result = new HashMap<>();
+        rows.forEach(row -> result.put(row.getId(), row.getSppDiscount()));
+        return result;
+    }
+
+    private void price(Cabinet owner, long nmId, LocalDate date, Long sizeId, Integer sppDiscount) {
+        em.persist(row(owner, nmId, date, sizeId, sppDiscount));
+    }
+
+    private static WbProductPriceHistory row(Cabinet owner, long nmId, LocalDate date, Long sizeId, Integer sppDiscount) {
+        return WbProductPriceHistory.builder()
+                .cabinet(owner)
+                .nmId(nmId)
+                .date(date)
+                .sizeId(sizeId)
+                .price(new BigDecimal("1000.00"))
+                .discountedPrice(new BigDecimal("800.00"))
+                .clubDiscountedPrice(new BigDecimal("780.00"))
+                .discount(20)
+                .clubDiscount(3)
+                .sppDiscount(sppDiscount)
+                .build();
+    }
+}
@@ -0,0 +1,249 @@
+package ru.oparin.solution.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.oparin.solution.model.Cabinet;
+import ru.oparin.solution.model.WbPromotionCampaign;
+import ru.oparin.solution.model.WbPromotionNormQueryStatistics;
+import ru.oparin.solution.support.AbstractPostgresJpaTest;
+import ru.oparin.solution.support.TestEntities;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Замена диапазона normquery через COPY: 100 000 строк из ленивого итератора, без списка в памяти;
+ * содержимое таблицы совпадает с прежним {@code saveAll} по тому же ответу, включая повторы ключа
+ * (побеждает последняя строка ответа).
+ */
+@Import(WbPromotionNormQueryStatisticsCopyWriter.class)
+class WbPromotionNormQueryStatisticsCopyWriterTest extends AbstractPostgresJpaTest {
+
+    private static final long CAMPAIGN_A = 9_100_001L;
+    private static final long CAMPAIGN_B = 9_100_002L;
+    private static final long UNKNOWN_CAMPAIGN = 9_100_999L;
+    private static final LocalDate DATE_FROM = LocalDate.of(2026, 3, 1);
+    private static final LocalDate DATE_TO = DATE_FROM.plusDays(9);
+    private static final int DAYS = 10;
+    private static final int NM_IDS = 50;
+    private static final int QUERIES = 100;
+    private static final int ROWS = 2 * NM_IDS * DAYS * QUERIES;
+    /** Ключи, которые ответ повторяет дважды в конце, каждый раз с новыми значениями. */
+    private static final int REPEATED_KEYS = 500;
+    private static final int REPEATS = 2 * REPEATED_KEYS;
+    private static final String SNAPSHOT_SQL = """
+            SELECT campaign_id, nm_id, date, norm_query, avg_pos, clicks, atbs, orders, shks,
+                   spend, cpc, views, ctr, cpm
+              FROM solution.wb_promotion_norm_query_statistics
+             WHERE campaign_id IN (?, ?, ?)
+            """;
+
+    @Autowired
+    private WbPromotionNormQueryStatisticsCopyWriter copyWriter;
+
+    @Autowired
+    private WbPromotionNormQueryStatisticsRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        Cabinet cabinet = TestEntities.wbCabinet(em, TestEntities.user(em, "normquery@test.local"), "normquery-key");
+        TestEntities.wbCampaign(em, cabinet, CAMPAIGN_A);
+        TestEntities.wbCampaign(em, cabinet, CAMPAIGN_B);
+        em.flush();
+    }
+
+    @Test
+    void replacesRangeWithStreamedRows() {
+        insertExisting(CAMPAIGN_A, DATE_FROM, "stale");
+        insertExisting(CAMPAIGN_A, DATE_FROM.minusDays(1), "outside-range");
+        GeneratedRows rows = new GeneratedRows();
+
+        int saved = copyWriter.replaceRange(List.of(CAMPAIGN_A, CAMPAIGN_B), DATE_FROM, DATE_TO, rows);
+
+        assertThat(rows.produced).isEqualTo(ROWS + REPEATS + 1);
+        assertThat(saved).isEqualTo(ROWS);
+        assertThat(countRows("campaign_id IN (?, ?)", CAMPAIGN_A, CAMPAIGN_B)).isEqualTo(ROWS + 1L);
+        assertThat(countRows("norm_query = ?", "stale")).isZero();
+        assertThat(countRows("norm_query = ?", "outside-range")).isEqualTo(1L);
+        assertThat(countRows("campaign_id = ?", UNKNOWN_CAMPAIGN)).isZero();
+    }
+
+    @Test
+    void matchesLegacySaveAllIncludingRepeatedKeys() {
+        copyWriter.replaceRange(List.of(CAMPAIGN_A, CAMPAIGN_B), DATE_FROM, DATE_TO, new GeneratedRows());
+        Map<String, String> copied = snapshot();
+
+        jdbcTemplate.update("DELETE FROM solution.wb_promotion_norm_query_statistics");
+        legacySaveAll(new GeneratedRows());
+        Map<String, String> legacy = snapshot();
+
+        assertThat(copied).hasSize(ROWS).isEqualTo(legacy);
+        // Повторённый дважды ключ хранит значения последней строки ответа, а не первой и не промежуточной.
+        assertThat(copied.get(key(CAMPAIGN_A, 1_000L, DATE_FROM, "query 0")))
+                .isEqualTo(values(GeneratedRows.row(ROWS + REPEATS - REPEATED_KEYS)));
+    }
+
+    @Test
+    void emptyIteratorOnlyDeletesRange() {
+        insertExisting(CAMPAIGN_B, DATE_FROM, "stale");
+
+        int saved = copyWriter.replaceRange(List.of(CAMPAIGN_B), DATE_FROM, DATE_FROM, new GeneratedRows(0));
+
+        assertThat(saved).isZero();
+        assertThat(countRows("campaign_id = ?", CAMPAIGN_B)).isZero();
+    }
+
+    /**
+     * Прежний {@code replaceStatisticsForCampaigns}: {@code findById} кампании (неизвестные — пропуск), сущность
+     * на каждую строку ответа и {@code saveAll}. Буквальный {@code saveAll} с повтором ключа падает на уникальном
+     * индексе, поэтому повтор перезаписывает уже собранную сущность ключа — построчная запись по порядку ответа.
+     */
+    private void legacySaveAll(Iterator<WbPromotionNormQueryStatisticsCopyWriter.Row> rows) {
+        Map<String, WbPromotionNormQueryStatistics> byKey = new LinkedHashMap<>();
+        while (rows.hasNext()) {
+            WbPromotionNormQueryStatisticsCopyWriter.Row row = rows.next();
+            WbPromotionCampaign campaign = em.find(WbPromotionCampaign.class, row.campaignId());
+            if (campaign == null) {
+                continue;
+            }
+            byKey.put(key(row.campaignId(), row.nmId(), row.date(), row.normQuery()),
+                    WbPromotionNormQueryStatistics.builder()
+                            .campaign(campaign)
+                            .nmId(row.nmId())
+                            .date(row.date())
+                            .normQuery(row.normQuery())
+                            .avgPos(row.avgPos())
+                            .clicks(row.clicks())
+                            .atbs(row.atbs())
+                            .orders(row.orders())
+                            .shks(row.shks())
+                            .spend(row.spend())
+                            .cpc(row.cpc())
+                            .views(row.views())
+                            .ctr(row.ctr())
+                            .cpm(row.cpm())
+                            .build());
+        }
+        repository.saveAll(byKey.values());
+        em.flush();
+        em.clear();
+    }
+
+    /** Строки таблицы: ключ → значения метрик. */
+    private Map<String, String> snapshot() {
+        Map<String, String> state = new LinkedHashMap<>();
+        jdbcTemplate.query(SNAPSHOT_SQL,
+                rs -> {
+                    state.put(key(rs.getLong("campaign_id"), rs.getLong("nm_id"),
+                                    rs.getDate("date").toLocalDate(), rs.getString("norm_query")),
+                            values(rs.getBigDecimal("avg_pos"), rs.getObject("clicks"), rs.getObject("atbs"),
+                                    rs.getObject("orders"), rs.getObject("shks"), rs.getBigDecimal("spend"),
+                                    rs.getBigDecimal("cpc"), rs.getObject("views"), rs.getBigDecimal("ctr"),
+                                    rs.getBigDecimal("cpm")));
+                },
+                CAMPAIGN_A, CAMPAIGN_B, UNKNOWN_CAMPAIGN);
+        return state;
+    }
+
+    private static String key(Long campaignId, Long nmId, LocalDate date, String normQuery) {
+        return campaignId + ":" + nmId + ":" + date + ":" + normQuery;
+    }
+
+    private static String values(WbPromotionNormQueryStatisticsCopyWriter.Row row) {
+        return values(row.avgPos(), row.clicks(), row.atbs(), row.orders(), row.shks(), row.spend(), row.cpc(),
+                row.views(), row.ctr(), row.cpm());
+    }
+
+    /** Метрики строкой; числа без хвостовых нулей — масштаб NUMERIC в БД и в ответе WB может отличаться. */
+    private static String values(Object... metrics) {
+        StringBuilder values = new StringBuilder();
+        for (Object metric : metrics) {
+            Object normalized = metric instanceof BigDecimal decimal ? decimal.stripTrailingZeros().toPlainString() : metric;
+            values.append(normalized).append('|');
+        }
+        return values.toString();
+    }
+
+    private void insertExisting(long campaignId, LocalDate date, String normQuery) {
+        jdbcTemplate.update("""
+                INSERT INTO solution.wb_promotion_norm_query_statistics
+                    (campaign_id, nm_id, date, norm_query, created_at, updated_at)
+                VALUES (?, 1, ?, ?, now(), now())
+                """, campaignId, date, normQuery);
+    }
+
+    private long countRows(String where, Object... args) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM solution.wb_promotion_norm_query_statistics WHERE " + where, Long.class, args);
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * Строки создаются при обходе: {@link #ROWS} разных ключей двух кампаний, затем два прохода по первым
+     * {@link #REPEATED_KEYS} ключам с новыми значениями и одна строка кампании, которой нет в БД.
+     * Метрики зависят от номера строки в ответе, поэтому победившая строка видна по значениям.
+     */
+    private static final class GeneratedRows implements Iterator<WbPromotionNormQueryStatisticsCopyWriter.Row> {
+
+        private final int total;
+        private int produced;
+
+        GeneratedRows() {
+            this(ROWS + REPEATS + 1);
+        }
+
+        GeneratedRows(int total) {
+            this.total = total;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return produced < total;
+        }
+
+        @Override
+        public WbPromotionNormQueryStatisticsCopyWriter.Row next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return row(produced++);
+        }
+
+        static WbPromotionNormQueryStatisticsCopyWriter.Row row(int i) {
+            if (i == ROWS + REPEATS) {
+                return row(UNKNOWN_CAMPAIGN, 1L, DATE_FROM, "unknown", i);
+            }
+            int keyIndex = i < ROWS ? i : (i - ROWS) % REPEATED_KEYS;
+            long campaignId = keyIndex < ROWS / 2 ? CAMPAIGN_A : CAMPAIGN_B;
+            int local = keyIndex % (ROWS / 2);
+            long nmId = 1_000L + local / (DAYS * QUERIES);
+            LocalDate date = DATE_FROM.plusDays(local / QUERIES % DAYS);
+            return row(campaignId, nmId, date, "query " + local % QUERIES, i);
+        }
+
+        private static WbPromotionNormQueryStatisticsCopyWriter.Row row(
+                long campaignId, long nmId, LocalDate date, String normQuery, int i) {
+            return new WbPromotionNormQueryStatisticsCopyWriter.Row(campaignId, nmId, date, normQuery,
+                    BigDecimal.valueOf(i % 1_000, 1), i % 97, i % 13, i % 7, i % 5,
+                    BigDecimal.valueOf(i, 2), BigDecimal.valueOf(i % 500, 2),
+                    i % 1_009, BigDecimal.valueOf(i % 300, 2), BigDecimal.valueOf(i % 400 + 100, 2));
+        }
+    }
+}
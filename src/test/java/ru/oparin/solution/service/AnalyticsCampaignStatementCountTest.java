@@ -0,0 +1,190 @@
+package ru.oparin.solution.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import ru.oparin.solution.dto.analytics.ArticleSummaryDto;
+import ru.oparin.solution.dto.analytics.CampaignDetailDto;
+import ru.oparin.solution.dto.analytics.CampaignDto;
+import ru.oparin.solution.model.Cabinet;
+import ru.oparin.solution.model.User;
+import ru.oparin.solution.model.WbCampaignArticle;
+import ru.oparin.solution.model.WbProductCard;
+import ru.oparin.solution.model.WbPromotionCampaign;
+import ru.oparin.solution.model.WbPromotionCampaignStatistics;
+import ru.oparin.solution.service.analytics.AdvertisingMetricsCalculator;
+import ru.oparin.solution.service.analytics.FunnelMetricsCalculator;
+import ru.oparin.solution.service.analytics.MetricValueCalculator;
+import ru.oparin.solution.service.analytics.WbCampaignStatisticsAggregator;
+import ru.oparin.solution.service.campaign.BidderStatusResolver;
+import ru.oparin.solution.service.campaign.WbCampaignGoalService;
+import ru.oparin.solution.service.sync.WbOrdersLedgerService;
+import ru.oparin.solution.support.AbstractPostgresJpaTest;
+import ru.oparin.solution.support.SqlStatementCounter;
+import ru.oparin.solution.support.StatementCountingConfiguration;
+import ru.oparin.solution.support.TestEntities;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Список и детали кампаний: число SQL-команд на запрос не зависит от числа кампаний и артикулов,
+ * метрики списка считаются по артикулам кампании.
+ */
+@Import({AnalyticsService.class, StatementCountingConfiguration.class})
+class AnalyticsCampaignStatementCountTest extends AbstractPostgresJpaTest {
+
+    private static final LocalDate DATE_FROM = LocalDate.of(2026, 2, 1);
+    private static final LocalDate DATE_TO = LocalDate.of(2026, 2, 7);
+
+    /**
+     * Кампании, метрики, состояния управления и слоты расписания.
+     */
+    private static final int LIST_STATEMENTS = 4;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+    @Autowired
+    private SqlStatementCounter statementCounter;
+    @Autowired
+    private TestEntityManager em;
+
+    @MockBean
+    private CabinetService cabinetService;
+    @MockBean
+    private WbWarehouseDirectory warehouseDirectory;
+    @MockBean
+    private FunnelMetricsCalculator funnelMetricsCalculator;
+    @MockBean
+    private AdvertisingMetricsCalculator advertisingMetricsCalculator;
+    @MockBean
+    private MetricValueCalculator metricValueCalculator;
+    @MockBean
+    private WbCampaignStatisticsAggregator campaignStatisticsAggregator;
+    @MockBean
+    private WbPromotionNormQueryStatisticsService normQueryStatisticsService;
+    @MockBean
+    private WbArticleGoalService articleGoalService;
+    @MockBean
+    private WbCampaignGoalService campaignGoalService;
+    @MockBean
+    private BidderStatusResolver bidderStatusResolver;
+    @MockBean
+    private WbOrdersLedgerService ordersLedgerService;
+
+    private User seller;
+    private Cabinet smallCabinet;
+    private Cabinet largeCabinet;
+
+    @BeforeEach
+    void setUp() {
+        seller = TestEntities.user(em, "campaigns@test.local");
+        smallCabinet = TestEntities.wbCabinet(em, seller, "campaigns-small");
+        largeCabinet = TestEntities.wbCabinet(em, seller, "campaigns-large");
+        seedCabinet(smallCabinet, 9_200_000L, 2, 2);
+        seedCabinet(largeCabinet, 9_210_000L, 12, 6);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void listStatementsDoNotDependOnCampaignCount() {
+        statementCounter.reset();
+        List<CampaignDto> small = analyticsService.listCampaignsByCabinet(smallCabinet.getId(), DATE_FROM, DATE_TO, seller, null);
+        int smallStatements = statementCounter.total();
+        em.clear();
+
+        statementCounter.reset();
+        List<CampaignDto> large = analyticsService.listCampaignsByCabinet(largeCabinet.getId(), DATE_FROM, DATE_TO, seller, null);
+        int largeStatements = statementCounter.total();
+
+        assertThat(small).hasSize(2);
+        assertThat(large).hasSize(12);
+        assertThat(smallStatements).isEqualTo(LIST_STATEMENTS);
+        assertThat(largeStatements).as("%s", statementCounter.statements()).isEqualTo(smallStatements);
+    }
+
+    @Test
+    void listMetricsCountOnlyCampaignArticles() {
+        List<CampaignDto> campaigns = analyticsService.listCampaignsByCabinet(
+                smallCabinet.getId(), DATE_FROM, DATE_TO, seller, null);
+
+        CampaignDto first = campaigns.stream().filter(c -> c.getId() == 9_200_000L).findFirst().orElseThrow();
+        // 2 артикула × 7 дней × 100 показов; строка по чужому артикулу не учитывается.
+        assertThat(first.getArticlesCount()).isEqualTo(2);
+        assertThat(first.getViews()).isEqualTo(1_400);
+        assertThat(first.getClicks()).isEqualTo(140);
+        assertThat(first.getCosts()).isEqualByComparingTo("700.00");
+
+        List<CampaignDto> filtered = analyticsService.listCampaignsByCabinet(
+                smallCabinet.getId(), DATE_FROM, DATE_TO, seller, nmId(9_200_000L, 0));
+        assertThat(filtered).extracting(CampaignDto::getId).containsExactly(9_200_000L);
+    }
+
+    @Test
+    void detailStatementsDoNotDependOnArticleCount() {
+        statementCounter.reset();
+        CampaignDetailDto small = analyticsService.getCampaignDetail(9_200_000L, smallCabinet.getId(), seller.getId());
+        int smallStatements = statementCounter.total();
+        em.clear();
+
+        statementCounter.reset();
+        CampaignDetailDto large = analyticsService.getCampaignDetail(9_210_000L, largeCabinet.getId(), seller.getId());
+        int largeStatements = statementCounter.total();
+
+        assertThat(small.getArticles()).hasSize(2);
+        assertThat(large.getArticles()).hasSize(6);
+        assertThat(large.getArticles()).extracting(ArticleSummaryDto::getTitle).doesNotContainNull();
+        assertThat(largeStatements).as("%s", statementCounter.statements()).isEqualTo(smallStatements);
+    }
+
+    /**
+     * Кампании с артикулами, по каждому артикулу статистика за 7 дней и одна строка по артикулу вне кампании.
+     */
+    private void seedCabinet(Cabinet cabinet, long firstAdvertId, int campaigns, int articlesPerCampaign) {
+        for (int c = 0; c < campaigns; c++) {
+            long advertId = firstAdvertId + c;
+            WbPromotionCampaign campaign = TestEntities.wbCampaign(em, cabinet, advertId);
+            for (int a = 0; a < articlesPerCampaign; a++) {
+                long nmId = nmId(advertId, a);
+                em.persist(WbProductCard.builder()
+                        .nmId(nmId)
+                        .cabinet(cabinet)
+                        .title("Товар " + nmId)
+                        .vendorCode("v-" + nmId)
+                        .build());
+                WbCampaignArticle article = new WbCampaignArticle();
+                article.setCampaignId(advertId);
+                article.setNmId(nmId);
+                em.persist(article);
+                for (LocalDate date = DATE_FROM; !date.isAfter(DATE_TO); date = date.plusDays(1)) {
+                    em.persist(statistics(campaign, nmId, date));
+                }
+            }
+            em.persist(statistics(campaign, nmId(advertId, 99), DATE_FROM));
+        }
+    }
+
+    private static long nmId(long advertId, int article) {
+        return advertId * 100 + article;
+    }
+
+    private static WbPromotionCampaignStatistics statistics(WbPromotionCampaign campaign, long nmId, LocalDate date) {
+        return WbPromotionCampaignStatistics.builder()
+                .campaign(campaign)
+                .nmId(nmId)
+                .date(date)
+                .views(100)
+                .clicks(10)
+                .sum(new BigDecimal("50.00"))
+                .atbs(2)
+                .orders(1)
+                .build();
+    }
+}
@@ -0,0 +1,270 @@
+package ru.oparin.solution.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import ru.oparin.solution.dto.analytics.ArticleSummaryDto;
+import ru.oparin.solution.dto.analytics.PeriodDto;
+import ru.oparin.solution.dto.analytics.SummaryResponseDto;
+import ru.oparin.solution.model.Cabinet;
+import ru.oparin.solution.model.User;
+import ru.oparin.solution.model.WbCampaignArticle;
+import ru.oparin.solution.model.WbCampaignStatus;
+import ru.oparin.solution.model.WbProductCard;
+import ru.oparin.solution.model.WbPromotionCampaign;
+import ru.oparin.solution.service.analytics.AdvertisingMetricsCalculator;
+import ru.oparin.solution.service.analytics.FunnelMetricsCalculator;
+import ru.oparin.solution.service.analytics.MetricValueCalculator;
+import ru.oparin.solution.service.analytics.WbCampaignStatisticsAggregator;
+import ru.oparin.solution.service.campaign.BidderStatusResolver;
+import ru.oparin.solution.service.campaign.WbCampaignGoalService;
+import ru.oparin.solution.service.sync.WbOrdersLedgerService;
+import ru.oparin.solution.support.AbstractPostgresJpaTest;
+import ru.oparin.solution.support.TestEntities;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Страницы сводной аналитики на одном каталоге с фильтрами: полная последовательность страниц по смещению
+ * (SQL {@code OFFSET}) и по курсору (keyset) совпадает с прежней выдачей по смещению из памяти; итог на страницах
+ * по курсору берётся из курсора без повторного {@code count}.
+ */
+@Import(AnalyticsService.class)
+class AnalyticsSummaryPagingTest extends AbstractPostgresJpaTest {
+
+    private static final int CARDS = 60;
+    private static final int PAGE_SIZE = 7;
+    private static final long FIRST_NM_ID = 1_000L;
+    private static final long ACTIVE_CAMPAIGN = 8_100_001L;
+    private static final long FINISHED_CAMPAIGN = 8_100_002L;
+    private static final List<PeriodDto> PERIODS = List.of(PeriodDto.builder()
+            .id(1)
+            .name("Период 1")
+            .dateFrom(LocalDate.of(2025, 1, 1))
+            .dateTo(LocalDate.of(2025, 1, 7))
+            .build());
+
+    @Autowired
+    private AnalyticsService analyticsService;
+    @Autowired
+    private TestEntityManager em;
+
+    @MockBean
+    private CabinetService cabinetService;
+    @MockBean
+    private WbWarehouseDirectory warehouseDirectory;
+    @MockBean
+    private FunnelMetricsCalculator funnelMetricsCalculator;
+    @MockBean
+    private AdvertisingMetricsCalculator advertisingMetricsCalculator;
+    @MockBean
+    private MetricValueCalculator metricValueCalculator;
+    @MockBean
+    private WbCampaignStatisticsAggregator campaignStatisticsAggregator;
+    @MockBean
+    private WbPromotionNormQueryStatisticsService normQueryStatisticsService;
+    @MockBean
+    private WbArticleGoalService articleGoalService;
+    @MockBean
+    private WbCampaignGoalService campaignGoalService;
+    @MockBean
+    private BidderStatusResolver bidderStatusResolver;
+    @MockBean
+    private WbOrdersLedgerService ordersLedgerService;
+
+    private User seller;
+    private Cabinet cabinet;
+
+    /**
+     * Каталог из {@value #CARDS} карточек: по 6–7 карточек на дату (порядок внутри даты держится только на nmId),
+     * фото в разных полях и пустое фото, приоритетные, артикулы активной и завершённой РК. Карточки сохраняются
+     * вперемешку, чтобы порядок вставки не совпадал с порядком выдачи.
+     */
+    @BeforeEach
+    void seedCatalog() {
+        seller = TestEntities.user(em, "paging@test.local");
+        cabinet = TestEntities.wbCabinet(em, seller, "paging-key");
+        TestEntities.wbCampaign(em, cabinet, ACTIVE_CAMPAIGN);
+        WbPromotionCampaign finished = TestEntities.wbCampaign(em, cabinet, FINISHED_CAMPAIGN);
+        finished.setStatus(WbCampaignStatus.FINISHED);
+        for (int k = 0; k < CARDS; k++) {
+            int i = k * 37 % CARDS;
+            em.persist(card(i));
+        }
+        em.flush();
+        for (int i = 0; i < CARDS; i++) {
+            if (i % 3 == 0) {
+                em.persist(campaignArticle(ACTIVE_CAMPAIGN, nmId(i)));
+            }
+            if (i % 5 == 0) {
+                em.persist(campaignArticle(FINISHED_CAMPAIGN, nmId(i)));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void noFilters() {
+        assertSamePageSequences(new Filter(null, null, null, null, null, null), CARDS);
+    }
+
+    @Test
+    void excludedWithPhoto() {
+        List<Long> excluded = List.of(nmId(0), nmId(3), nmId(4), nmId(30), nmId(59));
+        assertSamePageSequences(new Filter(excluded, null, null, true, null, null), 26);
+    }
+
+    @Test
+    void priorityWithSearchByVendorCode() {
+        assertSamePageSequences(new Filter(null, null, "TEE", null, true, null), 10);
+    }
+
+    @Test
+    void includedInAdvertising() {
+        List<Long> included = LongStream.range(0, CARDS / 2).map(i -> nmId((int) i * 2)).boxed().toList();
+        assertSamePageSequences(new Filter(null, included, null, null, null, true), 10);
+    }
+
+    @Test
+    void searchByNmIdFragment() {
+        assertSamePageSequences(new Filter(null, null, "05", null, null, null), 11);
+    }
+
+    @Test
+    void cursorPageReusesTotalFromFirstPage() {
+        Filter none = new Filter(null, null, null, null, null, null);
+        SummaryResponseDto first = page(none, 0, null);
+        em.persist(WbProductCard.builder()
+                .nmId(5_000L)
+                .cabinet(em.getEntityManager().getReference(Cabinet.class, cabinet.getId()))
+                .title("Товар 5000")
+                .vendorCode("VC-5000")
+                .wbCreatedAt(LocalDateTime.of(2025, 2, 1, 12, 0))
+                .build());
+        em.flush();
+
+        SummaryResponseDto second = page(none, 0, first.getNextCursor());
+
+        assertThat(second.getTotalArticles()).isEqualTo((long) CARDS);
+        assertThat(page(none, 0, null).getTotalArticles()).isEqualTo(CARDS + 1L);
+    }
+
+    /**
+     * Прежняя выдача, обход по смещению и обход по курсору дают одни и те же страницы в одном порядке,
+     * и итог на каждой странице равен размеру прежней выборки.
+     */
+    private void assertSamePageSequences(Filter filter, int expectedTotal) {
+        List<Long> legacy = legacyOrder(filter);
+        assertThat(legacy).hasSize(expectedTotal);
+        List<List<Long>> expected = chunk(legacy);
+        assertThat(expected).as("выдача должна занимать несколько страниц").hasSizeGreaterThan(1);
+
+        List<List<Long>> byOffset = new ArrayList<>();
+        for (int p = 0; p < expected.size(); p++) {
+            SummaryResponseDto response = page(filter, p, null);
+            assertThat(response.getTotalArticles()).isEqualTo((long) expectedTotal);
+            byOffset.add(nmIds(response));
+        }
+        assertThat(nmIds(page(filter, expected.size(), null))).isEmpty();
+
+        List<List<Long>> byCursor = new ArrayList<>();
+        SummaryResponseDto response = page(filter, 0, null);
+        byCursor.add(nmIds(response));
+        while (response.getNextCursor() != null) {
+            response = page(filter, 0, response.getNextCursor());
+            assertThat(response.getTotalArticles()).isEqualTo((long) expectedTotal);
+            byCursor.add(nmIds(response));
+        }
+
+        assertThat(byOffset).isEqualTo(expected);
+        assertThat(byCursor).isEqualTo(expected);
+    }
+
+    /**
+     * Порядок прежней страницы по смещению: каталог в памяти с фильтрами фото/приоритета/РК и исключёнными
+     * ({@code getSummary} без страницы — тот же код и та же сортировка), затем отбор по выбранным nmId и поиску,
+     * как в прежнем {@code filterCardsBySearch}. Страницы — отрезки этого списка по {@value #PAGE_SIZE}.
+     */
+    private List<Long> legacyOrder(Filter filter) {
+        SummaryResponseDto all = analyticsService.getSummary(seller, cabinet.getId(), PERIODS, filter.excluded(),
+                null, null, null, null, null, null,
+                filter.onlyWithPhoto(), filter.onlyPriority(), filter.onlyInAdvertising(), null, null);
+        Set<Long> included = filter.included() != null ? new HashSet<>(filter.included()) : null;
+        String search = filter.search() != null ? filter.search().trim().toLowerCase() : null;
+        return all.getArticles().stream()
+                .filter(a -> included == null || included.contains(a.getNmId()))
+                .filter(a -> search == null
+                        || (a.getTitle() != null && a.getTitle().toLowerCase().contains(search))
+                        || (a.getVendorCode() != null && a.getVendorCode().toLowerCase().contains(search))
+                        || String.valueOf(a.getNmId()).contains(search))
+                .map(ArticleSummaryDto::getNmId)
+                .toList();
+    }
+
+    private SummaryResponseDto page(Filter filter, int page, String cursor) {
+        return analyticsService.getSummary(seller, cabinet.getId(), PERIODS, filter.excluded(), page, PAGE_SIZE,
+                cursor, filter.search(), filter.included(), null,
+                filter.onlyWithPhoto(), filter.onlyPriority(), filter.onlyInAdvertising(), null, null);
+    }
+
+    private static List<List<Long>> chunk(List<Long> nmIds) {
+        List<List<Long>> pages = new ArrayList<>();
+        for (int from = 0; from < nmIds.size(); from += PAGE_SIZE) {
+            pages.add(nmIds.subList(from, Math.min(from + PAGE_SIZE, nmIds.size())));
+        }
+        return pages;
+    }
+
+    private WbProductCard card(int i) {
+        return WbProductCard.builder()
+                .nmId(nmId(i))
+                .cabinet(em.getEntityManager().getReference(Cabinet.class, cabinet.getId()))
+                .title("Товар " + nmId(i))
+                .vendorCode((i % 3 != 2 ? "Tee-" : "VC-") + nmId(i))
+                .photoTm(i % 3 == 0 ? "https://images.test/" + i + "/tm.webp" : null)
+                .photoC246x328(i % 6 == 4 ? "https://images.test/" + i + "/c246x328.webp" : i % 6 == 1 ? "  " : null)
+                .isPriority(i % 4 == 0)
+                .wbCreatedAt(LocalDateTime.of(2025, 1, 1, 12, 0).plusDays(i * 7 % 9))
+                .build();
+    }
+
+    private static WbCampaignArticle campaignArticle(long advertId, long nmId) {
+        WbCampaignArticle article = new WbCampaignArticle();
+        article.setCampaignId(advertId);
+        article.setNmId(nmId);
+        return article;
+    }
+
+    private static long nmId(int i) {
+        return FIRST_NM_ID + i;
+    }
+
+    private static List<Long> nmIds(SummaryResponseDto response) {
+        return response.getArticles().stream().map(ArticleSummaryDto::getNmId).toList();
+    }
+
+    /**
+     * Фильтры сводной, общие для страницы и прежней выдачи.
+     */
+    private record Filter(
+            List<Long> excluded,
+            List<Long> included,
+            String search,
+            Boolean onlyWithPhoto,
+            Boolean onlyPriority,
+            Boolean onlyInAdvertising
+    ) {
+    }
+}
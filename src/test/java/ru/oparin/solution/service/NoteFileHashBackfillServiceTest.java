@@ -0,0 +1,123 @@
+package ru.oparin.solution.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import ru.oparin.solution.model.Cabinet;
+import ru.oparin.solution.model.User;
+import ru.oparin.solution.model.WbArticleNote;
+import ru.oparin.solution.model.WbArticleNoteFile;
+import ru.oparin.solution.model.WbCampaignNote;
+import ru.oparin.solution.model.WbCampaignNoteFile;
+import ru.oparin.solution.support.AbstractPostgresJpaTest;
+import ru.oparin.solution.support.TestEntities;
+import ru.oparin.solution.util.ContentHashUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Backfill хэшей вложений: старые файлы получают SHA-256, уже посчитанные и отсутствующие на диске не трогаются,
+ * пачки проходятся до конца.
+ */
+@Import(NoteFileHashBackfillService.class)
+@TestPropertySource(properties = "app.uploads.hash-backfill-batch-size=2")
+class NoteFileHashBackfillServiceTest extends AbstractPostgresJpaTest {
+
+    @Autowired
+    private NoteFileHashBackfillService backfillService;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @TempDir
+    Path dir;
+
+    private WbArticleNote articleNote;
+    private WbCampaignNote campaignNote;
+
+    @BeforeEach
+    void setUp() {
+        User user = TestEntities.user(em, "hash-backfill@test.local");
+        Cabinet cabinet = TestEntities.wbCabinet(em, user, "hash-backfill-key");
+        articleNote = em.persist(WbArticleNote.builder()
+                .nmId(1001L)
+                .sellerId(user.getId())
+                .cabinetId(cabinet.getId())
+                .user(user)
+                .content("note")
+                .build());
+        campaignNote = em.persist(WbCampaignNote.builder()
+                .campaignId(2001L)
+                .cabinetId(cabinet.getId())
+                .user(user)
+                .content("note")
+                .build());
+    }
+
+    @Test
+    void hashesLegacyFilesOnly() throws Exception {
+        Path first = write("a.txt", "first");
+        Path second = write("b.txt", "second");
+        Path third = write("c.txt", "third");
+        Path campaignFile = write("d.txt", "campaign");
+        Path hashed = write("e.txt", "already hashed");
+
+        Long firstId = articleFile(first, null);
+        Long secondId = articleFile(second, null);
+        Long missingId = articleFile(dir.resolve("missing.txt"), null);
+        Long thirdId = articleFile(third, null);
+        Long hashedId = articleFile(hashed, "preset");
+        Long campaignFileId = campaignFile(campaignFile);
+        em.flush();
+        em.clear();
+
+        assertThat(backfillService.backfill()).isEqualTo(4);
+
+        assertThat(articleHash(firstId)).isEqualTo(ContentHashUtils.sha256(first));
+        assertThat(articleHash(secondId)).isEqualTo(ContentHashUtils.sha256(second));
+        assertThat(articleHash(thirdId)).isEqualTo(ContentHashUtils.sha256(third));
+        assertThat(articleHash(missingId)).isNull();
+        assertThat(articleHash(hashedId)).isEqualTo("preset");
+        assertThat(em.find(WbCampaignNoteFile.class, campaignFileId).getContentSha256())
+                .isEqualTo(ContentHashUtils.sha256(campaignFile));
+
+        assertThat(backfillService.backfill()).isZero();
+    }
+
+    private Path write(String name, String content) throws Exception {
+        return Files.writeString(dir.resolve(name), content, StandardCharsets.UTF_8);
+    }
+
+    private Long articleFile(Path path, String contentSha256) {
+        return em.persist(WbArticleNoteFile.builder()
+                .note(articleNote)
+                .fileName(path.getFileName().toString())
+                .filePath(path.toString())
+                .fileSize(1L)
+                .mimeType("text/plain")
+                .contentSha256(contentSha256)
+                .build()).getId();
+    }
+
+    private Long campaignFile(Path path) {
+        return em.persist(WbCampaignNoteFile.builder()
+                .note(campaignNote)
+                .fileName(path.getFileName().toString())
+                .filePath(path.toString())
+                .fileSize(1L)
+                .mimeType("text/plain")
+                .build()).getId();
+    }
+
+    private String articleHash(Long id) {
+        return em.find(WbArticleNoteFile.class, id).getContentSha256();
+    }
+}
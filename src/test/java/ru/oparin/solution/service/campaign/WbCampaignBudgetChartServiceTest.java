@@ -0,0 +1,235 @@
+package ru.oparin.solution.service.campaign;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import ru.oparin.solution.config.CampaignBudgetTimelineProperties;
+import ru.oparin.solution.dto.analytics.manage.CampaignBudgetChartDto;
+import ru.oparin.solution.model.WbCampaignBudgetTimeline;
+import ru.oparin.solution.model.WbCampaignBudgetTimelineEventType;
+import ru.oparin.solution.repository.WbCampaignBudgetTimelineBatchWriter;
+import ru.oparin.solution.repository.WbCampaignBudgetTimelineRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * График бюджета по свёрнутой буфером шкале совпадает с графиком по всем снимкам опроса;
+ * буфер сбрасывается один раз на построение графика.
+ */
+class WbCampaignBudgetChartServiceTest {
+
+    private static final long CAMPAIGN_ID = 1L;
+    private static final long CABINET_ID = 1L;
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 3, 1, 0, 0);
+
+    @Test
+    void collapsedTimelineGivesSameChart() {
+        List<WbCampaignBudgetTimeline> raw = rawTimeline();
+        List<WbCampaignBudgetTimeline> collapsed = collapse(raw);
+        assertThat(collapsed).hasSizeLessThan(raw.size() / 2);
+
+        List<LocalDateTime[]> periods = List.of(
+                new LocalDateTime[]{at(8, 30), at(11, 30)},
+                new LocalDateTime[]{at(9, 20), at(10, 30)},
+                new LocalDateTime[]{at(10, 20), at(10, 45)},
+                new LocalDateTime[]{at(10, 50), at(11, 5)});
+        for (LocalDateTime[] period : periods) {
+            CampaignBudgetChartDto expected = chartService(raw).buildChart(
+                    CAMPAIGN_ID, CABINET_ID, null, null, period[0], period[1]);
+            CampaignBudgetChartDto actual = chartService(collapsed).buildChart(
+                    CAMPAIGN_ID, CABINET_ID, null, null, period[0], period[1]);
+
+            assertThat(actual).as("период %s — %s", period[0], period[1])
+                    .usingRecursiveComparison()
+                    .isEqualTo(expected);
+        }
+    }
+
+    /**
+     * График строится посреди работы: буфер получил точки только до момента построения и не закрывал серии,
+     * последний снимок ровной серии ещё в памяти. Чтение идёт через тот же буфер и {@code flushPendingWrites}.
+     */
+    @Test
+    void chartMidRunWithHeldTailGivesSameChart() {
+        List<WbCampaignBudgetTimeline> raw = rawTimeline();
+        List<WbCampaignBudgetTimeline> written = new ArrayList<>();
+        WbCampaignBudgetTimelineWriteBuffer buffer = buffer(written);
+        WbCampaignBudgetChartService liveChartService = new WbCampaignBudgetChartService(
+                new WbCampaignBudgetTimelineService(repository(written), buffer));
+
+        int next = 0;
+        for (LocalDateTime now : List.of(at(9, 20), at(10, 0), at(10, 30), at(10, 55))) {
+            while (next < raw.size() && !raw.get(next).getRecordedAt().isAfter(now)) {
+                buffer.add(raw.get(next++));
+            }
+            List<WbCampaignBudgetTimeline> polledSoFar = raw.subList(0, next);
+
+            for (LocalDateTime from : List.of(at(8, 30), now.minusMinutes(15))) {
+                CampaignBudgetChartDto expected = chartService(polledSoFar).buildChart(
+                        CAMPAIGN_ID, CABINET_ID, null, null, from, now);
+                CampaignBudgetChartDto actual = liveChartService.buildChart(
+                        CAMPAIGN_ID, CABINET_ID, null, null, from, now);
+
+                assertThat(actual).as("период %s — %s", from, now)
+                        .usingRecursiveComparison()
+                        .isEqualTo(expected);
+            }
+            assertThat(written).as("снимок %s удерживается буфером", now)
+                    .extracting(WbCampaignBudgetTimeline::getRecordedAt)
+                    .doesNotContain(now);
+        }
+    }
+
+    @Test
+    void chartFlushesBufferOnce() {
+        WbCampaignBudgetTimelineWriteBuffer writeBuffer = mock(WbCampaignBudgetTimelineWriteBuffer.class);
+        WbCampaignBudgetChartService chartService = new WbCampaignBudgetChartService(
+                new WbCampaignBudgetTimelineService(repository(rawTimeline()), writeBuffer));
+
+        chartService.buildChart(CAMPAIGN_ID, CABINET_ID, null, null, at(8, 30), at(11, 30));
+
+        verify(writeBuffer, times(1)).flush();
+    }
+
+    /**
+     * Опрос раз в минуту: ровный остаток, расход, пополнение, пауза с ровным остатком, снова показ и расход.
+     */
+    private static List<WbCampaignBudgetTimeline> rawTimeline() {
+        List<WbCampaignBudgetTimeline> points = new ArrayList<>();
+        points.add(event(at(9, 0), WbCampaignBudgetTimelineEventType.START, null, null));
+        for (int m = 0; m <= 30; m++) {
+            points.add(snapshot(at(9, 0).plusMinutes(m), 1000));
+        }
+        for (int m = 1; m <= 10; m++) {
+            points.add(snapshot(at(9, 30).plusMinutes(m), 1000 - m * 10));
+        }
+        points.add(event(at(9, 41), WbCampaignBudgetTimelineEventType.TOP_UP, 1400, 500));
+        for (int m = 0; m <= 29; m++) {
+            points.add(snapshot(at(9, 41).plusMinutes(m), 1400));
+        }
+        points.add(event(at(10, 10), WbCampaignBudgetTimelineEventType.STOP, null, null));
+        for (int m = 1; m <= 30; m++) {
+            points.add(snapshot(at(10, 10).plusMinutes(m), 1400));
+        }
+        points.add(event(at(10, 41), WbCampaignBudgetTimelineEventType.START, null, null));
+        for (int m = 0; m <= 19; m++) {
+            points.add(snapshot(at(10, 41).plusMinutes(m), 1400));
+        }
+        for (int m = 1; m <= 10; m++) {
+            points.add(snapshot(at(11, 0).plusMinutes(m), 1400 - m * 5));
+        }
+        return points;
+    }
+
+    /**
+     * Шкала, которую запишет буфер, получив те же точки в том же порядке.
+     */
+    private static List<WbCampaignBudgetTimeline> collapse(List<WbCampaignBudgetTimeline> raw) {
+        List<WbCampaignBudgetTimeline> written = new ArrayList<>();
+        WbCampaignBudgetTimelineWriteBuffer buffer = buffer(written);
+        raw.forEach(buffer::add);
+        buffer.flushOnShutdown();
+        written.sort(Comparator.comparing(WbCampaignBudgetTimeline::getRecordedAt));
+        return written;
+    }
+
+    /**
+     * Буфер с настройками по умолчанию, записывающий батчи в {@code written}.
+     */
+    private static WbCampaignBudgetTimelineWriteBuffer buffer(List<WbCampaignBudgetTimeline> written) {
+        WbCampaignBudgetTimelineBatchWriter batchWriter = mock(WbCampaignBudgetTimelineBatchWriter.class);
+        doAnswer(invocation -> written.addAll(invocation.getArgument(0)))
+                .when(batchWriter).insertAll(anyList(), anyInt());
+        return new WbCampaignBudgetTimelineWriteBuffer(batchWriter, new CampaignBudgetTimelineProperties());
+    }
+
+    private static WbCampaignBudgetChartService chartService(List<WbCampaignBudgetTimeline> timeline) {
+        return new WbCampaignBudgetChartService(new WbCampaignBudgetTimelineService(
+                repository(timeline), mock(WbCampaignBudgetTimelineWriteBuffer.class)));
+    }
+
+    /**
+     * Репозиторий шкалы в памяти: только запросы, которые использует построение графика.
+     * Список читается при каждом запросе — так видны точки, записанные буфером после создания репозитория.
+     */
+    private static WbCampaignBudgetTimelineRepository repository(List<WbCampaignBudgetTimeline> timeline) {
+        WbCampaignBudgetTimelineRepository repository = mock(WbCampaignBudgetTimelineRepository.class);
+        when(repository.findByCampaignIdAndCabinetIdAndRecordedAtBetweenOrderByRecordedAtAsc(
+                anyLong(), anyLong(), any(), any()))
+                .thenAnswer(invocation -> {
+                    LocalDateTime from = invocation.getArgument(2);
+                    LocalDateTime to = invocation.getArgument(3);
+                    return ascending(timeline).stream()
+                            .filter(e -> !e.getRecordedAt().isBefore(from) && !e.getRecordedAt().isAfter(to))
+                            .toList();
+                });
+        when(repository.findByCampaignIdAndCabinetIdAndRecordedAtBeforeAndEventTypeInOrderByRecordedAtDesc(
+                anyLong(), anyLong(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    LocalDateTime before = invocation.getArgument(2);
+                    Collection<WbCampaignBudgetTimelineEventType> types = invocation.getArgument(3);
+                    Pageable pageable = invocation.getArgument(4);
+                    return before(ascending(timeline), before, types).stream().limit(pageable.getPageSize()).toList();
+                });
+        when(repository.findFirstByCampaignIdAndCabinetIdAndRecordedAtBeforeAndEventTypeInOrderByRecordedAtDesc(
+                anyLong(), anyLong(), any(), any()))
+                .thenAnswer(invocation -> {
+                    LocalDateTime before = invocation.getArgument(2);
+                    Collection<WbCampaignBudgetTimelineEventType> types = invocation.getArgument(3);
+                    return before(ascending(timeline), before, types).stream().findFirst();
+                });
+        return repository;
+    }
+
+    private static List<WbCampaignBudgetTimeline> ascending(List<WbCampaignBudgetTimeline> timeline) {
+        return timeline.stream()
+                .sorted(Comparator.comparing(WbCampaignBudgetTimeline::getRecordedAt))
+                .toList();
+    }
+
+    private static List<WbCampaignBudgetTimeline> before(
+            List<WbCampaignBudgetTimeline> ascending,
+            LocalDateTime before,
+            Collection<WbCampaignBudgetTimelineEventType> types
+    ) {
+        List<WbCampaignBudgetTimeline> descending = new ArrayList<>(ascending.stream()
+                .filter(e -> e.getRecordedAt().isBefore(before) && types.contains(e.getEventType()))
+                .toList());
+        descending.sort(Comparator.comparing(WbCampaignBudgetTimeline::getRecordedAt).reversed());
+        return descending;
+    }
+
+    private static LocalDateTime at(int hour, int minute) {
+        return DAY.withHour(hour).withMinute(minute);
+    }
+
+    private static WbCampaignBudgetTimeline snapshot(LocalDateTime at, int budget) {
+        return event(at, WbCampaignBudgetTimelineEventType.SNAPSHOT, budget, null);
+    }
+
+    private static WbCampaignBudgetTimeline event(
+            LocalDateTime at, WbCampaignBudgetTimelineEventType type, Integer budgetTotal, Integer topUpAmount) {
+        return WbCampaignBudgetTimeline.builder()
+                .campaignId(CAMPAIGN_ID)
+                .cabinetId(CABINET_ID)
+                .recordedAt(at)
+                .eventType(type)
+                .budgetTotal(budgetTotal)
+                .topUpAmount(topUpAmount)
+                .build();
+    }
+}
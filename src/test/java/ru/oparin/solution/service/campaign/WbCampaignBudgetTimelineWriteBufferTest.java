@@ -0,0 +1,112 @@
+package ru.oparin.solution.service.campaign;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.oparin.solution.config.CampaignBudgetTimelineProperties;
+import ru.oparin.solution.model.WbCampaignBudgetTimeline;
+import ru.oparin.solution.model.WbCampaignBudgetTimelineEventType;
+import ru.oparin.solution.repository.WbCampaignBudgetTimelineBatchWriter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Сворачивание серий одинаковых SNAPSHOT и плановая запись последнего снимка длинной серии.
+ */
+class WbCampaignBudgetTimelineWriteBufferTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Moscow");
+    private static final long TAIL_FLUSH_SECONDS = 60;
+
+    private final List<WbCampaignBudgetTimeline> written = new ArrayList<>();
+    private WbCampaignBudgetTimelineWriteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        WbCampaignBudgetTimelineBatchWriter batchWriter = mock(WbCampaignBudgetTimelineBatchWriter.class);
+        doAnswer(invocation -> written.addAll(invocation.getArgument(0)))
+                .when(batchWriter).insertAll(anyList(), anyInt());
+        CampaignBudgetTimelineProperties properties = new CampaignBudgetTimelineProperties();
+        properties.setSnapshotRunGapSeconds(300);
+        properties.setSnapshotTailFlushSeconds(TAIL_FLUSH_SECONDS);
+        buffer = new WbCampaignBudgetTimelineWriteBuffer(batchWriter, properties);
+    }
+
+    @Test
+    void flatRunKeepsFirstAndLastSnapshot() {
+        LocalDateTime start = LocalDateTime.of(2026, 3, 1, 9, 0);
+        for (int minute = 0; minute <= 10; minute++) {
+            buffer.add(snapshot(start.plusMinutes(minute), 1000));
+        }
+        buffer.flush();
+        assertThat(recordedAt()).containsExactly(start);
+
+        buffer.add(snapshot(start.plusMinutes(11), 990));
+        buffer.flush();
+
+        assertThat(recordedAt()).containsExactly(start, start.plusMinutes(10), start.plusMinutes(11));
+    }
+
+    @Test
+    void scheduledFlushReleasesTailOfLongRun() {
+        LocalDateTime now = LocalDateTime.now(ZONE);
+        LocalDateTime first = now.minusMinutes(10);
+        for (int minute = 0; minute <= 10; minute++) {
+            buffer.add(snapshot(first.plusMinutes(minute), 1000));
+        }
+
+        buffer.flushScheduled();
+
+        assertThat(recordedAt()).containsExactly(first, first.plusMinutes(10));
+
+        buffer.add(snapshot(first.plusMinutes(10).plusSeconds(1), 1000));
+        buffer.flushScheduled();
+
+        assertThat(recordedAt()).as("хвост моложе интервала остаётся в памяти").hasSize(2);
+
+        buffer.add(snapshot(first.plusMinutes(10).plusSeconds(TAIL_FLUSH_SECONDS), 1000));
+        buffer.flushScheduled();
+
+        assertThat(recordedAt()).containsExactly(
+                first, first.plusMinutes(10), first.plusMinutes(10).plusSeconds(TAIL_FLUSH_SECONDS));
+    }
+
+    @Test
+    void otherEventClosesRun() {
+        LocalDateTime start = LocalDateTime.of(2026, 3, 1, 9, 0);
+        buffer.add(snapshot(start, 1000));
+        buffer.add(snapshot(start.plusMinutes(1), 1000));
+        buffer.add(snapshot(start.plusMinutes(2), 1000));
+        buffer.add(WbCampaignBudgetTimeline.builder()
+                .campaignId(1L)
+                .cabinetId(1L)
+                .recordedAt(start.plusMinutes(3))
+                .eventType(WbCampaignBudgetTimelineEventType.STOP)
+                .build());
+        buffer.flush();
+
+        assertThat(recordedAt()).containsExactly(start, start.plusMinutes(2), start.plusMinutes(3));
+    }
+
+    private List<LocalDateTime> recordedAt() {
+        return written.stream().map(WbCampaignBudgetTimeline::getRecordedAt).toList();
+    }
+
+    private static WbCampaignBudgetTimeline snapshot(LocalDateTime at, int budget) {
+        return WbCampaignBudgetTimeline.builder()
+                .campaignId(1L)
+                .cabinetId(1L)
+                .recordedAt(at)
+                .eventType(WbCampaignBudgetTimelineEventType.SNAPSHOT)
+                .budgetTotal(budget)
+                .build();
+    }
+}
@@ -0,0 +1,157 @@
+package ru.oparin.solution.service.campaign;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.oparin.solution.dto.analytics.manage.BalanceSourcesResponseDto;
+import ru.oparin.solution.dto.wb.WbPromotionBalanceResponse;
+import ru.oparin.solution.model.Cabinet;
+import ru.oparin.solution.model.WbCabinetPromotionBalanceCache;
+import ru.oparin.solution.repository.WbCabinetPromotionBalanceCacheRepository;
+import ru.oparin.solution.service.CabinetService;
+import ru.oparin.solution.service.events.WbEventRateLimitService;
+import ru.oparin.solution.service.wb.WbPromotionApiClient;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Конкурентные читатели устаревшего кэша баланса запускают один запрос к WB и, пока он идёт,
+ * получают прежнее значение без ожидания.
+ */
+class WbPromotionBalanceRefresherTest {
+
+    private static final long CABINET_ID = 7L;
+    private static final int READERS = 32;
+    private static final int STALE_BALANCE = 100;
+    private static final int FRESH_BALANCE = 200;
+
+    private final CabinetService cabinetService = mock(CabinetService.class);
+    private final WbCabinetPromotionBalanceCacheRepository cacheRepository =
+            mock(WbCabinetPromotionBalanceCacheRepository.class);
+    private final WbPromotionApiClient promotionApiClient = mock(WbPromotionApiClient.class);
+    private final WbEventRateLimitService rateLimitService = mock(WbEventRateLimitService.class);
+
+    /** Строка кэша «в БД»: каждый findById отдаёт копию, как новый persistence context. */
+    private final AtomicReference<WbCabinetPromotionBalanceCache> stored = new AtomicReference<>();
+
+    private ExecutorService refreshExecutor;
+    private ExecutorService readers;
+    private WbPromotionBalanceRefresher refresher;
+    private WbCabinetPromotionBalanceCacheService cacheService;
+
+    @BeforeEach
+    void setUp() {
+        refreshExecutor = Executors.newFixedThreadPool(4);
+        readers = Executors.newFixedThreadPool(READERS);
+        refresher = new WbPromotionBalanceRefresher(
+                cabinetService, cacheRepository, promotionApiClient, rateLimitService, refreshExecutor);
+        cacheService = new WbCabinetPromotionBalanceCacheService(cacheRepository, cabinetService, refresher);
+
+        Cabinet cabinet = Cabinet.builder().id(CABINET_ID).apiKey("key").build();
+        when(cabinetService.findById(CABINET_ID)).thenReturn(Optional.of(cabinet));
+        stored.set(WbCabinetPromotionBalanceCache.builder()
+                .cabinetId(CABINET_ID)
+                .balanceRub(STALE_BALANCE)
+                .netRub(STALE_BALANCE)
+                .bonusRub(0)
+                .fetchedAt(LocalDateTime.now().minusHours(1))
+                .build());
+        when(cacheRepository.findById(CABINET_ID)).thenAnswer(invocation -> Optional.ofNullable(copy(stored.get())));
+        when(cacheRepository.save(any(WbCabinetPromotionBalanceCache.class))).thenAnswer(invocation -> {
+            WbCabinetPromotionBalanceCache saved = invocation.getArgument(0);
+            stored.set(copy(saved));
+            return saved;
+        });
+        when(cacheRepository.tryClaimRefresh(eq(CABINET_ID), any(), any(), anyLong())).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        readers.shutdownNow();
+        refreshExecutor.shutdownNow();
+    }
+
+    @Test
+    void concurrentStaleReadersTriggerOneRefreshAndGetStaleValue() throws Exception {
+        CountDownLatch wbCalled = new CountDownLatch(1);
+        CountDownLatch wbRelease = new CountDownLatch(1);
+        when(promotionApiClient.getBalance("key")).thenAnswer(invocation -> {
+            wbCalled.countDown();
+            assertThat(wbRelease.await(10, TimeUnit.SECONDS)).isTrue();
+            return WbPromotionBalanceResponse.builder().balance(FRESH_BALANCE).net(FRESH_BALANCE).bonus(0).build();
+        });
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<BalanceSourcesResponseDto>> responses = new ArrayList<>();
+        for (int i = 0; i < READERS; i++) {
+            responses.add(readers.submit(() -> {
+                start.await();
+                return cacheService.getBalanceSources(CABINET_ID, true);
+            }));
+        }
+        start.countDown();
+
+        // Все читатели вернулись, пока запрос к WB ещё висит.
+        for (Future<BalanceSourcesResponseDto> response : responses) {
+            BalanceSourcesResponseDto sources = response.get(5, TimeUnit.SECONDS);
+            assertThat(sources.isStale()).isTrue();
+            assertThat(sources.getSources().get(0).getAvailableRub()).isEqualTo(STALE_BALANCE);
+        }
+        assertThat(wbCalled.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Идущее обновление не запускается заново, новые читатели присоединяются к нему.
+        CompletableFuture<WbPromotionBalanceRefresher.RefreshOutcome> inFlight = refresher.refresh(CABINET_ID);
+        assertThat(refresher.refresh(CABINET_ID)).isSameAs(inFlight);
+        assertThat(cacheService.getBalanceSources(CABINET_ID, true).getSources().get(0).getAvailableRub())
+                .isEqualTo(STALE_BALANCE);
+
+        wbRelease.countDown();
+        WbPromotionBalanceRefresher.RefreshOutcome outcome = inFlight.get(5, TimeUnit.SECONDS);
+        assertThat(outcome.refreshed()).isTrue();
+
+        verify(promotionApiClient, times(1)).getBalance("key");
+        verify(cacheRepository, times(1)).tryClaimRefresh(eq(CABINET_ID), any(), any(), anyLong());
+
+        BalanceSourcesResponseDto fresh = cacheService.getBalanceSources(CABINET_ID, true);
+        assertThat(fresh.isStale()).isFalse();
+        assertThat(fresh.getSources().get(0).getAvailableRub()).isEqualTo(FRESH_BALANCE);
+        verify(promotionApiClient, times(1)).getBalance("key");
+    }
+
+    private static WbCabinetPromotionBalanceCache copy(WbCabinetPromotionBalanceCache cache) {
+        if (cache == null) {
+            return null;
+        }
+        return WbCabinetPromotionBalanceCache.builder()
+                .cabinetId(cache.getCabinetId())
+                .balanceRub(cache.getBalanceRub())
+                .netRub(cache.getNetRub())
+                .bonusRub(cache.getBonusRub())
+                .cashbackRub(cache.getCashbackRub())
+                .cashbackPercent(cache.getCashbackPercent())
+                .fetchedAt(cache.getFetchedAt())
+                .fetchError(cache.getFetchError())
+                .refreshStartedAt(cache.getRefreshStartedAt())
+                .updatedAt(cache.getUpdatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,190 @@
+package ru.oparin.solution.service.events;
+
+import org.junit.jupiter.api.Test;
+import ru.oparin.solution.config.WbEventsProperties;
+import ru.oparin.solution.model.Cabinet;
+import ru.oparin.solution.model.WbApiEvent;
+import ru.oparin.solution.model.WbApiEventSchedulingClass;
+import ru.oparin.solution.model.WbApiEventStatus;
+import ru.oparin.solution.model.WbApiEventType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Детерминированная симуляция очереди poll: 60 кабинетов с большим backlog по карточкам (остатки, воронка)
+ * и 40 маленьких кабинетов с регулярной синхронизацией и стартами А/Б. Ожидание считается в poll'ах от
+ * постановки события до выбора; события, не выбранные до конца симуляции, берутся с ожиданием до конца.
+ * <p>
+ * Прежний глобальный порядок (priority, nextAttemptAt, id с обрезкой до batch) сравнивается с
+ * {@link WbApiEventFairScheduler#select}.
+ */
+class WbApiEventFairSchedulerTest {
+
+    private static final int POLLS = 200;
+    private static final int POLL_SECONDS = 5;
+    private static final int BATCH_SIZE = 50;
+    private static final int BULK_CABINETS = 60;
+    private static final int BULK_EVENTS_PER_TYPE = 200;
+    private static final int SMALL_CABINETS = 40;
+    private static final long SMALL_CABINET_FIRST_ID = 1_000L;
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private static final Comparator<WbApiEvent> LEGACY_ORDER = Comparator
+            .comparing(WbApiEvent::getPriority, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(WbApiEvent::getNextAttemptAt, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(WbApiEvent::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    @Test
+    void fairSelectionKeepsSmallCabinetsAndInteractiveWaitsShort() {
+        WbApiEventFairScheduler scheduler = new WbApiEventFairScheduler(new WbEventsProperties());
+        Simulation fair = Simulation.run(
+                (candidates, now) -> scheduler.select(candidates, Set.of(), now, BATCH_SIZE));
+
+        assertThat(fair.p99WaitPolls(WbApiEventSchedulingClass.INTERACTIVE)).isZero();
+        assertThat(fair.p99WaitPolls(WbApiEventSchedulingClass.INCREMENTAL_SYNC)).isLessThanOrEqualTo(1);
+        // Массовая загрузка не голодает: лимит класса (20 за poll) выбирается каждый poll.
+        assertThat(fair.selectedCount(WbApiEventSchedulingClass.BULK_BACKFILL)).isEqualTo(20L * POLLS);
+        // Кабинеты с backlog обслуживаются по кругу, а не по возрастанию id событий.
+        assertThat(fair.bulkServedSpread()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void legacyGlobalOrderStarvesRegularSync() {
+        Simulation legacy = Simulation.run((candidates, now) -> candidates.stream()
+                .sorted(LEGACY_ORDER)
+                .limit(BATCH_SIZE)
+                .toList());
+
+        assertThat(legacy.p99WaitPolls(WbApiEventSchedulingClass.INTERACTIVE)).isZero();
+        assertThat(legacy.p99WaitPolls(WbApiEventSchedulingClass.INCREMENTAL_SYNC)).isGreaterThan(POLLS / 2);
+        assertThat(legacy.bulkServedSpread()).isGreaterThan(POLLS / 2);
+    }
+
+    @FunctionalInterface
+    private interface Selector {
+        List<WbApiEvent> select(List<WbApiEvent> candidates, LocalDateTime now);
+    }
+
+    /**
+     * Очереди по паре (кабинет, тип) — кандидат poll'а — голова очереди, как в {@code DISTINCT ON} выборки due-событий.
+     * Выбранное событие считается выполненным в том же poll.
+     */
+    private static final class Simulation {
+        private final Map<String, Deque<WbApiEvent>> queues = new LinkedHashMap<>();
+        private final Map<Long, Integer> arrivalPollById = new HashMap<>();
+        private final Map<WbApiEventSchedulingClass, List<Integer>> waitsByClass = new EnumMap<>(WbApiEventSchedulingClass.class);
+        private final Map<WbApiEventSchedulingClass, Long> selectedByClass = new EnumMap<>(WbApiEventSchedulingClass.class);
+        private final Map<Long, Integer> bulkServedByCabinet = new HashMap<>();
+        private long nextId = 1;
+
+        static Simulation run(Selector selector) {
+            Simulation simulation = new Simulation();
+            Random random = new Random(47);
+            for (long cabinetId = 1; cabinetId <= BULK_CABINETS; cabinetId++) {
+                for (int i = 0; i < BULK_EVENTS_PER_TYPE; i++) {
+                    simulation.enqueue(cabinetId, WbApiEventType.ANALYTICS_SALES_FUNNEL_NMID, 90, 0);
+                    simulation.enqueue(cabinetId, WbApiEventType.STOCKS_BY_NMID, 80, 0);
+                }
+            }
+            for (int poll = 0; poll < POLLS; poll++) {
+                for (int i = 0; i < SMALL_CABINETS; i++) {
+                    if (random.nextInt(5) == 0) {
+                        boolean prices = random.nextBoolean();
+                        simulation.enqueue(SMALL_CABINET_FIRST_ID + i,
+                                prices ? WbApiEventType.PRICES_CABINET_WITH_SPP : WbApiEventType.WAREHOUSES_SYNC_CABINET,
+                                prices ? 85 : 75, poll);
+                    }
+                }
+                if (poll % 10 == 0) {
+                    simulation.enqueue(SMALL_CABINET_FIRST_ID + random.nextInt(SMALL_CABINETS),
+                            WbApiEventType.AB_TEST_START, 92, poll);
+                }
+                simulation.poll(selector, poll);
+            }
+            simulation.finish();
+            return simulation;
+        }
+
+        private void enqueue(long cabinetId, WbApiEventType type, int priority, int poll) {
+            WbApiEvent event = WbApiEvent.builder()
+                    .id(nextId++)
+                    .eventType(type)
+                    .status(WbApiEventStatus.CREATED)
+                    .cabinet(Cabinet.builder().id(cabinetId).build())
+                    .priority(priority)
+                    .nextAttemptAt(START.plusSeconds((long) poll * POLL_SECONDS))
+                    .build();
+            arrivalPollById.put(event.getId(), poll);
+            queues.computeIfAbsent(cabinetId + ":" + type, ignored -> new ArrayDeque<>()).addLast(event);
+        }
+
+        private void poll(Selector selector, int poll) {
+            List<WbApiEvent> candidates = new ArrayList<>();
+            for (Deque<WbApiEvent> queue : queues.values()) {
+                if (!queue.isEmpty()) {
+                    candidates.add(queue.peekFirst());
+                }
+            }
+            List<WbApiEvent> selected = selector.select(candidates, START.plusSeconds((long) poll * POLL_SECONDS));
+            assertThat(selected).hasSizeLessThanOrEqualTo(BATCH_SIZE);
+            for (WbApiEvent event : selected) {
+                Deque<WbApiEvent> queue = queues.get(event.getCabinet().getId() + ":" + event.getEventType());
+                assertThat(queue.pollFirst()).isSameAs(event);
+                WbApiEventSchedulingClass schedulingClass = WbApiEventSchedulingClass.of(event.getEventType());
+                recordWait(schedulingClass, poll - arrivalPollById.get(event.getId()));
+                selectedByClass.merge(schedulingClass, 1L, Long::sum);
+                if (schedulingClass == WbApiEventSchedulingClass.BULK_BACKFILL) {
+                    bulkServedByCabinet.merge(event.getCabinet().getId(), 1, Integer::sum);
+                }
+            }
+        }
+
+        /** Невыбранные события — с ожиданием до конца симуляции (нижняя оценка). */
+        private void finish() {
+            for (Deque<WbApiEvent> queue : queues.values()) {
+                for (WbApiEvent event : queue) {
+                    recordWait(WbApiEventSchedulingClass.of(event.getEventType()), POLLS - arrivalPollById.get(event.getId()));
+                }
+            }
+        }
+
+        private void recordWait(WbApiEventSchedulingClass schedulingClass, int waitPolls) {
+            waitsByClass.computeIfAbsent(schedulingClass, ignored -> new ArrayList<>()).add(waitPolls);
+        }
+
+        int p99WaitPolls(WbApiEventSchedulingClass schedulingClass) {
+            List<Integer> waits = new ArrayList<>(waitsByClass.get(schedulingClass));
+            waits.sort(Comparator.naturalOrder());
+            return waits.get((int) Math.ceil(waits.size() * 0.99) - 1);
+        }
+
+        long selectedCount(WbApiEventSchedulingClass schedulingClass) {
+            return selectedByClass.getOrDefault(schedulingClass, 0L);
+        }
+
+        /** Разница между самым и наименее обслуженным кабинетом с backlog (необслуженные — с нулём). */
+        int bulkServedSpread() {
+            int min = Integer.MAX_VALUE;
+            int max = 0;
+            for (long cabinetId = 1; cabinetId <= BULK_CABINETS; cabinetId++) {
+                int served = bulkServedByCabinet.getOrDefault(cabinetId, 0);
+                min = Math.min(min, served);
+                max = Math.max(max, served);
+            }
+            return max - min;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package ru.oparin.solution.service.export;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.oparin.solution.model.Cabinet;
+import ru.oparin.solution.model.User;
+import ru.oparin.solution.repository.AnalyticsExportRepository;
+import ru.oparin.solution.service.AnalyticsService;
+import ru.oparin.solution.support.AbstractPostgresJpaTest;
+import ru.oparin.solution.support.RetainedHeapProbe;
+import ru.oparin.solution.support.TestEntities;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Выгрузка статистики кампании на миллион строк: строки идут курсором JDBC прямо в CSV,
+ * удерживаемая память не растёт с числом выгруженных строк.
+ */
+@Import({AnalyticsExportService.class, AnalyticsExportRepository.class})
+class AnalyticsExportServiceStreamingTest extends AbstractPostgresJpaTest {
+
+    private static final long ADVERT_ID = 9_300_001L;
+    private static final int NM_IDS = 1_000;
+    private static final int DAYS = 1_000;
+    private static final int ROWS = NM_IDS * DAYS;
+    private static final LocalDate DATE_FROM = LocalDate.of(2023, 1, 1);
+
+    /**
+     * Миллион строк в списке DTO занял бы сотни мегабайт; курсор с fetchSize 1000 и буфер CSV — единицы.
+     */
+    private static final long MAX_RETAINED_GROWTH_BYTES = 32L * 1024 * 1024;
+
+    @Autowired
+    private AnalyticsExportService exportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @MockBean
+    private AnalyticsService analyticsService;
+
+    private User seller;
+    private Cabinet cabinet;
+
+    @BeforeEach
+    void setUp() {
+        seller = TestEntities.user(em, "export@test.local");
+        cabinet = TestEntities.wbCabinet(em, seller, "export-key");
+        TestEntities.wbCampaign(em, cabinet, ADVERT_ID);
+        em.flush();
+        jdbcTemplate.update("""
+                INSERT INTO solution.wb_promotion_campaign_statistics
+                    (campaign_id, nm_id, date, views, clicks, ctr, sum, orders, cr, cpc, cpa, atbs, canceled, shks, orders_sum)
+                SELECT ?, 1000 + n.i, ?::date + d.i, 1000, 30, 3.0, 150.00, 2, 6.6, 5.0, 75.00, 5, 0, 2, 3000.00
+                  FROM generate_series(0, ? - 1) AS n(i)
+                 CROSS JOIN generate_series(0, ? - 1) AS d(i)
+                """, ADVERT_ID, DATE_FROM, NM_IDS, DAYS);
+        when(analyticsService.resolveCampaignAdvertId(eq(ADVERT_ID), eq(cabinet.getId()), any()))
+                .thenReturn(ADVERT_ID);
+    }
+
+    @Test
+    void exportsMillionRowsWithBoundedMemory() throws Exception {
+        StreamingResponseBody body = exportService.exportCampaignStatistics(ADVERT_ID, cabinet.getId(), seller.getId(),
+                DATE_FROM, DATE_FROM.plusDays(DAYS - 1), null, ExportFormat.CSV);
+        RetainedHeapProbe out = new RetainedHeapProbe(ROWS / 10);
+
+        body.writeTo(out);
+
+        assertThat(out.lines()).isEqualTo(ROWS + 1L);
+        assertThat(out.retainedGrowth()).isLessThan(MAX_RETAINED_GROWTH_BYTES);
+    }
+}
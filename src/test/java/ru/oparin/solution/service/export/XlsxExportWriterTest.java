@@ -0,0 +1,63 @@
+package ru.oparin.solution.service.export;
+
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import ru.oparin.solution.support.RetainedHeapProbe;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SXSSF-писатель: миллион строк без роста удерживаемой памяти, содержимое файла читается обратно.
+ */
+class XlsxExportWriterTest {
+
+    private static final int ROWS = 1_000_000;
+    private static final long MAX_RETAINED_GROWTH_BYTES = 32L * 1024 * 1024;
+    private static final LocalDate DATE = LocalDate.of(2026, 3, 1);
+    private static final List<String> COLUMNS = List.of("Дата", "Артикул WB", "Название", "Расход");
+
+    @Test
+    void writesMillionRowsWithBoundedMemory() throws IOException {
+        RetainedHeapProbe out = new RetainedHeapProbe(Long.MAX_VALUE);
+        try (TabularExportWriter writer = TabularExportWriter.open(ExportFormat.XLSX, out, "Статистика")) {
+            writer.header(COLUMNS);
+            for (int i = 0; i < ROWS; i++) {
+                writer.row(DATE.plusDays(i % 365), 10_000L + i, "Товар " + i, new BigDecimal("150.50"));
+                if ((i + 1) % (ROWS / 10) == 0) {
+                    out.checkpoint();
+                }
+            }
+            writer.finish();
+        }
+
+        assertThat(out.bytes()).isPositive();
+        assertThat(out.retainedGrowth()).isLessThan(MAX_RETAINED_GROWTH_BYTES);
+    }
+
+    @Test
+    void writtenWorkbookReadsBack() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TabularExportWriter writer = TabularExportWriter.open(ExportFormat.XLSX, out, "Статистика")) {
+            writer.header(COLUMNS);
+            writer.row(DATE, 10_000L, "Товар", new BigDecimal("150.50"));
+            writer.row(DATE, 10_001L, null, null);
+            writer.finish();
+        }
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            var sheet = workbook.getSheet("Статистика");
+            assertThat(sheet.getLastRowNum()).isEqualTo(2);
+            assertThat(sheet.getRow(0).getCell(0).getStringCellValue()).isEqualTo("Дата");
+            assertThat(sheet.getRow(1).getCell(1).getNumericCellValue()).isEqualTo(10_000d);
+            assertThat(sheet.getRow(1).getCell(0).getLocalDateTimeCellValue().toLocalDate()).isEqualTo(DATE);
+            assertThat(sheet.getRow(2).getCell(2)).isNull();
+        }
+    }
+}
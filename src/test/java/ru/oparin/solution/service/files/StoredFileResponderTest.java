@@ -0,0 +1,216 @@
+package ru.oparin.solution.service.files;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.oparin.solution.util.ContentHashUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * HTTP-семантика отдачи вложений: строгий ETag, 304, одиночный диапазон (206), {@code If-Range}, 416
+ * и слабый ETag у файла без досчитанного хэша.
+ */
+class StoredFileResponderTest {
+
+    private static final byte[] CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.US_ASCII);
+
+    private final StoredFileResponder responder = new StoredFileResponder();
+
+    @TempDir
+    Path dir;
+
+    private Path path;
+    private String sha256;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        path = dir.resolve("note.txt");
+        Files.write(path, CONTENT);
+        sha256 = ContentHashUtils.sha256(path);
+    }
+
+    @Test
+    void fullResponseCarriesStrongEtagAndBody() throws Exception {
+        MockHttpServletResponse response = respond(hashed(), get());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + sha256 + "\"");
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_DISPOSITION)).contains("note.txt");
+        assertThat(response.getContentAsByteArray()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void matchingIfNoneMatchGives304WithoutBody() throws Exception {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + sha256 + "\"");
+
+        MockHttpServletResponse response = respond(hashed(), request);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void staleIfNoneMatchGivesFullBody() throws Exception {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\"");
+
+        MockHttpServletResponse response = respond(hashed(), request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void singleRangeGives206() throws Exception {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+
+        MockHttpServletResponse response = respond(hashed(), request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 10-19/" + CONTENT.length);
+        assertThat(response.getContentLengthLong()).isEqualTo(10);
+        assertThat(response.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(CONTENT, 10, 20));
+    }
+
+    @Test
+    void suffixRangeGivesTail() throws Exception {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=-6");
+
+        MockHttpServletResponse response = respond(hashed(), request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsByteArray())
+                .isEqualTo(Arrays.copyOfRange(CONTENT, CONTENT.length - 6, CONTENT.length));
+    }
+
+    @Test
+    void rangeWithMatchingIfRangeGives206() throws Exception {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"" + sha256 + "\"");
+
+        MockHttpServletResponse response = respond(hashed(), request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(CONTENT, 0, 4));
+    }
+
+    @Test
+    void rangeWithStaleIfRangeGivesWholeFile() throws Exception {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"other\"");
+
+        MockHttpServletResponse response = respond(hashed(), request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void rangeWithIfRangeDateGives206UntilFileChanges() throws Exception {
+        ZonedDateTime modified = Files.getLastModifiedTime(path).toInstant().atZone(ZoneOffset.UTC);
+        MockHttpServletRequest current = get();
+        current.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        current.addHeader(HttpHeaders.IF_RANGE, DateTimeFormatter.RFC_1123_DATE_TIME.format(modified));
+        assertThat(respond(hashed(), current).getStatus()).isEqualTo(206);
+
+        MockHttpServletRequest outdated = get();
+        outdated.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        outdated.addHeader(HttpHeaders.IF_RANGE, DateTimeFormatter.RFC_1123_DATE_TIME.format(modified.minusHours(1)));
+        assertThat(respond(hashed(), outdated).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void rangeBeyondEndGives416() throws Exception {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=" + CONTENT.length + "-");
+
+        MockHttpServletResponse response = respond(hashed(), request);
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */" + CONTENT.length);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void multipleRangesGiveWholeFile() throws Exception {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1,5-6");
+
+        MockHttpServletResponse response = respond(hashed(), request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void headSendsHeadersWithoutBody() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("HEAD", "/files/1");
+
+        MockHttpServletResponse response = respond(hashed(), request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentLengthLong()).isEqualTo(CONTENT.length);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void fileWithoutHashGetsWeakEtagAndStill304() throws Exception {
+        MockHttpServletResponse first = respond(legacy(), get());
+        String weakEtag = first.getHeader(HttpHeaders.ETAG);
+        assertThat(weakEtag).startsWith("W/\"");
+        assertThat(first.getContentAsByteArray()).isEqualTo(CONTENT);
+
+        MockHttpServletRequest revalidate = get();
+        revalidate.addHeader(HttpHeaders.IF_NONE_MATCH, weakEtag);
+        assertThat(respond(legacy(), revalidate).getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    void weakEtagDoesNotSatisfyIfRange() throws Exception {
+        String weakEtag = respond(legacy(), get()).getHeader(HttpHeaders.ETAG);
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        request.addHeader(HttpHeaders.IF_RANGE, weakEtag);
+
+        MockHttpServletResponse response = respond(legacy(), request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isEqualTo(CONTENT);
+    }
+
+    private StoredFileDownload hashed() {
+        return new StoredFileDownload(path, "note.txt", "text/plain", sha256);
+    }
+
+    private StoredFileDownload legacy() {
+        return new StoredFileDownload(path, "note.txt", "text/plain", null);
+    }
+
+    private static MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/files/1");
+    }
+
+    private MockHttpServletResponse respond(StoredFileDownload file, MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        responder.respond(file, request, response);
+        return response;
+    }
+}
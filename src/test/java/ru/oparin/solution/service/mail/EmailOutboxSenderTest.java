@@ -0,0 +1,158 @@
+package ru.oparin.solution.service.mail;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.TestPropertySource;
+import ru.oparin.solution.config.MailOutboxProperties;
+import ru.oparin.solution.model.EmailOutboxMessage;
+import ru.oparin.solution.model.EmailOutboxStatus;
+import ru.oparin.solution.repository.EmailOutboxRepository;
+import ru.oparin.solution.support.AbstractPostgresJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Исходящая очередь писем на PostgreSQL со стабом SMTP: постановка → отправка → SENT,
+ * повтор с backoff после ошибки и перевод в FAILED по исчерпании попыток.
+ */
+@Import({EmailOutboxService.class, EmailOutboxSender.class, EmailOutboxSenderTest.OutboxConfig.class})
+@TestPropertySource(properties = "app.mail.from=noreply@test.local")
+class EmailOutboxSenderTest extends AbstractPostgresJpaTest {
+
+    private static final int MAX_ATTEMPTS = 2;
+    private static final long INITIAL_BACKOFF_SECONDS = 30;
+
+    @Autowired
+    private EmailOutboxService outboxService;
+
+    @Autowired
+    private EmailOutboxSender outboxSender;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @MockBean
+    private JavaMailSender mailSender;
+
+    @Test
+    void enqueuedMessageIsSentAndMarkedSent() {
+        outboxService.enqueue("seller@test.local", "Тема", "Текст письма", "тест");
+        ArgumentCaptor<SimpleMailMessage[]> mails = ArgumentCaptor.forClass(SimpleMailMessage[].class);
+        doNothing().when(mailSender).send(mails.capture());
+
+        int sent = outboxSender.sendDueBatch();
+
+        assertThat(sent).isEqualTo(1);
+        SimpleMailMessage mail = mails.getValue()[0];
+        assertThat(mail.getFrom()).isEqualTo("noreply@test.local");
+        assertThat(mail.getTo()).containsExactly("seller@test.local");
+        assertThat(mail.getSubject()).isEqualTo("Тема");
+        assertThat(mail.getText()).isEqualTo("Текст письма");
+
+        EmailOutboxMessage message = single();
+        assertThat(message.getStatus()).isEqualTo(EmailOutboxStatus.SENT);
+        assertThat(message.getAttemptCount()).isEqualTo(1);
+        assertThat(message.getSentAt()).isNotNull();
+        assertThat(message.getLastError()).isNull();
+        assertThat(outboxSender.sendDueBatch()).isZero();
+    }
+
+    @Test
+    void failedMessageIsRetriedAfterBackoff() {
+        outboxService.enqueue("ok@test.local", "Первое", "Текст", "тест");
+        outboxService.enqueue("bad@test.local", "Второе", "Текст", "тест");
+        doAnswer(invocation -> {
+            SimpleMailMessage[] mails = invocation.getArgument(0);
+            SimpleMailMessage rejected = mails[0].getTo()[0].startsWith("bad") ? mails[0] : mails[1];
+            throw new MailSendException(Map.of(rejected, new IllegalStateException("550 mailbox unavailable")));
+        }).when(mailSender).send(any(SimpleMailMessage[].class));
+        LocalDateTime beforeSend = LocalDateTime.now();
+
+        assertThat(outboxSender.sendDueBatch()).isEqualTo(2);
+
+        List<EmailOutboxMessage> messages = all();
+        EmailOutboxMessage ok = messages.get(0);
+        EmailOutboxMessage bad = messages.get(1);
+        assertThat(ok.getStatus()).isEqualTo(EmailOutboxStatus.SENT);
+        assertThat(bad.getStatus()).isEqualTo(EmailOutboxStatus.PENDING);
+        assertThat(bad.getAttemptCount()).isEqualTo(1);
+        assertThat(bad.getLastError()).contains("550");
+        assertThat(bad.getNextAttemptAt()).isAfterOrEqualTo(beforeSend.plusSeconds(INITIAL_BACKOFF_SECONDS));
+
+        assertThat(outboxSender.sendDueBatch()).as("повтор ещё не наступил").isZero();
+
+        bad.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        outboxRepository.saveAndFlush(bad);
+        doNothing().when(mailSender).send(any(SimpleMailMessage[].class));
+
+        assertThat(outboxSender.sendDueBatch()).isEqualTo(1);
+
+        EmailOutboxMessage retried = outboxRepository.findById(bad.getId()).orElseThrow();
+        assertThat(retried.getStatus()).isEqualTo(EmailOutboxStatus.SENT);
+        assertThat(retried.getAttemptCount()).isEqualTo(2);
+        assertThat(retried.getLastError()).isNull();
+        verify(mailSender, times(2)).send(any(SimpleMailMessage[].class));
+    }
+
+    @Test
+    void messageFailsAfterMaxAttempts() {
+        outboxService.enqueue("down@test.local", "Тема", "Текст", "тест");
+        doThrow(new IllegalStateException("SMTP недоступен")).when(mailSender).send(any(SimpleMailMessage[].class));
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            EmailOutboxMessage message = single();
+            message.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+            outboxRepository.saveAndFlush(message);
+            assertThat(outboxSender.sendDueBatch()).isEqualTo(1);
+        }
+
+        EmailOutboxMessage message = single();
+        assertThat(message.getStatus()).isEqualTo(EmailOutboxStatus.FAILED);
+        assertThat(message.getAttemptCount()).isEqualTo(MAX_ATTEMPTS);
+        assertThat(message.getLastError()).isEqualTo("SMTP недоступен");
+        assertThat(outboxSender.sendDueBatch()).isZero();
+    }
+
+    private EmailOutboxMessage single() {
+        List<EmailOutboxMessage> messages = all();
+        assertThat(messages).hasSize(1);
+        return messages.get(0);
+    }
+
+    private List<EmailOutboxMessage> all() {
+        return outboxRepository.findAll().stream()
+                .sorted(Comparator.comparing(EmailOutboxMessage::getId))
+                .toList();
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class OutboxConfig {
+
+        @Bean
+        MailOutboxProperties mailOutboxProperties() {
+            MailOutboxProperties properties = new MailOutboxProperties();
+            properties.setMaxAttempts(MAX_ATTEMPTS);
+            properties.setInitialBackoffSeconds(INITIAL_BACKOFF_SECONDS);
+            return properties;
+        }
+    }
+}
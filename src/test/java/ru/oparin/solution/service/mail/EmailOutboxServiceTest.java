@@ -0,0 +1,166 @@
+package ru.oparin.solution.service.mail;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.oparin.solution.config.MailOutboxProperties;
+import ru.oparin.solution.model.EmailOutboxMessage;
+import ru.oparin.solution.model.EmailOutboxStatus;
+import ru.oparin.solution.repository.EmailOutboxRepository;
+import ru.oparin.solution.support.AbstractPostgresJpaTest;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Исходящая очередь на закоммиченных транзакциях (без отката теста): письмо из отменённой бизнес-транзакции
+ * не остаётся в очереди, зависшее в SENDING возвращается ровно один раз даже при двух одновременных
+ * проверках, а зависшее на последней попытке уходит в FAILED.
+ */
+@Import({EmailOutboxService.class, EmailOutboxServiceTest.OutboxConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EmailOutboxServiceTest extends AbstractPostgresJpaTest {
+
+    private static final int MAX_ATTEMPTS = 2;
+    private static final int SENDING_TIMEOUT_MINUTES = 10;
+
+    @Autowired
+    private EmailOutboxService outboxService;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    @AfterEach
+    void cleanOutbox() {
+        outboxRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void callerRollbackLeavesNoRow() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        assertThatThrownBy(() -> transaction.executeWithoutResult(status -> {
+            outboxService.enqueue("rollback@test.local", "Тема", "Текст", "тест");
+            throw new IllegalStateException("бизнес-операция не удалась");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(outboxRepository.count()).isZero();
+
+        transaction.executeWithoutResult(status ->
+                outboxService.enqueue("commit@test.local", "Тема", "Текст", "тест"));
+        assertThat(outboxRepository.findAll())
+                .extracting(EmailOutboxMessage::getToEmail)
+                .containsExactly("commit@test.local");
+    }
+
+    @Test
+    void staleSendingRowIsRequeuedExactlyOnce() throws Exception {
+        outboxService.enqueue("stuck@test.local", "Тема", "Текст", "тест");
+        EmailOutboxMessage claimed = single(outboxService.claimDue());
+        assertThat(claimed.getStatus()).isEqualTo(EmailOutboxStatus.SENDING);
+
+        assertThat(outboxService.requeueStale()).as("ещё не истёк таймаут").isZero();
+        makeStale(claimed.getId());
+
+        assertThat(concurrently(2, outboxService::requeueStale)).containsExactlyInAnyOrder(1, 0);
+        assertThat(outboxService.requeueStale()).isZero();
+
+        EmailOutboxMessage requeued = outboxRepository.findById(claimed.getId()).orElseThrow();
+        assertThat(requeued.getStatus()).isEqualTo(EmailOutboxStatus.PENDING);
+        assertThat(requeued.getAttemptCount()).isEqualTo(1);
+
+        EmailOutboxMessage reclaimed = single(outboxService.claimDue());
+        assertThat(reclaimed.getId()).isEqualTo(claimed.getId());
+        assertThat(reclaimed.getAttemptCount()).isEqualTo(2);
+        assertThat(outboxService.claimDue()).isEmpty();
+    }
+
+    @Test
+    void staleSendingRowOnLastAttemptFails() {
+        outboxService.enqueue("last@test.local", "Тема", "Текст", "тест");
+        EmailOutboxMessage claimed = single(outboxService.claimDue());
+        jdbcTemplate.update("UPDATE solution.email_outbox SET attempt_count = ? WHERE id = ?", MAX_ATTEMPTS, claimed.getId());
+        makeStale(claimed.getId());
+
+        assertThat(outboxService.requeueStale()).isZero();
+
+        EmailOutboxMessage failed = outboxRepository.findById(claimed.getId()).orElseThrow();
+        assertThat(failed.getStatus()).isEqualTo(EmailOutboxStatus.FAILED);
+        assertThat(failed.getAttemptCount()).isEqualTo(MAX_ATTEMPTS);
+        assertThat(failed.getLastError()).contains("SENDING");
+        assertThat(outboxService.claimDue()).isEmpty();
+    }
+
+    private void makeStale(Long id) {
+        LocalDateTime staleAt = LocalDateTime.now().minusMinutes(SENDING_TIMEOUT_MINUTES + 1);
+        jdbcTemplate.update("UPDATE solution.email_outbox SET updated_at = ? WHERE id = ?", Timestamp.valueOf(staleAt), id);
+    }
+
+    private static EmailOutboxMessage single(List<EmailOutboxMessage> messages) {
+        assertThat(messages).hasSize(1);
+        return messages.get(0);
+    }
+
+    /**
+     * Запускает {@code action} в {@code threads} потоках одновременно, каждый — в своей транзакции.
+     */
+    private static List<Integer> concurrently(int threads, Callable<Integer> action) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return action.call();
+                }));
+            }
+            start.countDown();
+            List<Integer> results = new ArrayList<>();
+            for (Future<Integer> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class OutboxConfig {
+
+        @Bean
+        MailOutboxProperties mailOutboxProperties() {
+            MailOutboxProperties properties = new MailOutboxProperties();
+            properties.setMaxAttempts(MAX_ATTEMPTS);
+            properties.setSendingTimeoutMinutes(SENDING_TIMEOUT_MINUTES);
+            return properties;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package ru.oparin.solution.service.sync;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.oparin.solution.config.OzonEventsProperties;
+import ru.oparin.solution.config.OzonHttpProperties;
+import ru.oparin.solution.dto.ozon.OzonProductInfoStocksResponse;
+import ru.oparin.solution.model.Cabinet;
+import ru.oparin.solution.service.OzonProductStockService;
+import ru.oparin.solution.service.ozon.OzonProductsApiClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Синхронизация остатков Ozon против локального HTTP-стаба: следующая страница запрашивается, пока текущая
+ * сохраняется, поэтому общее время близко к сумме времён загрузки, а не к сумме загрузки и сохранения.
+ */
+class OzonProductStocksSyncServiceTest {
+
+    private static final int PAGES = 8;
+    private static final long FETCH_MS = 200;
+    private static final long SAVE_MS = 200;
+    private static final long SLACK_MS = 600;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> requestedCursors = new CopyOnWriteArrayList<>();
+    private final List<String> savedCursors = new CopyOnWriteArrayList<>();
+
+    private HttpServer server;
+    private ExecutorService fetchExecutor;
+    private OzonProductStocksSyncService syncService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handleStocksPage);
+        server.setExecutor(Executors.newFixedThreadPool(2));
+        server.start();
+
+        OzonHttpProperties httpProperties = new OzonHttpProperties();
+        httpProperties.setBaseUrlOverride("http://127.0.0.1:" + server.getAddress().getPort());
+        OzonEventsProperties eventsProperties = new OzonEventsProperties();
+        eventsProperties.setPageFetchMinIntervalMs(0);
+
+        OzonProductStockService stockService = mock(OzonProductStockService.class);
+        doAnswer(invocation -> {
+            OzonProductInfoStocksResponse page = invocation.getArgument(1);
+            Thread.sleep(SAVE_MS);
+            savedCursors.add(page.getCursor());
+            return null;
+        }).when(stockService).saveStocks(any(Cabinet.class), any(OzonProductInfoStocksResponse.class));
+
+        fetchExecutor = Executors.newSingleThreadExecutor();
+        syncService = new OzonProductStocksSyncService(
+                new OzonProductsApiClient(httpProperties), stockService, eventsProperties, fetchExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        fetchExecutor.shutdownNow();
+    }
+
+    @Test
+    void fetchesNextPageWhileCurrentIsSaved() {
+        long startedAt = System.nanoTime();
+
+        syncService.syncAllStocks(Cabinet.builder().id(1L).build(), "client", "key");
+
+        long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+        assertThat(requestedCursors).containsExactly("", "1", "2", "3", "4", "5", "6", "7");
+        assertThat(savedCursors).containsExactly("1", "2", "3", "4", "5", "6", "7", "");
+        assertThat(elapsedMs)
+                .as("последовательно было бы %d мс", PAGES * (FETCH_MS + SAVE_MS))
+                .isGreaterThanOrEqualTo(PAGES * FETCH_MS)
+                .isLessThan(PAGES * FETCH_MS + SAVE_MS + SLACK_MS);
+    }
+
+    /**
+     * Страница N отдаёт курсор {@code N+1}; последняя — пустой курсор.
+     */
+    private void handleStocksPage(HttpExchange exchange) throws IOException {
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        String cursor = request.path("cursor").asText("");
+        requestedCursors.add(cursor);
+        int page = cursor.isEmpty() ? 0 : Integer.parseInt(cursor);
+        try {
+            Thread.sleep(FETCH_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        String nextCursor = page + 1 < PAGES ? String.valueOf(page + 1) : "";
+        byte[] body = ("{\"cursor\":\"" + nextCursor + "\",\"total\":" + PAGES + ",\"items\":[{\"product_id\":" + page
+                + ",\"offer_id\":\"offer-" + page + "\",\"stocks\":[]}]}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ru.oparin.solution.service.sync;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Упреждающая загрузка страниц: порядок курсоров и отмена загрузки в полёте при ошибке сохранения.
+ */
+class PipelinedPageLoaderTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void savesPagesInCursorOrderUntilLastPage() {
+        StringBuilder saved = new StringBuilder();
+
+        PipelinedPageLoader.Result result = PipelinedPageLoader.run(
+                "",
+                cursor -> cursor.isEmpty() ? 1 : Integer.parseInt(cursor) + 1,
+                page -> page < 3 ? String.valueOf(page) : "",
+                (page, next) -> saved.append(page).append('>').append(next).append(';'),
+                () -> true,
+                0L,
+                executor
+        );
+
+        assertThat(saved).hasToString("1>1;2>2;3>;");
+        assertThat(result).isEqualTo(new PipelinedPageLoader.Result("", 3, true));
+    }
+
+    @Test
+    void stopsBeforeNextFetchWhenBudgetIsOver() {
+        AtomicInteger fetched = new AtomicInteger();
+
+        PipelinedPageLoader.Result result = PipelinedPageLoader.run(
+                "a",
+                cursor -> fetched.incrementAndGet(),
+                page -> "next-" + page,
+                (page, next) -> {
+                },
+                () -> false,
+                0L,
+                executor
+        );
+
+        assertThat(fetched).hasValue(1);
+        assertThat(result).isEqualTo(new PipelinedPageLoader.Result("next-1", 1, false));
+    }
+
+    @Test
+    void saveFailureInterruptsPrefetchWaitingForSlot() throws InterruptedException {
+        AtomicInteger fetched = new AtomicInteger();
+
+        assertThatThrownBy(() -> PipelinedPageLoader.run(
+                "",
+                cursor -> fetched.incrementAndGet(),
+                page -> "next",
+                (page, next) -> {
+                    throw new IllegalStateException("save failed");
+                },
+                () -> true,
+                TimeUnit.MINUTES.toMillis(10),
+                executor
+        )).isInstanceOf(IllegalStateException.class).hasMessage("save failed");
+
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS))
+                .as("упреждающая загрузка прервана, а не ждёт интервал")
+                .isTrue();
+        assertThat(fetched).hasValue(1);
+    }
+}
@@ -0,0 +1,212 @@
+package ru.oparin.solution.service.sync;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.oparin.solution.dto.wb.WbOrdersResponse;
+import ru.oparin.solution.model.Cabinet;
+import ru.oparin.solution.repository.WbOrderCopyWriter;
+import ru.oparin.solution.repository.WbOrderRepository;
+import ru.oparin.solution.service.wb.WbOrdersApiClient;
+import ru.oparin.solution.support.AbstractPostgresJpaTest;
+import ru.oparin.solution.support.TestEntities;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Журнал заказов: курсор загрузки — максимальный {@code last_change_date} кабинета, полная страница WB
+ * продолжается с самой новой даты изменения; повторная запись тех же заказов ничего не меняет,
+ * дубликаты srid в пачке и устаревшие версии не перетирают последнюю; дневные заказы и выручка — из журнала.
+ */
+@Import({WbOrdersLedgerService.class, WbOrderCopyWriter.class})
+class WbOrdersLedgerServiceTest extends AbstractPostgresJpaTest {
+
+    private static final String API_KEY = "ledger-key";
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 1);
+    /** Полная страница заказов WB (см. {@code WbOrdersLedgerService}). */
+    private static final int WB_PAGE_LIMIT = 80_000;
+    private static final String LEDGER_SNAPSHOT_SQL = """
+            SELECT srid, nm_id, order_date, last_change_date, price_with_disc, is_cancel, updated_at
+              FROM solution.wb_orders
+             WHERE cabinet_id = ?
+             ORDER BY srid
+            """;
+
+    @Autowired
+    private WbOrdersLedgerService ledgerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @MockBean
+    private WbOrdersApiClient ordersApiClient;
+
+    private final Deque<List<WbOrdersResponse.Order>> pages = new ArrayDeque<>();
+    private final List<LocalDateTime> requestedFrom = new ArrayList<>();
+    private Cabinet cabinet;
+
+    @BeforeEach
+    void setUp() {
+        cabinet = TestEntities.wbCabinet(em, TestEntities.user(em, "orders@test.local"), API_KEY);
+        em.flush();
+        when(ordersApiClient.streamOrders(anyString(), any(), any())).thenAnswer(invocation -> {
+            requestedFrom.add(invocation.getArgument(1));
+            Consumer<WbOrdersResponse.Order> consumer = invocation.getArgument(2);
+            List<WbOrdersResponse.Order> page = pages.isEmpty() ? List.of() : pages.poll();
+            page.forEach(consumer);
+            return page.size();
+        });
+    }
+
+    @Test
+    void cursorIsNewestLastChangeDateInLedger() {
+        pages.add(List.of(
+                order("a", 1L, at(9, 0), at(10, 0), false),
+                order("b", 1L, at(9, 30), at(10, 5), false),
+                order("c", 2L, at(9, 40), at(10, 3), false)));
+        ledgerService.syncOrders(cabinet, API_KEY);
+
+        // WB отдаёт заказ на границе курсора повторно и новую версию заказа «a».
+        pages.add(List.of(
+                order("b", 1L, at(9, 30), at(10, 5), false),
+                order("a", 1L, at(9, 0), at(10, 7), true)));
+        ledgerService.syncOrders(cabinet, API_KEY);
+        ledgerService.syncOrders(cabinet, API_KEY);
+
+        assertThat(requestedFrom).containsExactly(
+                LocalDate.now().minusDays(3).atStartOfDay(),
+                at(10, 5),
+                at(10, 7));
+        assertThat(jdbcTemplate.queryForList(LEDGER_SNAPSHOT_SQL, cabinet.getId()))
+                .extracting(row -> row.get("srid") + ":" + row.get("is_cancel") + ":" + row.get("last_change_date"))
+                .containsExactly(
+                        "a:true:" + Timestamp.valueOf(at(10, 7)),
+                        "b:false:" + Timestamp.valueOf(at(10, 5)),
+                        "c:false:" + Timestamp.valueOf(at(10, 3)));
+    }
+
+    @Test
+    void fullPageContinuesFromNewestLastChangeDateOfThePage() {
+        List<WbOrdersResponse.Order> fullPage = new ArrayList<>(WB_PAGE_LIMIT);
+        // Курсор пустого журнала — начало дня три дня назад; страница должна быть новее него.
+        LocalDateTime pageStart = LocalDate.now().minusDays(2).atStartOfDay();
+        for (int i = 0; i < WB_PAGE_LIMIT; i++) {
+            // Самая новая дата изменения — в середине страницы, а не в конце.
+            int seconds = i == WB_PAGE_LIMIT / 2 ? WB_PAGE_LIMIT : i;
+            fullPage.add(order("full-" + i, 1L + i % 100, pageStart, pageStart.plusSeconds(seconds), false));
+        }
+        pages.add(fullPage);
+        pages.add(List.of(order("tail", 1L, pageStart, pageStart.plusSeconds(WB_PAGE_LIMIT + 1), false)));
+
+        int received = ledgerService.syncOrders(cabinet, API_KEY);
+
+        assertThat(received).isEqualTo(WB_PAGE_LIMIT + 1);
+        assertThat(requestedFrom).containsExactly(
+                LocalDate.now().minusDays(3).atStartOfDay(),
+                pageStart.plusSeconds(WB_PAGE_LIMIT));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM solution.wb_orders WHERE cabinet_id = ?", Long.class, cabinet.getId()))
+                .isEqualTo(WB_PAGE_LIMIT + 1L);
+    }
+
+    @Test
+    void appendingSameOrdersAgainChangesNothing() {
+        List<WbOrderCopyWriter.Row> rows = List.of(
+                row("a", 1L, at(9, 0), at(10, 0), "1000.00", false),
+                row("b", 1L, at(9, 30), at(10, 5), "1100.00", false),
+                row("c", 2L, at(9, 40), at(10, 3), "900.00", true));
+
+        assertThat(ledgerService.appendOrders(cabinet.getId(), rows)).isEqualTo(3);
+        List<Map<String, Object>> before = jdbcTemplate.queryForList(LEDGER_SNAPSHOT_SQL, cabinet.getId());
+
+        assertThat(ledgerService.appendOrders(cabinet.getId(), rows)).isZero();
+        assertThat(jdbcTemplate.queryForList(LEDGER_SNAPSHOT_SQL, cabinet.getId())).isEqualTo(before);
+    }
+
+    @Test
+    void duplicateSridKeepsNewestVersion() {
+        List<WbOrderCopyWriter.Row> batch = List.of(
+                row("a", 1L, at(9, 0), at(10, 0), "1000.00", false),
+                row("a", 1L, at(9, 0), at(10, 10), "950.00", true),
+                row("a", 1L, at(9, 0), at(9, 50), "1200.00", false));
+
+        assertThat(ledgerService.appendOrders(cabinet.getId(), batch)).isEqualTo(1);
+        // Более старая версия, пришедшая позже, не перетирает запись.
+        assertThat(ledgerService.appendOrders(cabinet.getId(),
+                List.of(row("a", 1L, at(9, 0), at(10, 5), "1000.00", false)))).isZero();
+
+        Map<String, Object> stored = jdbcTemplate.queryForMap(LEDGER_SNAPSHOT_SQL, cabinet.getId());
+        assertThat(stored.get("last_change_date")).isEqualTo(Timestamp.valueOf(at(10, 10)));
+        assertThat(stored.get("is_cancel")).isEqualTo(true);
+        assertThat((BigDecimal) stored.get("price_with_disc")).isEqualByComparingTo("950.00");
+    }
+
+    @Test
+    void dailyOrdersAndRevenuePerNmIdFromLedger() {
+        LocalDateTime nextDay = DAY.plusDays(1).atTime(8, 0);
+        ledgerService.appendOrders(cabinet.getId(), List.of(
+                row("a", 1L, at(9, 0), at(9, 0), "1000.00", false),
+                row("b", 1L, at(23, 59), at(23, 59), "1100.00", true),
+                row("c", 2L, at(12, 0), at(12, 0), "500.00", false),
+                row("d", 1L, nextDay, nextDay, "1050.00", false),
+                row("e", null, at(13, 0), at(13, 0), "700.00", false)));
+
+        List<WbOrderRepository.DailyOrdersProjection> daily =
+                ledgerService.getDailyOrders(cabinet.getId(), DAY, DAY.plusDays(1));
+        assertThat(daily)
+                .extracting(d -> d.getDate() + ":" + d.getNmId() + ":" + d.getOrders() + ":" + d.getCancelled())
+                .containsExactly(DAY + ":1:2:1", DAY + ":2:1:0", DAY.plusDays(1) + ":1:1:0");
+        assertThat(daily.get(0).getRevenue()).isEqualByComparingTo("2100.00");
+
+        List<WbOrderRepository.DailyOrdersProjection> today =
+                ledgerService.getDailyOrders(cabinet.getId(), 2L, DAY, DAY);
+        assertThat(today).singleElement().satisfies(d -> {
+            assertThat(d.getOrders()).isEqualTo(1L);
+            assertThat(d.getRevenue()).isEqualByComparingTo("500.00");
+        });
+    }
+
+    private static LocalDateTime at(int hour, int minute) {
+        return DAY.atTime(hour, minute);
+    }
+
+    private static WbOrdersResponse.Order order(
+            String srid, Long nmId, LocalDateTime date, LocalDateTime lastChangeDate, boolean cancelled) {
+        return WbOrdersResponse.Order.builder()
+                .srid(srid)
+                .nmId(nmId)
+                .date(date.toString())
+                .lastChangeDate(lastChangeDate.toString())
+                .priceWithDisc(new BigDecimal("1000.00"))
+                .isCancel(cancelled)
+                .build();
+    }
+
+    private static WbOrderCopyWriter.Row row(
+            String srid, Long nmId, LocalDateTime orderDate, LocalDateTime lastChangeDate,
+            String priceWithDisc, boolean cancelled) {
+        return new WbOrderCopyWriter.Row(srid, null, nmId, null, null, null, orderDate, lastChangeDate,
+                null, null, null, null, new BigDecimal(priceWithDisc), cancelled, null);
+    }
+}
@@ -0,0 +1,88 @@
+package ru.oparin.solution.service.wb;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.oparin.solution.service.sync.PipelinedPageLoader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Перенос контекста попытки события в потоки пула: загрузка в пуле видит попытку события,
+ * поток-исполнитель после задачи возвращается к своему контексту.
+ */
+class WbApiEventAttemptContextTest {
+
+    private final ExecutorService pool = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        WbApiEventAttemptContext.clear();
+        pool.shutdownNow();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void pipelinedFetchSeesEventAttempt() {
+        WbApiEventAttemptContext.set(2, 5, 77L);
+        Optional<WbApiEventAttemptContext.AttemptInfo> attempt = WbApiEventAttemptContext.current();
+        List<Optional<WbApiEventAttemptContext.AttemptInfo>> seenByFetch = new ArrayList<>();
+
+        PipelinedPageLoader.run(
+                "0",
+                cursor -> WbApiEventAttemptContext.callWith(attempt, () -> {
+                    seenByFetch.add(WbApiEventAttemptContext.current());
+                    return Integer.parseInt(cursor);
+                }),
+                page -> page + 1 < 3 ? String.valueOf(page + 1) : "",
+                (page, nextCursor) -> { },
+                () -> true,
+                0L,
+                pool);
+
+        assertThat(seenByFetch).hasSize(3)
+                .allSatisfy(seen -> assertThat(seen).contains(new WbApiEventAttemptContext.AttemptInfo(2, 5, 77L)));
+        assertThat(WbApiEventAttemptContext.resolveAttemptDisplay(1, 3))
+                .isEqualTo(new WbApiEventAttemptContext.AttemptDisplay(3, 5));
+    }
+
+    @Test
+    void poolThreadIsClearedAfterTask() throws Exception {
+        Optional<WbApiEventAttemptContext.AttemptInfo> attempt =
+                Optional.of(new WbApiEventAttemptContext.AttemptInfo(0, 3, 1L));
+
+        pool.submit(() -> WbApiEventAttemptContext.runWith(attempt, () -> { })).get();
+
+        assertThat(pool.submit(WbApiEventAttemptContext::current).get()).isEmpty();
+    }
+
+    @Test
+    void callerThreadKeepsOwnContext() {
+        WbApiEventAttemptContext.set(1, 5, 10L);
+        Optional<WbApiEventAttemptContext.AttemptInfo> other =
+                Optional.of(new WbApiEventAttemptContext.AttemptInfo(4, 8, 20L));
+
+        Long seen = WbApiEventAttemptContext.callWith(other,
+                () -> WbApiEventAttemptContext.current().map(WbApiEventAttemptContext.AttemptInfo::eventId).orElse(null));
+
+        assertThat(seen).isEqualTo(20L);
+        assertThat(WbApiEventAttemptContext.current()).contains(new WbApiEventAttemptContext.AttemptInfo(1, 5, 10L));
+    }
+
+    @Test
+    void emptyAttemptHidesStaleContextOfExecutor() {
+        WbApiEventAttemptContext.set(1, 5, 10L);
+
+        Optional<WbApiEventAttemptContext.AttemptInfo> seen =
+                WbApiEventAttemptContext.callWith(Optional.empty(), WbApiEventAttemptContext::current);
+
+        assertThat(seen).isEmpty();
+        assertThat(WbApiEventAttemptContext.current()).isPresent();
+    }
+}
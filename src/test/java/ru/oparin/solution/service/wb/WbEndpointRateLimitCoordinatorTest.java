@@ -0,0 +1,113 @@
+package ru.oparin.solution.service.wb;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Слот лимита WB на заданной последовательности ответов: пачка по token bucket, {@code Remaining=0},
+ * вдвое меньшая скорость после 429 и фиксированная пауза для endpoint без заголовков лимита.
+ */
+class WbEndpointRateLimitCoordinatorTest {
+
+    private static final long SPACING_MS = 1_000L;
+
+    private final WbEndpointRateLimitCoordinator.RateSlot slot = new WbEndpointRateLimitCoordinator.RateSlot();
+
+    @Test
+    void limitHeadersAllowBurstUpToRemaining() {
+        slot.onResponse(0L, 200, limitHeaders(10, 9, null), SPACING_MS);
+
+        for (int i = 0; i < 9; i++) {
+            assertThat(slot.tryAcquire(0L)).isEqualTo(0L);
+        }
+        assertThat(slot.tryAcquire(0L)).isEqualTo(SPACING_MS);
+        assertThat(slot.tryAcquire(SPACING_MS)).isEqualTo(SPACING_MS);
+    }
+
+    @Test
+    void remainingZeroBlocksUntilReset() {
+        slot.onResponse(0L, 200, limitHeaders(10, 0, 3), SPACING_MS);
+
+        assertThat(slot.tryAcquire(100L)).isEqualTo(3_000L);
+        assertThat(slot.tryAcquire(3_000L)).isEqualTo(3_000L);
+        // Reset с 2xx выучен как время восстановления одного запроса.
+        assertThat(slot.tryAcquire(3_000L)).isEqualTo(6_000L);
+    }
+
+    @Test
+    void localBucketNeverExceedsRemainingReportedByWb() {
+        slot.onResponse(0L, 200, limitHeaders(10, 10, null), SPACING_MS);
+        slot.onResponse(0L, 200, limitHeaders(10, 2, null), SPACING_MS);
+
+        assertThat(slot.tryAcquire(0L)).isEqualTo(0L);
+        assertThat(slot.tryAcquire(0L)).isEqualTo(0L);
+        assertThat(slot.tryAcquire(0L)).isEqualTo(SPACING_MS);
+    }
+
+    @Test
+    void eachTooManyRequestsHalvesRefillRateDownToFloor() {
+        slot.onResponse(0L, 200, limitHeaders(10, 10, null), SPACING_MS);
+        for (int i = 0; i < 10; i++) {
+            assertThat(slot.tryAcquire(0L)).isEqualTo(0L);
+        }
+        assertThat(slot.tryAcquire(0L)).isEqualTo(SPACING_MS);
+
+        HttpHeaders retry = new HttpHeaders();
+        retry.add(Wb429RateLimitHeadersLogger.X_RATELIMIT_RETRY, "2");
+        slot.onResponse(0L, 429, retry, SPACING_MS);
+        assertThat(slot.tryAcquire(500L)).isEqualTo(2_000L);
+        assertThat(slot.tryAcquire(2_000L)).isEqualTo(4_000L);
+        assertThat(slot.tryAcquire(4_000L)).isEqualTo(4_000L);
+
+        long now = 4_000L;
+        for (long expectedWaitMs : new long[]{4_000L, 8_000L, 8_000L}) {
+            slot.onResponse(now, 429, new HttpHeaders(), SPACING_MS);
+            long retryAt = now + SPACING_MS;
+            assertThat(slot.tryAcquire(now)).isEqualTo(retryAt);
+            assertThat(slot.tryAcquire(retryAt)).isEqualTo(retryAt + expectedWaitMs);
+            now = retryAt + expectedWaitMs;
+            assertThat(slot.tryAcquire(now)).isEqualTo(now);
+        }
+    }
+
+    @Test
+    void withoutLimitHeadersFixedSpacingAfterEachSuccess() {
+        slot.onResponse(0L, 200, new HttpHeaders(), SPACING_MS);
+        assertThat(slot.hasBucket()).isFalse();
+        assertThat(slot.tryAcquire(0L)).isEqualTo(SPACING_MS);
+        assertThat(slot.tryAcquire(SPACING_MS)).isEqualTo(SPACING_MS);
+
+        slot.onResponse(SPACING_MS, 200, new HttpHeaders(), SPACING_MS);
+        assertThat(slot.tryAcquire(SPACING_MS)).isEqualTo(2 * SPACING_MS);
+
+        HttpHeaders reset = new HttpHeaders();
+        reset.add(Wb429RateLimitHeadersLogger.X_RATELIMIT_RESET, "5");
+        slot.onResponse(2_000L, 429, reset, SPACING_MS);
+        assertThat(slot.tryAcquire(2_000L)).isEqualTo(7_000L);
+        assertThat(slot.tryAcquire(7_000L)).isEqualTo(7_000L);
+
+        slot.onResponse(7_000L, 429, new HttpHeaders(), SPACING_MS);
+        assertThat(slot.tryAcquire(7_000L)).isEqualTo(8_000L);
+    }
+
+    @Test
+    void successWithoutHeadersKeepsLearnedBucket() {
+        slot.onResponse(0L, 200, limitHeaders(5, 5, null), SPACING_MS);
+        slot.onResponse(0L, 200, new HttpHeaders(), SPACING_MS);
+
+        assertThat(slot.hasBucket()).isTrue();
+        assertThat(slot.tryAcquire(0L)).isEqualTo(0L);
+    }
+
+    private static HttpHeaders limitHeaders(int limit, int remaining, Integer resetSec) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(Wb429RateLimitHeadersLogger.X_RATELIMIT_LIMIT, String.valueOf(limit));
+        headers.add(Wb429RateLimitHeadersLogger.X_RATELIMIT_REMAINING, String.valueOf(remaining));
+        if (resetSec != null) {
+            headers.add(Wb429RateLimitHeadersLogger.X_RATELIMIT_RESET, String.valueOf(resetSec));
+        }
+        return headers;
+    }
+}
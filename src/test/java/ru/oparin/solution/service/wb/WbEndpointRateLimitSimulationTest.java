@@ -0,0 +1,160 @@
+package ru.oparin.solution.service.wb;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Детерминированная симуляция слота лимита на виртуальных часах: сервер WB — token bucket (всплеск
+ * {@value #BURST}, один запрос восстанавливается за {@value #REFILL_MS} мс), отвечает с заголовками
+ * {@code X-Ratelimit-*}; клиент — один запрос в полёте на слот, ответ приходит через {@value #LATENCY_MS} мс
+ * и передаётся в {@link WbEndpointRateLimitCoordinator.RateSlot#onResponse}.
+ * <p>
+ * Базовая линия — тот же сервер, но клиент не видит заголовков лимита на 2xx и ждёт фиксированную паузу
+ * из метаданных типа события (прежнее поведение).
+ */
+class WbEndpointRateLimitSimulationTest {
+
+    private static final int BURST = 10;
+    private static final long REFILL_MS = 1_000L;
+    private static final long LATENCY_MS = 200L;
+    private static final long SPACING_MS = 1_000L;
+    private static final long HORIZON_MS = 120_000L;
+
+    @Test
+    void bucketBeatsFixedSpacingWithoutTooManyRequests() {
+        Simulation baseline = Simulation.run(new ScriptedWbBucket(false), false);
+        Simulation bucket = Simulation.run(new ScriptedWbBucket(false), true);
+
+        assertThat(baseline.tooManyRequests).isZero();
+        assertThat(baseline.completed).isEqualTo((int) (HORIZON_MS / (LATENCY_MS + SPACING_MS)));
+        assertThat(bucket.tooManyRequests).isZero();
+        assertThat(bucket.completed).isGreaterThan(baseline.completed);
+        // Всплеск уходит без пауз, с задержкой только на сетевой ответ.
+        assertThat(bucket.sentAt.subList(0, BURST)).containsExactly(0L, 200L, 400L, 600L, 800L,
+                1_000L, 1_200L, 1_400L, 1_600L, 1_800L);
+    }
+
+    /**
+     * {@code onSuccessWithLimitHeaders} считает наибольший {@code X-Ratelimit-Reset} на 2xx временем
+     * восстановления одного запроса. Если WB отдаёт в нём время до следующего запроса, после всплеска слот
+     * идёт ровно с интервалом пополнения сервера.
+     */
+    @Test
+    void perRequestResetIsLearnedAsServerRefillInterval() {
+        Simulation bucket = Simulation.run(new ScriptedWbBucket(false), true);
+
+        List<Long> steady = bucket.sentAt.subList(BURST + 2, bucket.sentAt.size());
+        for (int i = 1; i < steady.size(); i++) {
+            assertThat(steady.get(i) - steady.get(i - 1)).isEqualTo(REFILL_MS);
+        }
+    }
+
+    /**
+     * Если бы {@code X-Ratelimit-Reset} на 2xx означал время до восстановления всего всплеска, выученный
+     * интервал оказался бы в {@value #BURST} раз больше: 429 по-прежнему нет, но после всплеска слот заметно
+     * медленнее сервера. Тест фиксирует это следствие допущения.
+     */
+    @Test
+    void fullBurstResetIsSafeButSlowsSlotDown() {
+        Simulation bucket = Simulation.run(new ScriptedWbBucket(true), true);
+
+        assertThat(bucket.tooManyRequests).isZero();
+        assertThat(bucket.completed).isGreaterThanOrEqualTo(BURST);
+        assertThat(bucket.sentAt.get(BURST + 1) - bucket.sentAt.get(BURST)).isGreaterThan(BURST / 2 * REFILL_MS);
+    }
+
+    /**
+     * Сервер WB: дискретный token bucket. Пока bucket полон, пополнение стоит; первый запрос из полного bucket
+     * запускает таймер. {@code fullBurstReset} — {@code X-Ratelimit-Reset} на 2xx до восстановления всего
+     * всплеска, иначе до следующего запроса.
+     */
+    private static final class ScriptedWbBucket {
+        private final boolean fullBurstReset;
+        private int tokens = BURST;
+        private long nextRefillAtMs = Long.MAX_VALUE;
+
+        ScriptedWbBucket(boolean fullBurstReset) {
+            this.fullBurstReset = fullBurstReset;
+        }
+
+        /** Обрабатывает запрос, пришедший в {@code now}; возвращает статус и заголовки ответа. */
+        Response handle(long now) {
+            refill(now);
+            HttpHeaders headers = new HttpHeaders();
+            headers.add(Wb429RateLimitHeadersLogger.X_RATELIMIT_LIMIT, String.valueOf(BURST));
+            if (tokens == 0) {
+                long retrySec = ceilSeconds(nextRefillAtMs - now);
+                headers.add(Wb429RateLimitHeadersLogger.X_RATELIMIT_REMAINING, "0");
+                headers.add(Wb429RateLimitHeadersLogger.X_RATELIMIT_RETRY, String.valueOf(retrySec));
+                headers.add(Wb429RateLimitHeadersLogger.X_RATELIMIT_RESET, String.valueOf(retrySec));
+                return new Response(429, headers);
+            }
+            if (tokens == BURST) {
+                nextRefillAtMs = now + REFILL_MS;
+            }
+            tokens--;
+            long resetMs = nextRefillAtMs - now;
+            if (fullBurstReset) {
+                resetMs += (BURST - tokens - 1) * REFILL_MS;
+            }
+            headers.add(Wb429RateLimitHeadersLogger.X_RATELIMIT_REMAINING, String.valueOf(tokens));
+            headers.add(Wb429RateLimitHeadersLogger.X_RATELIMIT_RESET, String.valueOf(ceilSeconds(resetMs)));
+            return new Response(200, headers);
+        }
+
+        private void refill(long now) {
+            while (tokens < BURST && now >= nextRefillAtMs) {
+                tokens++;
+                nextRefillAtMs = tokens < BURST ? nextRefillAtMs + REFILL_MS : Long.MAX_VALUE;
+            }
+        }
+
+        private static long ceilSeconds(long ms) {
+            return (ms + 999) / 1_000;
+        }
+    }
+
+    private record Response(int status, HttpHeaders headers) {
+    }
+
+    /**
+     * Клиент на виртуальных часах: ждёт время из {@code tryAcquire}, отправляет запрос, через задержку сети
+     * отдаёт ответ слоту. Без заголовков лимита ({@code limitHeadersVisible = false}) 2xx приходит пустым.
+     */
+    private static final class Simulation {
+        private final List<Long> sentAt = new ArrayList<>();
+        private int completed;
+        private int tooManyRequests;
+
+        static Simulation run(ScriptedWbBucket server, boolean limitHeadersVisible) {
+            Simulation simulation = new Simulation();
+            WbEndpointRateLimitCoordinator.RateSlot slot = new WbEndpointRateLimitCoordinator.RateSlot();
+            long now = 0L;
+            while (now < HORIZON_MS) {
+                long until = slot.tryAcquire(now);
+                if (until > now) {
+                    now = until;
+                    continue;
+                }
+                simulation.sentAt.add(now);
+                Response response = server.handle(now);
+                now += LATENCY_MS;
+                HttpHeaders headers = response.status() == 200 && !limitHeadersVisible
+                        ? new HttpHeaders()
+                        : response.headers();
+                slot.onResponse(now, response.status(), headers, SPACING_MS);
+                if (response.status() == 200) {
+                    simulation.completed++;
+                } else {
+                    simulation.tooManyRequests++;
+                }
+            }
+            return simulation;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package ru.oparin.solution.service.wb;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import ru.oparin.solution.dto.wb.WbOrdersResponse;
+import ru.oparin.solution.exception.WbRateLimitDeferException;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link WbOrdersApiClient#streamOrders}: заказы отдаются по одному по мере чтения потока ответа,
+ * битый или оборванный JSON не теряет уже прочитанные заказы и откладывает повтор, ответ не массивом — ошибка.
+ */
+class WbOrdersApiClientTest {
+
+    private static final LocalDateTime DATE_FROM = LocalDateTime.of(2026, 3, 1, 0, 0);
+    private static final String API_KEY = "orders-key";
+
+    private final WbOrdersApiClient client = new WbOrdersApiClient();
+    private final List<WbOrdersResponse.Order> received = new ArrayList<>();
+
+    @Test
+    void ordersAreConsumedWhileResponseIsStillBeingRead() {
+        int orders = 20_000;
+        CountingBody body = respondWith(ordersArray(orders));
+        List<Long> bytesReadAtOrder = new ArrayList<>();
+
+        int count = client.streamOrders(API_KEY, DATE_FROM, order -> {
+            received.add(order);
+            bytesReadAtOrder.add(body.bytesRead);
+        });
+
+        assertThat(count).isEqualTo(orders);
+        assertThat(received).extracting(WbOrdersResponse.Order::getSrid)
+                .startsWith("srid-0", "srid-1")
+                .endsWith("srid-" + (orders - 1));
+        // Первый заказ разобран, когда прочитан только первый буфер парсера, а не всё тело.
+        assertThat(body.size).isGreaterThan(2_000_000L);
+        assertThat(bytesReadAtOrder.get(0)).isLessThan(64L * 1024);
+        assertThat(bytesReadAtOrder.get(orders / 2)).isLessThan(body.size);
+    }
+
+    @Test
+    void malformedOrderKeepsEarlierOrdersAndDefersRetry() {
+        respondWith("[" + order(0) + "," + order(1) + ",{\"srid\":\"srid-2\",\"nmId\":oops}]");
+
+        assertThatThrownBy(() -> client.streamOrders(API_KEY, DATE_FROM, received::add))
+                .isInstanceOf(WbRateLimitDeferException.class);
+        assertThat(received).extracting(WbOrdersResponse.Order::getSrid).containsExactly("srid-0", "srid-1");
+    }
+
+    @Test
+    void truncatedResponseKeepsCompleteOrdersAndDefersRetry() {
+        String full = "[" + order(0) + "," + order(1) + "," + order(2) + "]";
+        respondWith(full.substring(0, full.indexOf("srid-2") + 10));
+
+        assertThatThrownBy(() -> client.streamOrders(API_KEY, DATE_FROM, received::add))
+                .isInstanceOf(WbRateLimitDeferException.class);
+        assertThat(received).extracting(WbOrdersResponse.Order::getSrid).containsExactly("srid-0", "srid-1");
+    }
+
+    @Test
+    void wrongFieldTypeIsNotSilentlySkipped() {
+        respondWith("[" + order(0) + ",{\"srid\":\"srid-1\",\"nmId\":\"not-a-number\"}," + order(2) + "]");
+
+        assertThatThrownBy(() -> client.streamOrders(API_KEY, DATE_FROM, received::add))
+                .isInstanceOf(WbRateLimitDeferException.class);
+        assertThat(received).extracting(WbOrdersResponse.Order::getSrid).containsExactly("srid-0");
+    }
+
+    @Test
+    void nonArrayResponseFailsWithoutRetry() {
+        respondWith("{\"orders\":[" + order(0) + "]}");
+
+        assertThatThrownBy(() -> client.streamOrders(API_KEY, DATE_FROM, received::add))
+                .isInstanceOf(RestClientException.class)
+                .isNotInstanceOf(WbRateLimitDeferException.class)
+                .hasMessageContaining("START_OBJECT");
+        assertThat(received).isEmpty();
+    }
+
+    @Test
+    void emptyOrNullBodyMeansNoOrders() {
+        respondWith("");
+        assertThat(client.streamOrders(API_KEY, DATE_FROM, received::add)).isZero();
+
+        respondWith("null");
+        assertThat(client.streamOrders(API_KEY, DATE_FROM, received::add)).isZero();
+
+        respondWith("[]");
+        assertThat(client.streamOrders(API_KEY, DATE_FROM, received::add)).isZero();
+        assertThat(received).isEmpty();
+    }
+
+    /**
+     * Подменяет транспорт клиента: любой запрос получает 200 с телом {@code json}, читаемым из счётчика байт.
+     */
+    private CountingBody respondWith(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        CountingBody body = new CountingBody(new ByteArrayInputStream(bytes), bytes.length);
+        client.restTemplate = new RestTemplate((URI uri, HttpMethod method) -> {
+            MockClientHttpRequest request = new MockClientHttpRequest(method, uri);
+            request.setResponse(new MockClientHttpResponse(body, HttpStatus.OK));
+            return request;
+        });
+        return body;
+    }
+
+    private static String ordersArray(int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(order(i));
+        }
+        return json.append(']').toString();
+    }
+
+    private static String order(int i) {
+        return """
+                {"srid":"srid-%d","gNumber":"g-%d","nmId":%d,"barcode":"200000%d","supplierArticle":"art-%d",\
+                "warehouseName":"Коледино","totalPrice":1500.00,"discountPercent":30,"spp":25,\
+                "finishedPrice":787.50,"priceWithDisc":1050.00,"isCancel":false,"cancelDate":"0001-01-01T00:00:00",\
+                "date":"2026-03-01T10:%02d:00","lastChangeDate":"2026-03-01T11:%02d:00"}"""
+                .formatted(i, i, 100_000 + i % 50, i, i % 50, i % 60, i % 60);
+    }
+
+    /**
+     * Тело ответа, считающее прочитанные из него байты.
+     */
+    private static final class CountingBody extends FilterInputStream {
+
+        private final long size;
+        private long bytesRead;
+
+        CountingBody(InputStream in, long size) {
+            super(in);
+            this.size = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                bytesRead++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                bytesRead += n;
+            }
+            return n;
+        }
+    }
+}
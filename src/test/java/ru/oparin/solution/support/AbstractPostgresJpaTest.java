@@ -0,0 +1,24 @@
+package ru.oparin.solution.support;
+
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * JPA-срез на настоящем PostgreSQL с миграциями проекта ({@code ddl-auto: validate} проверяет сущности по схеме).
+ * Каждый тест по умолчанию в откатываемой транзакции {@link DataJpaTest}.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class AbstractPostgresJpaTest {
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", PostgresTestDatabase::applicationJdbcUrl);
+        registry.add("spring.datasource.username", () -> PostgresTestDatabase.container().getUsername());
+        registry.add("spring.datasource.password", () -> PostgresTestDatabase.container().getPassword());
+    }
+}
@@ -0,0 +1,52 @@
+package ru.oparin.solution.support;
+
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Один PostgreSQL-контейнер на прогон тестов с применёнными миграциями.
+ * Стартует при первом обращении; без Docker тесты-наследники {@link AbstractPostgresJpaTest} пропускаются.
+ */
+public final class PostgresTestDatabase {
+
+    private static final String IMAGE = "postgres:16-alpine";
+
+    private PostgresTestDatabase() {
+    }
+
+    public static PostgreSQLContainer<?> container() {
+        return Holder.CONTAINER;
+    }
+
+    /**
+     * JDBC URL приложения: схема {@code solution} и переписывание батчей INSERT, как в {@code application.yaml}.
+     */
+    public static String applicationJdbcUrl() {
+        return container().getJdbcUrl() + "&currentSchema=solution&reWriteBatchedInserts=true";
+    }
+
+    public static Connection connect() throws SQLException {
+        PostgreSQLContainer<?> container = container();
+        return DriverManager.getConnection(applicationJdbcUrl(), container.getUsername(), container.getPassword());
+    }
+
+    private static final class Holder {
+        private static final PostgreSQLContainer<?> CONTAINER = start();
+
+        private static PostgreSQLContainer<?> start() {
+            PostgreSQLContainer<?> container = new PostgreSQLContainer<>(IMAGE);
+            container.start();
+            try (Connection connection = DriverManager.getConnection(
+                    container.getJdbcUrl(), container.getUsername(), container.getPassword())) {
+                SqlMigrations.apply(connection);
+            } catch (Exception e) {
+                container.stop();
+                throw new IllegalStateException("Не удалось применить миграции к тестовой БД", e);
+            }
+            return container;
+        }
+    }
+}
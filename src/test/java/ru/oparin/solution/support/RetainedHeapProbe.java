@@ -0,0 +1,68 @@
+package ru.oparin.solution.support;
+
+import java.io.OutputStream;
+
+/**
+ * Поток-заглушка для тестов выгрузок: считает байты и строки и каждые {@code checkpointLines} строк
+ * замеряет занятую кучу после сборки мусора. Рост удерживаемой памяти между первым и последним замером
+ * показывает, копятся ли строки где-то по пути.
+ */
+public final class RetainedHeapProbe extends OutputStream {
+
+    private final long checkpointLines;
+    private long bytes;
+    private long lines;
+    private long firstRetained = -1;
+    private long maxRetained;
+
+    public RetainedHeapProbe(long checkpointLines) {
+        this.checkpointLines = checkpointLines;
+    }
+
+    @Override
+    public void write(int b) {
+        bytes++;
+        if (b == '\n' && ++lines % checkpointLines == 0) {
+            checkpoint();
+        }
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            write(buffer[i]);
+        }
+    }
+
+    public long bytes() {
+        return bytes;
+    }
+
+    public long lines() {
+        return lines;
+    }
+
+    /**
+     * @return наибольший прирост удерживаемой кучи относительно первого замера, байт
+     */
+    public long retainedGrowth() {
+        return firstRetained < 0 ? 0 : maxRetained - firstRetained;
+    }
+
+    /**
+     * Замер вне потока записи (например, по счётчику строк, когда формат не построчный).
+     */
+    public void checkpoint() {
+        long retained = retainedHeap();
+        if (firstRetained < 0) {
+            firstRetained = retained;
+        }
+        maxRetained = Math.max(maxRetained, retained);
+    }
+
+    private static long retainedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
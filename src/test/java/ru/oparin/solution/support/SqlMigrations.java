@@ -0,0 +1,37 @@
+package ru.oparin.solution.support;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Применяет миграции {@code classpath:sql/*.sql} к пустой БД в порядке имён файлов.
+ * Каждый файл выполняется целиком: в части миграций есть блоки {@code DO $$ ... $$}.
+ */
+public final class SqlMigrations {
+
+    private SqlMigrations() {
+    }
+
+    /**
+     * @return число применённых файлов
+     */
+    public static int apply(Connection connection) throws IOException, SQLException {
+        Resource[] scripts = new PathMatchingResourcePatternResolver().getResources("classpath:sql/*.sql");
+        Arrays.sort(scripts, Comparator.comparing(Resource::getFilename));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SCHEMA IF NOT EXISTS solution");
+            for (Resource script : scripts) {
+                statement.execute(script.getContentAsString(StandardCharsets.UTF_8));
+            }
+        }
+        return scripts.length;
+    }
+}
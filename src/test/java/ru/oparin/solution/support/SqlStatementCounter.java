@@ -0,0 +1,170 @@
+package ru.oparin.solution.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчик SQL-команд для тестов: оборачивает бин {@link DataSource} прокси и запоминает текст каждого
+ * выполнения {@code execute*} ({@code executeBatch} — одно обращение к БД, с SQL подготовленного запроса).
+ * <p>
+ * Подключается через {@link StatementCountingConfiguration}; {@code unwrap}/{@code isWrapperFor}
+ * делегируются, так что COPY через {@code PGConnection} работает (и не считается).
+ * <p>
+ * {@link #countOnly()} — только счётчики, без текстов SQL: для нагрузочного прогона, где список команд
+ * рос бы без ограничений, а общий монитор на каждую команду тормозил бы потоки.
+ */
+public class SqlStatementCounter implements BeanPostProcessor {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    /** Тексты команд; {@code null} в режиме {@link #countOnly()}. */
+    private final List<String> executed;
+    private final LongAdder total = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    public SqlStatementCounter() {
+        this(true);
+    }
+
+    private SqlStatementCounter(boolean keepStatements) {
+        this.executed = keepStatements ? new ArrayList<>() : null;
+    }
+
+    /**
+     * Счётчик без текстов SQL: {@link #total()} и {@link #batches()} работают, {@link #count(String)}
+     * и {@link #statements()} — нет.
+     */
+    public static SqlStatementCounter countOnly() {
+        return new SqlStatementCounter(false);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        return bean instanceof DataSource dataSource ? wrap(dataSource) : bean;
+    }
+
+    public void reset() {
+        if (executed != null) {
+            synchronized (executed) {
+                executed.clear();
+            }
+        }
+        total.reset();
+        batches.reset();
+    }
+
+    /**
+     * @return все обращения к БД с последнего {@link #reset()}
+     */
+    public int total() {
+        return total.intValue();
+    }
+
+    /**
+     * @return из них {@code executeBatch}
+     */
+    public int batches() {
+        return batches.intValue();
+    }
+
+    /**
+     * @param keyword первое слово SQL ({@code select}, {@code insert}, {@code update}, {@code delete})
+     * @return число обращений, чей SQL начинается с этого слова (без учёта регистра)
+     */
+    public int count(String keyword) {
+        String prefix = keyword.toLowerCase(Locale.ROOT);
+        return (int) statements().stream().filter(sql -> sql.startsWith(prefix)).count();
+    }
+
+    /**
+     * @return тексты выполненных команд (нижний регистр, без ведущих пробелов) — для сообщений об ошибке
+     */
+    public List<String> statements() {
+        if (executed == null) {
+            throw new IllegalStateException("Счётчик создан без текстов SQL (countOnly)");
+        }
+        synchronized (executed) {
+            return List.copyOf(executed);
+        }
+    }
+
+    private void record(String sql, boolean batch) {
+        total.increment();
+        if (batch) {
+            batches.increment();
+        }
+        if (executed != null) {
+            synchronized (executed) {
+                executed.add(sql == null ? "" : sql.strip().toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    private DataSource wrap(DataSource target) {
+        return proxy(DataSource.class, target, (result, args) ->
+                result instanceof Connection connection ? wrapConnection(connection) : result);
+    }
+
+    private Connection wrapConnection(Connection target) {
+        return proxy(Connection.class, target, (result, args) -> {
+            if (!(result instanceof Statement statement)) {
+                return result;
+            }
+            String preparedSql = args != null && args.length > 0 && args[0] instanceof String sql ? sql : null;
+            return wrapStatement(statement, preparedSql);
+        });
+    }
+
+    private Statement wrapStatement(Statement target, String preparedSql) {
+        Class<?> type = target instanceof CallableStatement ? CallableStatement.class
+                : target instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (EXECUTE_METHODS.contains(method.getName())) {
+                record(args != null && args.length > 0 && args[0] instanceof String sql ? sql : preparedSql,
+                        method.getName().endsWith("Batch"));
+            }
+            return invoke(target, method, args);
+        };
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private <T> T proxy(Class<T> type, T target, ResultWrapper wrapper) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if ("unwrap".equals(method.getName()) && args != null && args[0] instanceof Class<?> iface
+                    && iface.isInstance(target)) {
+                return target;
+            }
+            return wrapper.wrap(invoke(target, method, args), args);
+        };
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ResultWrapper {
+        Object wrap(Object result, Object[] args) throws Throwable;
+    }
+}
@@ -0,0 +1,16 @@
+package ru.oparin.solution.support;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Подключает {@link SqlStatementCounter} к контексту теста: {@code @Import(StatementCountingConfiguration.class)}.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class StatementCountingConfiguration {
+
+    @Bean
+    public static SqlStatementCounter sqlStatementCounter() {
+        return new SqlStatementCounter();
+    }
+}
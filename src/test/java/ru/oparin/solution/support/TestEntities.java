@@ -0,0 +1,43 @@
+package ru.oparin.solution.support;
+
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.oparin.solution.model.*;
+
+/**
+ * Минимальные пользователь и кабинет для тестов на БД.
+ */
+public final class TestEntities {
+
+    private TestEntities() {
+    }
+
+    public static User user(TestEntityManager em, String email) {
+        return em.persist(User.builder()
+                .email(email)
+                .password("test")
+                .name("Test")
+                .role(Role.USER)
+                .build());
+    }
+
+    public static Cabinet wbCabinet(TestEntityManager em, User user, String apiKey) {
+        return em.persist(Cabinet.builder()
+                .user(user)
+                .name("Test " + apiKey)
+                .apiKey(apiKey)
+                .marketplaceType(MarketplaceType.WB)
+                .tokenType(CabinetTokenType.PERSONAL)
+                .isValid(true)
+                .build());
+    }
+
+    public static WbPromotionCampaign wbCampaign(TestEntityManager em, Cabinet cabinet, long advertId) {
+        return em.persist(WbPromotionCampaign.builder()
+                .advertId(advertId)
+                .cabinet(cabinet)
+                .name("Campaign " + advertId)
+                .type(WbCampaignType.AUCTION)
+                .status(WbCampaignStatus.ACTIVE)
+                .build());
+    }
+}